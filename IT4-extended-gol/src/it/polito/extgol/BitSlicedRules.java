@@ -0,0 +1,182 @@
+package it.polito.extgol;
+
+/**
+ * Bit-sliced evaluation of the rules phase of one step, 64 cells per long.
+ *
+ * The alive state of the board is packed row by row into words, so that the
+ * neighbour counts of 64 cells are computed at once by an adder network over
+ * the eight shifted neighbour words, producing the count as four bit planes.
+ * Every CellType then only differs by a mask of the cells of that type and
+ * the set of counts between its under- and overpopulation bounds, both built
+ * from the CellType fields. Death counters are kept as a side plane of
+ * bit-sliced counters, compared with and incremented up to survivableDeaths
+ * word by word.
+ *
+ * The outcome is exactly the one of Cell.evolve followed by the lifePoints
+ * update of ExtendedGameOfLife.advance, including its quirks: a cell whose
+ * type still has survivable deaths left is kept (or brought) alive whether
+ * or not it was alive, and newborn cells restart from 0 lifePoints. Only the
+ * cells that are alive now or may be alive next are visited individually, to
+ * update their lifePoints and apply the lifePoints >= 0 condition.
+ *
+ * Load instances through PackedRules.load(board, RuleEngine.BIT_SLICED).
+ */
+class BitSlicedRules extends PackedRules {
+
+    /** Number of bit planes of the death counters, enough for every CellType. */
+    private static final int DEATH_BITS;
+
+    /** Largest value of a death counter; larger death counts are clamped to it. */
+    private static final int MAX_DEATHS;
+
+    /** For every CellType, bit k set if a cell with k alive neighbours is within bounds. */
+    private static final int[] BOUNDS = new int[CellType.VALUES.length];
+
+    static {
+        int max = 0;
+        for (CellType t : CellType.VALUES) {
+            max = Math.max(max, t.survivableDeaths);
+            for (int k = Math.max(0, t.underpopulationBound); k <= Math.min(8, t.overpopulationBound); k++) {
+                BOUNDS[t.ordinal()] |= 1 << k;
+            }
+        }
+        DEATH_BITS = Math.max(1, 32 - Integer.numberOfLeadingZeros(max));
+        MAX_DEATHS = (1 << DEATH_BITS) - 1;
+    }
+
+    private final long[][] types = new long[CellType.VALUES.length][];
+    private final long[][] deaths = new long[DEATH_BITS][];
+
+    BitSlicedRules(Board board) {
+        super(board);
+        int size = words * height;
+        for (int t = 0; t < types.length; t++) types[t] = new long[size];
+        for (int b = 0; b < DEATH_BITS; b++) deaths[b] = new long[size];
+    }
+
+    @Override
+    void load(Cell c, int x, int y, int i, long bit) {
+        types[c.getType().ordinal()][i] |= bit;
+        // counts reaching every survivableDeaths behave alike, and are only ever reset
+        int d = Math.min(c.getDeathCount(), MAX_DEATHS);
+        for (int b = 0; b < DEATH_BITS; b++) {
+            if ((d >>> b & 1) != 0) deaths[b][i] |= bit;
+        }
+    }
+
+    @Override
+    void evaluate() {
+        for (int y = 0; y < height; y++) {
+            int row = y * words;
+            for (int w = 0; w < words; w++) {
+                int i = row + w;
+                long a = alive[i];
+
+                // neighbour count as bit planes s0..s3 (weights 1, 2, 4, 8)
+                long n0 = 0, n1 = 0, n2 = 0, n3 = 0, n4 = 0, n5 = 0, n6 = 0, n7 = 0;
+                if (y > 0) {
+                    int up = i - words;
+                    n0 = west(up, w);
+                    n1 = alive[up];
+                    n2 = east(up, w);
+                }
+                n3 = west(i, w);
+                n4 = east(i, w);
+                if (y + 1 < height) {
+                    int down = i + words;
+                    n5 = west(down, w);
+                    n6 = alive[down];
+                    n7 = east(down, w);
+                }
+                long x01 = n0 ^ n1;
+                long sa = x01 ^ n2;
+                long ca = (n0 & n1) | (n2 & x01);
+                long x34 = n3 ^ n4;
+                long sb = x34 ^ n5;
+                long cb = (n3 & n4) | (n5 & x34);
+                long sc = n6 ^ n7;
+                long cc = n6 & n7;
+                long xab = sa ^ sb;
+                long s0 = xab ^ sc;
+                long c0 = (sa & sb) | (sc & xab);
+                long xcc = ca ^ cb;
+                long t = xcc ^ cc;
+                long c1 = (ca & cb) | (cc & xcc);
+                long s1 = t ^ c0;
+                long c2 = t & c0;
+                long s2 = c1 ^ c2;
+                long s3 = c1 & c2;
+
+                long inBounds = 0;
+                long survives = 0;
+                long eq3 = 0;
+                for (int k = 0; k <= 8; k++) {
+                    long eq = ((k & 1) != 0 ? s0 : ~s0) & ((k & 2) != 0 ? s1 : ~s1)
+                            & ((k & 4) != 0 ? s2 : ~s2) & ((k & 8) != 0 ? s3 : ~s3);
+                    if (k == 3) eq3 = eq;
+                    for (int type = 0; type < types.length; type++) {
+                        if ((BOUNDS[type] >>> k & 1) != 0) inBounds |= types[type][i] & eq;
+                    }
+                }
+                for (CellType type : CellType.VALUES) {
+                    long mask = types[type.ordinal()][i];
+                    if (mask != 0 && type.survivableDeaths > 0) {
+                        survives |= mask & lessThan(i, type.survivableDeaths);
+                    }
+                }
+
+                long born = ~a & eq3 & inBounds;
+                long lives = (a & inBounds) | born;
+                long rescued = ~lives & survives;
+                long willLive = lives | rescued;
+
+                long resetCounters = 0;
+                for (int b = 0; b < DEATH_BITS; b++) {
+                    resetCounters |= deaths[b][i] & lives;
+                    deaths[b][i] &= ~lives;
+                }
+                long carry = rescued;
+                for (int b = 0; b < DEATH_BITS && carry != 0; b++) {
+                    long overflow = deaths[b][i] & carry;
+                    deaths[b][i] ^= carry;
+                    carry = overflow;
+                }
+                for (long m = resetCounters | rescued; m != 0; m &= m - 1) {
+                    Cell c = board.cellAt((w << 6) + Long.numberOfTrailingZeros(m), y);
+                    c.setDeathCount((m & -m & resetCounters) != 0 ? 0 : c.getDeathCount() + 1);
+                }
+
+                long result = 0;
+                for (long m = a | willLive; m != 0; m &= m - 1) {
+                    long bit = m & -m;
+                    int x = (w << 6) + Long.numberOfTrailingZeros(m);
+                    Cell c = board.cellAt(x, y);
+                    if ((born & bit) != 0) {
+                        c.setLifePoints(0);
+                    } else if ((a & bit) != 0) {
+                        c.addLifePoints(board.tileAt(x, y).getLifePointModifier());
+                        c.addLifePoints((willLive & bit) != 0 ? 1 : -1);
+                    }
+                    if ((willLive & bit) != 0 && c.getLifePoints() >= 0) result |= bit;
+                }
+                next[i] = result;
+            }
+        }
+    }
+
+    /** Cells of word i whose death counter is below the constant k. */
+    private long lessThan(int i, int k) {
+        long lt = 0;
+        long eq = -1L;
+        for (int b = DEATH_BITS - 1; b >= 0; b--) {
+            long d = deaths[b][i];
+            if ((k >>> b & 1) != 0) {
+                lt |= eq & ~d;
+                eq &= d;
+            } else {
+                eq &= ~d;
+            }
+        }
+        return lt;
+    }
+}
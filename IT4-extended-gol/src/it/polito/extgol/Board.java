@@ -1,5 +1,6 @@
 package it.polito.extgol;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -21,6 +22,7 @@ import jakarta.persistence.Id;
 import jakarta.persistence.MapKey;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.Transient;
 
 /**
  * Entity representing the game board grid in the Extended Game of Life.
@@ -70,6 +72,23 @@ public class Board {
     @MapKey(name = "tileCoord")
     private Map<Coord, Tile> tiles = new HashMap<>();
 
+    /**
+     * Row-major index of the tiles, built on first positional access so that
+     * hot loops avoid hashing a Coord per lookup and iterate the board in a
+     * deterministic order. Not persisted; volatile since readers of published
+     * generations may build it from other threads.
+     */
+    @Transient
+    private volatile Tile[] tileGrid;
+
+    /**
+     * Off-heap state of every cell, for boards created with createOffHeap(...).
+     * When set, the tiles map stays empty and tiles/cells are flyweight views
+     * created on demand. Not persisted.
+     */
+    @Transient
+    private StatePlanes planes;
+
     /**
      * Default constructor required by JPA.
      */
@@ -91,6 +110,58 @@ public class Board {
         initializeTiles();
     }
 
+    /**
+     * Constructs a Board whose cell state is stored in the given off-heap planes.
+     *
+     * @param planes the planes holding every cell's state
+     * @param g      the Game instance this board belongs to
+     */
+    private Board(StatePlanes planes, Game g) {
+        this.width = planes.getWidth();
+        this.height = planes.getHeight();
+        this.game = g;
+        this.planes = planes;
+    }
+
+    /**
+     * Factory method to create an extended Board whose cell state lives off the
+     * Java heap, in direct memory.
+     *
+     * No Tile or Cell objects are kept: the alive bit, lifePoints, type, mood,
+     * death count and tile modifier of every position are stored in compact
+     * planes, and getTile(...) returns lightweight views created on demand. All
+     * cells start dead, NAIVE and BASIC, with a lifePoints modifier of 0.
+     * Such boards are meant for in-memory simulation and cannot be persisted.
+     *
+     * Evolving and capturing such a board works on the planes by index and
+     * creates no views, so boards of more than Integer.MAX_VALUE cells can be
+     * evolved. Enumerating the tiles with getTiles() creates one view per cell
+     * and is limited to boards whose tiles fit in a List.
+     *
+     * @param width  the number of columns on the board
+     * @param height the number of rows on the board
+     * @param game   the Game instance to which this board belongs
+     * @return the off-heap Board
+     */
+    public static Board createOffHeap(int width, int height, Game game) {
+        return new Board(StatePlanes.allocate(width, height), game);
+    }
+
+    /**
+     * Factory method to create an extended Board whose cell state is stored in
+     * memory-mapped files inside the given directory, so that boards larger than
+     * the available memory can be simulated. Existing plane files are reopened.
+     *
+     * @param width     the number of columns on the board
+     * @param height    the number of rows on the board
+     * @param game      the Game instance to which this board belongs
+     * @param directory the directory holding one file per state plane
+     * @return the file-backed Board
+     */
+    public static Board createOffHeap(int width, int height, Game game, Path directory) {
+        return new Board(StatePlanes.map(width, height, directory), game);
+    }
+
     /**
      * Factory method to create a fully initialized Board for the extended Game of Life.
      * 
@@ -136,7 +207,8 @@ public class Board {
      * enabling neighbor-based logic in the simulation.
      */
     private void initializeTiles() {
-        tiles.clear();        
+        tiles.clear();
+        tileGrid = null;
         for (int y = 0; y < height; y++) {
             for (int x = 0; x < width; x++) {
                 Tile tile = new Tile(x, y, this, this.game);
@@ -190,6 +262,24 @@ public class Board {
         return id;
     }
 
+    /**
+     * Returns the number of columns of this Board.
+     *
+     * @return the board width
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the number of rows of this Board.
+     *
+     * @return the board height
+     */
+    public int getHeight() {
+        return height;
+    }
+
     /**
      * Retrieves the Tile at the specified coordinates.
      *
@@ -197,18 +287,100 @@ public class Board {
      * @return the Tile at those coordinates
      */
     public Tile getTile(Coord c){
+        if (planes != null) {
+            if (c.getX() < 0 || c.getX() >= width || c.getY() < 0 || c.getY() >= height) return null;
+            return new PlaneTile(planes, c.getX(), c.getY(), this, game);
+        }
         return tiles.get(c);
     }
 
+    /**
+     * Tells whether the cell state of this Board is stored off-heap.
+     *
+     * @return true for boards created with createOffHeap(...)
+     */
+    public boolean isOffHeap() {
+        return planes != null;
+    }
+
+    /**
+     * Returns the off-heap planes of this Board.
+     *
+     * @return the StatePlanes, or null for boards whose cells live on the heap
+     */
+    StatePlanes getPlanes() {
+        return planes;
+    }
+
+    /**
+     * Retrieves the Cell at column x and row y through the positional index,
+     * without allocating a Coord or going through the tiles map.
+     *
+     * @param x the column of the cell
+     * @param y the row of the cell
+     * @return the Cell at that position, or null if its tile holds no cell
+     */
+    Cell cellAt(int x, int y) {
+        return tileAt(x, y).getCell();
+    }
+
+    /**
+     * Retrieves the Tile at column x and row y through the positional index.
+     *
+     * @param x the column of the tile
+     * @param y the row of the tile
+     * @return the Tile at that position
+     */
+    Tile tileAt(int x, int y) {
+        if (planes != null) {
+            return new PlaneTile(planes, x, y, this, game);
+        }
+        return tileGrid()[y * width + x];
+    }
+
+    /**
+     * Returns the row-major tile index, building it on first use.
+     *
+     * @return the tiles ordered by row, then column
+     */
+    private Tile[] tileGrid() {
+        Tile[] grid = tileGrid;
+        if (grid == null) {
+            grid = new Tile[width * height];
+            for (Tile t : tiles.values()) {
+                grid[t.getY() * width + t.getX()] = t;
+            }
+            tileGrid = grid;
+        }
+        return grid;
+    }
+
     /**
      * Returns an immutable list of all Tiles on this Board.
      *
      * This defensive copy prevents external modification of the board’s tile collection.
+     * Tiles are listed in row-major order (by row, then by column), which makes
+     * every simulation pass over the board deterministic. For off-heap boards
+     * the list holds freshly created tile views.
      *
      * @return a List of all Tile instances on the board
+     * @throws IllegalStateException if an off-heap board has more tiles than a
+     *                               List can hold
      */
     public List<Tile> getTiles() {
-        return List.copyOf(tiles.values());
+        if (planes != null) {
+            if (planes.size() > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("Board too large to enumerate its tiles");
+            }
+            List<Tile> views = new ArrayList<>((int) planes.size());
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    views.add(new PlaneTile(planes, x, y, this, game));
+                }
+            }
+            return Collections.unmodifiableList(views);
+        }
+        return List.of(tileGrid());
     }
 
     /**
@@ -218,7 +390,7 @@ public class Board {
      */
     public Set<Cell> getCellSet() {
         Set<Cell> cellSet = new HashSet<>();
-        for (Tile t : tiles.values()) {
+        for (Tile t : planes != null ? getTiles() : tiles.values()) {
             cellSet.add(t.getCell());
         }
         return cellSet;
@@ -233,21 +405,12 @@ public class Board {
      * @return a multi-line String representing the board, where each line corresponds to a row (y-coordinate)
      */
     public String visualize(Generation generation) {
-        Set<Coord> alive = generation.getAliveCells().stream()
-            .map(Cell::getCoordinates)
-            .collect(Collectors.toSet());
-        Map<Coord, Character> types = generation.getCellTypes().entrySet().stream()
-            .filter(e -> alive.contains(e.getKey().getCoordinates()))
-            .collect(Collectors.toMap(
-                e -> e.getKey().getCoordinates(),
-                e -> e.getValue().symbol
-            ));
-    
-        StringBuilder sb = new StringBuilder();
+        SnapshotGrid grid = generation.getSnapshot();
+        StringBuilder sb = new StringBuilder((width + 2) * height);
         for (int y = 0; y < height; y++) {
             for (int x = 0; x < width; x++) {
-                Coord c = new Coord(x, y);
-                sb.append(types.getOrDefault(c, '0'));
+                CellSnapshot snap = grid.get(x, y);
+                sb.append(snap != null && snap.isAlive() ? snap.cellType().symbol : '0');
             }
             // use height here so you don't append a newline after the last row
             if (y < height - 1) {
@@ -321,17 +484,15 @@ public class Board {
     /**
      * Counts alive cells per CellType in the given generation.
      *
+     * Reads the generation's snapshot rather than the live cells, so that the
+     * counts describe gen even while the game keeps running.
+     *
      * @param gen the Generation instance to analyze
      * @return a Map from CellType to the count of alive cells of that type
      */
     public Map<CellType, Integer> countCellsByType(Generation gen) {
-        Map<CellType, Integer> aliveCellTypes = gen.getCellTypes().entrySet().stream()
-                .filter(e -> e.getKey().isAlive())
-                .collect(Collectors.toMap(
-                    e -> e.getKey().getType(),
-                    e -> 1,
-                    Integer::sum
-                ));
+        Map<CellType, Integer> aliveCellTypes = new HashMap<>();
+        gen.getSnapshot().forEachAlive((x, y, snap) -> aliveCellTypes.merge(snap.cellType(), 1, Integer::sum));
 
         /*for (CellType type : CellType.VALUES) {
             if (!aliveCellTypes.containsKey(type)) {
@@ -397,6 +558,37 @@ public class Board {
                 );
     }
 
+    /**
+     * Maps each alive cell, by packed coordinates (see Coord.pack), to its
+     * number of alive neighbors, without boxing keys or values.
+     *
+     * @param gen  the Generation instance to analyze
+     * @param into the map receiving the entries; it is not cleared first
+     * @return the into map
+     */
+    public LongIntMap groupByAliveNeighborCount(Generation gen, LongIntMap into) {
+        SnapshotGrid grid = gen.getSnapshot();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (!isAlive(grid, x, y)) continue;
+                int n = 0;
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dx = -1; dx <= 1; dx++) {
+                        if ((dx != 0 || dy != 0) && isAlive(grid, x + dx, y + dy)) n++;
+                    }
+                }
+                into.put(Coord.pack(x, y), n);
+            }
+        }
+        return into;
+    }
+
+    private boolean isAlive(SnapshotGrid grid, int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) return false;
+        CellSnapshot snap = grid.get(x, y);
+        return snap != null && snap.isAlive();
+    }
+
     /**
      * Computes summary statistics (count, min, max, sum, average) over all alive cells’ lifePoints.
      *
@@ -405,10 +597,11 @@ public class Board {
      */
     public IntSummaryStatistics energyStatistics(Generation gen) {
         IntSummaryStatistics stats = new IntSummaryStatistics();
-        Set<Cell> aliveCells = gen.getAliveCells();
-        for (Map.Entry<Cell, Integer> e : gen.getEnergyStates().entrySet()) {
-            if (aliveCells.contains(e.getKey())) {
-                stats.accept(e.getValue());
+        SnapshotGrid grid = gen.getSnapshot();
+        for (int y = 0; y < grid.getHeight(); y++) {
+            for (int x = 0; x < grid.getWidth(); x++) {
+                CellSnapshot snap = grid.get(x, y);
+                if (snap != null && snap.isAlive()) stats.accept(snap.lifepoints());
             }
         }
         return stats;
@@ -422,10 +615,38 @@ public class Board {
      * @return a Map from generation step index to its IntSummaryStatistics
      */
     public Map<Integer, IntSummaryStatistics> getTimeSeriesStats(int fromStep, int toStep) {
+        TimeSeries series = getTimeSeries(fromStep, toStep);
         Map<Integer, IntSummaryStatistics> stats = new HashMap<>();
         for (int step = fromStep; step <= toStep; step++) {
-            stats.put(step, energyStatistics(game.getGenerations().get(step)));
+            stats.put(step, series.getEnergyStatistics(step));
         }
         return stats;
     }
+
+    /**
+     * Computes, in parallel, the per-step energy statistics, type and mood
+     * counts and neighbour-count histograms of the alive cells for each
+     * generation step in [fromStep, toStep], as primitive arrays.
+     *
+     * @param fromStep the starting generation index (inclusive)
+     * @param toStep   the ending generation index (inclusive)
+     * @return the TimeSeries of the range
+     * @throws IllegalArgumentException if the range is empty or not fully simulated
+     */
+    public TimeSeries getTimeSeries(int fromStep, int toStep) {
+        return TimeSeries.compute(game.getGenerations(fromStep, toStep));
+    }
+
+    /**
+     * Aggregates the alive cells of the given generation that lie in the rectangle
+     * spanned by two opposite corners (both inclusive).
+     *
+     * @param gen  the Generation instance to analyze
+     * @param from one corner of the region
+     * @param to   the opposite corner of the region
+     * @return the RegionStats (count, lifePoints sum/min/max, per-type counts) of the region
+     */
+    public RegionStats regionStatistics(Generation gen, Coord from, Coord to) {
+        return gen.getRegionStats(from.getX(), from.getY(), to.getX(), to.getY());
+    }
 }
@@ -0,0 +1,140 @@
+package it.polito.extgol;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Fills every cell of a board with a random state, in parallel.
+ *
+ * The board is cut into bands of whole rows, widened to 64-cell boundaries so
+ * that no two bands ever share a word of an off-heap alive plane. Each band
+ * draws from its own SplittableRandom, split from the seed in band order, so
+ * the result depends only on the seed and the board size, never on the number
+ * of threads. Heap boards are written through their cells, off-heap boards
+ * straight into their state planes.
+ *
+ * Each cell is alive with probability density; alive cells receive a type and
+ * a mood drawn from the given weights, dead cells are reset to BASIC/NAIVE.
+ * Every cell starts with no lifePoints and no death count.
+ */
+class BoardSeeder {
+
+    /** Approximate number of cells per parallel band. */
+    private static final int BAND_CELLS = 1 << 16;
+
+    private final double density;
+    private final double[] typeCdf;
+    private final double[] moodCdf;
+
+    /**
+     * Creates a seeder for the given density and distributions.
+     *
+     * @param density     the probability of each cell being alive, in [0, 1]
+     * @param typeWeights relative weights of the CellTypes of alive cells; empty for BASIC only
+     * @param moodWeights relative weights of the CellMoods of alive cells; empty for NAIVE only
+     * @throws IllegalArgumentException if the density or a weight is invalid
+     */
+    BoardSeeder(double density, Map<CellType, Double> typeWeights, Map<CellMood, Double> moodWeights) {
+        if (!(density >= 0 && density <= 1)) {
+            throw new IllegalArgumentException("Density must be between 0 and 1");
+        }
+        this.density = density;
+        this.typeCdf = cdf(CellType.VALUES, typeWeights, CellType.BASIC);
+        this.moodCdf = cdf(CellMood.VALUES, moodWeights, CellMood.NAIVE);
+    }
+
+    private static <E extends Enum<E>> double[] cdf(E[] values, Map<E, Double> weights, E fallback) {
+        double[] cdf = new double[values.length];
+        if (weights == null || weights.isEmpty()) {
+            for (int i = fallback.ordinal(); i < cdf.length; i++) cdf[i] = 1;
+            return cdf;
+        }
+        double total = 0;
+        for (E value : values) {
+            double w = weights.getOrDefault(value, 0.0);
+            if (!(w >= 0) || Double.isInfinite(w)) {
+                throw new IllegalArgumentException("Invalid weight " + w + " for " + value);
+            }
+            total += w;
+            cdf[value.ordinal()] = total;
+        }
+        if (total <= 0) throw new IllegalArgumentException("Weights must not all be zero");
+        for (int i = 0; i < cdf.length; i++) cdf[i] /= total;
+        return cdf;
+    }
+
+    private static int pick(double[] cdf, double r) {
+        for (int i = 0; i < cdf.length - 1; i++) {
+            if (r < cdf[i]) return i;
+        }
+        return cdf.length - 1;
+    }
+
+    /**
+     * Seeds every cell of the board.
+     *
+     * @param board the Board to fill
+     * @param seed  the seed of the random sequence
+     */
+    void seed(Board board, long seed) {
+        long size = (long) board.getWidth() * board.getHeight();
+        long bandCells = Math.max(1, BAND_CELLS / board.getWidth()) * (long) board.getWidth();
+        bandCells = (bandCells + 63) & ~63L;
+        int bands = (int) ((size + bandCells - 1) / bandCells);
+
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] randoms = new SplittableRandom[bands];
+        for (int b = 0; b < bands; b++) {
+            randoms[b] = root.split();
+        }
+
+        StatePlanes planes = board.getPlanes();
+        if (planes == null) {
+            // builds the positional index before the parallel section
+            board.cellAt(0, 0);
+        }
+        long step = bandCells;
+        IntStream.range(0, bands).parallel().forEach(b -> {
+            long from = b * step;
+            long to = Math.min(size, from + step);
+            if (planes != null) {
+                seedPlanes(planes, from, to, randoms[b]);
+            } else {
+                seedCells(board, from, to, randoms[b]);
+            }
+        });
+    }
+
+    private void seedCells(Board board, long from, long to, SplittableRandom random) {
+        int width = board.getWidth();
+        for (long i = from; i < to; i++) {
+            Cell cell = board.cellAt((int) (i % width), (int) (i / width));
+            boolean alive = random.nextDouble() < density;
+            cell.setAlive(alive);
+            cell.setLifePoints(0);
+            cell.setDeathCount(0);
+            cell.canBiteHealers(false);
+            cell.setType(alive ? CellType.VALUES[pick(typeCdf, random.nextDouble())] : CellType.BASIC);
+            cell.setMood(alive ? CellMood.VALUES[pick(moodCdf, random.nextDouble())] : CellMood.NAIVE);
+        }
+    }
+
+    private void seedPlanes(StatePlanes planes, long from, long to, SplittableRandom random) {
+        long bits = 0;
+        for (long i = from; i < to; i++) {
+            boolean alive = random.nextDouble() < density;
+            if (alive) bits |= 1L << i;
+            planes.setLifePoints(i, 0);
+            planes.setDeathCount(i, 0);
+            planes.canBiteHealers(i, false);
+            planes.setType(i, alive ? CellType.VALUES[pick(typeCdf, random.nextDouble())] : CellType.BASIC);
+            CellMood mood = alive ? CellMood.VALUES[pick(moodCdf, random.nextDouble())] : CellMood.NAIVE;
+            planes.setMoods(i, mood, mood);
+            if ((i & 63) == 63 || i == to - 1) {
+                planes.putAliveWord(i >>> 6, bits);
+                bits = 0;
+            }
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package it.polito.extgol;
 
-import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 
@@ -63,10 +62,6 @@ public class Cell implements Evolvable, Interactable, Comparable<Cell> {
     @JoinColumn(name = "game_id", nullable = false, updatable = false)
     protected Game game;
 
-    /** Transient list tracking generations this cell belongs to. */
-    @Transient
-    protected List<Generation> generations = new ArrayList<>();
-
     /** Back-reference: Tile owns the foreign key mapping. */
     @OneToOne(mappedBy = "cell", fetch = FetchType.LAZY)
     protected Tile tile;
@@ -116,8 +111,8 @@ public class Cell implements Evolvable, Interactable, Comparable<Cell> {
     }
 
     public void complete() {
-        this.canBiteHealers = false;
-        this.mood = this.nextMood;
+        canBiteHealers(false);
+        setMood(getNextMood());
     }
 
     /**
@@ -136,18 +131,20 @@ public class Cell implements Evolvable, Interactable, Comparable<Cell> {
     @Override
     public Boolean evolve(int aliveNeighbors) {
         // Start by assuming the cell retains its current state
-        boolean willLive = this.isAlive;
+        boolean alive = isAlive();
+        CellType type = getType();
+        boolean willLive = alive;
 
         // Overpopulation: more than 3 neighbors kills a live cell
-        if (aliveNeighbors > this.type.overpopulationBound) {
+        if (aliveNeighbors > type.overpopulationBound) {
             willLive = false;
         }
         // Underpopulation: fewer than 2 neighbors kills a live cell
-        else if (aliveNeighbors < this.type.underpopulationBound) {
+        else if (aliveNeighbors < type.underpopulationBound) {
             willLive = false;
         }
         // Respawn: exactly 3 neighbors brings a dead cell to life
-        else if (!this.isAlive && aliveNeighbors == 3) {
+        else if (!alive && aliveNeighbors == 3) {
             willLive = true;
             setLifePoints(0);
         }
@@ -155,9 +152,9 @@ public class Cell implements Evolvable, Interactable, Comparable<Cell> {
         // remains true
 
         if (willLive) {
-            this.deathCount = 0;
-        } else if (this.deathCount < this.type.survivableDeaths) {
-            this.deathCount++;
+            setDeathCount(0);
+        } else if (getDeathCount() < type.survivableDeaths) {
+            setDeathCount(getDeathCount() + 1);
             willLive = true;
         }
 
@@ -193,31 +190,39 @@ public class Cell implements Evolvable, Interactable, Comparable<Cell> {
         return count;
     }
 
-    /**
-     * Registers this cell in the specified generation’s back-reference list.
-     *
-     * Used internally by the ORM to maintain the relationship between
-     * cells and the generations they belong to. Adds the given generation
-     * to the cell’s internal history.
-     *
-     * @param gen the Generation instance to associate with this cell
-     */
-    void addGeneration(Generation gen) {
-        generations.add(gen);
-    }
-
     /**
      * Provides an unmodifiable history of all generations in which this cell has
      * appeared.
      *
-     * Returns a copy of the internal list to prevent external modification
-     * of the cell’s generation history.
+     * Every generation of the owning game holds a snapshot of every cell, so
+     * the history is derived from the game instead of being tracked per cell.
+     * As before, it lists the generations the cell was evolved into, i.e. it
+     * excludes the initial generation at step 0. Use getHistory() to read the
+     * cell's own states over time.
      *
      * @return an immutable List of Generation instances tracking this cell’s
      *         lineage
      */
     public List<Generation> getGenerations() {
-        return List.copyOf(generations);
+        if (game == null) {
+            return List.of();
+        }
+        List<Generation> published = game.getPublishedGenerations();
+        return published.size() <= 1 ? List.of() : published.subList(1, published.size());
+    }
+
+    /**
+     * Returns the aliveness, lifePoints and mood of this cell over every
+     * generation recorded so far by its game.
+     *
+     * @return the CellHistory of this cell
+     * @throws IllegalStateException if the cell belongs to no game with generations
+     */
+    public CellHistory getHistory() {
+        if (game == null || game.getPublishedGenerations().isEmpty()) {
+            throw new IllegalStateException("Cell has no recorded generations");
+        }
+        return game.getCellHistory(cellCoord, game.getStart().getStep(), game.getLatest().getStep());
     }
 
     /**
@@ -299,7 +304,7 @@ public class Cell implements Evolvable, Interactable, Comparable<Cell> {
     }
 
     public void addLifePoints(int lifepoints) {
-        setLifePoints(this.lifepoints + lifepoints);
+        setLifePoints(getLifePoints() + lifepoints);
     }
 
     /**
@@ -356,6 +361,25 @@ public class Cell implements Evolvable, Interactable, Comparable<Cell> {
         return this.nextMood;
     }
 
+    /**
+     * Returns how many consecutive generations this cell has survived
+     * death-inducing conditions (relevant for HIGHLANDER cells).
+     *
+     * @return the current death count
+     */
+    public int getDeathCount() {
+        return this.deathCount;
+    }
+
+    /**
+     * Updates the number of consecutive survived deaths of this cell.
+     *
+     * @param deathCount the new death count
+     */
+    protected void setDeathCount(int deathCount) {
+        this.deathCount = deathCount;
+    }
+
     public boolean canBiteHealers() {
         return this.canBiteHealers;
     }
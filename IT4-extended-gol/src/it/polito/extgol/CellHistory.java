@@ -0,0 +1,270 @@
+package it.polito.extgol;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Immutable time series of the state of one cell over a contiguous range of steps.
+ *
+ * The series is stored column by column in compact form:
+ *   - aliveness is run-length encoded: the starting offset of each run, the
+ *     runs alternating between the state of the first step and its opposite;
+ *   - moods are run-length encoded as well, one ordinal per run;
+ *   - lifePoints, which change at almost every step of a living cell, are kept
+ *     in a plain int array.
+ *
+ * Histories are built either from the in-memory snapshots of a Game (see
+ * Game.getCellHistory) or directly from the persisted generation states (see
+ * CellHistory.load), without ever materializing per-cell Generation lists.
+ */
+public class CellHistory {
+
+    private static final String HISTORY_QUERY =
+            "SELECT g.step, VALUE(s).isAlive, VALUE(s).lifepoints, VALUE(s).cellMood "
+            + "FROM Generation g JOIN g.cellStates s "
+            + "WHERE g.game.id = :gameId AND KEY(s).cellCoord.x = :x AND KEY(s).cellCoord.y = :y "
+            + "AND g.step BETWEEN :fromStep AND :toStep";
+
+    private final Coord coord;
+    private final int fromStep;
+    private final int length;
+
+    private final boolean firstAlive;
+    private final int[] aliveRunStarts;
+
+    private final int[] moodRunStarts;
+    private final byte[] moodRuns;
+
+    private final int[] lifepoints;
+
+    private CellHistory(Coord coord, int fromStep, boolean[] alive, int[] lifepoints, CellMood[] moods) {
+        this.coord = coord;
+        this.fromStep = fromStep;
+        this.length = alive.length;
+        this.lifepoints = lifepoints;
+
+        this.firstAlive = length > 0 && alive[0];
+        int[] starts = new int[length];
+        int runs = 0;
+        for (int i = 0; i < length; i++) {
+            if (i == 0 || alive[i] != alive[i - 1]) starts[runs++] = i;
+        }
+        this.aliveRunStarts = Arrays.copyOf(starts, runs);
+
+        byte[] values = new byte[length];
+        runs = 0;
+        for (int i = 0; i < length; i++) {
+            if (i == 0 || moods[i] != moods[i - 1]) {
+                starts[runs] = i;
+                values[runs++] = (byte) moods[i].ordinal();
+            }
+        }
+        this.moodRunStarts = Arrays.copyOf(starts, runs);
+        this.moodRuns = Arrays.copyOf(values, runs);
+    }
+
+    /**
+     * Builds the history of the cell at coord from the in-memory snapshots of
+     * the given generations, which must be consecutive.
+     *
+     * @param coord       the coordinates of the cell
+     * @param generations the consecutive generations to read, in step order
+     * @return the CellHistory covering the steps of the generations
+     */
+    static CellHistory of(Coord coord, List<Generation> generations) {
+        int n = generations.size();
+        boolean[] alive = new boolean[n];
+        int[] lifepoints = new int[n];
+        CellMood[] moods = new CellMood[n];
+        Arrays.fill(moods, CellMood.NAIVE);
+        for (int i = 0; i < n; i++) {
+            CellSnapshot snap = generations.get(i).getSnapshot().get(coord.getX(), coord.getY());
+            if (snap != null) {
+                alive[i] = snap.isAlive();
+                lifepoints[i] = snap.lifepoints();
+                moods[i] = snap.cellMood();
+            }
+        }
+        int from = n > 0 ? generations.get(0).getStep() : 0;
+        return new CellHistory(coord, from, alive, lifepoints, moods);
+    }
+
+    /**
+     * Loads the history of one cell of a persisted game straight from the
+     * generation_state rows, fetching only the rows of that cell.
+     *
+     * Steps without a stored state for the cell are reported as dead, with no
+     * lifePoints and a NAIVE mood.
+     *
+     * @param gameId   the database identifier of the Game
+     * @param coord    the coordinates of the cell
+     * @param fromStep the first step, inclusive
+     * @param toStep   the last step, inclusive
+     * @return the CellHistory over [fromStep, toStep]
+     * @throws IllegalArgumentException if the step range is empty or negative
+     */
+    @SuppressWarnings("unchecked")
+    public static CellHistory load(Long gameId, Coord coord, int fromStep, int toStep) {
+        Objects.requireNonNull(gameId, "Game id cannot be null");
+        Objects.requireNonNull(coord, "Coordinates cannot be null");
+        checkRange(fromStep, toStep);
+
+        int n = toStep - fromStep + 1;
+        boolean[] alive = new boolean[n];
+        int[] lifepoints = new int[n];
+        CellMood[] moods = new CellMood[n];
+        Arrays.fill(moods, CellMood.NAIVE);
+
+        EntityManager em = JPAUtil.getEntityManager();
+        try (Stream<Object[]> rows = em.createQuery(HISTORY_QUERY)
+                .setParameter("gameId", gameId)
+                .setParameter("x", coord.getX())
+                .setParameter("y", coord.getY())
+                .setParameter("fromStep", fromStep)
+                .setParameter("toStep", toStep)
+                .getResultStream()) {
+            rows.forEach(r -> {
+                int i = (Integer) r[0] - fromStep;
+                alive[i] = (Boolean) r[1];
+                lifepoints[i] = (Integer) r[2];
+                moods[i] = (CellMood) r[3];
+            });
+        } finally {
+            em.close();
+        }
+        return new CellHistory(coord, fromStep, alive, lifepoints, moods);
+    }
+
+    static void checkRange(int fromStep, int toStep) {
+        if (fromStep < 0 || toStep < fromStep) {
+            throw new IllegalArgumentException("Invalid step range " + fromStep + ".." + toStep);
+        }
+    }
+
+    /**
+     * Returns the coordinates of the cell described by this history.
+     *
+     * @return the cell coordinates
+     */
+    public Coord getCoord() {
+        return coord;
+    }
+
+    /**
+     * Returns the first step covered by this history.
+     *
+     * @return the first step, inclusive
+     */
+    public int getFromStep() {
+        return fromStep;
+    }
+
+    /**
+     * Returns the last step covered by this history.
+     *
+     * @return the last step, inclusive
+     */
+    public int getToStep() {
+        return fromStep + length - 1;
+    }
+
+    /**
+     * Returns the number of steps covered by this history.
+     *
+     * @return the number of steps
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Tells whether the cell was alive at the given step.
+     *
+     * @param step a step between getFromStep() and getToStep()
+     * @return true if the cell was alive
+     * @throws IndexOutOfBoundsException if the step is not covered
+     */
+    public boolean isAlive(int step) {
+        int run = runOf(aliveRunStarts, offset(step));
+        return firstAlive == ((run & 1) == 0);
+    }
+
+    /**
+     * Returns the lifePoints of the cell at the given step.
+     *
+     * @param step a step between getFromStep() and getToStep()
+     * @return the lifePoints
+     * @throws IndexOutOfBoundsException if the step is not covered
+     */
+    public int getLifePoints(int step) {
+        return lifepoints[offset(step)];
+    }
+
+    /**
+     * Returns the mood of the cell at the given step.
+     *
+     * @param step a step between getFromStep() and getToStep()
+     * @return the CellMood
+     * @throws IndexOutOfBoundsException if the step is not covered
+     */
+    public CellMood getMood(int step) {
+        return CellMood.VALUES[moodRuns[runOf(moodRunStarts, offset(step))]];
+    }
+
+    /**
+     * Returns the number of covered steps in which the cell was alive.
+     *
+     * @return the count of alive steps
+     */
+    public int getAliveSteps() {
+        int alive = 0;
+        for (int run = firstAlive ? 0 : 1; run < aliveRunStarts.length; run += 2) {
+            int end = run + 1 < aliveRunStarts.length ? aliveRunStarts[run + 1] : length;
+            alive += end - aliveRunStarts[run];
+        }
+        return alive;
+    }
+
+    /**
+     * Returns the run-length encoding of the aliveness: the length of each run
+     * of equal states, the first run having the state of getFromStep().
+     *
+     * @return a new array of run lengths
+     */
+    public int[] getAliveRunLengths() {
+        int[] lengths = new int[aliveRunStarts.length];
+        for (int run = 0; run < lengths.length; run++) {
+            int end = run + 1 < lengths.length ? aliveRunStarts[run + 1] : length;
+            lengths[run] = end - aliveRunStarts[run];
+        }
+        return lengths;
+    }
+
+    /**
+     * Returns the lifePoints of every covered step, in step order.
+     *
+     * @return a new array of lifePoints
+     */
+    public int[] getLifePoints() {
+        return lifepoints.clone();
+    }
+
+    private int offset(int step) {
+        return Objects.checkIndex(step - fromStep, length);
+    }
+
+    private static int runOf(int[] runStarts, int offset) {
+        int run = Arrays.binarySearch(runStarts, offset);
+        return run >= 0 ? run : -run - 2;
+    }
+
+    @Override
+    public String toString() {
+        return "CellHistory[" + coord.getX() + "," + coord.getY() + " steps " + fromStep + ".." + getToStep()
+                + ", " + aliveRunStarts.length + " alive runs]";
+    }
+}
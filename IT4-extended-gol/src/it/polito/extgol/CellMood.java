@@ -3,6 +3,9 @@ package it.polito.extgol;
 /**
  * Defines the interaction style or “mood” of a cell, influencing how it
  * exchanges lifePoints with other cells during the interaction phase.
+ *
+ * Heap and off-heap boards share these rules: off-heap cells interact through
+ * PlaneCell views.
  */
 public enum CellMood {
 
@@ -42,5 +45,7 @@ public enum CellMood {
         }
     };
 
+    public static final CellMood[] VALUES = values();
+
     public abstract void interactWith(Cell me, Cell other);
 }
\ No newline at end of file
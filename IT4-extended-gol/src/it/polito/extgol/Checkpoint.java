@@ -0,0 +1,313 @@
+package it.polito.extgol;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Binary checkpoint of a running game, written and read without going
+ * through JPA.
+ *
+ * A checkpoint holds everything needed to continue the simulation exactly
+ * where it stopped: the board size and storage kind, the event schedule, the
+ * current step, and for every position (row-major) the tile's lifePoints
+ * modifier and the cell's aliveness, lifePoints, type, mood, pending mood,
+ * death count and healer-biting flag. The history before the checkpointed
+ * step is not kept: a restored game starts its history at that step.
+ *
+ * File layout (big-endian), version 1:
+ *
+ *   - header:  magic "EGOL", version (short), flags (byte, bit 0 = off-heap),
+ *              step, width, height (ints), name (int length + UTF-8 bytes),
+ *              event count (int) followed by (step int, EventType ordinal byte)
+ *   - cells:   12 bytes each: flags (byte, bit 0 = alive, bit 1 =
+ *              canBiteHealers), lifePoints (int), modifier (int), CellType
+ *              ordinal (byte), mood and next mood ordinals (low and high
+ *              nibble of a byte), death count (byte)
+ *   - trailer: CRC32 of all preceding bytes (int)
+ *
+ * Files are written in a single sequential pass through a fixed-size buffer
+ * into a temporary file, forced to disk and then moved over the target, so
+ * that a crash never leaves a partially written checkpoint behind.
+ */
+public final class Checkpoint {
+
+    /** "EGOL" in ASCII. */
+    private static final int MAGIC = 0x45474F4C;
+
+    /** Format version written by this class. */
+    private static final short VERSION = 1;
+
+    /** Size of the I/O buffer; every record fits in it. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** Size in bytes of one cell record. */
+    private static final int CELL_BYTES = 12;
+
+    private static final int OFF_HEAP = 1;
+    private static final int ALIVE = 1;
+    private static final int BITES_HEALERS = 2;
+
+    private Checkpoint() {
+    }
+
+    /**
+     * Writes a checkpoint of the current state of a game, i.e. the state of
+     * its board at its latest generation, replacing the target file.
+     *
+     * @param game the Game to checkpoint
+     * @param file the checkpoint file to write
+     * @throws UncheckedIOException if the file cannot be written
+     * @throws IllegalArgumentException if the game name is too long to be stored
+     * @throws IllegalStateException if a tile of the board holds no cell
+     */
+    public static void write(Game game, Path file) {
+        Objects.requireNonNull(game, "Game cannot be null");
+        Objects.requireNonNull(file, "File cannot be null");
+        Board board = game.getBoard();
+        byte[] name = game.getName().getBytes(StandardCharsets.UTF_8);
+        if (name.length > BUFFER_SIZE / 2) {
+            throw new IllegalArgumentException("Game name too long for a checkpoint");
+        }
+
+        Path target = file.toAbsolutePath();
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                Output out = new Output(channel);
+                Map<Integer, EventType> events = new TreeMap<>(game.getEventMapInternal());
+
+                out.room(27 + name.length);
+                out.buf.putInt(MAGIC)
+                       .putShort(VERSION)
+                       .put((byte) (board.isOffHeap() ? OFF_HEAP : 0))
+                       .putInt(game.getLatest().getStep())
+                       .putInt(board.getWidth())
+                       .putInt(board.getHeight())
+                       .putInt(name.length)
+                       .put(name)
+                       .putInt(events.size());
+                for (Map.Entry<Integer, EventType> e : events.entrySet()) {
+                    out.room(5);
+                    out.buf.putInt(e.getKey()).put((byte) e.getValue().ordinal());
+                }
+
+                for (int y = 0; y < board.getHeight(); y++) {
+                    for (int x = 0; x < board.getWidth(); x++) {
+                        Tile tile = board.tileAt(x, y);
+                        Cell c = tile.getCell();
+                        if (c == null) {
+                            throw new IllegalStateException("Missing cell on tile " + tile);
+                        }
+                        out.room(CELL_BYTES);
+                        out.buf.put((byte) ((c.isAlive() ? ALIVE : 0) | (c.canBiteHealers() ? BITES_HEALERS : 0)))
+                               .putInt(c.getLifePoints())
+                               .putInt(tile.getLifePointModifier())
+                               .put((byte) c.getType().ordinal())
+                               .put((byte) (c.getMood().ordinal() | c.getNextMood().ordinal() << 4))
+                               .put((byte) c.getDeathCount());
+                    }
+                }
+                out.finish();
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            temp = null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write checkpoint " + file, e);
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // the original failure is more relevant
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a checkpoint and rebuilds the game it was taken from, ready to
+     * continue with ExtendedGameOfLife.run.
+     *
+     * The restored game is a new, not yet persisted instance with the same
+     * name, board kind (heap or off-heap in direct memory), cell and tile
+     * states and event schedule; its history holds a single generation at the
+     * checkpointed step.
+     *
+     * @param file the checkpoint file to read
+     * @return the restored Game
+     * @throws UncheckedIOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a valid checkpoint of a supported version
+     */
+    public static Game read(Path file) {
+        Objects.requireNonNull(file, "File cannot be null");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Input in = new Input(channel);
+
+            in.need(23);
+            if (in.buf.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a checkpoint file: " + file);
+            }
+            short version = in.buf.getShort();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported checkpoint version " + version);
+            }
+            int flags = in.buf.get();
+            int step = in.buf.getInt();
+            int width = in.buf.getInt();
+            int height = in.buf.getInt();
+            int nameLength = in.buf.getInt();
+            if (step < 0 || width <= 0 || height <= 0 || nameLength < 0 || nameLength > BUFFER_SIZE / 2) {
+                throw new IllegalArgumentException("Corrupt checkpoint header in " + file);
+            }
+            in.need(nameLength + 4);
+            byte[] name = new byte[nameLength];
+            in.buf.get(name);
+
+            Game game = new Game(new String(name, StandardCharsets.UTF_8));
+            Board board = (flags & OFF_HEAP) != 0
+                    ? Board.createOffHeap(width, height, game)
+                    : Board.createExtended(width, height, game);
+            game.setBoard(board);
+
+            int eventCount = in.buf.getInt();
+            if (eventCount < 0) {
+                throw new IllegalArgumentException("Corrupt checkpoint header in " + file);
+            }
+            for (int i = 0; i < eventCount; i++) {
+                in.need(5);
+                int at = in.buf.getInt();
+                game.getEventMapInternal().put(at, enumAt(EventType.values(), in.buf.get()));
+            }
+
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    in.need(CELL_BYTES);
+                    int cellFlags = in.buf.get();
+                    int lifepoints = in.buf.getInt();
+                    int modifier = in.buf.getInt();
+                    CellType type = enumAt(CellType.VALUES, in.buf.get());
+                    int moods = in.buf.get();
+                    int deaths = in.buf.get() & 0xFF;
+
+                    Tile tile = board.tileAt(x, y);
+                    tile.setLifePointModifier(modifier);
+                    Cell c = tile.getCell();
+                    c.setAlive((cellFlags & ALIVE) != 0);
+                    c.setLifePoints(lifepoints);
+                    c.setType(type);
+                    c.setMood(enumAt(CellMood.VALUES, moods & 0x0F));
+                    c.setNextMood(enumAt(CellMood.VALUES, (moods >> 4) & 0x0F));
+                    c.setDeathCount(deaths);
+                    c.canBiteHealers((cellFlags & BITES_HEALERS) != 0);
+                }
+            }
+
+            long expected = in.checksum();
+            in.need(4);
+            if ((in.buf.getInt() & 0xFFFFFFFFL) != expected) {
+                throw new IllegalArgumentException("Checksum mismatch in checkpoint " + file);
+            }
+            Generation.createRestored(game, board, step);
+            return game;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read checkpoint " + file, e);
+        }
+    }
+
+    private static <E> E enumAt(E[] values, int ordinal) {
+        if (ordinal < 0 || ordinal >= values.length) {
+            throw new IllegalArgumentException("Corrupt checkpoint: invalid ordinal " + ordinal);
+        }
+        return values[ordinal];
+    }
+
+    /** Buffered sequential writer computing the checksum of what it writes. */
+    private static class Output {
+        final FileChannel channel;
+        final ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+        final CRC32 crc = new CRC32();
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        /** Makes sure the next n bytes fit in the buffer. */
+        void room(int n) throws IOException {
+            if (buf.remaining() < n) flush();
+        }
+
+        void flush() throws IOException {
+            buf.flip();
+            crc.update(buf.duplicate());
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+            buf.clear();
+        }
+
+        /** Flushes the buffered bytes and appends the checksum trailer. */
+        void finish() throws IOException {
+            flush();
+            buf.putInt((int) crc.getValue());
+            buf.flip();
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+        }
+    }
+
+    /** Buffered sequential reader computing the checksum of what it consumes. */
+    private static class Input {
+        final FileChannel channel;
+        final ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE).flip();
+        final CRC32 crc = new CRC32();
+        /** Start of the consumed bytes not yet added to the checksum. */
+        int digested;
+
+        Input(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        /** Makes sure the next n bytes are buffered. */
+        void need(int n) throws IOException {
+            if (buf.remaining() >= n) return;
+            checksum();
+            buf.compact();
+            digested = 0;
+            while (buf.position() < n) {
+                if (channel.read(buf) < 0) {
+                    throw new IllegalArgumentException("Truncated checkpoint");
+                }
+            }
+            buf.flip();
+        }
+
+        /** Adds the bytes consumed so far to the checksum and returns it. */
+        long checksum() {
+            ByteBuffer consumed = buf.duplicate();
+            consumed.limit(buf.position()).position(digested);
+            crc.update(consumed);
+            digested = buf.position();
+            return crc.getValue();
+        }
+    }
+}
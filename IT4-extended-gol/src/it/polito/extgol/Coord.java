@@ -52,6 +52,57 @@ public class Coord {
         return y;
     }
 
+    /**
+     * Packs two coordinates into a single long key: x in the high 32 bits,
+     * y in the low 32 bits. Used by the primitive maps to avoid Coord objects.
+     *
+     * @param x the column index
+     * @param y the row index
+     * @return the packed key
+     */
+    public static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns the X component of a packed key.
+     *
+     * @param key a key built by pack(x, y)
+     * @return the X position
+     */
+    public static int unpackX(long key) {
+        return (int) (key >> 32);
+    }
+
+    /**
+     * Returns the Y component of a packed key.
+     *
+     * @param key a key built by pack(x, y)
+     * @return the Y position
+     */
+    public static int unpackY(long key) {
+        return (int) key;
+    }
+
+    /**
+     * Builds the Coord of a packed key.
+     *
+     * @param key a key built by pack(x, y)
+     * @return the corresponding Coord
+     */
+    public static Coord unpack(long key) {
+        return new Coord(unpackX(key), unpackY(key));
+    }
+
+    /**
+     * Returns the packed long key of this coordinate.
+     *
+     * @return pack(getX(), getY())
+     */
+    public long pack() {
+        return pack(x, y);
+    }
+
     /**
      * Compares this Coord to another for equality.
      * Two coordinates are equal if both their X and Y values match.
@@ -69,10 +120,14 @@ public class Coord {
     /**
      * Computes a hash code consistent with equals().
      *
+     * The packed key is scrambled so that neighbouring coordinates spread over
+     * the buckets of hash-based maps, unlike 31 * x + y.
+     *
      * @return a hash code combining X and Y values
      */
     @Override
     public int hashCode() {
-        return 31 * x + y;
+        long h = pack(x, y) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
     }
 }
\ No newline at end of file
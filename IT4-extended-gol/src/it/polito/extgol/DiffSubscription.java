@@ -0,0 +1,117 @@
+package it.polito.extgol;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded stream of GenerationDiffs of one game of a SimulationService.
+ *
+ * The service never drops a diff: when the buffer of any subscriber of a game
+ * is full, the game stops stepping until that subscriber consumes a diff or
+ * closes the subscription. Slow subscribers therefore throttle their game
+ * without affecting the other games of the service.
+ */
+public class DiffSubscription implements AutoCloseable {
+
+    private final String gameName;
+    private final BlockingQueue<GenerationDiff> buffer;
+    private final Runnable onSpace;
+    private volatile boolean closed;
+
+    DiffSubscription(String gameName, int capacity, Runnable onSpace) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity must be positive");
+        this.gameName = gameName;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.onSpace = onSpace;
+    }
+
+    /**
+     * Returns the name of the subscribed game.
+     *
+     * @return the game name
+     */
+    public String getGameName() {
+        return gameName;
+    }
+
+    /**
+     * Removes and returns the oldest buffered diff, if any.
+     *
+     * @return the next GenerationDiff, or null if none is buffered
+     */
+    public GenerationDiff poll() {
+        return consumed(buffer.poll());
+    }
+
+    /**
+     * Removes and returns the oldest buffered diff, waiting up to the given
+     * time for one to arrive.
+     *
+     * @param timeout how long to wait
+     * @param unit    the unit of timeout
+     * @return the next GenerationDiff, or null if none arrived in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public GenerationDiff poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return consumed(buffer.poll(timeout, unit));
+    }
+
+    /**
+     * Removes and returns the oldest buffered diff, waiting for one if needed.
+     *
+     * @return the next GenerationDiff
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public GenerationDiff take() throws InterruptedException {
+        return consumed(buffer.take());
+    }
+
+    /**
+     * Returns the number of diffs waiting to be consumed.
+     *
+     * @return the buffered diff count
+     */
+    public int size() {
+        return buffer.size();
+    }
+
+    /**
+     * Tells whether the subscription has been closed.
+     *
+     * @return true once close() has been called
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Ends the subscription: its game no longer waits for it, and buffered
+     * diffs are discarded.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        buffer.clear();
+        onSpace.run();
+    }
+
+    /**
+     * Tells whether the next diff can be delivered without blocking the game.
+     */
+    boolean hasSpace() {
+        return closed || buffer.remainingCapacity() > 0;
+    }
+
+    /**
+     * Delivers a diff; only called by the game's step task after hasSpace().
+     */
+    void deliver(GenerationDiff diff) {
+        if (!closed) buffer.offer(diff);
+    }
+
+    private GenerationDiff consumed(GenerationDiff diff) {
+        if (diff != null) onSpace.run();
+        return diff;
+    }
+}
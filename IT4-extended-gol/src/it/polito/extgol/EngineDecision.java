@@ -0,0 +1,104 @@
+package it.polito.extgol;
+
+/**
+ * Immutable record of a RuleEngine chosen by an EngineSelector, together with
+ * the board characteristics the choice was based on.
+ */
+public final class EngineDecision {
+
+    private final int step;
+    private final RuleEngine engine;
+    private final long cells;
+    private final long aliveCells;
+    private final boolean uniform;
+    private final boolean eventsAhead;
+
+    /**
+     * Builds a decision.
+     *
+     * @param step        the step from which the engine is used
+     * @param engine      the chosen RuleEngine
+     * @param cells       the number of cells of the board
+     * @param aliveCells  the number of alive cells of the board
+     * @param uniform     whether every cell is BASIC with NAIVE current and pending moods
+     * @param eventsAhead whether an event is scheduled before the next selection
+     */
+    EngineDecision(int step, RuleEngine engine, long cells, long aliveCells, boolean uniform, boolean eventsAhead) {
+        this.step = step;
+        this.engine = engine;
+        this.cells = cells;
+        this.aliveCells = aliveCells;
+        this.uniform = uniform;
+        this.eventsAhead = eventsAhead;
+    }
+
+    /**
+     * Returns the step of the generation from which the engine is used.
+     *
+     * @return the step index
+     */
+    public int getStep() {
+        return step;
+    }
+
+    /**
+     * Returns the chosen engine.
+     *
+     * @return the RuleEngine
+     */
+    public RuleEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Returns the number of cells of the board.
+     *
+     * @return the board area
+     */
+    public long getCells() {
+        return cells;
+    }
+
+    /**
+     * Returns the number of alive cells when the choice was made.
+     *
+     * @return the alive cells
+     */
+    public long getAliveCells() {
+        return aliveCells;
+    }
+
+    /**
+     * Returns the fraction of alive cells when the choice was made.
+     *
+     * @return the density, between 0 and 1
+     */
+    public double getDensity() {
+        return cells == 0 ? 0 : (double) aliveCells / cells;
+    }
+
+    /**
+     * Tells whether the board followed the plain Conway rules: only BASIC
+     * cells, all of them NAIVE.
+     *
+     * @return true if no cell had another type or mood
+     */
+    public boolean isUniform() {
+        return uniform;
+    }
+
+    /**
+     * Tells whether an event was scheduled before the next selection.
+     *
+     * @return true if an event was ahead
+     */
+    public boolean hasEventsAhead() {
+        return eventsAhead;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Step %d: %s (cells=%d density=%.3f uniform=%b events=%b)",
+                step, engine, cells, getDensity(), uniform, eventsAhead);
+    }
+}
@@ -0,0 +1,133 @@
+package it.polito.extgol;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Chooses the RuleEngine of a run from the characteristics of the board.
+ *
+ * When set on ExtendedGameOfLife, the selector is consulted at the start of a
+ * run and again every getInterval() steps, so that the engine follows the
+ * density of the board as it changes. Each consultation scans the cells once
+ * and picks, in order:
+ *   - OBJECT_GRAPH for small boards, where packing the states costs more than
+ *     it saves;
+ *   - SPARSE when the density is at most the sparse threshold;
+ *   - MEMOIZED when every cell is BASIC and NAIVE and no event is scheduled
+ *     before the next consultation, so that all cells share one table;
+ *   - BIT_SLICED otherwise, for dense boards of mixed types or moods.
+ * Every engine produces the same generations, so the choice only affects
+ * the speed of the run.
+ */
+public final class EngineSelector {
+
+    /** Default number of steps between two selections. */
+    public static final int DEFAULT_INTERVAL = 16;
+
+    /** Default largest board, in cells, left to the object graph. */
+    public static final int DEFAULT_SMALL_BOARD = 256;
+
+    /** Default largest density at which the sparse engine is chosen. */
+    public static final double DEFAULT_SPARSE_DENSITY = 0.05;
+
+    private final int interval;
+    private final int smallBoard;
+    private final double sparseDensity;
+
+    /**
+     * Creates a selector with the default thresholds.
+     */
+    public EngineSelector() {
+        this(DEFAULT_INTERVAL, DEFAULT_SMALL_BOARD, DEFAULT_SPARSE_DENSITY);
+    }
+
+    /**
+     * Creates a selector with the given thresholds.
+     *
+     * @param interval      the number of steps between two selections
+     * @param smallBoard    the largest board, in cells, left to the object graph
+     * @param sparseDensity the largest density at which the sparse engine is chosen
+     * @throws IllegalArgumentException if interval is not positive, smallBoard is
+     *                                  negative or sparseDensity is outside [0, 1]
+     */
+    public EngineSelector(int interval, int smallBoard, double sparseDensity) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Selection interval must be positive");
+        }
+        if (smallBoard < 0) {
+            throw new IllegalArgumentException("Small board size cannot be negative");
+        }
+        if (!(sparseDensity >= 0 && sparseDensity <= 1)) {
+            throw new IllegalArgumentException("Sparse density must be between 0 and 1");
+        }
+        this.interval = interval;
+        this.smallBoard = smallBoard;
+        this.sparseDensity = sparseDensity;
+    }
+
+    /**
+     * Returns the number of steps between two selections.
+     *
+     * @return the selection interval
+     */
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * Chooses the engine for the next steps of a board.
+     *
+     * @param board  the Board about to be evolved
+     * @param events the scheduled events, keyed by the step they precede
+     * @param step   the step of the generation the board currently holds
+     * @return the decision, with the characteristics it was based on
+     * @throws IllegalStateException if a tile holds no cell
+     */
+    public EngineDecision select(Board board, Map<Integer, EventType> events, int step) {
+        Objects.requireNonNull(board, "Board cannot be null");
+        Objects.requireNonNull(events, "Event map cannot be null");
+        int width = board.getWidth();
+        int height = board.getHeight();
+        long alive = 0;
+        boolean uniform = true;
+        StatePlanes planes = board.getPlanes();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (planes != null) {
+                    long i = planes.index(x, y);
+                    if (planes.isAlive(i)) alive++;
+                    uniform &= planes.getType(i) == CellType.BASIC
+                            && planes.getMood(i) == CellMood.NAIVE && planes.getNextMood(i) == CellMood.NAIVE;
+                    continue;
+                }
+                Cell c = board.cellAt(x, y);
+                if (c == null) {
+                    throw new IllegalStateException("Missing cell on tile " + board.tileAt(x, y));
+                }
+                if (c.isAlive()) alive++;
+                uniform &= c.getType() == CellType.BASIC
+                        && c.getMood() == CellMood.NAIVE && c.getNextMood() == CellMood.NAIVE;
+            }
+        }
+        boolean eventsAhead = false;
+        for (Integer s : events.keySet()) {
+            if (s >= step && s < step + interval) {
+                eventsAhead = true;
+                break;
+            }
+        }
+
+        long cells = (long) width * height;
+        RuleEngine engine;
+        if (cells <= smallBoard) {
+            engine = RuleEngine.OBJECT_GRAPH;
+        } else if (alive <= sparseDensity * cells) {
+            engine = RuleEngine.SPARSE;
+        } else if (uniform && !eventsAhead) {
+            engine = RuleEngine.MEMOIZED;
+        } else {
+            engine = RuleEngine.BIT_SLICED;
+        }
+        return new EngineDecision(step, engine, cells, alive, uniform, eventsAhead);
+    }
+}
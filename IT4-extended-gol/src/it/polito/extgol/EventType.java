@@ -5,6 +5,9 @@ import java.util.List;
 /**
  * Enumeration of global event types that can be applied to the entire board
  * during a generation, altering cells’ lifePoints and moods.
+ *
+ * Each event is defined once, on a single Cell, so that heap boards and
+ * off-heap boards (through PlaneCell views) share the same rules.
  */
 public enum EventType {
 
@@ -13,8 +16,8 @@ public enum EventType {
      */
     CATACLYSM {
         @Override
-        public void apply(List<Tile> tiles) {
-            tiles.stream().map(Tile::getCell).forEach(c -> c.setLifePoints(0));
+        void apply(Cell cell) {
+            cell.setLifePoints(0);
         }
     },
 
@@ -23,8 +26,8 @@ public enum EventType {
      */
     FAMINE {
         @Override
-        public void apply(List<Tile> tiles) {
-            tiles.stream().map(Tile::getCell).forEach(c -> c.addLifePoints(-1));
+        void apply(Cell cell) {
+            cell.addLifePoints(-1);
         }
     },
 
@@ -33,8 +36,8 @@ public enum EventType {
      */
     BLOOM {
         @Override
-        public void apply(List<Tile> tiles) {
-            tiles.stream().map(Tile::getCell).filter(Cell::isAlive).forEach(c -> c.addLifePoints(2));
+        void apply(Cell cell) {
+            if (cell.isAlive()) cell.addLifePoints(2);
         }
     },
 
@@ -44,12 +47,10 @@ public enum EventType {
      */
     BLOOD_MOON {
         @Override
-        public void apply(List<Tile> tiles) {
-            tiles.stream().map(Tile::getCell).forEach(c -> {
-                if (c.getMood() == CellMood.VAMPIRE) {
-                    c.canBiteHealers(true);
-                }
-            });
+        void apply(Cell cell) {
+            if (cell.getMood() == CellMood.VAMPIRE) {
+                cell.canBiteHealers(true);
+            }
         }
     },
 
@@ -58,16 +59,23 @@ public enum EventType {
      */
     SANCTUARY {
         @Override
-        public void apply(List<Tile> tiles) {
-            tiles.stream().map(Tile::getCell).forEach(c -> {
-                if (c.getMood() == CellMood.HEALER) {
-                    c.addLifePoints(1);
-                } else if (c.getMood() == CellMood.VAMPIRE) {
-                    c.setMood(CellMood.NAIVE);
-                }
-            });
+        void apply(Cell cell) {
+            if (cell.getMood() == CellMood.HEALER) {
+                cell.addLifePoints(1);
+            } else if (cell.getMood() == CellMood.VAMPIRE) {
+                cell.setMood(CellMood.NAIVE);
+            }
         }
     };
 
-    public abstract void apply(List<Tile> tiles);
-}
\ No newline at end of file
+    public void apply(List<Tile> tiles) {
+        tiles.stream().map(Tile::getCell).forEach(this::apply);
+    }
+
+    /**
+     * Applies the event to a single cell, which may be a PlaneCell view.
+     *
+     * @param cell the Cell affected by the event
+     */
+    abstract void apply(Cell cell);
+}
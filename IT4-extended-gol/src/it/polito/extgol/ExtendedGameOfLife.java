@@ -1,7 +1,11 @@
 package it.polito.extgol;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityTransaction;
@@ -16,6 +20,78 @@ import jakarta.persistence.EntityTransaction;
  */
 public class ExtendedGameOfLife {
 
+    /** JFR metadata of the step event, checked to skip tracing when disabled. */
+    private static final jdk.jfr.EventType STEP_EVENT_TYPE = jdk.jfr.EventType.getEventType(StepEvent.class);
+
+    /** Observers of the simulation loop. */
+    private final List<SimulationListener> listeners = new CopyOnWriteArrayList<>();
+
+    /** Strategy evaluating the cell rules at each step. */
+    private volatile RuleEngine ruleEngine = RuleEngine.OBJECT_GRAPH;
+
+    /** Chooses the rule engine of each run, replacing ruleEngine when set. */
+    private volatile EngineSelector engineSelector;
+
+    /**
+     * Selects how the cell rules are evaluated by subsequent steps. Every
+     * RuleEngine produces the same generations; only the speed differs.
+     *
+     * @param ruleEngine the RuleEngine to use
+     */
+    public void setRuleEngine(RuleEngine ruleEngine) {
+        this.ruleEngine = Objects.requireNonNull(ruleEngine, "Rule engine cannot be null");
+    }
+
+    /**
+     * Returns the strategy currently used to evaluate the cell rules.
+     *
+     * @return the selected RuleEngine
+     */
+    public RuleEngine getRuleEngine() {
+        return ruleEngine;
+    }
+
+    /**
+     * Lets the given selector choose the engine of every run from the
+     * characteristics of the board, instead of the engine set through
+     * setRuleEngine. The selector is consulted at the start of each run and
+     * again every EngineSelector.getInterval() steps; its decisions are
+     * reported to the listeners and each StepMetrics names the engine used.
+     * Single evolve calls keep using the engine set through setRuleEngine.
+     *
+     * @param engineSelector the EngineSelector to use, or null to always use
+     *                       the engine set through setRuleEngine
+     */
+    public void setEngineSelector(EngineSelector engineSelector) {
+        this.engineSelector = engineSelector;
+    }
+
+    /**
+     * Returns the selector choosing the engine of each run.
+     *
+     * @return the EngineSelector, or null if runs use a fixed engine
+     */
+    public EngineSelector getEngineSelector() {
+        return engineSelector;
+    }
+
+    /**
+     * Registers a listener receiving the metrics of every subsequent step and run.
+     *
+     * @param listener the SimulationListener to add
+     */
+    public void addListener(SimulationListener listener) {
+        listeners.add(Objects.requireNonNull(listener, "Listener cannot be null"));
+    }
+
+    /**
+     * Unregisters a previously added listener.
+     *
+     * @param listener the SimulationListener to remove
+     */
+    public void removeListener(SimulationListener listener) {
+        listeners.remove(listener);
+    }
 
     /**
      * Computes and returns the next generation based on the current one.
@@ -23,15 +99,33 @@ public class ExtendedGameOfLife {
      * The method follows these steps:
      *   1. Validates that the current generation has an associated Board and Game.
      *   2. Computes the next alive/dead state for each cell based solely on the current state.
-     *   3. Creates a new Generation object representing the next simulation step.
-     *   4. Applies all calculated state changes simultaneously, ensuring consistency.
-     *   5. Captures a snapshot of all cells' states into the persistent map for future retrieval.
+     *   3. Applies all calculated state changes simultaneously, ensuring consistency.
+     *   4. Creates a new Generation object representing the next simulation step,
+     *      capturing a snapshot of all cells' states for future retrieval.
+     *   5. Publishes the captured Generation, so that other threads can read it
+     *      through Game.getPublishedGenerations() while the simulation goes on.
+     *
+     * Off-heap boards are evolved directly on their state planes whatever the
+     * rule engine, so boards of billions of cells can be evolved.
      *
      * @param current The current generation snapshot used for evolving to the next state.
      * @return A new Generation object reflecting the evolved board state.
      * @throws IllegalStateException If Generation is not properly initialized.
      */
     public Generation evolve(Generation current, EventType event) {
+        return evolve(current, event, ruleEngine);
+    }
+
+    /**
+     * Computes the next generation with the given rule engine.
+     *
+     * @param current the current generation
+     * @param event   the event to apply before evolving, or null for none
+     * @param engine  the RuleEngine evaluating the cell rules
+     * @return the next Generation
+     * @throws IllegalStateException If Generation is not properly initialized.
+     */
+    private Generation evolve(Generation current, EventType event, RuleEngine engine) {
         Objects.requireNonNull(current, "Current generation cannot be null");
         Board board = current.getBoard();
         Game game = current.getGame();
@@ -42,9 +136,89 @@ public class ExtendedGameOfLife {
                 "Generation must have associated Board and Game!");
         }
 
-        // Step 1: Compute next state for each cell based only on current generation state
-        Map<Cell, Boolean> nextStates = new HashMap<>();
+        // Measurements are taken only when someone is listening or tracing
+        boolean traced = STEP_EVENT_TYPE.isEnabled();
+        StepRecorder recorder = traced || !listeners.isEmpty() ? StepRecorder.start() : StepRecorder.DISABLED;
+        StepEvent stepEvent = null;
+        if (traced) {
+            stepEvent = new StepEvent();
+            stepEvent.begin();
+        }
+
+        // Step 1: Compute and apply the next state of every cell
+        advance(board, event, engine, recorder);
+
+        // Step 2: Instantiate the next Generation
+        Generation nextGen = Generation.nextGeneration(current);
+        recorder.mark(StepPhase.GENERATION);
+
+        // Step 3: Capture the new state snapshot, recording what changed
+        GenerationDelta.Builder changes = new GenerationDelta.Builder(
+            current.getStep(), nextGen.getStep(), board.getWidth(), board.getHeight());
+        nextGen.capture(changes);
+        GenerationDelta delta = changes.build();
+        nextGen.setDelta(delta);
+        recorder.mark(StepPhase.SNAPSHOT);
+
+        // Step 4: Publish the captured generation, making it visible to readers
+        game.addGeneration(nextGen);
+
+        for (SimulationListener l : listeners) {
+            l.onDelta(delta);
+        }
+
+        if (recorder.isEnabled()) {
+            StepMetrics metrics = recorder.finish(nextGen.getStep(), engine);
+            for (SimulationListener l : listeners) {
+                l.onStep(metrics);
+            }
+            if (stepEvent != null) {
+                stepEvent.fill(metrics);
+                stepEvent.commit();
+            }
+        }
+
+        return nextGen;
+    }
+
+    /**
+     * Evolves the cells of a board by one step in place, without recording a
+     * Generation.
+     *
+     * Applies the optional event, lets alive neighbours interact according to
+     * their moods, evaluates each cell's rules on the current state only, commits
+     * the pending moods and finally applies all computed alive states at once.
+     * Off-heap boards go through PlaneRules, which runs the same phases on the
+     * planes without creating tile or cell views.
+     *
+     * @param board the Board whose cells are evolved
+     * @param event the event to apply before evolving, or null for none
+     * @throws IllegalStateException if a tile holds no cell
+     */
+    void advance(Board board, EventType event) {
+        advance(board, event, ruleEngine, StepRecorder.DISABLED);
+    }
+
+    /**
+     * Evolves the cells of a board by one step in place, reporting phase timings
+     * and activity counters to the given recorder.
+     *
+     * @param board    the Board whose cells are evolved
+     * @param event    the event to apply before evolving, or null for none
+     * @param engine   the RuleEngine evaluating the cell rules
+     * @param recorder the StepRecorder collecting the measurements
+     * @throws IllegalStateException if a tile holds no cell
+     */
+    private void advance(Board board, EventType event, RuleEngine engine, StepRecorder recorder) {
+        StatePlanes planes = board.getPlanes();
+        if (planes != null) {
+            new PlaneRules(planes).step(event, recorder);
+            return;
+        }
+
         if (event != null) event.apply(board.getTiles());
+        recorder.mark(StepPhase.EVENT);
+
         board.getTiles().forEach(t -> {
             if (t.getCell() != null && t.getCell().isAlive()) {
                 t.getCell().getNeighbors().forEach(n -> {
@@ -54,7 +228,19 @@ public class ExtendedGameOfLife {
                 });
             }
         });
+        recorder.mark(StepPhase.INTERACTION);
+
+        if (engine != RuleEngine.OBJECT_GRAPH) {
+            PackedRules rules = PackedRules.load(board, engine);
+            rules.evaluate();
+            recorder.mark(StepPhase.RULES);
+            completeMoods(board, recorder);
+            rules.commit(recorder);
+            recorder.mark(StepPhase.COMPLETE);
+            return;
+        }
 
+        Map<Cell, Boolean> nextStates = new HashMap<>();
         for (Tile tile : board.getTiles()) {
             Cell c = tile.getCell();
             if (c == null) {
@@ -75,55 +261,61 @@ public class ExtendedGameOfLife {
 
             nextStates.put(c, alive&&c.getLifePoints()>=0);
         }
+        recorder.mark(StepPhase.RULES);
 
-        board.getTiles().forEach(t -> {
-            if (t.getCell() != null) {
-                t.getCell().complete();
-            }
-        });
-
-        // Step 2: Instantiate the next Generation based on current
-        Generation nextGen = Generation.createNextGeneration(current);
+        completeMoods(board, recorder);
 
-        // Step 3: Apply all computed states simultaneously to avoid intermediate inconsistencies
+        // Apply all computed states simultaneously to avoid intermediate inconsistencies
         for (Map.Entry<Cell, Boolean> e : nextStates.entrySet()) {
             Cell c = e.getKey();
-            c.setAlive(e.getValue());
-            c.addGeneration(nextGen);  // register cell with new generation
+            boolean alive = e.getValue();
+            if (alive != c.isAlive()) {
+                if (alive) recorder.birth(); else recorder.death();
+            }
+            c.setAlive(alive);
         }
+        recorder.mark(StepPhase.COMPLETE);
+    }
 
-        // Step 4: Persist snapshot of the next generation state
-        nextGen.snapCells();
-
-        return nextGen;
+    /**
+     * Commits the pending mood of every cell, counting the conversions.
+     *
+     * @param board    the Board whose cells are completed
+     * @param recorder the StepRecorder counting mood conversions
+     */
+    private void completeMoods(Board board, StepRecorder recorder) {
+        for (Tile t : board.getTiles()) {
+            Cell c = t.getCell();
+            if (c != null) {
+                CellMood before = c.getMood();
+                c.complete();
+                if (c.getMood() != before) recorder.moodConversion();
+            }
+        }
     }
 
     /**
      * Advances the simulation by evolving the game state through a given number of steps.
      *
-     * Starting from the game's initial generation, this method repeatedly computes the next
-     * generation and appends it to the game's history.
+     * Starting from the game's latest generation, this method repeatedly computes the next
+     * generation and appends it to the game's history. Events already scheduled on the
+     * game (by a previous run or a restored Checkpoint) are applied at their steps.
      *
      * @param game  The Game instance whose generations will be advanced.
      * @param steps The number of evolution steps (generations) to perform.
      * @return The same Game instance, updated with the new generation.
      */
     public Game run(Game game, int steps) {
-        Generation current = game.getStart();
-        for (int i = 0; i < steps; i++) {
-            Generation next = evolve(current, null);
-            current = next;
-        }
-        return game;
+        return runSteps(game, steps, game.getEventMapInternal());
     }
 
     /**
      * Advances the simulation by evolving the game state through a given number of steps.
      *
-     * Starting from the game's initial generation, this method repeatedly computes the next
+     * Starting from the game's latest generation, this method repeatedly computes the next
      * generation and appends it to the game's history. 
      * 
-     * It applies any events at their scheduled generations.
+     * It applies any events at their scheduled generations, replacing the game's schedule.
      *
      * At each step:
      *   1. If an event is scheduled for the current step (according to eventMap), the
@@ -137,13 +329,55 @@ public class ExtendedGameOfLife {
      * @return          The same Game instance, now containing the extended generation history.
      */
     public Game run(Game game, int steps, Map<Integer, EventType> eventMap) {
-        game.getEventMapInternal().clear();
-        game.getEventMapInternal().putAll(eventMap);
-        Generation current = game.getStart();
+        Map<Integer, EventType> schedule = game.getEventMapInternal();
+        if (eventMap != schedule) {
+            schedule.clear();
+            schedule.putAll(eventMap);
+        }
+        return runSteps(game, steps, game.getEventMapInternal());
+    }
+
+    /**
+     * Evolves the game from its latest generation for the given number of
+     * steps, applying the scheduled events and notifying the run listeners.
+     *
+     * @param game     the Game instance to run
+     * @param steps    the number of generations to simulate
+     * @param eventMap the events to apply, keyed by the step they precede
+     * @return the same Game instance
+     */
+    private Game runSteps(Game game, int steps, Map<Integer, EventType> eventMap) {
+        for (SimulationListener l : listeners) {
+            l.onRunStart(game, steps);
+        }
+        RunEvent runEvent = new RunEvent();
+        runEvent.begin();
+        long start = System.nanoTime();
+
+        EngineSelector selector = engineSelector;
+        RuleEngine engine = ruleEngine;
+        Generation current = game.getLatest();
         for (int i = 0; i < steps; i++) {
-            Generation next = evolve(current, eventMap.getOrDefault(i, null));
+            if (selector != null && i % selector.getInterval() == 0) {
+                EngineDecision decision = selector.select(game.getBoard(), eventMap, current.getStep());
+                engine = decision.getEngine();
+                for (SimulationListener l : listeners) {
+                    l.onEngineSelected(game, decision);
+                }
+            }
+            Generation next = evolve(current, eventMap.get(current.getStep()), engine);
             current = next;
         }
+
+        long elapsed = System.nanoTime() - start;
+        if (runEvent.shouldCommit()) {
+            runEvent.game = game.getName();
+            runEvent.steps = steps;
+            runEvent.commit();
+        }
+        for (SimulationListener l : listeners) {
+            l.onRunEnd(game, steps, elapsed);
+        }
         return game;
     }
 
@@ -165,6 +399,21 @@ public class ExtendedGameOfLife {
         return alive;
     }
 
+    /**
+     * Fills the given primitive map with the alive cells of a generation, keyed
+     * by their packed coordinates (see Coord.pack), without creating any Coord
+     * or boxed key.
+     *
+     * @param generation the generation whose alive cells are mapped
+     * @param into       the map receiving the entries; it is not cleared first
+     * @return the into map
+     */
+    public LongObjectMap<Cell> getAliveCells(Generation generation, LongObjectMap<Cell> into) {
+        Board board = generation.getBoard();
+        generation.getSnapshot().forEachAlive((x, y, snap) -> into.put(Coord.pack(x, y), board.cellAt(x, y)));
+        return into;
+    }
+
     /**
      * Generates a visual string representation of the specified generation's board state.
      *
@@ -193,6 +442,10 @@ public class ExtendedGameOfLife {
         EntityManager em = JPAUtil.getEntityManager();
         EntityTransaction tx = em.getTransaction();
         try {
+            // in-memory generations keep their state in shared grids: fill the persistent maps first
+            for (Generation g : game.getGenerations()) {
+                g.materializeStates();
+            }
             tx.begin();
             if (game.getId() == null) {
                 em.persist(game);
@@ -210,6 +463,45 @@ public class ExtendedGameOfLife {
         }
     }
 
+    /**
+     * Writes a binary checkpoint of the current state of a game, from which
+     * the simulation can later be continued without going through JPA.
+     *
+     * @param game the Game to checkpoint
+     * @param file the checkpoint file to write or replace
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    public void checkpoint(Game game, Path file) {
+        Checkpoint.write(game, file);
+    }
+
+    /**
+     * Rebuilds a game from a checkpoint written by checkpoint(...); running
+     * it continues the simulation from the checkpointed step.
+     *
+     * @param file the checkpoint file to read
+     * @return the restored Game
+     * @throws UncheckedIOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a valid checkpoint
+     */
+    public Game restore(Path file) {
+        return Checkpoint.read(file);
+    }
+
+    /**
+     * Replays a persisted game with the current engine and checks that every
+     * stored generation is reproduced identically.
+     *
+     * Delegates to ReplayVerifier, which compares per-step state hashes computed
+     * in parallel chunks without loading all generations into memory.
+     *
+     * @param gameId the database identifier of the Game to verify
+     * @return a ReplayReport with the first divergent step and cell, if any
+     */
+    public ReplayReport verifyReplay(Long gameId) {
+        return new ReplayVerifier().verify(gameId);
+    }
+
     /**
      * Loads and returns a persisted map of game events keyed by generation step.
      *
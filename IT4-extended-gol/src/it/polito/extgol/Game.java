@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
@@ -17,7 +18,9 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.OrderColumn;
+import jakarta.persistence.PostLoad;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 
 /**
  * Entity representing a Game of Life simulation instance.
@@ -74,6 +77,17 @@ public class Game {
     @Column(name = "event_type", nullable = false)
     private Map<Integer, EventType> events = new HashMap<>();
 
+    /**
+     * Published view of the generations, safe to read from any thread.
+     *
+     * Only written on the simulation side: replaced after every change of the
+     * history, once the new generation has been fully captured, and built from
+     * the persistent list when the game is loaded from the database. Readers
+     * never write it.
+     */
+    @Transient
+    private volatile GenerationHistory published = GenerationHistory.EMPTY;
+
     /**
      * Default constructor for JPA.
      */
@@ -146,13 +160,15 @@ public class Game {
 
      /**
      * Appends a new Generation to the end of this game’s timeline.
-     * Sets the generation’s back-reference to this Game before adding.
+     * Sets the generation’s back-reference to this Game before adding, and
+     * publishes it to the readers of getPublishedGenerations().
      *
      * @param generation the Generation instance to add to the sequence
      */
     public void addGeneration(Generation generation) {
         generation.setGame(this);
         generations.add(generation);
+        published = published.append(generation);
     }
 
     /**
@@ -164,27 +180,139 @@ public class Game {
      * @param step       the zero-based index at which to insert this generation
      */
     public void addGeneration(Generation generation, Integer step) {
+        if (step == generations.size()) {
+            addGeneration(generation);
+            return;
+        }
         generation.setGame(this);
         generations.add(step, generation);
+        published = GenerationHistory.of(generations);
     }
 
     /**
      * Removes all generations from this Game’s history.
      * After clearing, the game will have no recorded generations until new ones are added.
+     * Views previously returned by getPublishedGenerations() are not affected.
      */
     public void clearGenerations() {
         generations.clear();
+        published = GenerationHistory.EMPTY;
     }
 
     /**
      * Retrieves the full history of generations in this game, in chronological order.
      *
+     * This is the mutable list owned by the simulation and by JPA: threads other
+     * than the one running the game must use getPublishedGenerations() instead.
+     *
      * @return a List of Generation instances representing each step in the simulation
      */
     public List<Generation> getGenerations() {
         return generations;
     }
 
+    /**
+     * Returns an immutable view of the generations published so far, which
+     * can be read from any thread while the game keeps running.
+     *
+     * Taking the view neither copies the history nor blocks the simulation,
+     * and the view never changes afterwards: later steps only appear in views
+     * taken later. Generations enter the view once fully captured, and their
+     * state must be read through their snapshots (e.g. getCellAlivenessStates,
+     * getRegionStats or the Board analytics), never from the live Cells, which
+     * the simulation keeps updating in place.
+     *
+     * @return the published generations, in step order
+     */
+    public List<Generation> getPublishedGenerations() {
+        return history();
+    }
+
+    /**
+     * Returns the published view.
+     *
+     * @return the current GenerationHistory
+     */
+    private GenerationHistory history() {
+        return published;
+    }
+
+    /**
+     * Publishes the generations of a game loaded from the database, on the
+     * loading thread, before the game is handed to any reader.
+     */
+    @PostLoad
+    private void publishLoadedGenerations() {
+        published = GenerationHistory.of(generations);
+    }
+
+    /**
+     * Returns the state of the cell at the given coordinates over the steps
+     * fromStep..toStep of the in-memory history, read column-wise from the
+     * generation snapshots.
+     *
+     * @param coord    the coordinates of the cell
+     * @param fromStep the first step, inclusive
+     * @param toStep   the last step, inclusive
+     * @return the CellHistory over [fromStep, toStep]
+     * @throws IllegalArgumentException if the range is empty or exceeds the recorded history
+     */
+    public CellHistory getCellHistory(Coord coord, int fromStep, int toStep) {
+        Objects.requireNonNull(coord, "Coordinates cannot be null");
+        CellHistory.checkRange(fromStep, toStep);
+        return CellHistory.of(coord, getGenerations(fromStep, toStep));
+    }
+
+    /**
+     * Returns the generations of the steps fromStep..toStep, as a view of the
+     * history.
+     *
+     * The history of a game restored from a Checkpoint starts at the restored
+     * step instead of 0, so steps are translated into list positions here.
+     *
+     * @param fromStep the first step, inclusive
+     * @param toStep   the last step, inclusive
+     * @return the generations of the range, in step order
+     * @throws IllegalArgumentException if the range is empty or not recorded
+     */
+    List<Generation> getGenerations(int fromStep, int toStep) {
+        GenerationHistory h = history();
+        int first = h.isEmpty() ? 0 : h.get(0).getStep();
+        if (fromStep < first || toStep < fromStep) {
+            throw new IllegalArgumentException("Invalid step range " + fromStep + ".." + toStep);
+        }
+        if (toStep - first >= h.size()) {
+            throw new IllegalArgumentException("Step " + toStep + " has not been simulated yet");
+        }
+        return h.subList(fromStep - first, toStep - first + 1);
+    }
+
+    /**
+     * Returns the generation of the given step.
+     *
+     * @param step the step of the generation
+     * @return the recorded Generation of that step
+     * @throws IllegalArgumentException if the step is not recorded
+     */
+    public Generation getGeneration(int step) {
+        return getGenerations(step, step).get(0);
+    }
+
+    /**
+     * Returns the most recent published Generation of the game, from which the
+     * next run continues. Safe to call from any thread.
+     *
+     * @return the last Generation in the game’s sequence
+     * @throws IllegalStateException if the game has no generation
+     */
+    public Generation getLatest() {
+        Generation latest = history().latest();
+        if (latest == null) {
+            throw new IllegalStateException("Game has no generations");
+        }
+        return latest;
+    }
+
     /**
      * Returns the unique identifier for this Game.
      *
@@ -231,12 +359,13 @@ public class Game {
     }
 
     /**
-     * Returns the initial Generation of the game (step 0).
+     * Returns the initial Generation of the game: step 0, or the restored step
+     * for games read from a Checkpoint.
      *
      * @return the first Generation in the game’s sequence
      */
     public Generation getStart() {
-        return this.generations.get(0);
+        return history().get(0);
     }
 
     /**
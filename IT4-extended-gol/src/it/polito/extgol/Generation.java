@@ -1,11 +1,12 @@
 package it.polito.extgol;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
@@ -18,7 +19,9 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.MapKeyJoinColumn;
+import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import jakarta.persistence.UniqueConstraint;
 
 /**
@@ -53,8 +56,12 @@ public class Generation {
     private Board board;
 
     /**
-     * Persistent map of each Cell to its alive state at this generation.
-     * Keys are Cell entities; values are true for alive, false for dead.
+     * Persistent map of each Cell to its state at this generation.
+     *
+     * This is the storage form used by JPA only: in memory the authoritative
+     * state is the shared SnapshotGrid, and the map is filled from it right
+     * before the generation is persisted (see materializeStates()). Generations
+     * reloaded from the database rebuild their grid from this map.
      */
     @ElementCollection(fetch = FetchType.LAZY)
     @CollectionTable(name = "generation_state", joinColumns = {
@@ -69,6 +76,34 @@ public class Generation {
     @Column(name = "states", nullable = false)
     private Map<Cell, CellSnapshot> cellStates = new HashMap<>();
 
+    /**
+     * Lazily built spatial summary of the snapshot, used by region queries.
+     * Not persisted; discarded whenever the snapshot changes. Volatile, like
+     * the other lazily computed fields, as published generations are read
+     * from any thread.
+     */
+    @Transient
+    private volatile RegionIndex regionIndex;
+
+    /**
+     * In-memory snapshot of every cell, sharing unchanged chunks with the
+     * previous generation. Null until captured or rebuilt from cellStates.
+     */
+    @Transient
+    private volatile SnapshotGrid snapshot;
+
+    /** Grid of the generation this one evolved from, used as sharing base. */
+    @Transient
+    private SnapshotGrid base;
+
+    /** Changes from the previous generation, recorded by evolve or computed on demand. */
+    @Transient
+    private volatile GenerationDelta delta;
+
+    /** Whether cellStates currently mirrors the snapshot grid. */
+    @Transient
+    private boolean materialized = true;
+
     /**
      * Protected no-argument constructor required by JPA.
      *
@@ -118,7 +153,7 @@ public class Generation {
             Cell cell = board.getTile(c).getCell();
             if (cell != null) cell.setType(type);
         }
-        this.snapCells();
+        this.capture(null);
     }
 
     /**
@@ -133,7 +168,7 @@ public class Generation {
     public static Generation createInitial(Game game, Board board) {
         game.clearGenerations();
         Generation init = new Generation(game, board, 0);
-        init.snapCells();
+        init.capture(null);
         game.addGeneration(init, 0);
         return init;
     }
@@ -156,7 +191,7 @@ public class Generation {
         game.clearGenerations();
         Generation init = new Generation(game, board, 0);
         init.setState(aliveCells, true);
-        init.snapCells();
+        init.capture(null);
         game.addGeneration(init, 0);
         return init;
     }
@@ -172,41 +207,98 @@ public class Generation {
     public static Generation createNextGeneration(Generation prev) {
         Objects.requireNonNull(prev, "Previous generation cannot be null");
 
+        Generation next = nextGeneration(prev);
+        next.capture(null);
+        prev.getGame().addGeneration(next);
+        return next;
+    }
+
+    /**
+     * Creates the generation following prev, without capturing its snapshot
+     * nor adding it to the game history yet: the caller must capture it first,
+     * then publish it with Game.addGeneration, so that readers never see an
+     * uncaptured generation.
+     *
+     * @param prev the previous Generation
+     * @return the new, not yet captured Generation
+     */
+    static Generation nextGeneration(Generation prev) {
         Generation next = new Generation(prev.getGame(), prev.getBoard(), prev.getStep() + 1);
-        next.snapCells();
-        prev.getGame().addGeneration(next, prev.getStep() + 1);
+        next.base = prev.getSnapshot();
         return next;
     }
 
     /**
-     * Captures the current state of every cell on the board
-     * into the persistent cellAlivenessStates map and returns an unmodifiable
-     * snapshot.
+     * Creates the first generation of a game restored at the given step from
+     * the current state of its board, replacing any previous history.
+     *
+     * @param game  the restored Game
+     * @param board the Board holding the restored cell states
+     * @param step  the step the game was checkpointed at
+     * @return the new Generation of that step
+     */
+    static Generation createRestored(Game game, Board board, int step) {
+        game.clearGenerations();
+        Generation restored = new Generation(game, board, step);
+        restored.capture(null);
+        game.addGeneration(restored);
+        return restored;
+    }
+
+    /**
+     * Captures the current state of every cell on the board and returns an
+     * unmodifiable snapshot of their aliveness.
      *
-     * Iterates over each Tile in the associated Board, validates that a Cell
-     * exists on the tile, and records its isAlive value. After clearing any
-     * previous state, it populates the map and returns an immutable copy.
+     * Builds a new SnapshotGrid from the cells of the associated Board. Chunks of
+     * cells that did not change since the previous capture (of this generation
+     * or, for a fresh one, of the generation it evolved from) are shared by
+     * reference instead of being copied.
      *
      * @return an unmodifiable Map of Cell to Boolean indicating each cell’s alive
      *         state
-     * @throws ExtendedGameOfLifeException if any Tile does not contain a Cell
+     * @throws IllegalStateException if any Tile does not contain a Cell
      */
     public Map<Cell, Boolean> snapCells() {
-        cellStates.clear();
+        capture(null);
+        return Map.copyOf(getCellAlivenessStates());
+    }
 
-        for (Tile tile : board.getTiles()) {
-            Cell cell = tile.getCell();
-            if (cell == null) throw new IllegalStateException("Each tile should hold a cell!");
+    /**
+     * Captures the current state of every cell on the board into the snapshot
+     * grid, as snapCells() does, reporting the changed cells to the sink.
+     *
+     * @param sink receives every cell whose state differs from the sharing base, or null
+     */
+    void capture(SnapshotGrid.ChangeSink sink) {
+        snapshot = SnapshotGrid.capture(board, snapshot != null ? snapshot : base, sink);
+        base = null;
+        regionIndex = null;
+        delta = null;
+        cellStates.clear();
+        materialized = false;
+    }
 
-            cellStates.put(cell, new CellSnapshot(
-                    cell.isAlive(),
-                    cell.getLifePoints(),
-                    cell.getType(),
-                    cell.getMood()
-            ));
+    /**
+     * Returns the changes leading from the previous generation to this one.
+     *
+     * Generations produced by ExtendedGameOfLife.evolve carry the delta recorded
+     * during the step; for other generations it is computed from the snapshots
+     * of this and the previous generation of the game.
+     *
+     * @return the GenerationDelta from step - 1, or null for the first generation of the game
+     */
+    public GenerationDelta getDelta() {
+        GenerationDelta d = delta;
+        if (d == null && game != null && !game.getPublishedGenerations().isEmpty()
+                && step > game.getStart().getStep() && step <= game.getLatest().getStep()) {
+            d = GenerationDelta.between(game.getGeneration(step - 1), this);
+            delta = d;
         }
+        return d;
+    }
 
-        return Map.copyOf(getCellAlivenessStates());
+    void setDelta(GenerationDelta delta) {
+        this.delta = delta;
     }
 
     /**
@@ -218,10 +310,9 @@ public class Generation {
      * @return a Set of Cell instances that are alive in this generation
      */
     public Set<Cell> getAliveCells() {
-        return getCellAlivenessStates().entrySet().stream()
-                .filter(Map.Entry::getValue)
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toSet());
+        Set<Cell> alive = new HashSet<>();
+        getSnapshot().forEachAlive((x, y, snap) -> alive.add(board.cellAt(x, y)));
+        return alive;
     }
 
     /**
@@ -237,7 +328,7 @@ public class Generation {
             Cell cell = board.getTile(c).getCell();
             cell.setAlive(true);
         }
-        this.snapCells();
+        this.capture(null);
     }
 
     public void setState(Map<Coord, CellType> states) {
@@ -246,7 +337,7 @@ public class Generation {
             cell.setType(e.getValue());
             cell.setAlive(true);
         }
-        this.snapCells();
+        this.capture(null);
     }
 
     /**
@@ -319,7 +410,53 @@ public class Generation {
         game.clearGenerations();
         Generation init = new Generation(game, board, 0);
         init.setState(cellTypesMap);
-        init.snapCells();
+        init.capture(null);
+        game.addGeneration(init, 0);
+        return init;
+    }
+
+    /**
+     * Creates the initial generation (step 0) of a random board in which each
+     * cell is alive with the given probability, as BASIC/NAIVE cells.
+     *
+     * @param game    the Game instance to initialize
+     * @param board   the Board context for the new generation
+     * @param density the probability of each cell being alive, between 0 and 1
+     * @param seed    the seed of the random sequence; equal seeds give equal boards
+     * @return a new Generation representing step 0
+     * @throws IllegalArgumentException if the density is not between 0 and 1
+     */
+    public static Generation createRandom(Game game, Board board, double density, long seed) {
+        return createRandom(game, board, density, seed, Map.of(), Map.of());
+    }
+
+    /**
+     * Creates the initial generation (step 0) of a random board in which each
+     * cell is alive with the given probability, and alive cells draw their type
+     * and mood from the given relative weights.
+     *
+     * The board is filled in parallel by row bands, writing every cell state
+     * directly, and captured by a single snapshot at the end. The outcome only
+     * depends on the seed and the board size.
+     *
+     * @param game        the Game instance to initialize
+     * @param board       the Board context for the new generation
+     * @param density     the probability of each cell being alive, between 0 and 1
+     * @param seed        the seed of the random sequence; equal seeds give equal boards
+     * @param typeWeights relative weights of each CellType; empty for BASIC only
+     * @param moodWeights relative weights of each CellMood; empty for NAIVE only
+     * @return a new Generation representing step 0
+     * @throws IllegalArgumentException if the density or a weight is invalid
+     */
+    public static Generation createRandom(Game game, Board board, double density, long seed,
+            Map<CellType, Double> typeWeights, Map<CellMood, Double> moodWeights) {
+        Objects.requireNonNull(game, "Game cannot be null");
+        Objects.requireNonNull(board, "Board cannot be null");
+
+        new BoardSeeder(density, typeWeights, moodWeights).seed(board, seed);
+        game.clearGenerations();
+        Generation init = new Generation(game, board, 0);
+        init.capture(null);
         game.addGeneration(init, 0);
         return init;
     }
@@ -331,11 +468,7 @@ public class Generation {
      *         = dead)
      */
     public Map<Cell, Boolean> getCellAlivenessStates() {
-        return this.cellStates.entrySet().stream()
-                .collect(Collectors.toMap(
-                    Map.Entry::getKey,
-                    e -> e.getValue().isAlive()
-        ));
+        return collectStates(CellSnapshot::isAlive);
     }
 
     /**
@@ -345,19 +478,29 @@ public class Generation {
      * @return a Map from Cell to its Integer lifePoints value
      */
     public Map<Cell, Integer> getEnergyStates() {
-        return this.cellStates.entrySet().stream()
-                .collect(Collectors.toMap(
-                    Map.Entry::getKey,
-                    e -> e.getValue().lifepoints()
-        ));
+        return collectStates(CellSnapshot::lifepoints);
+    }
+
+    /**
+     * Fills the given primitive map with the lifePoints of every cell in this
+     * generation, keyed by packed coordinates (see Coord.pack).
+     *
+     * @param into the map receiving the entries; it is not cleared first
+     * @return the into map
+     */
+    public LongIntMap getEnergyStates(LongIntMap into) {
+        SnapshotGrid grid = getSnapshot();
+        for (int y = 0; y < grid.getHeight(); y++) {
+            for (int x = 0; x < grid.getWidth(); x++) {
+                CellSnapshot snap = grid.get(x, y);
+                if (snap != null) into.put(Coord.pack(x, y), snap.lifepoints());
+            }
+        }
+        return into;
     }
 
     public Map<Cell, CellType> getCellTypes() {
-        return this.cellStates.entrySet().stream()
-                .collect(Collectors.toMap(
-                    Map.Entry::getKey,
-                    e -> e.getValue().cellType()
-        ));
+        return collectStates(CellSnapshot::cellType);
     }
 
     /**
@@ -368,11 +511,7 @@ public class Generation {
      * @throws UnsupportedOperationException until implemented
      */
     public Map<Cell, CellMood> getMoodStates() {
-        return this.cellStates.entrySet().stream()
-                .collect(Collectors.toMap(
-                    Map.Entry::getKey,
-                    e -> e.getValue().cellMood()
-        ));
+        return collectStates(CellSnapshot::cellMood);
     }
 
     /**
@@ -382,18 +521,122 @@ public class Generation {
      *                            alive/dead state
      */
     public void setCellAlivenessStates(Map<Cell, Boolean> cellAlivenessStates) {
-        this.cellStates.clear();
+        Map<Cell, CellSnapshot> states = new HashMap<>();
         for (Map.Entry<Cell, Boolean> entry : cellAlivenessStates.entrySet()) {
             Cell cell = entry.getKey();
-            Boolean isAlive = entry.getValue();
-            CellSnapshot snapshot = this.cellStates.get(cell);
-            if (snapshot == null) {
-                snapshot = new CellSnapshot(isAlive, cell.getLifePoints(), cell.getType(), cell.getMood());
-            } else {
-                snapshot.isAlive(isAlive);
+            states.put(cell, new CellSnapshot(entry.getValue(), cell.getLifePoints(), cell.getType(), cell.getMood()));
+        }
+        this.snapshot = SnapshotGrid.fromStates(board.getWidth(), board.getHeight(), states);
+        this.regionIndex = null;
+        this.materialized = false;
+        materializeStates();
+    }
+
+    /**
+     * Returns the fraction of this generation's snapshot chunks that are shared
+     * by reference with another generation of the same board.
+     *
+     * On a sparse board consecutive generations share almost all of their
+     * chunks, which is what keeps long in-memory histories small.
+     *
+     * @param other the Generation to compare with
+     * @return a value between 0 (nothing shared) and 1 (everything shared)
+     */
+    public double sharedFraction(Generation other) {
+        return getSnapshot().sharedFraction(other.getSnapshot());
+    }
+
+    /**
+     * Fills the persistent cellStates map from the in-memory snapshot grid, so
+     * that JPA can store it. Invoked automatically before persisting, and by
+     * ExtendedGameOfLife.saveGame before merging.
+     */
+    @PrePersist
+    void materializeStates() {
+        if (materialized) return;
+        SnapshotGrid grid = getSnapshot();
+        cellStates.clear();
+        for (int y = 0; y < grid.getHeight(); y++) {
+            for (int x = 0; x < grid.getWidth(); x++) {
+                CellSnapshot snap = grid.get(x, y);
+                if (snap != null) cellStates.put(board.cellAt(x, y), snap);
             }
-            this.cellStates.put(cell, snapshot);
         }
+        materialized = true;
     }
 
+    /**
+     * Returns the snapshot grid of this generation, rebuilding it from the
+     * persisted cellStates map for generations loaded from the database.
+     *
+     * @return the SnapshotGrid holding every cell's state
+     */
+    SnapshotGrid getSnapshot() {
+        SnapshotGrid grid = snapshot;
+        if (grid == null) {
+            grid = SnapshotGrid.fromStates(board.getWidth(), board.getHeight(), cellStates);
+            snapshot = grid;
+        }
+        return grid;
+    }
+
+    /**
+     * Maps every captured cell to a value extracted from its snapshot.
+     *
+     * @param extractor the function reading the wanted field of a CellSnapshot
+     * @return a new Map from Cell to the extracted value
+     */
+    private <V> Map<Cell, V> collectStates(Function<CellSnapshot, V> extractor) {
+        SnapshotGrid grid = getSnapshot();
+        Map<Cell, V> states = new HashMap<>();
+        for (int y = 0; y < grid.getHeight(); y++) {
+            for (int x = 0; x < grid.getWidth(); x++) {
+                CellSnapshot snap = grid.get(x, y);
+                if (snap != null) states.put(board.cellAt(x, y), extractor.apply(snap));
+            }
+        }
+        return states;
+    }
+
+    /**
+     * Aggregates the alive cells of this generation lying inside the inclusive
+     * rectangle (x0, y0)-(x1, y1): their count, lifePoints sum, minimum and maximum,
+     * and the number of alive cells of each CellType.
+     *
+     * The first query builds a tiled summary of the snapshot; subsequent queries
+     * only visit the summary blocks covered by the rectangle plus the cells along
+     * its border. Corners may be given in any order and are clipped to the board.
+     * Works equally on freshly simulated and on reloaded persisted generations.
+     *
+     * @param x0 the column of the first corner
+     * @param y0 the row of the first corner
+     * @param x1 the column of the opposite corner
+     * @param y1 the row of the opposite corner
+     * @return the RegionStats of the alive cells in the rectangle
+     */
+    public RegionStats getRegionStats(int x0, int y0, int x1, int y1) {
+        return getRegionIndex().query(x0, y0, x1, y1);
+    }
+
+    /**
+     * Returns the spatial summary of this generation, building it on first use.
+     *
+     * @return the sealed RegionIndex over the current snapshot
+     */
+    private RegionIndex getRegionIndex() {
+        RegionIndex sealed = regionIndex;
+        if (sealed == null) {
+            SnapshotGrid grid = getSnapshot();
+            RegionIndex index = new RegionIndex(grid.getWidth(), grid.getHeight());
+            for (int y = 0; y < grid.getHeight(); y++) {
+                for (int x = 0; x < grid.getWidth(); x++) {
+                    CellSnapshot snap = grid.get(x, y);
+                    if (snap != null) index.put(x, y, snap.isAlive(), snap.lifepoints(), snap.cellType());
+                }
+            }
+            sealed = index.seal();
+            regionIndex = sealed;
+        }
+        return sealed;
+    }
 }
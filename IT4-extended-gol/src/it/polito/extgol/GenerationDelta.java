@@ -0,0 +1,333 @@
+package it.polito.extgol;
+
+import java.util.Arrays;
+
+/**
+ * The changes leading from one generation to a later one of the same board.
+ *
+ * Cells are identified by their long row-major index y * width + x, so that
+ * deltas also describe off-heap boards of more than Integer.MAX_VALUE cells,
+ * and every kind of change is stored in primitive arrays sorted by index:
+ *   - births and deaths: the cells whose aliveness changed;
+ *   - mood changes: the cells whose mood changed, with their new mood ordinal;
+ *   - energy changes: the cells whose lifePoints changed, with their new value;
+ *   - type changes: the cells whose CellType changed, with their new ordinal.
+ *
+ * ExtendedGameOfLife.evolve records the delta of every step while capturing
+ * the new snapshot, without an extra pass over the board, and streams it to
+ * the SimulationListeners. Applying the deltas of consecutive steps to the
+ * state of an earlier generation rebuilds the later ones.
+ */
+public class GenerationDelta {
+
+    private final int fromStep;
+    private final int toStep;
+    private final int width;
+    private final int height;
+
+    private final long[] births;
+    private final long[] deaths;
+    private final long[] moodCells;
+    private final byte[] moods;
+    private final long[] energyCells;
+    private final int[] energies;
+    private final long[] typeCells;
+    private final byte[] types;
+
+    private GenerationDelta(Builder b) {
+        this.fromStep = b.fromStep;
+        this.toStep = b.toStep;
+        this.width = b.width;
+        this.height = b.height;
+        this.births = b.births.toArray();
+        this.deaths = b.deaths.toArray();
+        this.moodCells = b.moodCells.toArray();
+        this.moods = b.moods.toByteArray();
+        this.energyCells = b.energyCells.toArray();
+        this.energies = b.energies.toArray();
+        this.typeCells = b.typeCells.toArray();
+        this.types = b.types.toByteArray();
+    }
+
+    /**
+     * Computes the delta between two generations of the same board from their
+     * snapshots, visiting only the chunks they do not share.
+     *
+     * @param from the earlier Generation
+     * @param to   the later Generation
+     * @return the delta turning the state of from into the state of to
+     * @throws IllegalArgumentException if the generations belong to boards of different sizes
+     */
+    public static GenerationDelta between(Generation from, Generation to) {
+        SnapshotGrid before = from.getSnapshot();
+        SnapshotGrid after = to.getSnapshot();
+        if (before.getWidth() != after.getWidth() || before.getHeight() != after.getHeight()) {
+            throw new IllegalArgumentException("Generations belong to boards of different sizes");
+        }
+        Builder builder = new Builder(from.getStep(), to.getStep(), after.getWidth(), after.getHeight());
+        after.forEachChange(before, builder);
+        return builder.build();
+    }
+
+    /**
+     * Returns the step of the generation the delta starts from.
+     *
+     * @return the earlier step
+     */
+    public int getFromStep() {
+        return fromStep;
+    }
+
+    /**
+     * Returns the step of the generation the delta leads to.
+     *
+     * @return the later step
+     */
+    public int getToStep() {
+        return toStep;
+    }
+
+    /**
+     * Returns the width of the board, needed to decode cell indices.
+     *
+     * @return the number of columns
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the row-major indices of the cells that came alive.
+     *
+     * @return a new array of cell indices, ascending
+     */
+    public long[] getBirths() {
+        return births.clone();
+    }
+
+    /**
+     * Returns the row-major indices of the cells that died.
+     *
+     * @return a new array of cell indices, ascending
+     */
+    public long[] getDeaths() {
+        return deaths.clone();
+    }
+
+    /**
+     * Returns the row-major indices of the cells whose mood changed.
+     *
+     * @return a new array of cell indices, ascending
+     */
+    public long[] getMoodChanges() {
+        return moodCells.clone();
+    }
+
+    /**
+     * Returns the new mood of the i-th cell of getMoodChanges().
+     *
+     * @param i the position in getMoodChanges()
+     * @return the CellMood after the change
+     */
+    public CellMood getNewMood(int i) {
+        return CellMood.VALUES[moods[i]];
+    }
+
+    /**
+     * Returns the row-major indices of the cells whose lifePoints changed.
+     *
+     * @return a new array of cell indices, ascending
+     */
+    public long[] getEnergyChanges() {
+        return energyCells.clone();
+    }
+
+    /**
+     * Returns the new lifePoints of the cells of getEnergyChanges(), in the
+     * same order.
+     *
+     * @return a new array of lifePoints
+     */
+    public int[] getNewLifePoints() {
+        return energies.clone();
+    }
+
+    /**
+     * Returns the row-major indices of the cells whose type changed.
+     *
+     * @return a new array of cell indices, ascending
+     */
+    public long[] getTypeChanges() {
+        return typeCells.clone();
+    }
+
+    /**
+     * Returns the new type of the i-th cell of getTypeChanges().
+     *
+     * @param i the position in getTypeChanges()
+     * @return the CellType after the change
+     */
+    public CellType getNewType(int i) {
+        return CellType.VALUES[types[i]];
+    }
+
+    /**
+     * Decodes a cell index of this delta into coordinates.
+     *
+     * @param index a row-major cell index
+     * @return the Coord of the cell
+     */
+    public Coord coordOf(long index) {
+        return new Coord((int) (index % width), (int) (index / width));
+    }
+
+    /**
+     * Tells whether the two generations have identical states.
+     *
+     * @return true if no cell changed
+     */
+    public boolean isEmpty() {
+        return births.length == 0 && deaths.length == 0 && moodCells.length == 0
+                && energyCells.length == 0 && typeCells.length == 0;
+    }
+
+    /**
+     * Applies this delta to the cells of a board holding the state of
+     * getFromStep(), bringing them to the state of getToStep(). Pending moods
+     * are reset to the new moods.
+     *
+     * @param board the Board to update
+     * @throws IllegalArgumentException if the board size does not match
+     */
+    public void applyTo(Board board) {
+        if (board.getWidth() != width || board.getHeight() != height) {
+            throw new IllegalArgumentException("Board size does not match the delta");
+        }
+        for (long i : births) cell(board, i).setAlive(true);
+        for (long i : deaths) cell(board, i).setAlive(false);
+        for (int k = 0; k < moodCells.length; k++) cell(board, moodCells[k]).setMood(CellMood.VALUES[moods[k]]);
+        for (int k = 0; k < energyCells.length; k++) cell(board, energyCells[k]).setLifePoints(energies[k]);
+        for (int k = 0; k < typeCells.length; k++) cell(board, typeCells[k]).setType(CellType.VALUES[types[k]]);
+    }
+
+    private Cell cell(Board board, long index) {
+        return board.cellAt((int) (index % width), (int) (index / width));
+    }
+
+    @Override
+    public String toString() {
+        return "GenerationDelta[" + fromStep + "->" + toStep + " +" + births.length + " -" + deaths.length
+                + " moods " + moodCells.length + " energy " + energyCells.length + "]";
+    }
+
+    /**
+     * Collects the changes reported by a snapshot capture or comparison.
+     * Missing snapshots count as dead BASIC/NAIVE cells with no lifePoints.
+     */
+    static class Builder implements SnapshotGrid.ChangeSink {
+        private final int fromStep;
+        private final int toStep;
+        private final int width;
+        private final int height;
+
+        private final Longs births = new Longs();
+        private final Longs deaths = new Longs();
+        private final Longs moodCells = new Longs();
+        private final Ints moods = new Ints();
+        private final Longs energyCells = new Longs();
+        private final Ints energies = new Ints();
+        private final Longs typeCells = new Longs();
+        private final Ints types = new Ints();
+
+        Builder(int fromStep, int toStep, int width, int height) {
+            this.fromStep = fromStep;
+            this.toStep = toStep;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public void changed(int x, int y, CellSnapshot before, CellSnapshot after) {
+            long index = (long) y * width + x;
+            boolean wasAlive = before != null && before.isAlive();
+            boolean isAlive = after != null && after.isAlive();
+            if (wasAlive != isAlive) (isAlive ? births : deaths).add(index);
+
+            CellMood oldMood = before != null ? before.cellMood() : CellMood.NAIVE;
+            CellMood newMood = after != null ? after.cellMood() : CellMood.NAIVE;
+            if (oldMood != newMood) {
+                moodCells.add(index);
+                moods.add(newMood.ordinal());
+            }
+
+            int oldEnergy = before != null ? before.lifepoints() : 0;
+            int newEnergy = after != null ? after.lifepoints() : 0;
+            if (oldEnergy != newEnergy) {
+                energyCells.add(index);
+                energies.add(newEnergy);
+            }
+
+            CellType oldType = before != null ? before.cellType() : CellType.BASIC;
+            CellType newType = after != null ? after.cellType() : CellType.BASIC;
+            if (oldType != newType) {
+                typeCells.add(index);
+                types.add(newType.ordinal());
+            }
+        }
+
+        GenerationDelta build() {
+            return new GenerationDelta(this);
+        }
+    }
+
+    /** Largest array length the VM reliably allocates. */
+    private static final int MAX_ARRAY = Integer.MAX_VALUE - 8;
+
+    /**
+     * Returns the capacity following the given one.
+     *
+     * @throws IllegalStateException if the array cannot grow any further
+     */
+    private static int grow(int capacity) {
+        if (capacity >= MAX_ARRAY) {
+            throw new IllegalStateException("Too many changes to record in one delta");
+        }
+        return (int) Math.min(MAX_ARRAY, capacity * 2L);
+    }
+
+    /** Minimal growable int array. */
+    private static class Ints {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, grow(size));
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+        byte[] toByteArray() {
+            byte[] bytes = new byte[size];
+            for (int i = 0; i < size; i++) bytes[i] = (byte) values[i];
+            return bytes;
+        }
+    }
+
+    /** Minimal growable long array. */
+    private static class Longs {
+        private long[] values = new long[16];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) values = Arrays.copyOf(values, grow(size));
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
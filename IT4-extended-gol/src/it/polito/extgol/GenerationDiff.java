@@ -0,0 +1,91 @@
+package it.polito.extgol;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The cells that were born or died between a generation and the previous one.
+ *
+ * Sent to the subscribers of a SimulationService instead of full snapshots:
+ * on a typical board only a small fraction of the cells changes per step.
+ * See GenerationDelta for the complete, primitive-array form of the changes.
+ */
+public class GenerationDiff {
+
+    private final String gameName;
+    private final int step;
+    private final List<Coord> births;
+    private final List<Coord> deaths;
+
+    GenerationDiff(String gameName, int step, List<Coord> births, List<Coord> deaths) {
+        this.gameName = gameName;
+        this.step = step;
+        this.births = List.copyOf(births);
+        this.deaths = List.copyOf(deaths);
+    }
+
+    /**
+     * Extracts the births and deaths of a generation from its delta.
+     *
+     * @param gameName the name of the game
+     * @param delta    the GenerationDelta of the step
+     * @return the diff of delta.getToStep()
+     */
+    static GenerationDiff of(String gameName, GenerationDelta delta) {
+        List<Coord> births = new ArrayList<>();
+        List<Coord> deaths = new ArrayList<>();
+        for (long i : delta.getBirths()) births.add(delta.coordOf(i));
+        for (long i : delta.getDeaths()) deaths.add(delta.coordOf(i));
+        return new GenerationDiff(gameName, delta.getToStep(), births, deaths);
+    }
+
+    /**
+     * Returns the name of the game the diff belongs to.
+     *
+     * @return the game name
+     */
+    public String getGameName() {
+        return gameName;
+    }
+
+    /**
+     * Returns the step of the generation produced by this diff.
+     *
+     * @return the step index
+     */
+    public int getStep() {
+        return step;
+    }
+
+    /**
+     * Returns the coordinates of the cells that came alive, in row-major order.
+     *
+     * @return an immutable List of Coord
+     */
+    public List<Coord> getBirths() {
+        return births;
+    }
+
+    /**
+     * Returns the coordinates of the cells that died, in row-major order.
+     *
+     * @return an immutable List of Coord
+     */
+    public List<Coord> getDeaths() {
+        return deaths;
+    }
+
+    /**
+     * Tells whether no cell changed its aliveness.
+     *
+     * @return true if there are neither births nor deaths
+     */
+    public boolean isEmpty() {
+        return births.isEmpty() && deaths.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return gameName + "@" + step + " +" + births.size() + " -" + deaths.size();
+    }
+}
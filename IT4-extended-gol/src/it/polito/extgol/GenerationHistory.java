@@ -0,0 +1,82 @@
+package it.polito.extgol;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Immutable, append-only view of the published generations of a game.
+ *
+ * Every instance covers the first size() entries of a shared backing array.
+ * Appending writes the slot just past the end and returns a new, longer view
+ * over the same array, growing it by copying only when full; entries already
+ * covered by a view are never written again, so a view handed to a reader
+ * stays valid and unchanged however far the simulation goes, without any copy
+ * or lock. Game publishes each new view through a volatile field, which makes
+ * the generations it covers, and their snapshots, visible to every thread
+ * that reads the field afterwards.
+ *
+ * Appends must come from a single thread at a time, always to the latest view.
+ */
+final class GenerationHistory extends AbstractList<Generation> implements RandomAccess {
+
+    /** The view of a game with no generation. */
+    static final GenerationHistory EMPTY = new GenerationHistory(new Generation[0], 0);
+
+    private final Generation[] items;
+    private final int size;
+
+    private GenerationHistory(Generation[] items, int size) {
+        this.items = items;
+        this.size = size;
+    }
+
+    /**
+     * Builds a view holding a copy of the given generations.
+     *
+     * @param generations the generations, in step order
+     * @return the new view
+     */
+    static GenerationHistory of(List<Generation> generations) {
+        Generation[] items = generations.toArray(new Generation[Math.max(8, generations.size())]);
+        return new GenerationHistory(items, generations.size());
+    }
+
+    /**
+     * Returns a view holding the generations of this one followed by another.
+     *
+     * @param generation the Generation to append
+     * @return the longer view; this view is left unchanged
+     */
+    GenerationHistory append(Generation generation) {
+        Objects.requireNonNull(generation, "Generation cannot be null");
+        Generation[] target = items;
+        if (size == target.length || target[size] != null) {
+            target = Arrays.copyOf(items, Math.max(8, size * 2));
+            Arrays.fill(target, size, target.length, null);
+        }
+        target[size] = generation;
+        return new GenerationHistory(target, size + 1);
+    }
+
+    /**
+     * Returns the last generation of the view.
+     *
+     * @return the latest Generation, or null if the view is empty
+     */
+    Generation latest() {
+        return size > 0 ? items[size - 1] : null;
+    }
+
+    @Override
+    public Generation get(int index) {
+        return items[Objects.checkIndex(index, size)];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,224 @@
+package it.polito.extgol;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from primitive long keys to primitive int values.
+ *
+ * Meant for packed coordinates (see Coord.pack): it stores keys and values in
+ * two parallel arrays with linear probing, so entries cost no objects at all.
+ * Long.MIN_VALUE marks free slots and is itself stored aside. The map only
+ * grows; clear() empties it while keeping its capacity for reuse.
+ */
+public class LongIntMap {
+
+    /** Sentinel marking a free slot of the key array. */
+    private static final long FREE = Long.MIN_VALUE;
+
+    /** Largest capacity of the slot arrays: the largest power of two an array can hold. */
+    static final int MAX_CAPACITY = 1 << 30;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    /** Number of entries beyond which the slot arrays are grown. */
+    private int threshold;
+
+    private boolean hasFreeKey;
+    private int freeKeyValue;
+
+    /**
+     * Creates an empty map.
+     */
+    public LongIntMap() {
+        this(16);
+    }
+
+    /**
+     * Creates an empty map able to hold the given number of entries without
+     * resizing.
+     *
+     * @param expected the expected number of entries
+     */
+    public LongIntMap(int expected) {
+        allocate(capacityFor(expected));
+    }
+
+    static int capacityFor(int expected) {
+        int needed = (int) Math.min(MAX_CAPACITY, Math.max(4, (long) expected * 4 / 3 + 1));
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+
+    /**
+     * Returns the number of entries a table of the given capacity holds
+     * before growing, three quarters of its slots.
+     */
+    static int threshold(int capacity) {
+        return (int) ((long) capacity * 3 / 4);
+    }
+
+    /**
+     * Returns the capacity following the given one.
+     *
+     * @throws IllegalStateException if the capacity is already the maximum
+     */
+    static int grow(int capacity) {
+        if (capacity >= MAX_CAPACITY) {
+            throw new IllegalStateException("Map cannot hold more than " + threshold(MAX_CAPACITY) + " entries");
+        }
+        return capacity * 2;
+    }
+
+    static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, FREE);
+        values = new int[capacity];
+        mask = capacity - 1;
+        threshold = threshold(capacity);
+    }
+
+    /**
+     * Associates a value with a key, replacing any previous value.
+     *
+     * @param key   the key
+     * @param value the value
+     * @throws IllegalStateException if the map is full and cannot grow further
+     */
+    public void put(long key, int value) {
+        if (key == FREE) {
+            if (!hasFreeKey) size++;
+            hasFreeKey = true;
+            freeKeyValue = value;
+            return;
+        }
+        int i = slot(key, mask);
+        while (keys[i] != FREE) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        if (size >= threshold) {
+            rehash();
+            i = slot(key, mask);
+            while (keys[i] != FREE) i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+    }
+
+    /**
+     * Adds delta to the value of a key, starting from 0 for absent keys.
+     *
+     * @param key   the key
+     * @param delta the amount to add
+     * @return the new value
+     */
+    public int addTo(long key, int delta) {
+        int value = get(key, 0) + delta;
+        put(key, value);
+        return value;
+    }
+
+    /**
+     * Returns the value of a key.
+     *
+     * @param key          the key
+     * @param defaultValue the value returned when the key is absent
+     * @return the mapped value, or defaultValue
+     */
+    public int get(long key, int defaultValue) {
+        if (key == FREE) return hasFreeKey ? freeKeyValue : defaultValue;
+        int i = slot(key, mask);
+        while (keys[i] != FREE) {
+            if (keys[i] == key) return values[i];
+            i = (i + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Tells whether a key is mapped.
+     *
+     * @param key the key
+     * @return true if the map holds the key
+     */
+    public boolean containsKey(long key) {
+        if (key == FREE) return hasFreeKey;
+        int i = slot(key, mask);
+        while (keys[i] != FREE) {
+            if (keys[i] == key) return true;
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return the size of the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Tells whether the map has no entries.
+     *
+     * @return true if empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes every entry, keeping the allocated capacity.
+     */
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        hasFreeKey = false;
+        size = 0;
+    }
+
+    /**
+     * Receives the entries of a LongIntMap.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, int value);
+    }
+
+    /**
+     * Passes every entry to the consumer, in no particular order.
+     *
+     * @param consumer the receiver of the entries
+     */
+    public void forEach(EntryConsumer consumer) {
+        if (hasFreeKey) consumer.accept(FREE, freeKeyValue);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE) consumer.accept(keys[i], values[i]);
+        }
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(grow(oldKeys.length));
+        for (int j = 0; j < oldKeys.length; j++) {
+            long key = oldKeys[j];
+            if (key == FREE) continue;
+            int i = slot(key, mask);
+            while (keys[i] != FREE) i = (i + 1) & mask;
+            keys[i] = key;
+            values[i] = oldValues[j];
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package it.polito.extgol;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Open-addressing hash map from primitive long keys to non-null objects.
+ *
+ * The companion of LongIntMap for object values, e.g. packed coordinates to
+ * Cells: keys are never boxed and entries need no node objects. A null value
+ * marks a free slot, which is why null values are rejected. The map only
+ * grows; clear() empties it while keeping its capacity for reuse.
+ *
+ * @param <V> the type of the values
+ */
+public class LongObjectMap<V> {
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+    /** Number of entries beyond which the slot arrays are grown. */
+    private int threshold;
+
+    /**
+     * Creates an empty map.
+     */
+    public LongObjectMap() {
+        this(16);
+    }
+
+    /**
+     * Creates an empty map able to hold the given number of entries without
+     * resizing.
+     *
+     * @param expected the expected number of entries
+     */
+    public LongObjectMap(int expected) {
+        allocate(LongIntMap.capacityFor(expected));
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        threshold = LongIntMap.threshold(capacity);
+    }
+
+    /**
+     * Associates a value with a key, replacing any previous value.
+     *
+     * @param key   the key
+     * @param value the value, not null
+     * @return the previous value, or null if the key was absent
+     * @throws IllegalStateException if the map is full and cannot grow further
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        Objects.requireNonNull(value, "Value cannot be null");
+        int i = LongIntMap.slot(key, mask);
+        while (values[i] != null) {
+            if (keys[i] == key) {
+                V old = (V) values[i];
+                values[i] = value;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        if (size >= threshold) {
+            rehash();
+            i = LongIntMap.slot(key, mask);
+            while (values[i] != null) i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        return null;
+    }
+
+    /**
+     * Returns the value of a key.
+     *
+     * @param key the key
+     * @return the mapped value, or null if absent
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int i = LongIntMap.slot(key, mask);
+        while (values[i] != null) {
+            if (keys[i] == key) return (V) values[i];
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Tells whether a key is mapped.
+     *
+     * @param key the key
+     * @return true if the map holds the key
+     */
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return the size of the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Tells whether the map has no entries.
+     *
+     * @return true if empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes every entry, keeping the allocated capacity.
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Receives the entries of a LongObjectMap.
+     *
+     * @param <V> the type of the values
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    /**
+     * Passes every entry to the consumer, in no particular order.
+     *
+     * @param consumer the receiver of the entries
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != null) consumer.accept(keys[i], (V) values[i]);
+        }
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(LongIntMap.grow(oldKeys.length));
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldValues[j] == null) continue;
+            int i = LongIntMap.slot(oldKeys[j], mask);
+            while (values[i] != null) i = (i + 1) & mask;
+            keys[i] = oldKeys[j];
+            values[i] = oldValues[j];
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package it.polito.extgol;
+
+/**
+ * Lookup-table evaluation of the rules phase of one step.
+ *
+ * The outcome of the rules of a cell only depends on its type and on the
+ * alive states of its 3x3 neighbourhood, so it is computed once for every
+ * CellType and each of the 512 neighbourhoods, from the CellType fields. Each
+ * row is then scanned with a rolling 9-bit index over the packed alive states,
+ * turning the rules of a cell into a single table read; as with the other
+ * packed engines, only the cells that are alive now or may be alive next are
+ * visited individually.
+ *
+ * Load instances through PackedRules.load(board, RuleEngine.MEMOIZED).
+ */
+class MemoizedRules extends PackedRules {
+
+    /** Bit of the neighbourhood index holding the cell itself. */
+    private static final int CENTER = 1 << 4;
+
+    /**
+     * For every CellType and neighbourhood, whether the cell in its center lives.
+     * The index holds three bits per column, from west to east, and each column
+     * the north, center and south rows from the lowest bit.
+     */
+    private static final boolean[][] LIVES = new boolean[CellType.VALUES.length][512];
+
+    static {
+        for (CellType t : CellType.VALUES) {
+            for (int index = 0; index < 512; index++) {
+                int n = Integer.bitCount(index & ~CENTER);
+                LIVES[t.ordinal()][index] = n >= t.underpopulationBound && n <= t.overpopulationBound
+                        && ((index & CENTER) != 0 || n == 3);
+            }
+        }
+    }
+
+    private final byte[] types;
+
+    /** Dead cells whose type can still survive a death. */
+    private final long[] survivors;
+
+    MemoizedRules(Board board) {
+        super(board);
+        this.types = new byte[width * height];
+        this.survivors = new long[words * height];
+    }
+
+    @Override
+    void load(Cell c, int x, int y, int i, long bit) {
+        types[y * width + x] = (byte) c.getType().ordinal();
+        if (!c.isAlive() && c.getDeathCount() < c.getType().survivableDeaths) survivors[i] |= bit;
+    }
+
+    @Override
+    void evaluate() {
+        for (int y = 0; y < height; y++) {
+            int index = column(0, y) << 6;
+            for (int x = 0; x < width; x++) {
+                index = index >>> 3 | column(x + 1, y) << 6;
+                boolean lives = LIVES[types[y * width + x]][index];
+                boolean wasAlive = (index & CENTER) != 0;
+                int i = y * words + (x >>> 6);
+                long bit = 1L << x;
+                if ((lives || wasAlive || (survivors[i] & bit) != 0)
+                        && settle(board.cellAt(x, y), x, y, wasAlive, lives)) {
+                    next[i] |= bit;
+                }
+            }
+        }
+    }
+
+    /** The north, center and south alive states of column x around row y. */
+    private int column(int x, int y) {
+        return (aliveAt(x, y - 1) ? 1 : 0) | (aliveAt(x, y) ? 2 : 0) | (aliveAt(x, y + 1) ? 4 : 0);
+    }
+}
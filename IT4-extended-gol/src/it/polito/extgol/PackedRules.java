@@ -0,0 +1,146 @@
+package it.polito.extgol;
+
+/**
+ * Base of the rules evaluators working on a packed copy of the alive states
+ * of a board, one bit per cell and 64 cells per long, row by row.
+ *
+ * Subclasses pick up whatever else they need from each cell while the board
+ * is loaded, compute the next alive states in evaluate(), updating the
+ * lifePoints and death counts of the cells they visit, and share commit(...)
+ * to apply them once the moods are committed.
+ *
+ * Instances hold the state of a single board and step: load(...) a board,
+ * evaluate() the rules and, once the moods are committed, commit(...) the
+ * new alive states.
+ */
+abstract class PackedRules {
+
+    final Board board;
+    final int width;
+    final int height;
+    final int words;
+
+    final long[] alive;
+    final long[] next;
+
+    PackedRules(Board board) {
+        this.board = board;
+        this.width = board.getWidth();
+        this.height = board.getHeight();
+        this.words = (width + 63) >>> 6;
+        this.alive = new long[words * height];
+        this.next = new long[words * height];
+    }
+
+    /**
+     * Packs the cells of a board for the given engine.
+     *
+     * @param board  the Board to evaluate
+     * @param engine the RuleEngine to use, other than OBJECT_GRAPH
+     * @return the loaded evaluator
+     * @throws IllegalArgumentException if the engine does not work on packed states
+     * @throws IllegalStateException if a tile holds no cell
+     */
+    static PackedRules load(Board board, RuleEngine engine) {
+        PackedRules rules = switch (engine) {
+            case BIT_SLICED -> new BitSlicedRules(board);
+            case SPARSE -> new SparseRules(board);
+            case MEMOIZED -> new MemoizedRules(board);
+            default -> throw new IllegalArgumentException("Rule engine " + engine + " does not pack states");
+        };
+        for (int y = 0; y < rules.height; y++) {
+            for (int x = 0; x < rules.width; x++) {
+                Cell c = board.cellAt(x, y);
+                if (c == null) {
+                    throw new IllegalStateException("Missing cell on tile " + board.tileAt(x, y));
+                }
+                int i = y * rules.words + (x >>> 6);
+                long bit = 1L << x;
+                if (c.isAlive()) rules.alive[i] |= bit;
+                rules.load(c, x, y, i, bit);
+            }
+        }
+        return rules;
+    }
+
+    /**
+     * Records whatever the evaluator needs of one cell, besides its alive state.
+     *
+     * @param c   the Cell being loaded
+     * @param x   its column
+     * @param y   its row
+     * @param i   the index of its word
+     * @param bit its bit within the word
+     */
+    abstract void load(Cell c, int x, int y, int i, long bit);
+
+    /**
+     * Evaluates the rules of every cell on the packed current states, updating
+     * the lifePoints and death counts of the affected cells and computing the
+     * next alive states, which are not applied yet.
+     */
+    abstract void evaluate();
+
+    /**
+     * Applies the next alive states computed by evaluate() to the cells whose
+     * state changes, reporting births and deaths to the recorder.
+     *
+     * @param recorder the StepRecorder counting births and deaths
+     */
+    void commit(StepRecorder recorder) {
+        for (int y = 0; y < height; y++) {
+            for (int w = 0; w < words; w++) {
+                int i = y * words + w;
+                for (long m = alive[i] ^ next[i]; m != 0; m &= m - 1) {
+                    boolean born = (next[i] & m & -m) != 0;
+                    board.cellAt((w << 6) + Long.numberOfTrailingZeros(m), y).setAlive(born);
+                    if (born) recorder.birth(); else recorder.death();
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the outcome of Cell.evolve to a cell whose alive state and
+     * neighbourhood are known, then the lifePoints update of
+     * ExtendedGameOfLife.advance, exactly as they would have been applied.
+     *
+     * @param c        the Cell to update
+     * @param x        its column
+     * @param y        its row
+     * @param wasAlive whether the cell is alive now
+     * @param lives    whether its alive neighbours keep it alive or bring it to life
+     * @return whether the cell is alive in the next step
+     */
+    boolean settle(Cell c, int x, int y, boolean wasAlive, boolean lives) {
+        boolean willLive = lives;
+        if (lives) {
+            if (!wasAlive) c.setLifePoints(0);
+            if (c.getDeathCount() != 0) c.setDeathCount(0);
+        } else if (c.getDeathCount() < c.getType().survivableDeaths) {
+            c.setDeathCount(c.getDeathCount() + 1);
+            willLive = true;
+        }
+        if (wasAlive) {
+            c.addLifePoints(board.tileAt(x, y).getLifePointModifier());
+            c.addLifePoints(willLive ? 1 : -1);
+        }
+        return willLive && c.getLifePoints() >= 0;
+    }
+
+    /** Alive bits of the west neighbours of the cells of word i (column w). */
+    long west(int i, int w) {
+        return alive[i] << 1 | (w > 0 ? alive[i - 1] >>> 63 : 0);
+    }
+
+    /** Alive bits of the east neighbours of the cells of word i (column w). */
+    long east(int i, int w) {
+        return alive[i] >>> 1 | (w + 1 < words ? alive[i + 1] << 63 : 0);
+    }
+
+    /** Whether the cell at (x, y) is alive; false outside the board. */
+    boolean aliveAt(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height
+                && (alive[y * words + (x >>> 6)] >>> x & 1) != 0;
+    }
+}
@@ -0,0 +1,137 @@
+package it.polito.extgol;
+
+/**
+ * Lightweight Cell view over one slot of an off-heap StatePlanes board.
+ *
+ * Holds no state of its own: every getter and setter reads or writes the
+ * planes directly, so any number of PlaneCell instances may be created on
+ * demand for the same position. Two instances are equal when they refer to
+ * the same slot of the same planes. Never persisted.
+ *
+ * The step kernel also uses detached instances as cursors, moved from index to
+ * index with at(long), to run the event and mood rules of Cell on the planes.
+ */
+class PlaneCell extends Cell {
+
+    private final StatePlanes planes;
+    private long index;
+
+    /**
+     * Creates the view of the cell stored at the given index.
+     *
+     * @param planes the planes holding the board state
+     * @param index  the row-major index of the cell
+     * @param tile   the flyweight tile owning this cell
+     * @param board  the Board context
+     * @param game   the owning Game
+     */
+    PlaneCell(StatePlanes planes, long index, Tile tile, Board board, Game game) {
+        super(tile.getCoordinates(), tile, board, game);
+        this.planes = planes;
+        this.index = index;
+    }
+
+    /**
+     * Creates a cursor over the planes, with no tile, board or game, to be
+     * positioned with at(long) before use.
+     *
+     * @param planes the planes holding the board state
+     */
+    PlaneCell(StatePlanes planes) {
+        this.planes = planes;
+    }
+
+    /**
+     * Moves this view to the cell stored at the given index.
+     *
+     * @param index the row-major index of the cell
+     * @return this view
+     */
+    PlaneCell at(long index) {
+        this.index = index;
+        return this;
+    }
+
+    @Override
+    public boolean isAlive() {
+        return planes.isAlive(index);
+    }
+
+    @Override
+    public void setAlive(boolean isAlive) {
+        planes.setAlive(index, isAlive);
+    }
+
+    @Override
+    public int getLifePoints() {
+        return planes.getLifePoints(index);
+    }
+
+    @Override
+    public void setLifePoints(int lifepoints) {
+        planes.setLifePoints(index, lifepoints);
+    }
+
+    @Override
+    public CellType getType() {
+        return planes.getType(index);
+    }
+
+    @Override
+    public void setType(CellType type) {
+        planes.setType(index, type);
+    }
+
+    @Override
+    public CellMood getMood() {
+        return planes.getMood(index);
+    }
+
+    @Override
+    public void setMood(CellMood mood) {
+        planes.setMoods(index, mood, mood);
+    }
+
+    @Override
+    public CellMood getNextMood() {
+        return planes.getNextMood(index);
+    }
+
+    @Override
+    public void setNextMood(CellMood mood) {
+        planes.setMoods(index, planes.getMood(index), mood);
+    }
+
+    @Override
+    public int getDeathCount() {
+        return planes.getDeathCount(index);
+    }
+
+    @Override
+    protected void setDeathCount(int deathCount) {
+        planes.setDeathCount(index, deathCount);
+    }
+
+    @Override
+    public boolean canBiteHealers() {
+        return planes.canBiteHealers(index);
+    }
+
+    @Override
+    public void canBiteHealers(boolean canBiteHealers) {
+        planes.canBiteHealers(index, canBiteHealers);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof PlaneCell)) return false;
+        PlaneCell other = (PlaneCell) obj;
+        return planes == other.planes && index == other.index;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(index);
+    }
+}
@@ -0,0 +1,278 @@
+package it.polito.extgol;
+
+import java.util.Arrays;
+
+/**
+ * Step kernel of the boards whose cell state lives in StatePlanes.
+ *
+ * Runs the phases of ExtendedGameOfLife.advance (event, mood interactions,
+ * rules, mood completion) directly on the row-major plane indices, so that
+ * stepping an off-heap board creates no Tile or Coord view and keeps no
+ * per-cell structure on the heap. Events and mood interactions run the very
+ * rules of EventType and CellMood on two PlaneCell cursors; the rules pass only holds three rows of
+ * packed alive bits, and writes the next alive states of a row back to the
+ * planes as soon as the row below has been read. Runs of settled cells (dead
+ * BASIC cells with no alive neighbour, settled NAIVE cells) are recognised
+ * in bulk, from the blocks of the planes never written or from the planes
+ * themselves, and skipped, so the cost of a sparse board is dominated by its
+ * alive cells rather than by its area. Cells are visited in the same
+ * row-major order as the object graph, so both produce the same generations.
+ *
+ * Instances hold the scratch rows of a single board and are not thread-safe.
+ */
+class PlaneRules {
+
+    /** Number of consecutive cells checked at once by the interaction and mood completion passes. */
+    private static final int BLOCK = 4096;
+
+    private final StatePlanes planes;
+    private final int width;
+    private final int height;
+    private final int words;
+
+    /** Alive bits of the rows above, at and below the evaluated one, before the step. */
+    private long[] above;
+    private long[] row;
+    private long[] below;
+
+    /** Next alive bits of the evaluated row. */
+    private final long[] next;
+
+    /** Cursors running the event and mood rules of Cell on the planes. */
+    private final PlaneCell me;
+    private final PlaneCell other;
+
+    /**
+     * Creates the kernel of the given planes.
+     *
+     * @param planes the planes holding the board state
+     */
+    PlaneRules(StatePlanes planes) {
+        this.planes = planes;
+        this.width = planes.getWidth();
+        this.height = planes.getHeight();
+        this.words = (width + 63) >>> 6;
+        this.above = new long[words];
+        this.row = new long[words];
+        this.below = new long[words];
+        this.next = new long[words];
+        this.me = new PlaneCell(planes);
+        this.other = new PlaneCell(planes);
+    }
+
+    /**
+     * Evolves the planes by one step in place, reporting phase timings and
+     * activity counters to the given recorder.
+     *
+     * @param event    the event to apply before evolving, or null for none
+     * @param recorder the StepRecorder collecting the measurements
+     */
+    void step(EventType event, StepRecorder recorder) {
+        if (event != null) {
+            for (long i = 0, n = planes.size(); i < n; i++) {
+                event.apply(me.at(i));
+            }
+        }
+        recorder.mark(StepPhase.EVENT);
+
+        interact();
+        recorder.mark(StepPhase.INTERACTION);
+
+        evaluate(recorder);
+        recorder.mark(StepPhase.RULES);
+
+        complete(recorder);
+        recorder.mark(StepPhase.COMPLETE);
+    }
+
+    /**
+     * Lets every alive cell with a mood interact with its alive neighbours,
+     * skipping the words of the alive plane that hold no alive cell.
+     */
+    private void interact() {
+        for (long w = 0, n = (planes.size() + 63) >>> 6; w < n; w++) {
+            if ((w & (BLOCK / 64 - 1)) == 0
+                    && planes.isUntouched(w << 6, Math.min(planes.size(), (w << 6) + BLOCK))) {
+                w += BLOCK / 64 - 1;
+                continue;
+            }
+            for (long m = planes.aliveWord(w); m != 0; m &= m - 1) {
+                long i = (w << 6) + Long.numberOfTrailingZeros(m);
+                CellMood mood = planes.getMood(i);
+                if (mood == CellMood.NAIVE) continue;
+
+                int x = (int) (i % width);
+                int y = (int) (i / width);
+                for (int dx = -1; dx <= 1; dx++) {
+                    for (int dy = -1; dy <= 1; dy++) {
+                        if (dx == 0 && dy == 0) continue;
+                        int nx = x + dx;
+                        int ny = y + dy;
+                        if (nx < 0 || nx >= width || ny < 0 || ny >= height) continue;
+                        long j = planes.index(nx, ny);
+                        if (planes.isAlive(j)) mood.interactWith(me.at(i), other.at(j));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Evaluates the rules of every cell on the alive states before the step,
+     * exactly as Cell.evolve and the lifePoints update of advance do, and
+     * writes the changed alive states back row by row.
+     *
+     * @param recorder the StepRecorder counting births and deaths
+     */
+    private void evaluate(StepRecorder recorder) {
+        Arrays.fill(above, 0);
+        loadRow(0, row);
+        loadRow(1, below);
+        for (int y = 0; y < height; y++) {
+            long start = (long) y * width;
+            // rows around which nothing was ever written hold dead BASIC cells only
+            boolean settled = planes.isUntouched(planes.index(0, Math.max(0, y - 1)),
+                    planes.index(0, Math.min(height, y + 2)));
+            Arrays.fill(next, 0);
+            for (int w = 0; w < words && !settled; w++) {
+                int x0 = w << 6;
+                int x1 = Math.min(width, x0 + 64);
+                // dead BASIC cells without alive neighbours stay as they are
+                if ((above[w] | row[w] | below[w]) == 0 && !column(x0 - 1) && !column(x1)
+                        && planes.isBasic(start + x0, start + x1)) {
+                    continue;
+                }
+                for (int x = x0; x < x1; x++) {
+                    boolean wasAlive = bit(row, x);
+                    int neighbours = count(above, x) + count(below, x)
+                            + (bit(row, x - 1) ? 1 : 0) + (bit(row, x + 1) ? 1 : 0);
+                    if (settle(start + x, wasAlive, neighbours)) {
+                        next[w] |= 1L << x;
+                    }
+                }
+            }
+
+            for (int w = 0; w < words && !settled; w++) {
+                for (long m = row[w] ^ next[w]; m != 0; m &= m - 1) {
+                    boolean born = (next[w] & m & -m) != 0;
+                    planes.setAlive(start + (w << 6) + Long.numberOfTrailingZeros(m), born);
+                    if (born) recorder.birth(); else recorder.death();
+                }
+            }
+
+            long[] recycled = above;
+            above = row;
+            row = below;
+            below = recycled;
+            loadRow(y + 2, below);
+        }
+    }
+
+    /**
+     * Applies the rules to the cell at index i and returns its next alive state.
+     *
+     * @param i          the row-major index of the cell
+     * @param wasAlive   whether the cell is alive now
+     * @param neighbours the number of its alive neighbours
+     * @return whether the cell is alive in the next step
+     */
+    private boolean settle(long i, boolean wasAlive, int neighbours) {
+        CellType type = planes.getType(i);
+        if (!wasAlive && neighbours != 3 && type.survivableDeaths == 0) {
+            return false;
+        }
+
+        boolean willLive = wasAlive;
+        if (neighbours > type.overpopulationBound || neighbours < type.underpopulationBound) {
+            willLive = false;
+        } else if (!wasAlive && neighbours == 3) {
+            willLive = true;
+            planes.setLifePoints(i, 0);
+        }
+
+        int deaths = planes.getDeathCount(i);
+        if (willLive) {
+            if (deaths != 0) planes.setDeathCount(i, 0);
+        } else if (deaths < type.survivableDeaths) {
+            planes.setDeathCount(i, deaths + 1);
+            willLive = true;
+        }
+
+        int lifepoints = planes.getLifePoints(i);
+        if (wasAlive) {
+            lifepoints += planes.getModifier(i) + (willLive ? 1 : -1);
+            planes.setLifePoints(i, lifepoints);
+        }
+        return willLive && lifepoints >= 0;
+    }
+
+    /**
+     * Commits the pending mood of every cell and clears its canBiteHealers
+     * flag, as Cell.complete does, counting the conversions.
+     *
+     * @param recorder the StepRecorder counting mood conversions
+     */
+    private void complete(StepRecorder recorder) {
+        for (long from = 0, n = planes.size(); from < n; from += BLOCK) {
+            long to = Math.min(n, from + BLOCK);
+            if (planes.isNaive(from, to)) continue;
+            for (long i = from; i < to; i++) {
+                if (planes.canBiteHealers(i)) planes.canBiteHealers(i, false);
+                CellMood mood = planes.getMood(i);
+                CellMood nextMood = planes.getNextMood(i);
+                if (nextMood != mood) {
+                    planes.setMoods(i, nextMood, nextMood);
+                    recorder.moodConversion();
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the alive bits of row y into into, aligned so that bit x of the
+     * row is bit x of the array; rows outside the board read as dead.
+     *
+     * @param y    the row to read
+     * @param into the array receiving words words
+     */
+    private void loadRow(int y, long[] into) {
+        if (y < 0 || y >= height) {
+            Arrays.fill(into, 0);
+            return;
+        }
+        long start = (long) y * width;
+        if (planes.isUntouched(start, start + width)) {
+            Arrays.fill(into, 0);
+            return;
+        }
+        long lastWord = (planes.size() - 1) >>> 6;
+        for (int w = 0; w < words; w++) {
+            long first = start + ((long) w << 6);
+            long word = first >>> 6;
+            int shift = (int) (first & 63);
+            long bits = planes.aliveWord(word) >>> shift;
+            if (shift != 0 && word < lastWord) {
+                bits |= planes.aliveWord(word + 1) << (64 - shift);
+            }
+            into[w] = bits;
+        }
+        if ((width & 63) != 0) {
+            into[words - 1] &= (1L << width) - 1;
+        }
+    }
+
+    /** Whether bit x of a row is set; false outside the board. */
+    private boolean bit(long[] bits, int x) {
+        return x >= 0 && x < width && (bits[x >>> 6] >>> x & 1) != 0;
+    }
+
+    /** Whether column x is alive in any of the three rows; false outside the board. */
+    private boolean column(int x) {
+        return bit(above, x) || bit(row, x) || bit(below, x);
+    }
+
+    /** Number of alive cells among x - 1, x and x + 1 of a row. */
+    private int count(long[] bits, int x) {
+        return (bit(bits, x - 1) ? 1 : 0) + (bit(bits, x) ? 1 : 0) + (bit(bits, x + 1) ? 1 : 0);
+    }
+}
@@ -0,0 +1,87 @@
+package it.polito.extgol;
+
+import java.util.Set;
+
+/**
+ * Lightweight Tile view over one position of an off-heap StatePlanes board.
+ *
+ * Created on demand by Board.getTile for boards backed by StatePlanes: the
+ * lifePoints modifier lives in the planes, the cell is a PlaneCell view and
+ * the neighbours are computed from the coordinates instead of being stored.
+ * Never persisted.
+ */
+class PlaneTile extends Tile {
+
+    private final StatePlanes planes;
+    private final long index;
+    private final PlaneCell cell;
+
+    /**
+     * Creates the view of the tile at (x, y).
+     *
+     * @param planes the planes holding the board state
+     * @param x      the column of the tile
+     * @param y      the row of the tile
+     * @param board  the Board the tile belongs to
+     * @param game   the owning Game
+     */
+    PlaneTile(StatePlanes planes, int x, int y, Board board, Game game) {
+        super(new Coord(x, y), board, game);
+        this.planes = planes;
+        this.index = planes.index(x, y);
+        this.cell = new PlaneCell(planes, index, this, board, game);
+    }
+
+    @Override
+    public Cell getCell() {
+        return cell;
+    }
+
+    @Override
+    public void setCell(Cell cell) {
+        throw new UnsupportedOperationException("Cells of an off-heap board cannot be replaced");
+    }
+
+    @Override
+    public boolean hasCell() {
+        return cell.isAlive();
+    }
+
+    @Override
+    public Set<Tile> getNeighbors() {
+        return getBoard().getAdjacentTiles(this);
+    }
+
+    @Override
+    public void initializeNeighbors(Set<Tile> neighborsList) {
+        // neighbours are computed on demand
+    }
+
+    @Override
+    public void setLifePointModifier(int lifePointModifier) {
+        planes.setModifier(index, lifePointModifier);
+    }
+
+    @Override
+    public Integer getLifePointModifier() {
+        return planes.getModifier(index);
+    }
+
+    @Override
+    public void interact(Cell other) {
+        cell.interact(other);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof PlaneTile)) return false;
+        PlaneTile other = (PlaneTile) obj;
+        return planes == other.planes && index == other.index;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(index);
+    }
+}
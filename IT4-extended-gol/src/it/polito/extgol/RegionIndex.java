@@ -0,0 +1,197 @@
+package it.polito.extgol;
+
+import java.util.Arrays;
+
+/**
+ * Tiled spatial summary of a single generation, used to answer rectangle queries.
+ *
+ * The board is split into square blocks of BLOCK×BLOCK cells. Each block stores
+ * the pre-aggregated alive count, lifePoints sum, minimum, maximum and per-type
+ * counts of its alive cells, while the raw alive bitmap and lifePoints/type planes
+ * are kept for the blocks only partially covered by a query. A rectangle query
+ * therefore touches every fully covered block once and scans cell by cell only
+ * along the border of the rectangle.
+ *
+ * Instances are filled through put(...) and must be sealed before being queried.
+ */
+class RegionIndex {
+
+    /** log2 of the block side. */
+    private static final int BLOCK_SHIFT = 4;
+
+    /** Side of a summary block, in cells. */
+    static final int BLOCK = 1 << BLOCK_SHIFT;
+
+    private static final int TYPES = CellType.VALUES.length;
+
+    private final int width;
+    private final int height;
+    private final int blocksX;
+    private final int blocksY;
+
+    /** Alive bitmap in row-major order, 64 cells per word. */
+    private final long[] aliveBits;
+    private final int[] lifepoints;
+    private final byte[] types;
+
+    private final int[] blockCount;
+    private final long[] blockSum;
+    private final int[] blockMin;
+    private final int[] blockMax;
+    private final int[] blockTypes;
+
+    private boolean sealed = false;
+
+    /**
+     * Creates an empty index for a board of the given size, with every cell dead.
+     *
+     * @param width  the number of columns of the board
+     * @param height the number of rows of the board
+     */
+    RegionIndex(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.blocksX = (width + BLOCK - 1) >> BLOCK_SHIFT;
+        this.blocksY = (height + BLOCK - 1) >> BLOCK_SHIFT;
+        int cells = width * height;
+        int blocks = blocksX * blocksY;
+        this.aliveBits = new long[(cells + 63) >>> 6];
+        this.lifepoints = new int[cells];
+        this.types = new byte[cells];
+        this.blockCount = new int[blocks];
+        this.blockSum = new long[blocks];
+        this.blockMin = new int[blocks];
+        this.blockMax = new int[blocks];
+        this.blockTypes = new int[blocks * TYPES];
+    }
+
+    /**
+     * Records the state of the cell at (x, y).
+     *
+     * @param x          the column of the cell
+     * @param y          the row of the cell
+     * @param alive      whether the cell is alive
+     * @param lifepoints the cell's lifePoints
+     * @param type       the cell's type
+     */
+    void put(int x, int y, boolean alive, int lifepoints, CellType type) {
+        int i = y * width + x;
+        if (alive) {
+            aliveBits[i >>> 6] |= 1L << i;
+        } else {
+            aliveBits[i >>> 6] &= ~(1L << i);
+        }
+        this.lifepoints[i] = lifepoints;
+        this.types[i] = (byte) type.ordinal();
+    }
+
+    /**
+     * Computes the per-block summaries; no further put(...) is expected afterwards.
+     *
+     * @return this index, ready to be queried
+     */
+    RegionIndex seal() {
+        Arrays.fill(blockMin, Integer.MAX_VALUE);
+        Arrays.fill(blockMax, Integer.MIN_VALUE);
+        for (int y = 0; y < height; y++) {
+            int rowBlock = (y >> BLOCK_SHIFT) * blocksX;
+            for (int x = 0; x < width; x++) {
+                int i = y * width + x;
+                if (!isAlive(i)) continue;
+                int b = rowBlock + (x >> BLOCK_SHIFT);
+                int lp = lifepoints[i];
+                blockCount[b]++;
+                blockSum[b] += lp;
+                blockMin[b] = Math.min(blockMin[b], lp);
+                blockMax[b] = Math.max(blockMax[b], lp);
+                blockTypes[b * TYPES + types[i]]++;
+            }
+        }
+        sealed = true;
+        return this;
+    }
+
+    /**
+     * Aggregates the alive cells inside the inclusive rectangle (x0, y0)-(x1, y1).
+     * The rectangle is clipped to the board; an empty intersection yields empty stats.
+     *
+     * @param x0 the left column
+     * @param y0 the top row
+     * @param x1 the right column
+     * @param y1 the bottom row
+     * @return the statistics of the alive cells in the rectangle
+     */
+    RegionStats query(int x0, int y0, int x1, int y1) {
+        if (!sealed) throw new IllegalStateException("Region index must be sealed before querying");
+
+        int left = Math.max(0, Math.min(x0, x1));
+        int right = Math.min(width - 1, Math.max(x0, x1));
+        int top = Math.max(0, Math.min(y0, y1));
+        int bottom = Math.min(height - 1, Math.max(y0, y1));
+
+        Accumulator acc = new Accumulator();
+        if (left > right || top > bottom) return acc.toStats();
+
+        for (int by = top >> BLOCK_SHIFT; by <= bottom >> BLOCK_SHIFT; by++) {
+            int blockTop = by << BLOCK_SHIFT;
+            int blockBottom = Math.min(height, blockTop + BLOCK) - 1;
+            for (int bx = left >> BLOCK_SHIFT; bx <= right >> BLOCK_SHIFT; bx++) {
+                int blockLeft = bx << BLOCK_SHIFT;
+                int blockRight = Math.min(width, blockLeft + BLOCK) - 1;
+                boolean covered = left <= blockLeft && right >= blockRight
+                        && top <= blockTop && bottom >= blockBottom;
+                if (covered) {
+                    acc.addBlock(by * blocksX + bx);
+                } else {
+                    acc.addCells(Math.max(left, blockLeft), Math.max(top, blockTop),
+                            Math.min(right, blockRight), Math.min(bottom, blockBottom));
+                }
+            }
+        }
+        return acc.toStats();
+    }
+
+    private boolean isAlive(int i) {
+        return (aliveBits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /**
+     * Running totals of a single query.
+     */
+    private class Accumulator {
+        int count = 0;
+        long sum = 0;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        final int[] typeCounts = new int[TYPES];
+
+        void addBlock(int b) {
+            if (blockCount[b] == 0) return;
+            count += blockCount[b];
+            sum += blockSum[b];
+            min = Math.min(min, blockMin[b]);
+            max = Math.max(max, blockMax[b]);
+            for (int t = 0; t < TYPES; t++) {
+                typeCounts[t] += blockTypes[b * TYPES + t];
+            }
+        }
+
+        void addCells(int x0, int y0, int x1, int y1) {
+            for (int y = y0; y <= y1; y++) {
+                for (int i = y * width + x0, end = y * width + x1; i <= end; i++) {
+                    if (!isAlive(i)) continue;
+                    int lp = lifepoints[i];
+                    count++;
+                    sum += lp;
+                    min = Math.min(min, lp);
+                    max = Math.max(max, lp);
+                    typeCounts[types[i]]++;
+                }
+            }
+        }
+
+        RegionStats toStats() {
+            return new RegionStats(count, sum, min, max, typeCounts);
+        }
+    }
+}
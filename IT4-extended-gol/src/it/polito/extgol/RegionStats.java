@@ -0,0 +1,117 @@
+package it.polito.extgol;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Immutable result of a rectangular region query over a Generation.
+ *
+ * Aggregates the alive cells found inside the queried rectangle: their number,
+ * the sum, minimum and maximum of their lifePoints, and how many of them belong
+ * to each CellType. Dead cells never contribute to any of the values.
+ *
+ * Following the IntSummaryStatistics convention, the minimum is
+ * Integer.MAX_VALUE and the maximum is Integer.MIN_VALUE when the region
+ * contains no alive cell.
+ */
+public class RegionStats {
+
+    private final int count;
+    private final long sum;
+    private final int min;
+    private final int max;
+    private final int[] typeCounts;
+
+    /**
+     * Builds the statistics for a region.
+     *
+     * @param count      the number of alive cells in the region
+     * @param sum        the total lifePoints of those cells
+     * @param min        the lowest lifePoints value among them
+     * @param max        the highest lifePoints value among them
+     * @param typeCounts the alive cells per CellType, indexed by ordinal
+     */
+    RegionStats(int count, long sum, int min, int max, int[] typeCounts) {
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+        this.typeCounts = typeCounts.clone();
+    }
+
+    /**
+     * Returns the number of alive cells in the region.
+     *
+     * @return the alive cell count
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the total lifePoints of the alive cells in the region.
+     *
+     * @return the lifePoints sum
+     */
+    public long getSum() {
+        return sum;
+    }
+
+    /**
+     * Returns the lowest lifePoints value among the alive cells in the region.
+     *
+     * @return the minimum, or Integer.MAX_VALUE if no cell is alive
+     */
+    public int getMin() {
+        return min;
+    }
+
+    /**
+     * Returns the highest lifePoints value among the alive cells in the region.
+     *
+     * @return the maximum, or Integer.MIN_VALUE if no cell is alive
+     */
+    public int getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the average lifePoints of the alive cells in the region.
+     *
+     * @return the average, or 0 if no cell is alive
+     */
+    public double getAverage() {
+        return count > 0 ? (double) sum / count : 0.0;
+    }
+
+    /**
+     * Returns how many alive cells of the given type lie in the region.
+     *
+     * @param type the CellType to look up
+     * @return the alive cell count for that type
+     */
+    public int getTypeCount(CellType type) {
+        return typeCounts[type.ordinal()];
+    }
+
+    /**
+     * Returns the alive cell count of every CellType present in the region.
+     *
+     * @return a Map from CellType to its alive count; types with no alive cells are omitted
+     */
+    public Map<CellType, Integer> getTypeCounts() {
+        Map<CellType, Integer> counts = new EnumMap<>(CellType.class);
+        for (CellType type : CellType.VALUES) {
+            if (typeCounts[type.ordinal()] > 0) {
+                counts.put(type, typeCounts[type.ordinal()]);
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public String toString() {
+        return "RegionStats{count=" + count + ", sum=" + sum + ", min=" + min + ", max=" + max
+                + ", types=" + getTypeCounts() + "}";
+    }
+}
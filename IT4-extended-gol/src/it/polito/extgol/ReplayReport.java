@@ -0,0 +1,86 @@
+package it.polito.extgol;
+
+/**
+ * Outcome of replaying a stored Game and comparing it with its persisted history.
+ *
+ * A consistent report means every stored generation was reproduced exactly.
+ * Otherwise the report carries the first step whose state differs and the first
+ * differing cell of that step, in row-major order.
+ */
+public class ReplayReport {
+
+    private final Long gameId;
+    private final int stepsVerified;
+    private final int divergentStep;
+    private final Coord divergentCell;
+
+    /**
+     * Builds a report.
+     *
+     * @param gameId        the identifier of the verified game
+     * @param stepsVerified the number of steps found identical before stopping
+     * @param divergentStep the first divergent step, or -1 if none
+     * @param divergentCell the first divergent cell, or null if none
+     */
+    ReplayReport(Long gameId, int stepsVerified, int divergentStep, Coord divergentCell) {
+        this.gameId = gameId;
+        this.stepsVerified = stepsVerified;
+        this.divergentStep = divergentStep;
+        this.divergentCell = divergentCell;
+    }
+
+    /**
+     * Returns the identifier of the verified game.
+     *
+     * @return the game id
+     */
+    public Long getGameId() {
+        return gameId;
+    }
+
+    /**
+     * Tells whether the replay reproduced every stored generation.
+     *
+     * @return true if no divergence was found
+     */
+    public boolean isConsistent() {
+        return divergentStep < 0;
+    }
+
+    /**
+     * Returns how many stored generations (including step 0) matched the replay.
+     *
+     * @return the number of verified steps
+     */
+    public int getStepsVerified() {
+        return stepsVerified;
+    }
+
+    /**
+     * Returns the first step whose replayed state differs from the stored one.
+     *
+     * @return the divergent step, or -1 if the replay is consistent
+     */
+    public int getDivergentStep() {
+        return divergentStep;
+    }
+
+    /**
+     * Returns the first cell, in row-major order, whose replayed state differs
+     * from the stored one at the divergent step.
+     *
+     * @return the divergent cell coordinates, or null if the replay is consistent
+     */
+    public Coord getDivergentCell() {
+        return divergentCell;
+    }
+
+    @Override
+    public String toString() {
+        if (isConsistent()) {
+            return "Game " + gameId + ": " + stepsVerified + " steps reproduced identically";
+        }
+        return "Game " + gameId + ": diverges at step " + divergentStep + ", cell "
+                + (divergentCell == null ? "?" : divergentCell.getX() + "," + divergentCell.getY());
+    }
+}
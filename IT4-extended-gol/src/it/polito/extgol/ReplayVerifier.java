@@ -0,0 +1,213 @@
+package it.polito.extgol;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Verifies that a persisted Game still reproduces identically with the current engine.
+ *
+ * The verifier loads the board size, tile modifiers, event schedule and initial
+ * generation of a stored game, then re-simulates it step by step on a scratch
+ * board that is never persisted. Each replayed step is reduced to a 64-bit state
+ * hash and compared with the hash of the stored generation_state rows of the same
+ * step. Stored hashes are computed in parallel, one chunk of consecutive steps per
+ * task and EntityManager, while the simulation runs; only the hashes and the
+ * scratch board are kept in memory, never the stored generations themselves.
+ *
+ * On the first mismatch, the stored state of that single step is loaded to find
+ * the first differing cell.
+ *
+ * Step 0 is assumed to start with no pending moods, no death count and no
+ * healer-biting, as those fields are not part of the persisted snapshots.
+ */
+public class ReplayVerifier {
+
+    /** Default number of consecutive steps hashed by a single task. */
+    public static final int DEFAULT_CHUNK_SIZE = 32;
+
+    private static final String STATES_QUERY =
+            "SELECT g.step, KEY(s).cellCoord.x, KEY(s).cellCoord.y, "
+            + "VALUE(s).isAlive, VALUE(s).lifepoints, VALUE(s).cellType, VALUE(s).cellMood "
+            + "FROM Generation g JOIN g.cellStates s "
+            + "WHERE g.game.id = :gameId AND g.step BETWEEN :fromStep AND :toStep";
+
+    private final int chunkSize;
+    private final ExtendedGameOfLife engine = new ExtendedGameOfLife();
+
+    /**
+     * Creates a verifier hashing DEFAULT_CHUNK_SIZE steps per parallel task.
+     */
+    public ReplayVerifier() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a verifier hashing the given number of steps per parallel task.
+     *
+     * @param chunkSize the number of consecutive steps per task, at least 1
+     * @throws IllegalArgumentException if chunkSize is not positive
+     */
+    public ReplayVerifier(int chunkSize) {
+        if (chunkSize < 1) throw new IllegalArgumentException("Chunk size must be positive");
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Replays the stored game with the given identifier and compares every step
+     * with its persisted generation.
+     *
+     * @param gameId the database identifier of the Game to verify
+     * @return the ReplayReport describing the first divergence, if any
+     * @throws IllegalArgumentException if no such game exists or it has no initial generation
+     */
+    public ReplayReport verify(Long gameId) {
+        Board scratch;
+        Map<Integer, EventType> events;
+        int lastStep;
+
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            Game stored = em.find(Game.class, gameId);
+            if (stored == null) throw new IllegalArgumentException("No game with id " + gameId);
+            Integer maxStep = em.createQuery(
+                    "SELECT MAX(g.step) FROM Generation g WHERE g.game.id = :gameId", Integer.class)
+                    .setParameter("gameId", gameId)
+                    .getSingleResult();
+            if (maxStep == null) throw new IllegalArgumentException("Game " + gameId + " has no generations");
+            lastStep = maxStep;
+            events = Map.copyOf(stored.getEventMapInternal());
+
+            Board board = stored.getBoard();
+            scratch = Game.createExtended("replay-" + gameId, board.getWidth(), board.getHeight()).getBoard();
+            for (Tile t : board.getTiles()) {
+                scratch.getTile(t.getCoordinates()).setLifePointModifier(t.getLifePointModifier());
+            }
+            try (Stream<Object[]> rows = statesQuery(em, gameId, 0, 0)) {
+                rows.forEach(r -> {
+                    Cell cell = scratch.cellAt((Integer) r[1], (Integer) r[2]);
+                    cell.setAlive((Boolean) r[3]);
+                    cell.setLifePoints((Integer) r[4]);
+                    cell.setType((CellType) r[5]);
+                    cell.setMood((CellMood) r[6]);
+                });
+            }
+        } finally {
+            em.close();
+        }
+
+        List<CompletableFuture<long[]>> chunks = new ArrayList<>();
+        for (int from = 0; from <= lastStep; from += chunkSize) {
+            int chunkFrom = from;
+            int chunkTo = Math.min(lastStep, from + chunkSize - 1);
+            chunks.add(CompletableFuture.supplyAsync(() -> hashStoredSteps(gameId, chunkFrom, chunkTo)));
+        }
+
+        try {
+            for (int step = 0; step <= lastStep; step++) {
+                if (step > 0) {
+                    engine.advance(scratch, events.get(step - 1));
+                }
+                long expected = chunks.get(step / chunkSize).join()[step % chunkSize];
+                if (expected != hashBoard(scratch)) {
+                    return new ReplayReport(gameId, step, step, firstDivergentCell(gameId, step, scratch));
+                }
+            }
+        } finally {
+            chunks.forEach(c -> c.cancel(false));
+        }
+        return new ReplayReport(gameId, lastStep + 1, -1, null);
+    }
+
+    /**
+     * Computes the state hash of every stored step in [fromStep, toStep],
+     * streaming the rows through a dedicated EntityManager.
+     */
+    private static long[] hashStoredSteps(Long gameId, int fromStep, int toStep) {
+        long[] hashes = new long[toStep - fromStep + 1];
+        EntityManager em = JPAUtil.getEntityManager();
+        try (Stream<Object[]> rows = statesQuery(em, gameId, fromStep, toStep)) {
+            rows.forEach(r -> hashes[(Integer) r[0] - fromStep] += cellHash(
+                    (Integer) r[1], (Integer) r[2], (Boolean) r[3], (Integer) r[4],
+                    (CellType) r[5], (CellMood) r[6]));
+        } finally {
+            em.close();
+        }
+        return hashes;
+    }
+
+    /**
+     * Loads the stored state of one step and returns the first cell, in row-major
+     * order, that differs from the replayed board.
+     */
+    private static Coord firstDivergentCell(Long gameId, int step, Board board) {
+        int width = board.getWidth();
+        int height = board.getHeight();
+        long[] stored = new long[width * height];
+        boolean[] present = new boolean[width * height];
+        EntityManager em = JPAUtil.getEntityManager();
+        try (Stream<Object[]> rows = statesQuery(em, gameId, step, step)) {
+            rows.forEach(r -> {
+                int x = (Integer) r[1];
+                int y = (Integer) r[2];
+                stored[y * width + x] = cellHash(x, y, (Boolean) r[3], (Integer) r[4],
+                        (CellType) r[5], (CellMood) r[6]);
+                present[y * width + x] = true;
+            });
+        } finally {
+            em.close();
+        }
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (!present[y * width + x] || stored[y * width + x] != cellHash(x, y, board.cellAt(x, y))) {
+                    return new Coord(x, y);
+                }
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Stream<Object[]> statesQuery(EntityManager em, Long gameId, int fromStep, int toStep) {
+        return em.createQuery(STATES_QUERY)
+                .setParameter("gameId", gameId)
+                .setParameter("fromStep", fromStep)
+                .setParameter("toStep", toStep)
+                .getResultStream();
+    }
+
+    /**
+     * Computes the order-independent state hash of a board: the sum of the
+     * hashes of all of its cells.
+     *
+     * @param board the Board to hash
+     * @return the 64-bit state hash
+     */
+    static long hashBoard(Board board) {
+        long hash = 0;
+        for (int y = 0; y < board.getHeight(); y++) {
+            for (int x = 0; x < board.getWidth(); x++) {
+                hash += cellHash(x, y, board.cellAt(x, y));
+            }
+        }
+        return hash;
+    }
+
+    private static long cellHash(int x, int y, Cell cell) {
+        return cellHash(x, y, cell.isAlive(), cell.getLifePoints(), cell.getType(), cell.getMood());
+    }
+
+    private static long cellHash(int x, int y, boolean alive, int lifepoints, CellType type, CellMood mood) {
+        long h = ((long) x << 32) ^ (y & 0xFFFFFFFFL);
+        h = h * 0x9E3779B97F4A7C15L + lifepoints;
+        h = h * 0x9E3779B97F4A7C15L + (alive ? 1 : 0) + (type.ordinal() << 1) + (mood.ordinal() << 4);
+        // SplitMix64 finalizer
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+}
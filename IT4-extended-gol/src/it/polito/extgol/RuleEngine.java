@@ -0,0 +1,37 @@
+package it.polito.extgol;
+
+/**
+ * Strategies available to ExtendedGameOfLife for evaluating the cell rules of
+ * a step. All of them produce exactly the same generations.
+ */
+public enum RuleEngine {
+
+    /**
+     * Each Cell evaluates its own rules, counting its alive neighbours through
+     * the tile graph.
+     */
+    OBJECT_GRAPH,
+
+    /**
+     * Alive states, types and death counters are packed into 64-bit words and
+     * the rules of 64 cells are evaluated at once with bitwise operations
+     * (see BitSlicedRules). Fastest on dense or mixed-type boards.
+     */
+    BIT_SLICED,
+
+    /**
+     * Only the alive cells, their neighbours and the dead cells that can still
+     * survive a death are evaluated (see SparseRules). Fastest on large boards
+     * with few alive cells.
+     */
+    SPARSE,
+
+    /**
+     * The outcome of every 3x3 neighbourhood is precomputed per CellType and
+     * looked up with a rolling index over the packed alive states (see
+     * MemoizedRules). Suited to boards with a uniform population.
+     */
+    MEMOIZED;
+
+    public static final RuleEngine[] VALUES = values();
+}
@@ -0,0 +1,23 @@
+package it.polito.extgol;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event spanning a whole ExtendedGameOfLife.run invocation.
+ */
+@Name("it.polito.extgol.Run")
+@Label("Game of Life Run")
+@Category("Extended Game of Life")
+@Description("Duration of a multi-step simulation run")
+class RunEvent extends Event {
+
+    @Label("Game")
+    String game;
+
+    @Label("Steps")
+    int steps;
+}
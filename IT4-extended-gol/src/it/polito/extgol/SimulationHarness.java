@@ -0,0 +1,98 @@
+package it.polito.extgol;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Single-threaded, in-memory driver of a SimulationService, for tests.
+ *
+ * The harness owns a service whose step tasks are not run by worker threads
+ * but queued until the caller runs them with runNext() or runUntilIdle(), on
+ * the calling thread and in the exact order a pool would start them. Rate
+ * limits are ignored, so every scenario is deterministic and needs no sleeps.
+ * Nothing is persisted.
+ */
+public class SimulationHarness implements AutoCloseable {
+
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private final SimulationService service;
+    private int executed;
+    private boolean shutdown;
+
+    /**
+     * Creates a harness with an empty service.
+     */
+    public SimulationHarness() {
+        this.service = new SimulationService(new StepScheduler() {
+            @Override
+            public void schedule(Runnable task, long delayNanos) {
+                if (shutdown) throw new RejectedExecutionException("Harness is closed");
+                tasks.add(task);
+            }
+
+            @Override
+            public void shutdown() {
+                shutdown = true;
+                tasks.clear();
+            }
+        });
+    }
+
+    /**
+     * Returns the driven service.
+     *
+     * @return the SimulationService
+     */
+    public SimulationService getService() {
+        return service;
+    }
+
+    /**
+     * Runs the oldest queued task, which steps one game at most once.
+     *
+     * @return false if no task was queued
+     */
+    public boolean runNext() {
+        Runnable task = tasks.poll();
+        if (task == null) return false;
+        task.run();
+        executed++;
+        return true;
+    }
+
+    /**
+     * Runs queued tasks until none is left, i.e. until every game is done or
+     * held back by a full subscriber.
+     *
+     * @return the number of tasks run
+     */
+    public int runUntilIdle() {
+        int count = 0;
+        while (runNext()) count++;
+        return count;
+    }
+
+    /**
+     * Returns the number of tasks queued and not run yet.
+     *
+     * @return the queued task count
+     */
+    public int getQueuedTasks() {
+        return tasks.size();
+    }
+
+    /**
+     * Returns the number of tasks run so far.
+     *
+     * @return the executed task count
+     */
+    public int getExecutedTasks() {
+        return executed;
+    }
+
+    @Override
+    public void close() {
+        service.close();
+    }
+}
@@ -0,0 +1,52 @@
+package it.polito.extgol;
+
+/**
+ * Observer of the simulation loop of ExtendedGameOfLife.
+ *
+ * Registered listeners receive the GenerationDelta and the StepMetrics of every
+ * evolved generation and are notified around each run. While no listener is registered and the JFR
+ * step event is disabled, no measurement at all is taken.
+ */
+@FunctionalInterface
+public interface SimulationListener {
+
+    /**
+     * Called after each step, once the new generation has been created.
+     *
+     * @param metrics the measurements of the step
+     */
+    void onStep(StepMetrics metrics);
+
+    /**
+     * Called after each step with the changes it produced, before onStep.
+     *
+     * @param delta the GenerationDelta from the previous generation to the new one
+     */
+    default void onDelta(GenerationDelta delta) {}
+
+    /**
+     * Called before a run starts evolving the game.
+     *
+     * @param game  the Game being run
+     * @param steps the number of steps requested
+     */
+    default void onRunStart(Game game, int steps) {}
+
+    /**
+     * Called during a run whenever an EngineSelector has chosen the engine
+     * of the next steps, before the first of them is evolved.
+     *
+     * @param game     the Game being run
+     * @param decision the chosen engine and the board characteristics behind it
+     */
+    default void onEngineSelected(Game game, EngineDecision decision) {}
+
+    /**
+     * Called after a run completed all of its steps.
+     *
+     * @param game         the Game that was run
+     * @param steps        the number of steps performed
+     * @param elapsedNanos the wall-clock duration of the run
+     */
+    default void onRunEnd(Game game, int steps, long elapsedNanos) {}
+}
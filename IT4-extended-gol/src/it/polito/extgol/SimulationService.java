@@ -0,0 +1,311 @@
+package it.polito.extgol;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process service stepping many live Games concurrently.
+ *
+ * Games are registered by name and advanced on request. Each scheduled task
+ * performs exactly one step of one game and then requeues the game behind the
+ * others, so a fixed pool of workers is shared fairly (round-robin) among all
+ * games with pending steps. A game never has more than one task in flight, so
+ * its state is only ever touched by one thread at a time.
+ *
+ * Rates are controlled per game with a minimum interval between steps, and
+ * subscribers receive GenerationDiffs through bounded buffers: a game whose
+ * subscriber falls behind is paused until the subscriber catches up.
+ *
+ * Registered games must not be stepped or modified through other means while
+ * they are live. Use SimulationHarness to drive a service deterministically
+ * from a single thread in tests.
+ */
+public class SimulationService implements AutoCloseable {
+
+    private final ExtendedGameOfLife engine = new ExtendedGameOfLife();
+    private final StepScheduler scheduler;
+    private final Map<String, LiveGame> games = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    /**
+     * Creates a service backed by one worker per available processor.
+     */
+    public SimulationService() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a service backed by a fixed pool of workers.
+     *
+     * @param workers the number of worker threads, at least 1
+     * @throws IllegalArgumentException if workers is not positive
+     */
+    public SimulationService(int workers) {
+        this(checkWorkers(workers));
+    }
+
+    SimulationService(StepScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    private static StepScheduler checkWorkers(int workers) {
+        if (workers < 1) throw new IllegalArgumentException("At least one worker is required");
+        return StepScheduler.pool(workers);
+    }
+
+    /**
+     * Returns the engine used to step the games, e.g. to register
+     * SimulationListeners.
+     *
+     * @return the ExtendedGameOfLife facade of this service
+     */
+    public ExtendedGameOfLife getEngine() {
+        return engine;
+    }
+
+    /**
+     * Adds a game to the registry. It starts from its latest generation and
+     * does not step until steps are requested.
+     *
+     * @param game the Game to serve, with at least its initial generation
+     * @throws IllegalArgumentException if a game with the same name is registered
+     * @throws IllegalStateException    if the game has no generations or the service is closed
+     */
+    public void register(Game game) {
+        Objects.requireNonNull(game, "Game cannot be null");
+        if (closed) throw new IllegalStateException("Service is closed");
+        if (game.getGenerations().isEmpty()) {
+            throw new IllegalStateException("Game " + game.getName() + " has no initial generation");
+        }
+        if (games.putIfAbsent(game.getName(), new LiveGame(game)) != null) {
+            throw new IllegalArgumentException("Game " + game.getName() + " is already registered");
+        }
+    }
+
+    /**
+     * Removes a game from the registry, cancelling its pending steps and
+     * closing its subscriptions. A step already running completes first.
+     *
+     * @param name the name of the game
+     * @return the removed Game
+     * @throws IllegalArgumentException if no such game is registered
+     */
+    public Game unregister(String name) {
+        LiveGame live = games.remove(name);
+        if (live == null) throw new IllegalArgumentException("No live game " + name);
+        synchronized (live) {
+            live.removed = true;
+            live.pending = 0;
+        }
+        live.subscriptions.forEach(DiffSubscription::close);
+        return live.game;
+    }
+
+    /**
+     * Returns the names of the registered games.
+     *
+     * @return an immutable Set of game names
+     */
+    public Set<String> getGameNames() {
+        return Set.copyOf(games.keySet());
+    }
+
+    /**
+     * Limits the stepping rate of a game.
+     *
+     * @param name           the name of the game
+     * @param stepsPerSecond the maximum rate, or 0 for no limit
+     * @throws IllegalArgumentException if the rate is negative or the game is unknown
+     */
+    public void setRate(String name, double stepsPerSecond) {
+        if (!(stepsPerSecond >= 0)) throw new IllegalArgumentException("Rate cannot be negative");
+        LiveGame live = live(name);
+        live.intervalNanos = stepsPerSecond == 0 ? 0 : (long) (TimeUnit.SECONDS.toNanos(1) / stepsPerSecond);
+    }
+
+    /**
+     * Requests further steps of a game. Steps accumulate with earlier requests
+     * and are executed asynchronously.
+     *
+     * @param name  the name of the game
+     * @param steps the number of additional steps, at least 1
+     * @throws IllegalArgumentException if steps is not positive or the game is unknown
+     */
+    public void request(String name, int steps) {
+        if (steps < 1) throw new IllegalArgumentException("Steps must be positive");
+        LiveGame live = live(name);
+        synchronized (live) {
+            live.pending += steps;
+        }
+        wake(live);
+    }
+
+    /**
+     * Returns the number of requested steps of a game not executed yet.
+     *
+     * @param name the name of the game
+     * @return the pending step count
+     */
+    public int getPendingSteps(String name) {
+        LiveGame live = live(name);
+        synchronized (live) {
+            return live.pending;
+        }
+    }
+
+    /**
+     * Returns the step of the latest generation computed for a game.
+     *
+     * @param name the name of the game
+     * @return the latest step index
+     */
+    public int getStep(String name) {
+        return live(name).step;
+    }
+
+    /**
+     * Tells whether a game is paused because one of its subscribers is full.
+     *
+     * @param name the name of the game
+     * @return true if the game has pending steps held back by backpressure
+     */
+    public boolean isThrottled(String name) {
+        LiveGame live = live(name);
+        synchronized (live) {
+            return live.pending > 0 && !live.hasSpace();
+        }
+    }
+
+    /**
+     * Returns the failure that stopped a game, if any. A failing step cancels
+     * the pending steps of its game.
+     *
+     * @param name the name of the game
+     * @return the RuntimeException thrown by the failed step, or null
+     */
+    public RuntimeException getFailure(String name) {
+        return live(name).failure;
+    }
+
+    /**
+     * Subscribes to the diffs of the steps of a game executed from now on.
+     *
+     * @param name     the name of the game
+     * @param capacity the number of diffs buffered before the game is paused
+     * @return the new DiffSubscription
+     * @throws IllegalArgumentException if capacity is not positive or the game is unknown
+     */
+    public DiffSubscription subscribe(String name, int capacity) {
+        LiveGame live = live(name);
+        DiffSubscription sub = new DiffSubscription(name, capacity, () -> wake(live));
+        live.subscriptions.add(sub);
+        return sub;
+    }
+
+    /**
+     * Stops all games and the workers. Pending steps are discarded.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        scheduler.shutdown();
+        for (LiveGame live : games.values()) {
+            live.subscriptions.forEach(DiffSubscription::close);
+        }
+        games.clear();
+    }
+
+    private LiveGame live(String name) {
+        LiveGame live = games.get(name);
+        if (live == null) throw new IllegalArgumentException("No live game " + name);
+        return live;
+    }
+
+    /**
+     * Schedules the next step of a game unless one is already scheduled, it
+     * has nothing to do, or a subscriber is full.
+     */
+    private void wake(LiveGame live) {
+        synchronized (live) {
+            if (live.scheduled || live.removed || closed || live.pending == 0 || !live.hasSpace()) return;
+            live.scheduled = true;
+        }
+        try {
+            scheduler.schedule(() -> step(live), Math.max(0, live.notBefore - System.nanoTime()));
+        } catch (RejectedExecutionException e) {
+            // closed after the check above: no step will ever run for this wake-up
+            synchronized (live) {
+                live.scheduled = false;
+            }
+        }
+    }
+
+    private void step(LiveGame live) {
+        synchronized (live) {
+            if (live.removed || closed || live.pending == 0 || !live.hasSpace()) {
+                live.scheduled = false;
+                return;
+            }
+        }
+
+        live.notBefore = System.nanoTime() + live.intervalNanos;
+        try {
+            Game game = live.game;
+            Generation current = game.getLatest();
+            Generation next = engine.evolve(current, game.getEventMapInternal().get(current.getStep()));
+            GenerationDiff diff = GenerationDiff.of(game.getName(), next.getDelta());
+            live.step = next.getStep();
+            live.subscriptions.removeIf(DiffSubscription::isClosed);
+            for (DiffSubscription sub : live.subscriptions) {
+                sub.deliver(diff);
+            }
+        } catch (RuntimeException e) {
+            live.failure = e;
+            synchronized (live) {
+                live.pending = 0;
+                live.scheduled = false;
+            }
+            return;
+        }
+
+        synchronized (live) {
+            live.pending--;
+            live.scheduled = false;
+        }
+        wake(live);
+    }
+
+    /**
+     * Registry entry of a served game. The fields guarded by the entry's lock
+     * are pending, scheduled and removed.
+     */
+    private static class LiveGame {
+        final Game game;
+        final List<DiffSubscription> subscriptions = new CopyOnWriteArrayList<>();
+        int pending;
+        boolean scheduled;
+        boolean removed;
+        volatile int step;
+        volatile long intervalNanos;
+        volatile long notBefore = System.nanoTime();
+        volatile RuntimeException failure;
+
+        LiveGame(Game game) {
+            this.game = game;
+            this.step = game.getLatest().getStep();
+        }
+
+        boolean hasSpace() {
+            for (DiffSubscription sub : subscriptions) {
+                if (!sub.hasSpace()) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package it.polito.extgol;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Immutable, structurally shared grid of CellSnapshot values for one generation.
+ *
+ * The board is cut into horizontal chunks of CHUNK cells per row. When a grid is
+ * captured against a previous one, every row and every chunk whose cells did not
+ * change is shared by reference with the previous grid, and inside a changed
+ * chunk the snapshots of unchanged cells are shared as well. A long in-memory
+ * history thus costs memory proportional to the rows and cells that actually
+ * changed, rather than to board area times number of steps. Off-heap boards are captured by reading
+ * their StatePlanes by index, without creating tile or cell views, and their
+ * blank rows and chunks are recognised in bulk.
+ *
+ * Shared CellSnapshot instances, chunks and rows must never be modified.
+ */
+class SnapshotGrid {
+
+    /** Number of consecutive cells of a row stored in one chunk. */
+    static final int CHUNK = 32;
+
+    /** Shared snapshot of a dead BASIC/NAIVE cell with no lifePoints, the most common state. */
+    private static final CellSnapshot DEAD = new CellSnapshot(false, 0, CellType.BASIC, CellMood.NAIVE);
+
+    /**
+     * Shared chunk of DEAD snapshots, used by every chunk captured without a
+     * base whose cells are all in the default dead state, so that a fresh
+     * capture of a mostly empty board allocates no chunk for its blank rows.
+     */
+    private static final CellSnapshot[] DEAD_CHUNK = deadChunk();
+
+    private final int width;
+    private final int height;
+    private final int chunksPerRow;
+
+    /** Chunks row by row: chunk (cx, y) is rows[y][cx]. Unchanged rows are shared as a whole. */
+    private final CellSnapshot[][][] rows;
+
+    /** Row of DEAD_CHUNK references shared by the blank rows of this grid and of the grids captured from it. */
+    private final CellSnapshot[][] blankRow;
+
+    private static CellSnapshot[] deadChunk() {
+        CellSnapshot[] chunk = new CellSnapshot[CHUNK];
+        Arrays.fill(chunk, DEAD);
+        return chunk;
+    }
+
+    private SnapshotGrid(int width, int height, CellSnapshot[][][] rows, CellSnapshot[][] blankRow) {
+        this.width = width;
+        this.height = height;
+        this.chunksPerRow = (width + CHUNK - 1) / CHUNK;
+        this.rows = rows;
+        this.blankRow = blankRow;
+    }
+
+    /**
+     * Captures the current state of every cell on the board, sharing unchanged
+     * chunks and snapshots with the given base grid when its shape matches.
+     *
+     * @param board the Board whose cells are captured
+     * @param base  the grid of the previous capture, or null to build from scratch
+     * @return the captured grid
+     * @throws IllegalStateException if any Tile does not contain a Cell
+     */
+    static SnapshotGrid capture(Board board, SnapshotGrid base) {
+        return capture(board, base, null);
+    }
+
+    /**
+     * Captures the board like capture(board, base), additionally reporting to
+     * the sink every cell whose snapshot differs from the one in base.
+     *
+     * @param board the Board whose cells are captured
+     * @param base  the grid of the previous capture, or null to build from scratch
+     * @param sink  receives the changed cells, or null
+     * @return the captured grid
+     * @throws IllegalStateException if any Tile does not contain a Cell
+     */
+    static SnapshotGrid capture(Board board, SnapshotGrid base, ChangeSink sink) {
+        int width = board.getWidth();
+        int height = board.getHeight();
+        if (base != null && (base.width != width || base.height != height)) {
+            base = null;
+        }
+        StatePlanes planes = board.getPlanes();
+        int chunksPerRow = (width + CHUNK - 1) / CHUNK;
+        CellSnapshot[][] blankRow = base != null ? base.blankRow : null;
+        if (blankRow == null) {
+            blankRow = new CellSnapshot[chunksPerRow][];
+            Arrays.fill(blankRow, DEAD_CHUNK);
+        }
+        CellSnapshot[][][] rows = new CellSnapshot[height][][];
+
+        for (int y = 0; y < height; y++) {
+            CellSnapshot[][] previousRow = base != null ? base.rows[y] : null;
+            CellSnapshot[][] row = previousRow != null ? previousRow : blankRow;
+            if (planes != null && row == blankRow && (previousRow != null || sink == null)) {
+                long from = planes.index(0, y);
+                if (planes.isBlank(from, from + width)) {
+                    rows[y] = blankRow;
+                    continue;
+                }
+            }
+
+            boolean copied = false;
+            for (int cx = 0; cx < chunksPerRow; cx++) {
+                CellSnapshot[] previous = previousRow != null ? previousRow[cx] : null;
+                CellSnapshot[] chunk = captureChunk(board, planes, cx * CHUNK, y, previous, sink);
+                if (chunk != row[cx]) {
+                    if (!copied) {
+                        row = row.clone();
+                        copied = true;
+                    }
+                    row[cx] = chunk;
+                }
+            }
+            rows[y] = row;
+        }
+        return new SnapshotGrid(width, height, rows, blankRow);
+    }
+
+    /**
+     * Captures the chunk of row y starting at column x0, sharing previous when
+     * none of its cells changed.
+     *
+     * @param board    the Board whose cells are captured
+     * @param planes   the planes of an off-heap board, or null
+     * @param x0       the first column of the chunk
+     * @param y        the row of the chunk
+     * @param previous the chunk of the base grid, or null if there is none
+     * @param sink     receives the changed cells, or null
+     * @return the captured chunk
+     */
+    private static CellSnapshot[] captureChunk(Board board, StatePlanes planes, int x0, int y,
+            CellSnapshot[] previous, ChangeSink sink) {
+        int len = Math.min(CHUNK, board.getWidth() - x0);
+        CellSnapshot[] current = previous != null ? previous : DEAD_CHUNK;
+        if (planes != null && current == DEAD_CHUNK && (previous != null || sink == null)) {
+            long from = planes.index(x0, y);
+            if (planes.isBlank(from, from + len)) return DEAD_CHUNK;
+        }
+
+        boolean copied = false;
+        for (int k = 0; k < len; k++) {
+            boolean alive;
+            int lifepoints;
+            CellType type;
+            CellMood mood;
+            if (planes != null) {
+                long i = planes.index(x0 + k, y);
+                alive = planes.isAlive(i);
+                lifepoints = planes.getLifePoints(i);
+                type = planes.getType(i);
+                mood = planes.getMood(i);
+            } else {
+                Cell cell = board.cellAt(x0 + k, y);
+                if (cell == null) throw new IllegalStateException("Each tile should hold a cell!");
+                alive = cell.isAlive();
+                lifepoints = cell.getLifePoints();
+                type = cell.getType();
+                mood = cell.getMood();
+            }
+
+            CellSnapshot old = previous != null ? previous[k] : null;
+            CellSnapshot kept = previous != null ? old : DEAD;
+            if (kept != null && matches(kept, alive, lifepoints, type, mood)) {
+                if (old == null && sink != null) sink.changed(x0 + k, y, null, kept);
+                continue;
+            }
+
+            if (!copied) {
+                current = current.clone();
+                copied = true;
+            }
+            current[k] = snapshotOf(alive, lifepoints, type, mood);
+            if (sink != null) sink.changed(x0 + k, y, old, current[k]);
+        }
+        return current;
+    }
+
+    /**
+     * Builds a grid from a map of per-cell snapshots, such as the one reloaded
+     * from the database. Cells missing from the map have no snapshot.
+     *
+     * @param width  the number of columns of the board
+     * @param height the number of rows of the board
+     * @param states the snapshots keyed by Cell
+     * @return the resulting grid
+     */
+    static SnapshotGrid fromStates(int width, int height, Map<Cell, CellSnapshot> states) {
+        int chunksPerRow = (width + CHUNK - 1) / CHUNK;
+        CellSnapshot[][][] rows = new CellSnapshot[height][][];
+        for (Map.Entry<Cell, CellSnapshot> e : states.entrySet()) {
+            int x = e.getKey().getX();
+            int y = e.getKey().getY();
+            if (rows[y] == null) {
+                rows[y] = new CellSnapshot[chunksPerRow][];
+            }
+            CellSnapshot[][] row = rows[y];
+            if (row[x / CHUNK] == null) {
+                row[x / CHUNK] = new CellSnapshot[Math.min(CHUNK, width - x / CHUNK * CHUNK)];
+            }
+            row[x / CHUNK][x % CHUNK] = e.getValue();
+        }
+        return new SnapshotGrid(width, height, rows, null);
+    }
+
+    /**
+     * Returns a new snapshot of the given state, or the shared DEAD instance
+     * when it is the default dead state.
+     */
+    private static CellSnapshot snapshotOf(boolean alive, int lifepoints, CellType type, CellMood mood) {
+        if (!alive && lifepoints == 0 && type == CellType.BASIC && mood == CellMood.NAIVE) {
+            return DEAD;
+        }
+        return new CellSnapshot(alive, lifepoints, type, mood);
+    }
+
+    private static boolean matches(CellSnapshot snap, boolean alive, int lifepoints, CellType type, CellMood mood) {
+        return snap.isAlive() == alive
+                && snap.lifepoints() == lifepoints
+                && snap.cellType() == type
+                && snap.cellMood() == mood;
+    }
+
+    /**
+     * Returns the snapshot of the cell at (x, y).
+     *
+     * @param x the column of the cell
+     * @param y the row of the cell
+     * @return the CellSnapshot, or null if the cell was not captured
+     */
+    CellSnapshot get(int x, int y) {
+        CellSnapshot[][] row = rows[y];
+        CellSnapshot[] chunk = row != null ? row[x / CHUNK] : null;
+        return chunk != null ? chunk[x % CHUNK] : null;
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    /**
+     * Computes the fraction of this grid's chunks that are shared by reference
+     * with another grid of the same shape.
+     *
+     * @param other the grid to compare with
+     * @return a value in [0, 1]; 0 when the shapes differ
+     */
+    double sharedFraction(SnapshotGrid other) {
+        long total = (long) chunksPerRow * height;
+        if (other == null || other.width != width || other.height != height || total == 0) return 0.0;
+        long shared = 0;
+        for (int y = 0; y < height; y++) {
+            CellSnapshot[][] row = rows[y];
+            CellSnapshot[][] otherRow = other.rows[y];
+            if (row == null || otherRow == null) continue;
+            for (int cx = 0; cx < chunksPerRow; cx++) {
+                if (row[cx] != null && (row == otherRow || row[cx] == otherRow[cx])) shared++;
+            }
+        }
+        return (double) shared / total;
+    }
+
+    /**
+     * Receives the alive cells of a grid.
+     */
+    interface AliveVisitor {
+        /**
+         * @param x    the column of the cell
+         * @param y    the row of the cell
+         * @param snap the snapshot of the alive cell
+         */
+        void alive(int x, int y, CellSnapshot snap);
+    }
+
+    /**
+     * Reports every alive cell of this grid in row-major order, skipping
+     * blank rows and dead chunks without reading their cells.
+     *
+     * @param visitor receives each alive cell
+     */
+    void forEachAlive(AliveVisitor visitor) {
+        for (int y = 0; y < height; y++) {
+            CellSnapshot[][] row = rows[y];
+            if (row == null || row == blankRow) continue;
+            for (int cx = 0; cx < chunksPerRow; cx++) {
+                CellSnapshot[] chunk = row[cx];
+                if (chunk == null || chunk == DEAD_CHUNK) continue;
+                for (int k = 0; k < chunk.length; k++) {
+                    CellSnapshot snap = chunk[k];
+                    if (snap != null && snap.isAlive()) visitor.alive(cx * CHUNK + k, y, snap);
+                }
+            }
+        }
+    }
+
+    /**
+     * Receives the cells whose snapshot differs between two grids.
+     */
+    interface ChangeSink {
+        /**
+         * @param x      the column of the cell
+         * @param y      the row of the cell
+         * @param before the earlier snapshot, or null if there was none
+         * @param after  the later snapshot, or null if there is none
+         */
+        void changed(int x, int y, CellSnapshot before, CellSnapshot after);
+    }
+
+    /**
+     * Reports every cell whose snapshot differs between the previous grid and
+     * this one, in row-major order within each chunk, skipping chunks shared
+     * by reference.
+     *
+     * @param previous the earlier grid of the same shape, or null if none
+     * @param sink     receives each changed cell
+     */
+    void forEachChange(SnapshotGrid previous, ChangeSink sink) {
+        if (previous != null && (previous.width != width || previous.height != height)) {
+            previous = null;
+        }
+        for (int y = 0; y < height; y++) {
+            CellSnapshot[][] row = rows[y];
+            CellSnapshot[][] beforeRow = previous != null ? previous.rows[y] : null;
+            if (row == beforeRow) continue;
+            for (int cx = 0; cx < chunksPerRow; cx++) {
+                CellSnapshot[] current = row != null ? row[cx] : null;
+                CellSnapshot[] before = beforeRow != null ? beforeRow[cx] : null;
+                if (current == before) continue;
+                int x0 = cx * CHUNK;
+                int len = Math.min(CHUNK, width - x0);
+                for (int k = 0; k < len; k++) {
+                    CellSnapshot now = current != null ? current[k] : null;
+                    CellSnapshot then = before != null ? before[k] : null;
+                    if (now != then && (now == null || then == null || !same(now, then))) {
+                        sink.changed(x0 + k, y, then, now);
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean same(CellSnapshot a, CellSnapshot b) {
+        return a.isAlive().equals(b.isAlive())
+                && a.lifepoints().equals(b.lifepoints())
+                && a.cellType() == b.cellType()
+                && a.cellMood() == b.cellMood();
+    }
+}
@@ -0,0 +1,76 @@
+package it.polito.extgol;
+
+/**
+ * Active-set evaluation of the rules phase of one step, for sparse boards.
+ *
+ * A dead cell with no alive neighbour stays dead and untouched by the rules,
+ * unless its type still has survivable deaths left. The active set is thus
+ * made of the alive cells, their neighbours and those dead cells, and is
+ * built word by word by widening the packed alive states by one cell in every
+ * direction; only the cells of the active set are visited, so the cost of the
+ * rules follows the population rather than the area of the board.
+ *
+ * Load instances through PackedRules.load(board, RuleEngine.SPARSE).
+ */
+class SparseRules extends PackedRules {
+
+    /** Dead cells whose type can still survive a death. */
+    private final long[] survivors;
+
+    /** Bits of the last word of a row that lie on the board. */
+    private final long lastWordMask;
+
+    SparseRules(Board board) {
+        super(board);
+        this.survivors = new long[words * height];
+        this.lastWordMask = (width & 63) == 0 ? -1L : (1L << width) - 1;
+    }
+
+    @Override
+    void load(Cell c, int x, int y, int i, long bit) {
+        if (!c.isAlive() && c.getDeathCount() < c.getType().survivableDeaths) survivors[i] |= bit;
+    }
+
+    @Override
+    void evaluate() {
+        for (int y = 0; y < height; y++) {
+            int row = y * words;
+            for (int w = 0; w < words; w++) {
+                int i = row + w;
+                long active = around(i, w) | survivors[i];
+                if (y > 0) active |= around(i - words, w);
+                if (y + 1 < height) active |= around(i + words, w);
+                if (w + 1 == words) active &= lastWordMask;
+
+                long result = 0;
+                for (long m = active; m != 0; m &= m - 1) {
+                    long bit = m & -m;
+                    int x = (w << 6) + Long.numberOfTrailingZeros(m);
+                    Cell c = board.cellAt(x, y);
+                    CellType type = c.getType();
+                    boolean wasAlive = (alive[i] & bit) != 0;
+                    int n = countAliveNeighbors(x, y);
+                    boolean lives = n >= type.underpopulationBound && n <= type.overpopulationBound
+                            && (wasAlive || n == 3);
+                    if (settle(c, x, y, wasAlive, lives)) result |= bit;
+                }
+                next[i] = result;
+            }
+        }
+    }
+
+    /** Cells of word i (column w) that are alive or next to an alive cell of the same row. */
+    private long around(int i, int w) {
+        return west(i, w) | alive[i] | east(i, w);
+    }
+
+    private int countAliveNeighbors(int x, int y) {
+        int n = 0;
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                if ((dx != 0 || dy != 0) && aliveAt(x + dx, y + dy)) n++;
+            }
+        }
+        return n;
+    }
+}
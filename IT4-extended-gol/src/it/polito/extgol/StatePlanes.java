@@ -0,0 +1,403 @@
+package it.polito.extgol;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Off-heap storage of the complete cell state of a board, one plane per field.
+ *
+ * Each plane is a sequence of direct (or file-mapped) ByteBuffer chunks of at
+ * most 1 GiB, addressed by the row-major cell index y * width + x, so that
+ * boards with billions of cells can be stored outside the Java heap:
+ *
+ *   - alive:      1 bit per cell, packed in 64-bit words
+ *   - lifepoints: 4 bytes per cell
+ *   - modifier:   4 bytes per cell (the tile's lifePoints modifier)
+ *   - type:       1 byte per cell (CellType ordinal)
+ *   - mood:       1 byte per cell (mood in the low nibble, next mood in the high one)
+ *   - counters:   1 byte per cell (death count in the low 7 bits, canBiteHealers in the top bit)
+ *
+ * A zero-filled plane set describes a board of dead BASIC/NAIVE cells with no
+ * lifePoints and no modifiers, which is exactly the extended default. The
+ * planes remember which blocks of TOUCHED_BLOCK cells were ever written, so
+ * that the bulk checks answer for never written blocks without reading them.
+ *
+ * Instances are not thread-safe for concurrent writes to neighbouring cells,
+ * as the alive plane packs 64 cells per word.
+ */
+class StatePlanes {
+
+    /** log2 of the size in bytes of one buffer chunk. */
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+    private static final int MOOD_MASK = 0x0F;
+    private static final int DEATHS_MASK = 0x7F;
+    private static final int BITE_FLAG = 0x80;
+
+    /** log2 of the number of consecutive cells sharing one touched bit. */
+    private static final int TOUCHED_SHIFT = 12;
+
+    /** Byte masks repeated over a long, for the bulk checks. */
+    private static final long MOOD_BYTES = 0x0F0F0F0F0F0F0F0FL;
+    private static final long BITE_BYTES = 0x8080808080808080L;
+
+    private final int width;
+    private final int height;
+    private final long cells;
+
+    private final ByteBuffer[] alive;
+    private final ByteBuffer[] lifepoints;
+    private final ByteBuffer[] modifiers;
+    private final ByteBuffer[] types;
+    private final ByteBuffer[] moods;
+    private final ByteBuffer[] counters;
+
+    /**
+     * One bit per block of 1 << TOUCHED_SHIFT cells, set once any field of a
+     * cell of the block has been written. Bits are only ever set, atomically,
+     * as parallel seeders may write distinct cells of the same word.
+     */
+    private final AtomicLongArray touched;
+
+    /** Whether some plane file existed before mapping, so its content is unknown. */
+    private boolean reopened;
+
+    private StatePlanes(int width, int height, Path directory) {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("Board dimensions must be positive");
+        this.width = width;
+        this.height = height;
+        this.cells = (long) width * height;
+        long aliveBytes = ((cells + 63) >>> 6) << 3;
+        this.alive = plane(directory, "alive", aliveBytes);
+        this.lifepoints = plane(directory, "lifepoints", cells * Integer.BYTES);
+        this.modifiers = plane(directory, "modifier", cells * Integer.BYTES);
+        this.types = plane(directory, "type", cells);
+        this.moods = plane(directory, "mood", cells);
+        this.counters = plane(directory, "counters", cells);
+        long blocks = (cells + (1L << TOUCHED_SHIFT) - 1) >>> TOUCHED_SHIFT;
+        this.touched = new AtomicLongArray((int) ((blocks + 63) >>> 6));
+        if (reopened) {
+            for (int w = 0; w < touched.length(); w++) touched.set(w, -1L);
+        }
+    }
+
+    /**
+     * Allocates zero-filled planes in direct memory.
+     *
+     * @param width  the number of columns of the board
+     * @param height the number of rows of the board
+     * @return the new planes
+     */
+    static StatePlanes allocate(int width, int height) {
+        return new StatePlanes(width, height, null);
+    }
+
+    /**
+     * Maps the planes onto one file per plane inside the given directory,
+     * creating (zero-filled) files as needed. Existing files are reused, so a
+     * board can be reopened from a previous run.
+     *
+     * @param width     the number of columns of the board
+     * @param height    the number of rows of the board
+     * @param directory the directory holding the plane files
+     * @return the file-backed planes
+     * @throws UncheckedIOException if the files cannot be created or mapped
+     */
+    static StatePlanes map(int width, int height, Path directory) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create plane directory " + directory, e);
+        }
+        return new StatePlanes(width, height, directory);
+    }
+
+    private ByteBuffer[] plane(Path directory, String name, long bytes) {
+        int count = (int) ((bytes + CHUNK_MASK) >>> CHUNK_SHIFT);
+        ByteBuffer[] chunks = new ByteBuffer[count];
+        if (directory == null) {
+            for (int i = 0; i < count; i++) {
+                chunks[i] = ByteBuffer.allocateDirect((int) chunkSize(bytes, i));
+            }
+            return chunks;
+        }
+        Path file = directory.resolve(name + ".plane");
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() > 0) reopened = true;
+            for (int i = 0; i < count; i++) {
+                chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i << CHUNK_SHIFT, chunkSize(bytes, i));
+            }
+            return chunks;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map plane " + name + " in " + directory, e);
+        }
+    }
+
+    private static long chunkSize(long bytes, int chunk) {
+        return Math.min(1L << CHUNK_SHIFT, bytes - ((long) chunk << CHUNK_SHIFT));
+    }
+
+    /**
+     * Flushes file-backed planes to their files; does nothing for direct memory.
+     */
+    void force() {
+        for (ByteBuffer[] plane : new ByteBuffer[][] { alive, lifepoints, modifiers, types, moods, counters }) {
+            for (ByteBuffer chunk : plane) {
+                if (chunk instanceof MappedByteBuffer) ((MappedByteBuffer) chunk).force();
+            }
+        }
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the number of cells stored in the planes.
+     *
+     * @return width × height
+     */
+    long size() {
+        return cells;
+    }
+
+    /**
+     * Returns the row-major index of (x, y).
+     *
+     * @param x the column
+     * @param y the row
+     * @return the cell index
+     */
+    long index(int x, int y) {
+        return (long) y * width + x;
+    }
+
+    // alive plane
+
+    boolean isAlive(long i) {
+        return (aliveWord(i >>> 6) & (1L << i)) != 0;
+    }
+
+    void setAlive(long i, boolean value) {
+        long word = aliveWord(i >>> 6);
+        putAliveWord(i >>> 6, value ? word | (1L << i) : word & ~(1L << i));
+    }
+
+    /**
+     * Reads 64 consecutive alive bits, starting at cell index word × 64.
+     *
+     * @param word the index of the 64-bit word
+     * @return the packed alive bits, least significant bit first
+     */
+    long aliveWord(long word) {
+        long offset = word << 3;
+        return alive[(int) (offset >>> CHUNK_SHIFT)].getLong((int) (offset & CHUNK_MASK));
+    }
+
+    void putAliveWord(long word, long bits) {
+        touch(word << 6);
+        long offset = word << 3;
+        alive[(int) (offset >>> CHUNK_SHIFT)].putLong((int) (offset & CHUNK_MASK), bits);
+    }
+
+    // int planes
+
+    int getLifePoints(long i) {
+        return getInt(lifepoints, i);
+    }
+
+    void setLifePoints(long i, int value) {
+        touch(i);
+        putInt(lifepoints, i, value);
+    }
+
+    int getModifier(long i) {
+        return getInt(modifiers, i);
+    }
+
+    void setModifier(long i, int value) {
+        touch(i);
+        putInt(modifiers, i, value);
+    }
+
+    // byte planes
+
+    CellType getType(long i) {
+        return CellType.VALUES[getByte(types, i)];
+    }
+
+    void setType(long i, CellType type) {
+        touch(i);
+        putByte(types, i, type.ordinal());
+    }
+
+    CellMood getMood(long i) {
+        return CellMood.VALUES[getByte(moods, i) & MOOD_MASK];
+    }
+
+    CellMood getNextMood(long i) {
+        return CellMood.VALUES[getByte(moods, i) >>> 4];
+    }
+
+    void setMoods(long i, CellMood mood, CellMood nextMood) {
+        touch(i);
+        putByte(moods, i, mood.ordinal() | (nextMood.ordinal() << 4));
+    }
+
+    int getDeathCount(long i) {
+        return getByte(counters, i) & DEATHS_MASK;
+    }
+
+    void setDeathCount(long i, int deaths) {
+        touch(i);
+        putByte(counters, i, (getByte(counters, i) & BITE_FLAG) | (deaths & DEATHS_MASK));
+    }
+
+    boolean canBiteHealers(long i) {
+        return (getByte(counters, i) & BITE_FLAG) != 0;
+    }
+
+    void canBiteHealers(long i, boolean value) {
+        touch(i);
+        int current = getByte(counters, i);
+        putByte(counters, i, value ? current | BITE_FLAG : current & ~BITE_FLAG);
+    }
+
+    // bulk checks, reading the planes eight bytes at a time
+
+    /**
+     * Marks the block of cell i as written.
+     */
+    private void touch(long i) {
+        long block = i >>> TOUCHED_SHIFT;
+        int w = (int) (block >>> 6);
+        long bit = 1L << block;
+        long bits = touched.get(w);
+        while ((bits & bit) == 0 && !touched.compareAndSet(w, bits, bits | bit)) {
+            bits = touched.get(w);
+        }
+    }
+
+    /**
+     * Tells whether no cell in [from, to) was ever written, so that every one
+     * of them is still in the zero-filled default state.
+     *
+     * @param from the index of the first cell
+     * @param to   the index after the last cell
+     * @return true if the cells were never written
+     */
+    boolean isUntouched(long from, long to) {
+        if (from >= to) return true;
+        long first = from >>> TOUCHED_SHIFT;
+        long last = (to - 1) >>> TOUCHED_SHIFT;
+        for (long w = first >>> 6; w <= last >>> 6; w++) {
+            long bits = touched.get((int) w);
+            if (w == first >>> 6) bits &= -1L << first;
+            if (w == last >>> 6) bits &= -1L >>> (63 - (last & 63));
+            if (bits != 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Tells whether every cell in [from, to) is dead, BASIC and NAIVE, with
+     * no lifePoints: the state SnapshotGrid shares as its dead snapshot.
+     *
+     * @param from the index of the first cell
+     * @param to   the index after the last cell
+     * @return true if all the cells are blank
+     */
+    boolean isBlank(long from, long to) {
+        if (isUntouched(from, to)) return true;
+        return !anyAlive(from, to)
+                && isZero(lifepoints, from << 2, to << 2, -1L)
+                && isZero(types, from, to, -1L)
+                && isZero(moods, from, to, MOOD_BYTES);
+    }
+
+    /**
+     * Tells whether every cell in [from, to) is BASIC.
+     *
+     * @param from the index of the first cell
+     * @param to   the index after the last cell
+     * @return true if no cell has another type
+     */
+    boolean isBasic(long from, long to) {
+        return isUntouched(from, to) || isZero(types, from, to, -1L);
+    }
+
+    /**
+     * Tells whether every cell in [from, to) is NAIVE, with a NAIVE next mood
+     * and no canBiteHealers flag, so that completing its mood changes nothing.
+     *
+     * @param from the index of the first cell
+     * @param to   the index after the last cell
+     * @return true if all the cells are settled NAIVE cells
+     */
+    boolean isNaive(long from, long to) {
+        if (isUntouched(from, to)) return true;
+        return isZero(moods, from, to, -1L) && isZero(counters, from, to, BITE_BYTES);
+    }
+
+    private boolean anyAlive(long from, long to) {
+        if (from >= to) return false;
+        long first = from >>> 6;
+        long last = (to - 1) >>> 6;
+        for (long w = first; w <= last; w++) {
+            long bits = aliveWord(w);
+            if (w == first) bits &= -1L << from;
+            if (w == last) bits &= -1L >>> (63 - ((to - 1) & 63));
+            if (bits != 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Tells whether the bytes at offsets [from, to) of a plane are all zero
+     * once masked, reading whole aligned longs where possible.
+     */
+    private static boolean isZero(ByteBuffer[] plane, long from, long to, long mask) {
+        long i = from;
+        for (; i < to && (i & 7) != 0; i++) {
+            if ((getByte(plane, i) & mask) != 0) return false;
+        }
+        for (; i + 8 <= to; i += 8) {
+            if ((plane[(int) (i >>> CHUNK_SHIFT)].getLong((int) (i & CHUNK_MASK)) & mask) != 0) return false;
+        }
+        for (; i < to; i++) {
+            if ((getByte(plane, i) & mask) != 0) return false;
+        }
+        return true;
+    }
+
+    private static int getInt(ByteBuffer[] plane, long i) {
+        long offset = i << 2;
+        return plane[(int) (offset >>> CHUNK_SHIFT)].getInt((int) (offset & CHUNK_MASK));
+    }
+
+    private static void putInt(ByteBuffer[] plane, long i, int value) {
+        long offset = i << 2;
+        plane[(int) (offset >>> CHUNK_SHIFT)].putInt((int) (offset & CHUNK_MASK), value);
+    }
+
+    private static int getByte(ByteBuffer[] plane, long i) {
+        return plane[(int) (i >>> CHUNK_SHIFT)].get((int) (i & CHUNK_MASK)) & 0xFF;
+    }
+
+    private static void putByte(ByteBuffer[] plane, long i, int value) {
+        plane[(int) (i >>> CHUNK_SHIFT)].put((int) (i & CHUNK_MASK), (byte) value);
+    }
+}
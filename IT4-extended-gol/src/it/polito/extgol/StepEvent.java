@@ -0,0 +1,82 @@
+package it.polito.extgol;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event emitted for each simulation step while a recording enables it.
+ */
+@Name("it.polito.extgol.Step")
+@Label("Game of Life Step")
+@Category("Extended Game of Life")
+@Description("Phase timings and activity counters of one simulation step")
+class StepEvent extends Event {
+
+    @Label("Step")
+    int step;
+
+    @Label("Rule Engine")
+    String ruleEngine;
+
+    @Label("Event Phase")
+    @Timespan(Timespan.NANOSECONDS)
+    long eventNanos;
+
+    @Label("Interaction Phase")
+    @Timespan(Timespan.NANOSECONDS)
+    long interactionNanos;
+
+    @Label("Rules Phase")
+    @Timespan(Timespan.NANOSECONDS)
+    long rulesNanos;
+
+    @Label("Complete Phase")
+    @Timespan(Timespan.NANOSECONDS)
+    long completeNanos;
+
+    @Label("Generation Phase")
+    @Timespan(Timespan.NANOSECONDS)
+    long generationNanos;
+
+    @Label("Snapshot Phase")
+    @Timespan(Timespan.NANOSECONDS)
+    long snapshotNanos;
+
+    @Label("Births")
+    int births;
+
+    @Label("Deaths")
+    int deaths;
+
+    @Label("Mood Conversions")
+    int moodConversions;
+
+    @Label("Allocated")
+    @DataAmount(DataAmount.BYTES)
+    long allocatedBytes;
+
+    /**
+     * Copies the given metrics into the event fields.
+     *
+     * @param metrics the measurements of the step
+     */
+    void fill(StepMetrics metrics) {
+        step = metrics.getStep();
+        ruleEngine = metrics.getRuleEngine().name();
+        eventNanos = metrics.getNanos(StepPhase.EVENT);
+        interactionNanos = metrics.getNanos(StepPhase.INTERACTION);
+        rulesNanos = metrics.getNanos(StepPhase.RULES);
+        completeNanos = metrics.getNanos(StepPhase.COMPLETE);
+        generationNanos = metrics.getNanos(StepPhase.GENERATION);
+        snapshotNanos = metrics.getNanos(StepPhase.SNAPSHOT);
+        births = metrics.getBirths();
+        deaths = metrics.getDeaths();
+        moodConversions = metrics.getMoodConversions();
+        allocatedBytes = metrics.getAllocatedBytes();
+    }
+}
@@ -0,0 +1,132 @@
+package it.polito.extgol;
+
+/**
+ * Immutable measurements of one simulation step.
+ *
+ * Reports the wall-clock time spent in each StepPhase, the number of cells
+ * born, died and converted to another mood during the step, the RuleEngine
+ * that evaluated the cell rules, and an estimate of the bytes allocated by
+ * the simulating thread (when the JVM supports it).
+ */
+public class StepMetrics {
+
+    private final int step;
+    private final RuleEngine engine;
+    private final long[] phaseNanos;
+    private final int births;
+    private final int deaths;
+    private final int moodConversions;
+    private final long allocatedBytes;
+
+    /**
+     * Builds the metrics of a step.
+     *
+     * @param step            the index of the generation produced by the step
+     * @param engine          the RuleEngine that evaluated the cell rules
+     * @param phaseNanos      the nanoseconds spent per phase, indexed by ordinal
+     * @param births          the number of dead cells that became alive
+     * @param deaths          the number of alive cells that died
+     * @param moodConversions the number of cells whose mood changed on commit
+     * @param allocatedBytes  the bytes allocated during the step, or -1 if unknown
+     */
+    StepMetrics(int step, RuleEngine engine, long[] phaseNanos, int births, int deaths, int moodConversions, long allocatedBytes) {
+        this.step = step;
+        this.engine = engine;
+        this.phaseNanos = phaseNanos.clone();
+        this.births = births;
+        this.deaths = deaths;
+        this.moodConversions = moodConversions;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    /**
+     * Returns the index of the generation produced by the step.
+     *
+     * @return the step index
+     */
+    public int getStep() {
+        return step;
+    }
+
+    /**
+     * Returns the engine that evaluated the cell rules of the step.
+     *
+     * @return the RuleEngine used
+     */
+    public RuleEngine getRuleEngine() {
+        return engine;
+    }
+
+    /**
+     * Returns the time spent in the given phase.
+     *
+     * @param phase the phase of interest
+     * @return the elapsed nanoseconds
+     */
+    public long getNanos(StepPhase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * Returns the time spent in the whole step.
+     *
+     * @return the sum of all phase durations, in nanoseconds
+     */
+    public long getTotalNanos() {
+        long total = 0;
+        for (long n : phaseNanos) {
+            total += n;
+        }
+        return total;
+    }
+
+    /**
+     * Returns how many dead cells became alive in the step.
+     *
+     * @return the number of births
+     */
+    public int getBirths() {
+        return births;
+    }
+
+    /**
+     * Returns how many alive cells died in the step.
+     *
+     * @return the number of deaths
+     */
+    public int getDeaths() {
+        return deaths;
+    }
+
+    /**
+     * Returns how many cells took a new mood when pending moods were committed.
+     *
+     * @return the number of mood conversions
+     */
+    public int getMoodConversions() {
+        return moodConversions;
+    }
+
+    /**
+     * Returns an estimate of the bytes allocated by the simulating thread
+     * during the step.
+     *
+     * @return the allocated bytes, or -1 if the JVM does not track them
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Step ").append(step).append(": ").append(engine);
+        for (StepPhase phase : StepPhase.VALUES) {
+            sb.append(' ').append(phase).append('=').append(phaseNanos[phase.ordinal()] / 1000).append("us");
+        }
+        return sb.append(" births=").append(births)
+                .append(" deaths=").append(deaths)
+                .append(" conversions=").append(moodConversions)
+                .append(" allocated=").append(allocatedBytes)
+                .toString();
+    }
+}
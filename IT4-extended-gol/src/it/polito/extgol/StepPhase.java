@@ -0,0 +1,28 @@
+package it.polito.extgol;
+
+/**
+ * Phases of a single simulation step, in execution order, as timed by the
+ * instrumentation of ExtendedGameOfLife.evolve.
+ */
+public enum StepPhase {
+
+    /** Application of the scheduled global event, if any. */
+    EVENT,
+
+    /** Mood-driven lifePoints exchanges between alive neighbours. */
+    INTERACTION,
+
+    /** Evaluation of every cell's survival/respawn rules and energy update. */
+    RULES,
+
+    /** Commit of pending moods and of the computed alive states. */
+    COMPLETE,
+
+    /** Creation of the next Generation and its registration in the game. */
+    GENERATION,
+
+    /** Capture of the cell snapshot of the new generation. */
+    SNAPSHOT;
+
+    public static final StepPhase[] VALUES = values();
+}
@@ -0,0 +1,97 @@
+package it.polito.extgol;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Collects the measurements of a single simulation step.
+ *
+ * The shared DISABLED instance ignores every call, so the simulation loop can
+ * invoke the recorder unconditionally at almost no cost when instrumentation
+ * is off.
+ */
+class StepRecorder {
+
+    /** Recorder used when nobody observes the simulation. */
+    static final StepRecorder DISABLED = new StepRecorder(false);
+
+    private static final com.sun.management.ThreadMXBean ALLOCATIONS = allocationBean();
+
+    private final boolean enabled;
+    private final long[] phaseNanos = new long[StepPhase.VALUES.length];
+    private long lastMark;
+    private long allocatedAtStart = -1;
+    private int births;
+    private int deaths;
+    private int moodConversions;
+
+    private StepRecorder(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Creates an active recorder and starts the clock of its first phase.
+     *
+     * @return the started recorder
+     */
+    static StepRecorder start() {
+        StepRecorder recorder = new StepRecorder(true);
+        if (ALLOCATIONS != null) {
+            recorder.allocatedAtStart = ALLOCATIONS.getCurrentThreadAllocatedBytes();
+        }
+        recorder.lastMark = System.nanoTime();
+        return recorder;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean;
+            }
+        }
+        return null;
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Ends the given phase: the time since the previous mark is charged to it.
+     *
+     * @param phase the phase that just completed
+     */
+    void mark(StepPhase phase) {
+        if (!enabled) return;
+        long now = System.nanoTime();
+        phaseNanos[phase.ordinal()] += now - lastMark;
+        lastMark = now;
+    }
+
+    void birth() {
+        if (enabled) births++;
+    }
+
+    void death() {
+        if (enabled) deaths++;
+    }
+
+    void moodConversion() {
+        if (enabled) moodConversions++;
+    }
+
+    /**
+     * Freezes the collected data.
+     *
+     * @param step   the index of the generation produced by the step
+     * @param engine the RuleEngine that evaluated the cell rules
+     * @return the StepMetrics of the step
+     */
+    StepMetrics finish(int step, RuleEngine engine) {
+        long allocated = allocatedAtStart < 0 ? -1
+                : ALLOCATIONS.getCurrentThreadAllocatedBytes() - allocatedAtStart;
+        return new StepMetrics(step, engine, phaseNanos, births, deaths, moodConversions, allocated);
+    }
+}
@@ -0,0 +1,53 @@
+package it.polito.extgol;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes the step tasks of a SimulationService.
+ *
+ * Tasks submitted with the same delay run in submission order, which is what
+ * makes the service's one-step-per-task scheduling round-robin across games.
+ */
+interface StepScheduler {
+
+    /**
+     * Submits a task to run once after the given delay.
+     *
+     * @param task       the task to run
+     * @param delayNanos the delay in nanoseconds, 0 to run as soon as possible
+     * @throws java.util.concurrent.RejectedExecutionException if the scheduler has been shut down
+     */
+    void schedule(Runnable task, long delayNanos);
+
+    /**
+     * Stops accepting tasks and discards the pending ones.
+     */
+    void shutdown();
+
+    /**
+     * Creates a scheduler backed by a fixed pool of worker threads.
+     *
+     * @param workers the number of worker threads
+     * @return the pooled scheduler
+     */
+    static StepScheduler pool(int workers) {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(workers, r -> {
+            Thread t = new Thread(r, "extgol-step-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        return new StepScheduler() {
+            @Override
+            public void schedule(Runnable task, long delayNanos) {
+                executor.schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+            }
+
+            @Override
+            public void shutdown() {
+                executor.shutdownNow();
+            }
+        };
+    }
+}
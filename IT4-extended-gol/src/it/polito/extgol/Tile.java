@@ -86,6 +86,20 @@ public class Tile implements Interactable {
         this.cell = new Cell(this.tileCoord, this, b, g);
     }
 
+    /**
+     * Constructs a tile at the given coordinates without creating its cell,
+     * for subclasses that provide the cell themselves.
+     *
+     * @param coord the tile's coordinates
+     * @param b     the Board containing the tile
+     * @param g     the owning Game
+     */
+    protected Tile(Coord coord, Board b, Game g) {
+        this.tileCoord = coord;
+        this.board = b;
+        this.game = g;
+    }
+
     /**
      * Retrieves the Board to which this tile belongs.
      *
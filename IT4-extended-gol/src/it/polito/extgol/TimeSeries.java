@@ -0,0 +1,300 @@
+package it.polito.extgol;
+
+import java.util.Arrays;
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Per-step statistics of the alive cells of a game over a range of steps,
+ * stored column-wise in primitive arrays indexed by step - getFromStep().
+ *
+ * For every step it holds the alive count, the lifePoints sum, minimum and
+ * maximum, the number of alive cells of each CellType and CellMood, and the
+ * histogram of alive cells by number of alive neighbours (0..8, board edges
+ * do not wrap). Empty steps have min Integer.MAX_VALUE and max
+ * Integer.MIN_VALUE, as in IntSummaryStatistics.
+ *
+ * Series are computed with fork/join over the step range, each step reading
+ * the generation's snapshot grid row by row into reusable scratch arrays, so
+ * no per-cell map or boxed value is ever created.
+ */
+public class TimeSeries {
+
+    /** Number of neighbour-count buckets: 0 to 8 alive neighbours. */
+    public static final int NEIGHBOR_BUCKETS = 9;
+
+    /** Number of consecutive steps below which a task is not split further. */
+    private static final int LEAF_STEPS = 4;
+
+    private final int fromStep;
+    private final int length;
+
+    private final int[] alive;
+    private final long[] energySum;
+    private final int[] energyMin;
+    private final int[] energyMax;
+    private final int[] typeCounts;
+    private final int[] moodCounts;
+    private final int[] neighborCounts;
+
+    private TimeSeries(int fromStep, int length) {
+        this.fromStep = fromStep;
+        this.length = length;
+        this.alive = new int[length];
+        this.energySum = new long[length];
+        this.energyMin = new int[length];
+        this.energyMax = new int[length];
+        this.typeCounts = new int[length * CellType.VALUES.length];
+        this.moodCounts = new int[length * CellMood.VALUES.length];
+        this.neighborCounts = new int[length * NEIGHBOR_BUCKETS];
+    }
+
+    /**
+     * Computes the series of the given generations of a game in the common
+     * fork/join pool.
+     *
+     * @param range the consecutive generations of the range, in step order
+     * @return the computed TimeSeries
+     */
+    static TimeSeries compute(List<Generation> range) {
+        Generation[] steps = range.toArray(new Generation[0]);
+        TimeSeries series = new TimeSeries(steps[0].getStep(), steps.length);
+        // snapshots of reloaded generations are rebuilt lazily: do it before forking
+        for (Generation g : steps) g.getSnapshot();
+        ForkJoinPool.commonPool().invoke(new SeriesTask(series, steps, 0, steps.length));
+        return series;
+    }
+
+    /**
+     * Fork/join task filling the series for the steps [lo, hi).
+     */
+    private static class SeriesTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final TimeSeries series;
+        private final Generation[] steps;
+        private final int lo;
+        private final int hi;
+
+        SeriesTask(TimeSeries series, Generation[] steps, int lo, int hi) {
+            this.series = series;
+            this.steps = steps;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= LEAF_STEPS) {
+                Scratch scratch = null;
+                for (int i = lo; i < hi; i++) {
+                    SnapshotGrid grid = steps[i].getSnapshot();
+                    if (scratch == null || scratch.width != grid.getWidth()) scratch = new Scratch(grid.getWidth());
+                    series.fill(i, grid, scratch);
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new SeriesTask(series, steps, lo, mid), new SeriesTask(series, steps, mid, hi));
+        }
+    }
+
+    /** Reusable row buffers of one leaf task. */
+    private static class Scratch {
+        final int width;
+        boolean[] above;
+        boolean[] row;
+        boolean[] below;
+
+        Scratch(int width) {
+            this.width = width;
+            this.above = new boolean[width];
+            this.row = new boolean[width];
+            this.below = new boolean[width];
+        }
+    }
+
+    private void fill(int i, SnapshotGrid grid, Scratch s) {
+        int width = grid.getWidth();
+        int height = grid.getHeight();
+        int count = 0;
+        long sum = 0;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        int types = i * CellType.VALUES.length;
+        int moods = i * CellMood.VALUES.length;
+        int neighbors = i * NEIGHBOR_BUCKETS;
+
+        Arrays.fill(s.above, false);
+        readRow(grid, 0, s.row);
+        for (int y = 0; y < height; y++) {
+            if (y + 1 < height) {
+                readRow(grid, y + 1, s.below);
+            } else {
+                Arrays.fill(s.below, false);
+            }
+            for (int x = 0; x < width; x++) {
+                if (!s.row[x]) continue;
+                CellSnapshot snap = grid.get(x, y);
+                int lp = snap.lifepoints();
+                count++;
+                sum += lp;
+                if (lp < min) min = lp;
+                if (lp > max) max = lp;
+                typeCounts[types + snap.cellType().ordinal()]++;
+                moodCounts[moods + snap.cellMood().ordinal()]++;
+
+                int n = 0;
+                for (int dx = -1; dx <= 1; dx++) {
+                    int nx = x + dx;
+                    if (nx < 0 || nx >= width) continue;
+                    if (s.above[nx]) n++;
+                    if (s.below[nx]) n++;
+                    if (dx != 0 && s.row[nx]) n++;
+                }
+                neighborCounts[neighbors + n]++;
+            }
+            boolean[] recycled = s.above;
+            s.above = s.row;
+            s.row = s.below;
+            s.below = recycled;
+        }
+        alive[i] = count;
+        energySum[i] = sum;
+        energyMin[i] = min;
+        energyMax[i] = max;
+    }
+
+    private static void readRow(SnapshotGrid grid, int y, boolean[] out) {
+        for (int x = 0; x < out.length; x++) {
+            CellSnapshot snap = grid.get(x, y);
+            out[x] = snap != null && snap.isAlive();
+        }
+    }
+
+    /**
+     * Returns the first step of the series.
+     *
+     * @return the first step, inclusive
+     */
+    public int getFromStep() {
+        return fromStep;
+    }
+
+    /**
+     * Returns the number of steps in the series.
+     *
+     * @return the series length
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns the number of alive cells of every step.
+     *
+     * @return a new array of alive counts
+     */
+    public int[] getAliveCounts() {
+        return alive.clone();
+    }
+
+    /**
+     * Returns the lifePoints sum of the alive cells of every step.
+     *
+     * @return a new array of sums
+     */
+    public long[] getEnergySums() {
+        return energySum.clone();
+    }
+
+    /**
+     * Returns the minimum lifePoints of the alive cells of every step.
+     *
+     * @return a new array of minimums
+     */
+    public int[] getEnergyMins() {
+        return energyMin.clone();
+    }
+
+    /**
+     * Returns the maximum lifePoints of the alive cells of every step.
+     *
+     * @return a new array of maximums
+     */
+    public int[] getEnergyMaxes() {
+        return energyMax.clone();
+    }
+
+    /**
+     * Returns the average lifePoints of the alive cells of every step, 0 for
+     * steps without alive cells.
+     *
+     * @return a new array of averages
+     */
+    public double[] getEnergyAverages() {
+        double[] avg = new double[length];
+        for (int i = 0; i < length; i++) {
+            avg[i] = alive[i] > 0 ? (double) energySum[i] / alive[i] : 0.0;
+        }
+        return avg;
+    }
+
+    /**
+     * Returns the number of alive cells of the given type at every step.
+     *
+     * @param type the CellType to count
+     * @return a new array of counts
+     */
+    public int[] getTypeCounts(CellType type) {
+        return column(typeCounts, CellType.VALUES.length, type.ordinal());
+    }
+
+    /**
+     * Returns the number of alive cells with the given mood at every step.
+     *
+     * @param mood the CellMood to count
+     * @return a new array of counts
+     */
+    public int[] getMoodCounts(CellMood mood) {
+        return column(moodCounts, CellMood.VALUES.length, mood.ordinal());
+    }
+
+    /**
+     * Returns the number of alive cells having exactly the given number of
+     * alive neighbours at every step.
+     *
+     * @param neighbors the neighbour count, between 0 and 8
+     * @return a new array of counts
+     * @throws IllegalArgumentException if neighbors is out of range
+     */
+    public int[] getNeighborCounts(int neighbors) {
+        if (neighbors < 0 || neighbors >= NEIGHBOR_BUCKETS) {
+            throw new IllegalArgumentException("Neighbour count must be between 0 and 8");
+        }
+        return column(neighborCounts, NEIGHBOR_BUCKETS, neighbors);
+    }
+
+    /**
+     * Returns the energy statistics of one step of the series.
+     *
+     * @param step a step of the series
+     * @return the IntSummaryStatistics of the alive cells' lifePoints
+     * @throws IndexOutOfBoundsException if the step is not in the series
+     */
+    public IntSummaryStatistics getEnergyStatistics(int step) {
+        int i = Objects.checkIndex(step - fromStep, length);
+        return new IntSummaryStatistics(alive[i], energyMin[i], energyMax[i], energySum[i]);
+    }
+
+    private int[] column(int[] table, int columns, int column) {
+        int[] out = new int[length];
+        for (int i = 0; i < length; i++) {
+            out[i] = table[i * columns + column];
+        }
+        return out;
+    }
+}
@@ -0,0 +1,77 @@
+package it.polito.extgol.test;
+
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+import it.polito.extgol.Board;
+import it.polito.extgol.Cell;
+import it.polito.extgol.CellMood;
+import it.polito.extgol.CellType;
+import it.polito.extgol.ExtendedGameOfLife;
+import it.polito.extgol.Game;
+import it.polito.extgol.Generation;
+import it.polito.extgol.JPAUtil;
+import it.polito.extgol.TimeSeries;
+
+public class ExtGOLAnalyticsTests {
+
+    @AfterClass
+    public static void closeDB() {
+        JPAUtil.close();
+    }
+
+    @Test
+    public void testSeriesMatchesPerGenerationAnalytics() {
+        Game game = Game.createExtended("AnalyticsGame", 30, 25);
+        Board board = game.getBoard();
+        Generation.createRandom(game, board, 0.35, 3L,
+            Map.of(CellType.BASIC, 2.0, CellType.HIGHLANDER, 1.0, CellType.SOCIAL, 1.0),
+            Map.of(CellMood.NAIVE, 3.0, CellMood.HEALER, 1.0, CellMood.VAMPIRE, 1.0));
+        new ExtendedGameOfLife().run(game, 12);
+
+        TimeSeries series = board.getTimeSeries(2, 12);
+        assertEquals(11, series.length());
+        int[] alive = series.getAliveCounts();
+        long[] sums = series.getEnergySums();
+
+        for (int step = 2; step <= 12; step++) {
+            int i = step - 2;
+            Generation gen = game.getGenerations().get(step);
+            IntSummaryStatistics expected = board.energyStatistics(gen);
+            assertEquals(expected.getCount(), alive[i]);
+            assertEquals(expected.getSum(), sums[i]);
+            IntSummaryStatistics actual = series.getEnergyStatistics(step);
+            assertEquals(expected.getMin(), actual.getMin());
+            assertEquals(expected.getMax(), actual.getMax());
+
+            Map<Cell, Boolean> states = gen.getCellAlivenessStates();
+            Map<Cell, CellMood> moods = gen.getMoodStates();
+            for (CellMood m : CellMood.values()) {
+                long count = moods.entrySet().stream().filter(e -> states.get(e.getKey()) && e.getValue() == m).count();
+                assertEquals(m.toString(), count, series.getMoodCounts(m)[i]);
+            }
+
+            Map<Integer, List<Cell>> byNeighbors = board.groupByAliveNeighborCount(gen);
+            for (int n = 0; n < TimeSeries.NEIGHBOR_BUCKETS; n++) {
+                assertEquals("step " + step + " n " + n,
+                    byNeighbors.getOrDefault(n, List.of()).size(), series.getNeighborCounts(n)[i]);
+            }
+            Map<CellType, Integer> types = board.countCellsByType(gen);
+            for (CellType t : CellType.values()) {
+                assertEquals("step " + step + " " + t, types.getOrDefault(t, 0).intValue(), series.getTypeCounts(t)[i]);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsimulatedRangeIsRejected() {
+        Game game = Game.createExtended("AnalyticsShort", 4, 4);
+        Generation.createInitial(game, game.getBoard());
+        game.getBoard().getTimeSeries(0, 1);
+    }
+}
@@ -0,0 +1,118 @@
+package it.polito.extgol.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+import it.polito.extgol.Board;
+import it.polito.extgol.Cell;
+import it.polito.extgol.CellType;
+import it.polito.extgol.Coord;
+import it.polito.extgol.ExtendedGameOfLife;
+import it.polito.extgol.Game;
+import it.polito.extgol.Generation;
+import it.polito.extgol.JPAUtil;
+import it.polito.extgol.RuleEngine;
+import it.polito.extgol.SimulationListener;
+import it.polito.extgol.StepMetrics;
+import static it.polito.extgol.test.TestGameUtil.EVENTS;
+import static it.polito.extgol.test.TestGameUtil.assertSameCells;
+import static it.polito.extgol.test.TestGameUtil.seeded;
+
+public class ExtGOLBitSlicedTests {
+    private ExtendedGameOfLife objects;
+    private ExtendedGameOfLife bits;
+
+    @AfterClass
+    public static void closeDB() {
+        JPAUtil.close();
+    }
+
+    @Before
+    public void setUp() {
+        objects = new ExtendedGameOfLife();
+        bits = new ExtendedGameOfLife();
+        bits.setRuleEngine(RuleEngine.BIT_SLICED);
+    }
+
+    private void assertEnginesAgree(Game reference, Game candidate, int steps) {
+        Generation r = reference.getLatest();
+        Generation c = candidate.getLatest();
+        int alive = 0;
+        for (int step = 0; step < steps; step++) {
+            r = objects.evolve(r, EVENTS.get(step));
+            c = bits.evolve(c, EVENTS.get(step));
+            assertSameCells("Step " + (step + 1), reference.getBoard(), candidate.getBoard());
+            alive += reference.getBoard().countCells(r);
+        }
+        // the cataclysm may wipe out thin boards, but they must have evolved before
+        assertTrue(alive > 0);
+    }
+
+    @Test
+    public void testMixedTypesMatchObjectGraph() {
+        int[][] sizes = { {70, 45}, {64, 10}, {130, 3}, {1, 30}, {200, 1} };
+        long seed = 1;
+        for (int[] size : sizes) {
+            String name = size[0] + "x" + size[1];
+            Game reference = seeded(Game.createExtended("BitsRef" + name, size[0], size[1]), 0.45, seed);
+            Game candidate = seeded(Game.createExtended("Bits" + name, size[0], size[1]), 0.45, seed++);
+            assertEnginesAgree(reference, candidate, 12);
+        }
+    }
+
+    @Test
+    public void testOffHeapBoardMatchesObjectGraph() {
+        Game reference = seeded(Game.createExtended("BitsOffHeapRef", 90, 33), 0.45, 17L);
+        Game candidate = Game.createExtended("BitsOffHeap", 1, 1);
+        candidate.setBoard(Board.createOffHeap(90, 33, candidate));
+        seeded(candidate, 0.45, 17L);
+        assertEnginesAgree(reference, candidate, 10);
+    }
+
+    @Test
+    public void testHighlanderSurvivesThreeDeaths() {
+        Game game = Game.createExtended("BitsHighlander", 5, 5);
+        Generation.createInitial(game, game.getBoard(), Map.of(new Coord(2, 2), CellType.HIGHLANDER));
+        bits.run(game, 4);
+
+        Cell highlander = game.getBoard().getTile(new Coord(2, 2)).getCell();
+        List<Boolean> alive = new ArrayList<>();
+        for (Generation g : game.getGenerations()) {
+            alive.add(g.getCellAlivenessStates().get(highlander));
+        }
+        // isolated, it withstands three death-inducing steps and dies at the fourth
+        assertEquals(List.of(true, true, true, true, false), alive);
+        assertEquals(3, highlander.getDeathCount());
+    }
+
+    @Test
+    public void testBirthsAndDeathsAreCounted() {
+        Game game = Game.create("BitsBlinker", 5, 5);
+        Generation.createInitial(game, game.getBoard(),
+            List.of(new Coord(1, 2), new Coord(2, 2), new Coord(3, 2)));
+        List<StepMetrics> steps = new ArrayList<>();
+        bits.addListener(new SimulationListener() {
+            @Override
+            public void onStep(StepMetrics metrics) {
+                steps.add(metrics);
+            }
+        });
+        bits.run(game, 2);
+
+        assertEquals(2, steps.size());
+        for (StepMetrics m : steps) {
+            assertEquals(2, m.getBirths());
+            assertEquals(2, m.getDeaths());
+        }
+        assertFalse(game.getBoard().getTile(new Coord(2, 1)).getCell().isAlive());
+        assertEquals(objects.visualize(game.getStart()), objects.visualize(game.getLatest()));
+    }
+}
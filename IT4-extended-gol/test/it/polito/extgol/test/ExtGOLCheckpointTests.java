@@ -0,0 +1,123 @@
+package it.polito.extgol.test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+import it.polito.extgol.Board;
+import it.polito.extgol.Coord;
+import it.polito.extgol.ExtendedGameOfLife;
+import it.polito.extgol.Game;
+import it.polito.extgol.JPAUtil;
+import static it.polito.extgol.test.TestGameUtil.EVENTS;
+import static it.polito.extgol.test.TestGameUtil.assertSameCells;
+import static it.polito.extgol.test.TestGameUtil.seeded;
+
+public class ExtGOLCheckpointTests {
+    private ExtendedGameOfLife facade;
+    private Path dir;
+
+    @AfterClass
+    public static void closeDB() {
+        JPAUtil.close();
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        facade = new ExtendedGameOfLife();
+        dir = Files.createTempDirectory("extgol-checkpoint");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (var files = Files.list(dir)) {
+            for (Path p : files.toList()) Files.delete(p);
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    public void testRestoredGameContinuesLikeUninterruptedRun() {
+        Game reference = seeded(Game.createExtended("CheckpointRef", 20, 15), 0.4, 5L);
+        facade.run(reference, 10, EVENTS);
+
+        Game interrupted = seeded(Game.createExtended("CheckpointRun", 20, 15), 0.4, 5L);
+        facade.run(interrupted, 4, EVENTS);
+        Path file = dir.resolve("run.egol");
+        facade.checkpoint(interrupted, file);
+
+        Game restored = facade.restore(file);
+        assertEquals("CheckpointRun", restored.getName());
+        assertEquals(EVENTS, restored.getEventMapInternal());
+        assertEquals(4, restored.getStart().getStep());
+        assertSameCells("Restored", interrupted.getBoard(), restored.getBoard());
+
+        facade.run(restored, 6);
+        assertEquals(10, restored.getLatest().getStep());
+        assertEquals(7, restored.getGenerations().size());
+        assertSameCells("Continued", reference.getBoard(), restored.getBoard());
+        for (int step = 4; step <= 10; step++) {
+            assertEquals("Step " + step,
+                facade.visualize(reference.getGeneration(step)), facade.visualize(restored.getGeneration(step)));
+        }
+        assertEquals(6, restored.getCellHistory(new Coord(3, 3), 4, 10).length() - 1);
+        assertEquals(9, restored.getGeneration(10).getDelta().getFromStep());
+    }
+
+    @Test
+    public void testOffHeapBoardRoundTrip() {
+        Game game = Game.createExtended("CheckpointOffHeap", 1, 1);
+        game.setBoard(Board.createOffHeap(100, 80, game));
+        seeded(game, 0.4, 5L);
+        facade.run(game, 3, EVENTS);
+
+        Path file = dir.resolve("offheap.egol");
+        facade.checkpoint(game, file);
+        Game restored = facade.restore(file);
+
+        assertTrue(restored.getBoard().isOffHeap());
+        assertSameCells("Restored", game.getBoard(), restored.getBoard());
+        facade.run(game, 4);
+        facade.run(restored, 4);
+        assertSameCells("Continued", game.getBoard(), restored.getBoard());
+    }
+
+    @Test
+    public void testCheckpointIsReplacedAndValidated() throws IOException {
+        Game game = seeded(Game.createExtended("CheckpointValid", 12, 12), 0.4, 5L);
+        Path file = dir.resolve("valid.egol");
+        facade.checkpoint(game, file);
+        facade.run(game, 2);
+        facade.checkpoint(game, file);
+        assertEquals(2, facade.restore(file).getLatest().getStep());
+        // the temporary file was moved over the target
+        try (var files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 0x10;
+        Files.write(file, bytes);
+        assertThrows(IllegalArgumentException.class, () -> facade.restore(file));
+
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 3));
+        assertThrows(IllegalArgumentException.class, () -> facade.restore(file));
+
+        Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(IllegalArgumentException.class, () -> facade.restore(file));
+
+        assertThrows(UncheckedIOException.class, () -> facade.restore(dir.resolve("missing.egol")));
+        assertFalse(Files.exists(dir.resolve("missing.egol")));
+    }
+}
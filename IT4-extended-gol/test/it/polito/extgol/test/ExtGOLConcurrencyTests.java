@@ -0,0 +1,112 @@
+package it.polito.extgol.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+import it.polito.extgol.Board;
+import it.polito.extgol.CellType;
+import it.polito.extgol.ExtendedGameOfLife;
+import it.polito.extgol.Game;
+import it.polito.extgol.Generation;
+import it.polito.extgol.JPAUtil;
+
+public class ExtGOLConcurrencyTests {
+    private ExtendedGameOfLife facade;
+
+    @AfterClass
+    public static void closeDB() {
+        JPAUtil.close();
+    }
+
+    @Before
+    public void setUp() {
+        facade = new ExtendedGameOfLife();
+    }
+
+    @Test
+    public void testReadersSeeConsistentGenerationsWhileRunning() throws InterruptedException {
+        Game game = Game.createExtended("ConcurrentReads", 48, 48);
+        Board board = game.getBoard();
+        Generation.createRandom(game, board, 0.4, 9L,
+            Map.of(CellType.BASIC, 2.0, CellType.SOCIAL, 1.0, CellType.LONER, 1.0), Map.of());
+
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Map<Integer, Integer> observedCounts = new ConcurrentHashMap<>();
+        Map<Integer, Long> observedSums = new ConcurrentHashMap<>();
+
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 3; r++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    while (!done.get()) {
+                        List<Generation> view = game.getPublishedGenerations();
+                        for (int i = 0; i < view.size(); i++) {
+                            assertEquals(i, view.get(i).getStep());
+                        }
+                        Generation last = view.get(view.size() - 1);
+                        assertTrue(game.getLatest().getStep() >= last.getStep());
+                        observedCounts.put(last.getStep(), board.countCells(last));
+                        observedSums.put(last.getStep(), last.getRegionStats(0, 0, 47, 47).getSum());
+                        if (last.getStep() > 0) {
+                            assertEquals(last.getStep() - 1, last.getDelta().getFromStep());
+                        }
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            });
+            readers.add(reader);
+            reader.start();
+        }
+
+        facade.run(game, 120);
+        done.set(true);
+        for (Thread reader : readers) reader.join();
+
+        assertNull(failure.get());
+        assertEquals(120, game.getLatest().getStep());
+        assertTrue(observedCounts.size() > 1);
+        for (Map.Entry<Integer, Integer> e : observedCounts.entrySet()) {
+            Generation gen = game.getGeneration(e.getKey());
+            assertEquals("step " + e.getKey(), board.countCells(gen), e.getValue());
+            assertEquals("step " + e.getKey(),
+                gen.getRegionStats(0, 0, 47, 47).getSum(), observedSums.get(e.getKey()).longValue());
+        }
+    }
+
+    @Test
+    public void testPublishedViewsNeverChange() {
+        Game game = Game.createExtended("StableViews", 10, 10);
+        Generation.createRandom(game, game.getBoard(), 0.5, 4L);
+        List<Generation> before = game.getPublishedGenerations();
+        facade.run(game, 5);
+        List<Generation> after = game.getPublishedGenerations();
+
+        assertEquals(1, before.size());
+        assertEquals(6, after.size());
+        assertSame(before.get(0), after.get(0));
+        assertSame(game.getLatest(), after.get(5));
+        assertEquals(game.getGenerations(), after);
+        assertThrows(UnsupportedOperationException.class, () -> after.add(game.getStart()));
+
+        // restarting the game does not affect the views handed out earlier
+        Generation.createInitial(game, game.getBoard());
+        assertEquals(6, after.size());
+        assertEquals(1, game.getPublishedGenerations().size());
+        assertSame(game.getStart(), game.getLatest());
+    }
+}
@@ -0,0 +1,123 @@
+package it.polito.extgol.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.AfterClass;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+import it.polito.extgol.Board;
+import it.polito.extgol.Cell;
+import it.polito.extgol.CellMood;
+import it.polito.extgol.CellType;
+import it.polito.extgol.Coord;
+import it.polito.extgol.EventType;
+import it.polito.extgol.ExtendedGameOfLife;
+import it.polito.extgol.Game;
+import it.polito.extgol.Generation;
+import it.polito.extgol.GenerationDelta;
+import it.polito.extgol.JPAUtil;
+import it.polito.extgol.SimulationListener;
+import it.polito.extgol.StepMetrics;
+
+public class ExtGOLDeltaTests {
+    private ExtendedGameOfLife facade;
+
+    @AfterClass
+    public static void closeDB() {
+        JPAUtil.close();
+    }
+
+    @Before
+    public void setUp() {
+        facade = new ExtendedGameOfLife();
+    }
+
+    @Test
+    public void testBlinkerDelta() {
+        Game game = Game.create("DeltaBlinker", 5, 5);
+        Generation.createInitial(game, game.getBoard(),
+            List.of(new Coord(1, 2), new Coord(2, 2), new Coord(3, 2)));
+        facade.run(game, 1);
+
+        GenerationDelta delta = game.getGenerations().get(1).getDelta();
+        assertEquals(0, delta.getFromStep());
+        assertEquals(1, delta.getToStep());
+        assertArrayEquals(new long[] {7, 17}, delta.getBirths());
+        assertArrayEquals(new long[] {11, 13}, delta.getDeaths());
+        assertEquals(new Coord(2, 3), delta.coordOf(17));
+        assertNull(game.getStart().getDelta());
+    }
+
+    @Test
+    public void testDeltasAreStreamedAndRebuildTheHistory() {
+        Game game = Game.createExtended("DeltaGame", 7, 7);
+        Board board = game.getBoard();
+        Generation.createInitial(game, board, Map.of(
+            new Coord(1, 1), CellType.HIGHLANDER,
+            new Coord(2, 1), CellType.BASIC,
+            new Coord(3, 1), CellType.SOCIAL,
+            new Coord(2, 2), CellType.LONER,
+            new Coord(4, 4), CellType.BASIC,
+            new Coord(4, 5), CellType.BASIC,
+            new Coord(5, 4), CellType.BASIC));
+        game.setMoods(CellMood.VAMPIRE, List.of(new Coord(2, 1)));
+        game.setMoods(CellMood.HEALER, List.of(new Coord(4, 4)));
+        Board.setInteractableTile(board, new Coord(2, 2), 2);
+        game.getStart().snapCells();
+
+        List<GenerationDelta> streamed = new ArrayList<>();
+        facade.addListener(new SimulationListener() {
+            @Override
+            public void onStep(StepMetrics metrics) {}
+
+            @Override
+            public void onDelta(GenerationDelta delta) {
+                streamed.add(delta);
+            }
+        });
+        facade.run(game, 6, Map.of(1, EventType.BLOOM, 3, EventType.BLOOD_MOON, 4, EventType.FAMINE));
+        assertEquals(6, streamed.size());
+
+        Game replica = Game.createExtended("DeltaReplica", 7, 7);
+        Generation empty = Generation.createInitial(replica, replica.getBoard());
+        GenerationDelta.between(empty, game.getStart()).applyTo(replica.getBoard());
+        assertSameState(game.getStart(), replica.getBoard());
+
+        for (GenerationDelta delta : streamed) {
+            Generation target = game.getGenerations().get(delta.getToStep());
+            assertSame(delta, target.getDelta());
+            GenerationDelta computed = GenerationDelta.between(game.getGenerations().get(delta.getFromStep()), target);
+            assertArrayEquals(computed.getBirths(), delta.getBirths());
+            assertArrayEquals(computed.getEnergyChanges(), delta.getEnergyChanges());
+            assertArrayEquals(computed.getNewLifePoints(), delta.getNewLifePoints());
+            assertArrayEquals(computed.getMoodChanges(), delta.getMoodChanges());
+
+            delta.applyTo(replica.getBoard());
+            assertSameState(target, replica.getBoard());
+        }
+        assertTrue(streamed.stream().anyMatch(d -> d.getEnergyChanges().length > 0));
+    }
+
+    private static void assertSameState(Generation expected, Board board) {
+        Map<Cell, Boolean> alive = expected.getCellAlivenessStates();
+        Map<Cell, Integer> energy = expected.getEnergyStates();
+        Map<Cell, CellMood> moods = expected.getMoodStates();
+        Map<Cell, CellType> types = expected.getCellTypes();
+        for (Cell c : alive.keySet()) {
+            Cell copy = board.getTile(c.getCoordinates()).getCell();
+            String where = "step " + expected.getStep() + " cell " + c;
+            assertEquals(where, alive.get(c), copy.isAlive());
+            assertEquals(where, energy.get(c).intValue(), copy.getLifePoints());
+            assertEquals(where, moods.get(c), copy.getMood());
+            assertEquals(where, types.get(c), copy.getType());
+        }
+    }
+}
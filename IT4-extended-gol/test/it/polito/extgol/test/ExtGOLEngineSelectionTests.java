@@ -0,0 +1,158 @@
+package it.polito.extgol.test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+import it.polito.extgol.CellType;
+import it.polito.extgol.Coord;
+import it.polito.extgol.EngineDecision;
+import it.polito.extgol.EngineSelector;
+import it.polito.extgol.EventType;
+import it.polito.extgol.ExtendedGameOfLife;
+import it.polito.extgol.Game;
+import it.polito.extgol.Generation;
+import it.polito.extgol.JPAUtil;
+import it.polito.extgol.RuleEngine;
+import it.polito.extgol.SimulationListener;
+import it.polito.extgol.StepMetrics;
+import static it.polito.extgol.test.TestGameUtil.EVENTS;
+import static it.polito.extgol.test.TestGameUtil.assertSameCells;
+import static it.polito.extgol.test.TestGameUtil.seeded;
+
+public class ExtGOLEngineSelectionTests {
+    private ExtendedGameOfLife objects;
+
+    @AfterClass
+    public static void closeDB() {
+        JPAUtil.close();
+    }
+
+    @Before
+    public void setUp() {
+        objects = new ExtendedGameOfLife();
+    }
+
+    @Test
+    public void testSparseAndMemoizedMatchObjectGraph() {
+        int[][] sizes = { {70, 45}, {64, 10}, {130, 3}, {1, 30}, {200, 1} };
+        double[] densities = { 0.45, 0.04 };
+        for (RuleEngine engine : List.of(RuleEngine.SPARSE, RuleEngine.MEMOIZED)) {
+            ExtendedGameOfLife candidate = new ExtendedGameOfLife();
+            candidate.setRuleEngine(engine);
+            long seed = 1;
+            for (int[] size : sizes) {
+                for (double density : densities) {
+                    String name = engine + "" + size[0] + "x" + size[1] + "-" + density;
+                    Game ref = seeded(Game.createExtended("Ref" + name, size[0], size[1]), density, seed);
+                    Game game = seeded(Game.createExtended(name, size[0], size[1]), density, seed++);
+                    Generation r = ref.getLatest();
+                    Generation c = game.getLatest();
+                    for (int step = 0; step < 12; step++) {
+                        r = objects.evolve(r, EVENTS.get(step));
+                        c = candidate.evolve(c, EVENTS.get(step));
+                        assertSameCells(name + " step " + (step + 1), ref.getBoard(), game.getBoard());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSelectorChoosesFromBoardCharacteristics() {
+        EngineSelector selector = new EngineSelector();
+
+        Game small = seeded(Game.createExtended("SelectSmall", 10, 10), 0.5, 3L);
+        assertEquals(RuleEngine.OBJECT_GRAPH, selector.select(small.getBoard(), Map.of(), 0).getEngine());
+
+        Game sparse = Game.createExtended("SelectSparse", 60, 60);
+        Generation.createInitial(sparse, sparse.getBoard(),
+            List.of(new Coord(1, 0), new Coord(2, 1), new Coord(0, 2), new Coord(1, 2), new Coord(2, 2)));
+        EngineDecision decision = selector.select(sparse.getBoard(), Map.of(), 0);
+        assertEquals(RuleEngine.SPARSE, decision.getEngine());
+        assertEquals(3600, decision.getCells());
+        assertEquals(5, decision.getAliveCells());
+        assertTrue(decision.isUniform());
+
+        Game conway = Game.create("SelectConway", 40, 40);
+        Generation.createRandom(conway, conway.getBoard(), 0.4, 8L);
+        decision = selector.select(conway.getBoard(), Map.of(), 0);
+        assertEquals(RuleEngine.MEMOIZED, decision.getEngine());
+        // an event before the next selection rules out the shared table
+        assertEquals(RuleEngine.BIT_SLICED,
+            selector.select(conway.getBoard(), Map.of(10, EventType.BLOOM), 0).getEngine());
+        assertEquals(RuleEngine.MEMOIZED,
+            selector.select(conway.getBoard(), Map.of(30, EventType.BLOOM), 0).getEngine());
+
+        Game mixed = seeded(Game.createExtended("SelectMixed", 40, 40), 0.4, 8L);
+        decision = selector.select(mixed.getBoard(), Map.of(), 0);
+        assertEquals(RuleEngine.BIT_SLICED, decision.getEngine());
+        assertFalse(decision.isUniform());
+
+        assertThrows(IllegalArgumentException.class, () -> new EngineSelector(0, 10, 0.1));
+        assertThrows(IllegalArgumentException.class, () -> new EngineSelector(4, -1, 0.1));
+        assertThrows(IllegalArgumentException.class, () -> new EngineSelector(4, 10, 1.5));
+    }
+
+    @Test
+    public void testRunReselectsAsDensityChanges() {
+        int size = 30;
+        Map<Coord, CellType> all = new HashMap<>();
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                all.put(new Coord(x, y), CellType.BASIC);
+            }
+        }
+        Game reference = Game.createExtended("SelectRef", size, size);
+        Generation.createInitial(reference, reference.getBoard(), all);
+        objects.run(reference, 6);
+
+        Game game = Game.createExtended("SelectRun", size, size);
+        Generation.createInitial(game, game.getBoard(), all);
+        ExtendedGameOfLife adaptive = new ExtendedGameOfLife();
+        adaptive.setEngineSelector(new EngineSelector(2, 0, 0.3));
+        List<EngineDecision> decisions = new ArrayList<>();
+        List<StepMetrics> steps = new ArrayList<>();
+        adaptive.addListener(new SimulationListener() {
+            @Override
+            public void onStep(StepMetrics metrics) {
+                steps.add(metrics);
+            }
+
+            @Override
+            public void onEngineSelected(Game g, EngineDecision decision) {
+                decisions.add(decision);
+            }
+        });
+        adaptive.run(game, 6);
+
+        // the full board is uniform and dense; only its four corners survive the first step
+        assertEquals(3, decisions.size());
+        assertEquals(0, decisions.get(0).getStep());
+        assertEquals(RuleEngine.MEMOIZED, decisions.get(0).getEngine());
+        assertEquals(1.0, decisions.get(0).getDensity(), 0.0);
+        assertEquals(2, decisions.get(1).getStep());
+        assertEquals(RuleEngine.SPARSE, decisions.get(1).getEngine());
+        assertEquals(RuleEngine.SPARSE, decisions.get(2).getEngine());
+
+        assertEquals(6, steps.size());
+        for (StepMetrics m : steps) {
+            EngineDecision d = decisions.get((m.getStep() - 1) / 2);
+            assertEquals("Step " + m.getStep(), d.getEngine(), m.getRuleEngine());
+        }
+        assertEquals(RuleEngine.OBJECT_GRAPH, adaptive.getRuleEngine());
+        assertSameCells("Run", reference.getBoard(), game.getBoard());
+        for (int step = 0; step <= 6; step++) {
+            assertEquals(objects.visualize(reference.getGeneration(step)), objects.visualize(game.getGeneration(step)));
+        }
+    }
+}
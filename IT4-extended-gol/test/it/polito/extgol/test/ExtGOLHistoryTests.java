@@ -0,0 +1,116 @@
+package it.polito.extgol.test;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.AfterClass;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+import it.polito.extgol.Cell;
+import it.polito.extgol.CellHistory;
+import it.polito.extgol.CellMood;
+import it.polito.extgol.CellType;
+import it.polito.extgol.Coord;
+import it.polito.extgol.ExtendedGameOfLife;
+import it.polito.extgol.Game;
+import it.polito.extgol.Generation;
+import it.polito.extgol.JPAUtil;
+import jakarta.persistence.EntityManager;
+
+public class ExtGOLHistoryTests {
+    private ExtendedGameOfLife facade;
+    private Game game;
+
+    @AfterClass
+    public static void closeDB() {
+        JPAUtil.close();
+    }
+
+    @Before
+    public void setUp() {
+        TestDatabaseUtil.clearDatabase();
+        facade = new ExtendedGameOfLife();
+        game = Game.createExtended("HistoryGame", 5, 5);
+        // a horizontal blinker: (2,1) is alive at odd steps only
+        Generation.createInitial(game, game.getBoard(), Map.of(
+            new Coord(1, 2), CellType.BASIC,
+            new Coord(2, 2), CellType.BASIC,
+            new Coord(3, 2), CellType.BASIC));
+        game.setMoods(CellMood.HEALER, List.of(new Coord(2, 2)));
+        game.getStart().snapCells();
+        facade.run(game, 6);
+    }
+
+    @Test
+    public void testInMemoryHistoryIsRunLengthEncoded() {
+        CellHistory tip = game.getCellHistory(new Coord(2, 1), 0, 6);
+        assertEquals(7, tip.length());
+        assertArrayEquals(new int[] {1, 1, 1, 1, 1, 1, 1}, tip.getAliveRunLengths());
+        assertEquals(3, tip.getAliveSteps());
+        assertFalse(tip.isAlive(0));
+        assertTrue(tip.isAlive(5));
+
+        CellHistory center = game.getCellHistory(new Coord(2, 2), 2, 6);
+        assertEquals(2, center.getFromStep());
+        assertArrayEquals(new int[] {5}, center.getAliveRunLengths());
+        assertEquals(CellMood.HEALER, center.getMood(4));
+        for (int step = 2; step <= 6; step++) {
+            assertEquals(game.getGenerations().get(step).getEnergyStates()
+                .get(game.getBoard().getTile(new Coord(2, 2)).getCell()).intValue(), center.getLifePoints(step));
+        }
+    }
+
+    @Test
+    public void testCellLineageIsDerivedFromTheGame() {
+        Cell cell = game.getBoard().getTile(new Coord(3, 2)).getCell();
+        // the generations the cell was evolved into, without step 0
+        List<Generation> generations = cell.getGenerations();
+        assertEquals(6, generations.size());
+        assertSame(game.getGenerations().get(1), generations.get(0));
+        assertEquals(6, (int) generations.get(5).getStep());
+        CellHistory history = cell.getHistory();
+        assertEquals(0, history.getFromStep());
+        assertEquals(6, history.getToStep());
+        assertArrayEquals(new int[] {1, 1, 1, 1, 1, 1, 1}, history.getAliveRunLengths());
+    }
+
+    @Test
+    public void testStoredHistoryMatchesInMemory() {
+        facade.saveGame(game);
+        for (Coord c : List.of(new Coord(2, 1), new Coord(2, 2), new Coord(0, 0))) {
+            CellHistory memory = game.getCellHistory(c, 1, 5);
+            CellHistory stored = CellHistory.load(game.getId(), c, 1, 5);
+            assertArrayEquals(memory.getAliveRunLengths(), stored.getAliveRunLengths());
+            assertArrayEquals(memory.getLifePoints(), stored.getLifePoints());
+            for (int step = 1; step <= 5; step++) {
+                assertEquals(memory.getMood(step), stored.getMood(step));
+            }
+        }
+    }
+
+    @Test
+    public void testReloadedGameIsPublishedOnLoad() {
+        facade.saveGame(game);
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            Game reloaded = em.find(Game.class, game.getId());
+            List<Generation> published = reloaded.getPublishedGenerations();
+            assertEquals(7, published.size());
+            assertSame(published.get(6), reloaded.getLatest());
+            assertEquals(6, (int) reloaded.getLatest().getStep());
+        } finally {
+            em.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRangeBeyondHistoryIsRejected() {
+        game.getCellHistory(new Coord(0, 0), 0, 7);
+    }
+}
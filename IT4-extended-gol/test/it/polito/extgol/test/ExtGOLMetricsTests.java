@@ -0,0 +1,118 @@
+package it.polito.extgol.test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+import it.polito.extgol.Coord;
+import it.polito.extgol.ExtendedGameOfLife;
+import it.polito.extgol.Game;
+import it.polito.extgol.Generation;
+import it.polito.extgol.JPAUtil;
+import it.polito.extgol.SimulationListener;
+import it.polito.extgol.StepMetrics;
+import it.polito.extgol.StepPhase;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class ExtGOLMetricsTests {
+    private ExtendedGameOfLife facade;
+    private Game game;
+
+    @AfterClass
+    public static void closeDB() {
+        JPAUtil.close();
+    }
+
+    @Before
+    public void setUp() {
+        TestDatabaseUtil.clearDatabase();
+        facade = new ExtendedGameOfLife();
+        game = Game.create("MetricsGame", 5, 5);
+        Generation.createInitial(game, game.getBoard(),
+            List.of(new Coord(1, 2), new Coord(2, 2), new Coord(3, 2)));
+    }
+
+    @Test
+    public void testListenerReceivesOneMetricsPerStep() {
+        List<StepMetrics> steps = new ArrayList<>();
+        facade.addListener(steps::add);
+        facade.run(game, 3);
+
+        assertEquals(3, steps.size());
+        for (int i = 0; i < steps.size(); i++) {
+            StepMetrics m = steps.get(i);
+            assertEquals(i + 1, m.getStep());
+            // a blinker flips two cells on and two cells off at each step
+            assertEquals(2, m.getBirths());
+            assertEquals(2, m.getDeaths());
+            assertEquals(0, m.getMoodConversions());
+            long sum = 0;
+            for (StepPhase p : StepPhase.values()) {
+                assertTrue(m.getNanos(p) >= 0);
+                sum += m.getNanos(p);
+            }
+            assertEquals(sum, m.getTotalNanos());
+        }
+    }
+
+    @Test
+    public void testRunCallbacksAndRemoval() {
+        List<String> calls = new ArrayList<>();
+        SimulationListener listener = new SimulationListener() {
+            @Override
+            public void onStep(StepMetrics metrics) {
+                calls.add("step");
+            }
+
+            @Override
+            public void onRunStart(Game g, int steps) {
+                calls.add("start " + steps);
+            }
+
+            @Override
+            public void onRunEnd(Game g, int steps, long elapsedNanos) {
+                assertTrue(elapsedNanos >= 0);
+                calls.add("end " + steps);
+            }
+        };
+        facade.addListener(listener);
+        facade.run(game, 2);
+        assertEquals(List.of("start 2", "step", "step", "end 2"), calls);
+
+        facade.removeListener(listener);
+        facade.run(game, 1);
+        assertEquals(4, calls.size());
+    }
+
+    @Test
+    public void testStepsAreTracedByFlightRecorder() throws Exception {
+        Path dump = Files.createTempFile("extgol", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("it.polito.extgol.Step");
+            recording.enable("it.polito.extgol.Run");
+            recording.start();
+            facade.run(game, 2);
+            recording.stop();
+            recording.dump(dump);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+        Files.delete(dump);
+
+        long steps = events.stream().filter(e -> e.getEventType().getName().equals("it.polito.extgol.Step")).count();
+        assertEquals(2, steps);
+        RecordedEvent run = events.stream()
+            .filter(e -> e.getEventType().getName().equals("it.polito.extgol.Run"))
+            .findFirst().orElseThrow();
+        assertEquals("MetricsGame", run.getString("game"));
+        assertEquals(2, run.getInt("steps"));
+    }
+}
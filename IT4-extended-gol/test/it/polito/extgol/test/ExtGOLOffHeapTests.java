@@ -0,0 +1,254 @@
+package it.polito.extgol.test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+import it.polito.extgol.Board;
+import it.polito.extgol.Cell;
+import it.polito.extgol.CellMood;
+import it.polito.extgol.CellType;
+import it.polito.extgol.Coord;
+import it.polito.extgol.EventType;
+import it.polito.extgol.ExtendedGameOfLife;
+import it.polito.extgol.Game;
+import it.polito.extgol.Generation;
+import it.polito.extgol.GenerationDelta;
+import it.polito.extgol.JPAUtil;
+import it.polito.extgol.Tile;
+import static it.polito.extgol.test.TestGameUtil.assertSameCells;
+
+public class ExtGOLOffHeapTests {
+    private ExtendedGameOfLife facade;
+    private final List<Path> dirs = new ArrayList<>();
+
+    private static final Map<Coord, CellType> SEED = Map.of(
+        new Coord(1, 1), CellType.HIGHLANDER,
+        new Coord(2, 1), CellType.BASIC,
+        new Coord(3, 1), CellType.SOCIAL,
+        new Coord(2, 2), CellType.LONER,
+        new Coord(5, 5), CellType.BASIC,
+        new Coord(5, 6), CellType.BASIC,
+        new Coord(6, 5), CellType.BASIC,
+        new Coord(6, 6), CellType.SOCIAL);
+
+    @AfterClass
+    public static void closeDB() {
+        JPAUtil.close();
+    }
+
+    @Before
+    public void setUp() {
+        facade = new ExtendedGameOfLife();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (Path dir : dirs) {
+            try (var files = Files.list(dir)) {
+                for (Path p : files.toList()) Files.delete(p);
+            }
+            Files.delete(dir);
+        }
+    }
+
+    private Path tempDir() throws IOException {
+        Path dir = Files.createTempDirectory("extgol-planes");
+        dirs.add(dir);
+        return dir;
+    }
+
+    private Game prepare(Game game) {
+        Board board = game.getBoard();
+        Generation.createInitial(game, board, SEED);
+        game.setMoods(CellMood.VAMPIRE, java.util.List.of(new Coord(2, 1)));
+        game.setMoods(CellMood.HEALER, java.util.List.of(new Coord(5, 5)));
+        Board.setInteractableTile(board, new Coord(6, 6), -2);
+        game.getStart().snapCells();
+        return facade.run(game, 6, Map.of(1, EventType.BLOOD_MOON, 3, EventType.BLOOM));
+    }
+
+    private static Game offHeapGame(String name, Board board) {
+        Game game = Game.createExtended(name, 1, 1);
+        game.setBoard(board);
+        return game;
+    }
+
+    @Test
+    public void testOffHeapBoardEvolvesLikeHeapBoard() {
+        Game heap = prepare(Game.createExtended("Heap", 9, 8));
+        Game off = offHeapGame("OffHeap", null);
+        off.setBoard(Board.createOffHeap(9, 8, off));
+        prepare(off);
+
+        assertTrue(off.getBoard().isOffHeap());
+        for (int step = 0; step <= 6; step++) {
+            Generation h = heap.getGenerations().get(step);
+            Generation o = off.getGenerations().get(step);
+            assertEquals("Step " + step, facade.visualize(h), facade.visualize(o));
+            assertEquals(h.getRegionStats(0, 0, 8, 7).getSum(), o.getRegionStats(0, 0, 8, 7).getSum());
+        }
+        for (Tile t : heap.getBoard().getTiles()) {
+            Cell expected = t.getCell();
+            Cell actual = off.getBoard().getTile(t.getCoordinates()).getCell();
+            assertEquals(expected.isAlive(), actual.isAlive());
+            assertEquals(expected.getLifePoints(), actual.getLifePoints());
+            assertEquals(expected.getMood(), actual.getMood());
+            assertEquals(expected.getDeathCount(), actual.getDeathCount());
+        }
+    }
+
+    @Test
+    public void testFlyweightsWriteThrough() {
+        Game game = offHeapGame("Flyweights", null);
+        Board board = Board.createOffHeap(3000, 2000, game);
+        game.setBoard(board);
+
+        Cell c = board.getTile(new Coord(2999, 1999)).getCell();
+        assertFalse(c.isAlive());
+        assertEquals(CellType.BASIC, c.getType());
+        assertEquals(CellMood.NAIVE, c.getMood());
+        c.setAlive(true);
+        c.setLifePoints(-7);
+        c.setType(CellType.LONER);
+        c.setMood(CellMood.VAMPIRE);
+        c.setNextMood(CellMood.NAIVE);
+        c.canBiteHealers(true);
+        board.getTile(new Coord(2999, 1999)).setLifePointModifier(4);
+
+        Tile again = board.getTile(new Coord(2999, 1999));
+        assertEquals(c, again.getCell());
+        assertTrue(again.getCell().isAlive());
+        assertEquals(-7, again.getCell().getLifePoints());
+        assertEquals(CellType.LONER, again.getCell().getType());
+        assertEquals(CellMood.VAMPIRE, again.getCell().getMood());
+        assertEquals(CellMood.NAIVE, again.getCell().getNextMood());
+        assertTrue(again.getCell().canBiteHealers());
+        assertEquals(Integer.valueOf(4), again.getLifePointModifier());
+        assertEquals(3, again.getNeighbors().size());
+        assertFalse(board.getTile(new Coord(2998, 1999)).getCell().isAlive());
+        assertNull(board.getTile(new Coord(3000, 0)));
+    }
+
+    @Test
+    public void testFileBackedPlanesAreReopened() throws IOException {
+        Path dir = tempDir();
+        Game game = offHeapGame("Mapped", null);
+        Board board = Board.createOffHeap(100, 100, game, dir);
+        board.getTile(new Coord(42, 17)).getCell().setAlive(true);
+        board.getTile(new Coord(42, 17)).getCell().setLifePoints(9);
+
+        Board reopened = Board.createOffHeap(100, 100, game, dir);
+        Cell c = reopened.getTile(new Coord(42, 17)).getCell();
+        assertTrue(c.isAlive());
+        assertEquals(9, c.getLifePoints());
+    }
+
+    @Test
+    public void testRandomOffHeapBoardEvolvesLikeHeapBoard() {
+        Map<CellType, Double> types = Map.of(CellType.BASIC, 2.0, CellType.HIGHLANDER, 1.0,
+            CellType.LONER, 1.0, CellType.SOCIAL, 1.0);
+        Map<CellMood, Double> moods = Map.of(CellMood.NAIVE, 2.0, CellMood.HEALER, 1.0, CellMood.VAMPIRE, 1.0);
+        Map<Integer, EventType> events = Map.of(1, EventType.BLOOD_MOON, 2, EventType.FAMINE,
+            4, EventType.SANCTUARY, 5, EventType.BLOOM, 7, EventType.CATACLYSM);
+
+        Game heap = Game.createExtended("RandomHeap", 70, 33);
+        Generation.createRandom(heap, heap.getBoard(), 0.4, 11L, types, moods);
+        Board.setInteractableTile(heap.getBoard(), new Coord(64, 10), 3);
+        Board.setInteractableTile(heap.getBoard(), new Coord(5, 32), -2);
+        Game off = offHeapGame("RandomOffHeap", null);
+        off.setBoard(Board.createOffHeap(70, 33, off));
+        Generation.createRandom(off, off.getBoard(), 0.4, 11L, types, moods);
+        off.getBoard().getTile(new Coord(64, 10)).setLifePointModifier(3);
+        off.getBoard().getTile(new Coord(5, 32)).setLifePointModifier(-2);
+
+        facade.run(heap, 10, events);
+        facade.run(off, 10, events);
+
+        for (int step = 1; step <= 10; step++) {
+            Generation h = heap.getGenerations().get(step);
+            Generation o = off.getGenerations().get(step);
+            assertEquals("Step " + step, facade.visualize(h), facade.visualize(o));
+            assertEquals(h.getEnergyStates().values().stream().mapToInt(Integer::intValue).sum(),
+                o.getEnergyStates().values().stream().mapToInt(Integer::intValue).sum());
+            GenerationDelta hd = h.getDelta();
+            GenerationDelta od = o.getDelta();
+            assertArrayEquals(hd.getBirths(), od.getBirths());
+            assertArrayEquals(hd.getDeaths(), od.getDeaths());
+            assertArrayEquals(hd.getMoodChanges(), od.getMoodChanges());
+            assertArrayEquals(hd.getEnergyChanges(), od.getEnergyChanges());
+            assertArrayEquals(hd.getNewLifePoints(), od.getNewLifePoints());
+        }
+        assertSameCells("Step 10", heap.getBoard(), off.getBoard());
+    }
+
+    @Test
+    public void testLargeBoardEvolvesOnItsPlanes() {
+        // 40 million cells: far too many to create a view of each on the test heap
+        Game game = offHeapGame("Large", null);
+        Board board = Board.createOffHeap(20000, 2000, game);
+        game.setBoard(board);
+        List<Coord> glider = List.of(new Coord(19981, 1980), new Coord(19982, 1981),
+            new Coord(19980, 1982), new Coord(19981, 1982), new Coord(19982, 1982));
+        Generation.createInitial(game, board, glider);
+
+        facade.run(game, 4);
+
+        List<Coord> moved = new ArrayList<>();
+        for (Coord c : glider) {
+            moved.add(new Coord(c.getX() + 1, c.getY() + 1));
+            assertTrue(board.getTile(moved.get(moved.size() - 1)).getCell().isAlive());
+        }
+        assertEquals(5, game.getLatest().getAliveCells().size());
+        GenerationDelta last = game.getLatest().getDelta();
+        assertTrue(last.getBirths().length > 0);
+        assertEquals(last.getBirths().length, last.getDeaths().length);
+        for (long i : last.getBirths()) {
+            assertTrue(moved.contains(last.coordOf(i)));
+        }
+    }
+
+    @Test
+    public void testBoardAboveIntegerRangeEvolves() throws IOException {
+        // 2^31 + 2^16 cells, mapped onto sparse files: indices no longer fit in an int
+        int width = 65536;
+        int height = 32769;
+        Game game = offHeapGame("Huge", null);
+        Board board = Board.createOffHeap(width, height, game, tempDir());
+        game.setBoard(board);
+        Generation.createInitial(game, board, List.of(new Coord(2, 1), new Coord(2, 2), new Coord(2, 3),
+            new Coord(width - 2, height - 3), new Coord(width - 2, height - 2), new Coord(width - 2, height - 1)));
+
+        facade.run(game, 1);
+
+        List<Coord> flipped = List.of(new Coord(1, 2), new Coord(2, 2), new Coord(3, 2),
+            new Coord(width - 3, height - 2), new Coord(width - 2, height - 2), new Coord(width - 1, height - 2));
+        for (Coord c : flipped) {
+            assertTrue(board.getTile(c).getCell().isAlive());
+        }
+        assertFalse(board.getTile(new Coord(width - 2, height - 1)).getCell().isAlive());
+        assertEquals(6, game.getLatest().getAliveCells().size());
+
+        GenerationDelta delta = game.getLatest().getDelta();
+        assertEquals(4, delta.getBirths().length);
+        assertEquals(4, delta.getDeaths().length);
+        long last = (long) (height - 1) * width + width - 2;
+        assertTrue(last > Integer.MAX_VALUE);
+        assertTrue(Arrays.stream(delta.getDeaths()).anyMatch(i -> i == last));
+        assertEquals(new Coord(width - 2, height - 1), delta.coordOf(last));
+    }
+}
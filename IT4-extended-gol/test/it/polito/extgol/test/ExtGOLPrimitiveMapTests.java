@@ -0,0 +1,109 @@
+package it.polito.extgol.test;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import it.polito.extgol.Board;
+import it.polito.extgol.Cell;
+import it.polito.extgol.CellType;
+import it.polito.extgol.Coord;
+import it.polito.extgol.ExtendedGameOfLife;
+import it.polito.extgol.Game;
+import it.polito.extgol.Generation;
+import it.polito.extgol.JPAUtil;
+import it.polito.extgol.LongIntMap;
+import it.polito.extgol.LongObjectMap;
+
+public class ExtGOLPrimitiveMapTests {
+
+    @AfterClass
+    public static void closeDB() {
+        JPAUtil.close();
+    }
+
+    @Test
+    public void testPackedCoordinates() {
+        long key = Coord.pack(-3, 7);
+        assertEquals(-3, Coord.unpackX(key));
+        assertEquals(7, Coord.unpackY(key));
+        assertEquals(new Coord(-3, 7), Coord.unpack(key));
+        assertEquals(key, new Coord(-3, 7).pack());
+        assertTrue(Coord.pack(1, 0) != Coord.pack(0, 1));
+    }
+
+    @Test
+    public void testLongIntMapGrowsAndKeepsEntries() {
+        LongIntMap map = new LongIntMap();
+        for (int x = 0; x < 200; x++) {
+            for (int y = -25; y < 25; y++) {
+                map.put(Coord.pack(x, y), x * y);
+            }
+        }
+        map.put(Long.MIN_VALUE, 42);
+        assertEquals(10001, map.size());
+        assertEquals(150 * -20, map.get(Coord.pack(150, -20), -1));
+        assertEquals(42, map.get(Long.MIN_VALUE, -1));
+        assertEquals(-1, map.get(Coord.pack(200, 0), -1));
+        assertEquals(5, map.addTo(Coord.pack(300, 300), 5));
+        assertEquals(8, map.addTo(Coord.pack(300, 300), 3));
+
+        long[] sum = new long[1];
+        map.forEach((k, v) -> sum[0] += v);
+        long expected = 42 + 8;
+        for (int x = 0; x < 200; x++) for (int y = -25; y < 25; y++) expected += x * y;
+        assertEquals(expected, sum[0]);
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(Coord.pack(1, 1)));
+    }
+
+    @Test
+    public void testLongObjectMap() {
+        LongObjectMap<String> map = new LongObjectMap<>(2);
+        for (int i = 0; i < 1000; i++) map.put(i * 31L, "v" + i);
+        assertEquals(1000, map.size());
+        assertEquals("v10", map.get(310L));
+        assertEquals("v10", map.put(310L, "w"));
+        assertEquals("w", map.get(310L));
+        assertNull(map.get(311L));
+    }
+
+    @Test
+    public void testPrimitiveOverloadsMatchBoxedAnalytics() {
+        Game game = Game.createExtended("PrimitiveGame", 20, 20);
+        Board board = game.getBoard();
+        Generation.createRandom(game, board, 0.4, 11L, Map.of(CellType.BASIC, 1.0, CellType.SOCIAL, 1.0), Map.of());
+        ExtendedGameOfLife facade = new ExtendedGameOfLife();
+        facade.run(game, 3);
+        Generation gen = game.getGenerations().get(3);
+
+        Map<Coord, Cell> boxed = facade.getAliveCells(gen);
+        LongObjectMap<Cell> alive = facade.getAliveCells(gen, new LongObjectMap<>());
+        assertEquals(boxed.size(), alive.size());
+        boxed.forEach((c, cell) -> assertSame(cell, alive.get(c.pack())));
+
+        LongIntMap energy = gen.getEnergyStates(new LongIntMap(400));
+        gen.getEnergyStates().forEach((cell, lp) ->
+            assertEquals(lp.intValue(), energy.get(cell.getCoordinates().pack(), Integer.MIN_VALUE)));
+
+        LongIntMap neighbors = board.groupByAliveNeighborCount(gen, new LongIntMap());
+        Map<Integer, List<Cell>> grouped = board.groupByAliveNeighborCount(gen);
+        int total = 0;
+        for (Map.Entry<Integer, List<Cell>> e : grouped.entrySet()) {
+            for (Cell c : e.getValue()) {
+                assertEquals(e.getKey().intValue(), neighbors.get(c.getCoordinates().pack(), -1));
+                total++;
+            }
+        }
+        assertEquals(total, neighbors.size());
+    }
+}
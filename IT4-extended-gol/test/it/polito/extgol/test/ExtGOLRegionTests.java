@@ -0,0 +1,131 @@
+package it.polito.extgol.test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import org.junit.Before;
+import org.junit.Test;
+
+import it.polito.extgol.Board;
+import it.polito.extgol.Cell;
+import it.polito.extgol.CellType;
+import it.polito.extgol.Coord;
+import it.polito.extgol.ExtendedGameOfLife;
+import it.polito.extgol.Game;
+import it.polito.extgol.Generation;
+import it.polito.extgol.JPAUtil;
+import it.polito.extgol.RegionStats;
+import jakarta.persistence.EntityManager;
+
+public class ExtGOLRegionTests {
+    private ExtendedGameOfLife facade;
+    private Game game;
+    private Board board;
+
+    @AfterClass
+    public static void closeDB() {
+        JPAUtil.close();
+    }
+
+    @Before
+    public void setUp() {
+        TestDatabaseUtil.clearDatabase();
+        facade = new ExtendedGameOfLife();
+        game = Game.createExtended("RegionGame", 40, 37);
+        board = game.getBoard();
+    }
+
+    private Generation seed() {
+        Map<Coord, CellType> cells = new HashMap<>();
+        for (int y = 0; y < 37; y++) {
+            for (int x = 0; x < 40; x++) {
+                if ((x * 7 + y * 13) % 5 == 0) {
+                    cells.put(new Coord(x, y), CellType.VALUES[(x + y) % CellType.VALUES.length]);
+                }
+            }
+        }
+        Generation init = Generation.createInitial(game, board, cells);
+        for (Cell c : board.getCellSet()) {
+            c.setLifePoints((c.getX() * 3 + c.getY()) % 11 - 3);
+        }
+        init.snapCells();
+        return init;
+    }
+
+    private static void assertMatchesScan(Generation gen, int x0, int y0, int x1, int y1) {
+        int count = 0;
+        long sum = 0;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        Map<CellType, Integer> types = new HashMap<>();
+        Map<Cell, Integer> energy = gen.getEnergyStates();
+        Map<Cell, CellType> cellTypes = gen.getCellTypes();
+        for (Map.Entry<Cell, Boolean> e : gen.getCellAlivenessStates().entrySet()) {
+            Cell c = e.getKey();
+            if (!e.getValue() || c.getX() < x0 || c.getX() > x1 || c.getY() < y0 || c.getY() > y1) continue;
+            int lp = energy.get(c);
+            count++;
+            sum += lp;
+            min = Math.min(min, lp);
+            max = Math.max(max, lp);
+            types.merge(cellTypes.get(c), 1, Integer::sum);
+        }
+        RegionStats stats = gen.getRegionStats(x0, y0, x1, y1);
+        String where = "(" + x0 + "," + y0 + ")-(" + x1 + "," + y1 + ")";
+        assertEquals("count " + where, count, stats.getCount());
+        assertEquals("sum " + where, sum, stats.getSum());
+        assertEquals("min " + where, min, stats.getMin());
+        assertEquals("max " + where, max, stats.getMax());
+        assertEquals("types " + where, types, stats.getTypeCounts());
+    }
+
+    @Test
+    public void testRegionQueriesMatchFullScan() {
+        Generation init = seed();
+        int[][] rects = {
+            {0, 0, 39, 36}, {0, 0, 0, 0}, {3, 5, 3, 5}, {15, 15, 16, 16},
+            {1, 2, 33, 31}, {16, 0, 31, 15}, {10, 20, 39, 36}, {0, 30, 5, 36}
+        };
+        for (int[] r : rects) {
+            assertMatchesScan(init, r[0], r[1], r[2], r[3]);
+        }
+
+        Generation next = facade.run(game, 3).getGenerations().get(3);
+        for (int[] r : rects) {
+            assertMatchesScan(next, r[0], r[1], r[2], r[3]);
+        }
+    }
+
+    @Test
+    public void testRegionCornersAreNormalizedAndClipped() {
+        Generation init = seed();
+        RegionStats whole = init.getRegionStats(0, 0, 39, 36);
+        RegionStats swapped = board.regionStatistics(init, new Coord(100, 100), new Coord(-5, -5));
+        assertEquals(whole.getCount(), swapped.getCount());
+        assertEquals(whole.getSum(), swapped.getSum());
+        assertEquals(board.countCells(init).intValue(), whole.getCount());
+
+        RegionStats outside = init.getRegionStats(50, 50, 60, 60);
+        assertEquals(0, outside.getCount());
+        assertEquals(Integer.MAX_VALUE, outside.getMin());
+    }
+
+    @Test
+    public void testRegionQueryOnPersistedGeneration() {
+        Generation.createInitial(game, board, List.of(new Coord(1, 1), new Coord(2, 1), new Coord(30, 30)));
+        facade.saveGame(game);
+
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            Game reloaded = em.find(Game.class, game.getId());
+            Generation start = reloaded.getStart();
+            assertEquals(2, start.getRegionStats(0, 0, 10, 10).getCount());
+            assertEquals(3, start.getRegionStats(0, 0, 39, 36).getTypeCount(CellType.BASIC));
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package it.polito.extgol.test;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+import it.polito.extgol.Board;
+import it.polito.extgol.CellMood;
+import it.polito.extgol.CellType;
+import it.polito.extgol.Coord;
+import it.polito.extgol.EventType;
+import it.polito.extgol.ExtendedGameOfLife;
+import it.polito.extgol.Game;
+import it.polito.extgol.Generation;
+import it.polito.extgol.JPAUtil;
+import it.polito.extgol.ReplayReport;
+import it.polito.extgol.ReplayVerifier;
+import it.polito.extgol.Cell;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityTransaction;
+
+public class ExtGOLReplayTests {
+    private ExtendedGameOfLife facade;
+    private Game game;
+    private Board board;
+
+    @AfterClass
+    public static void closeDB() {
+        JPAUtil.close();
+    }
+
+    @Before
+    public void setUp() {
+        TestDatabaseUtil.clearDatabase();
+        facade = new ExtendedGameOfLife();
+        game = Game.createExtended("ReplayGame", 7, 7);
+        board = game.getBoard();
+        Generation.createInitial(game, board, Map.of(
+            new Coord(1, 1), CellType.HIGHLANDER,
+            new Coord(2, 1), CellType.BASIC,
+            new Coord(3, 1), CellType.SOCIAL,
+            new Coord(2, 2), CellType.LONER,
+            new Coord(4, 4), CellType.BASIC,
+            new Coord(4, 5), CellType.BASIC,
+            new Coord(5, 4), CellType.BASIC));
+        game.setMoods(CellMood.VAMPIRE, List.of(new Coord(2, 1)));
+        game.setMoods(CellMood.HEALER, List.of(new Coord(4, 4)));
+        Board.setInteractableTile(board, new Coord(2, 2), 2);
+        game.getStart().snapCells();
+        facade.run(game, 6, Map.of(1, EventType.BLOOM, 3, EventType.BLOOD_MOON, 4, EventType.FAMINE));
+        facade.saveGame(game);
+    }
+
+    @Test
+    public void testStoredGameReplaysIdentically() {
+        ReplayReport report = new ReplayVerifier(2).verify(game.getId());
+        assertTrue(report.toString(), report.isConsistent());
+        assertEquals(7, report.getStepsVerified());
+        assertTrue(facade.verifyReplay(game.getId()).isConsistent());
+    }
+
+    @Test
+    public void testTamperedGenerationIsReported() {
+        EntityManager em = JPAUtil.getEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            Game stored = em.find(Game.class, game.getId());
+            Generation last = stored.getGenerations().get(6);
+            Map<Cell, Boolean> states = last.getCellAlivenessStates();
+            Cell target = stored.getBoard().getTile(new Coord(6, 6)).getCell();
+            states.put(target, !states.get(target));
+            last.setCellAlivenessStates(states);
+            tx.commit();
+        } finally {
+            em.close();
+        }
+
+        ReplayReport report = new ReplayVerifier(4).verify(game.getId());
+        assertFalse(report.isConsistent());
+        assertEquals(6, report.getDivergentStep());
+        assertEquals(6, report.getStepsVerified());
+        assertEquals(new Coord(6, 6), report.getDivergentCell());
+    }
+}
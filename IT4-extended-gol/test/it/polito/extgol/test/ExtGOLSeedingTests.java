@@ -0,0 +1,102 @@
+package it.polito.extgol.test;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import it.polito.extgol.Board;
+import it.polito.extgol.Cell;
+import it.polito.extgol.CellMood;
+import it.polito.extgol.CellType;
+import it.polito.extgol.Coord;
+import it.polito.extgol.Game;
+import it.polito.extgol.Generation;
+import it.polito.extgol.JPAUtil;
+
+public class ExtGOLSeedingTests {
+
+    @AfterClass
+    public static void closeDB() {
+        JPAUtil.close();
+    }
+
+    private static Set<Coord> alive(Generation g) {
+        return g.getAliveCells().stream().map(Cell::getCoordinates).collect(Collectors.toSet());
+    }
+
+    @Test
+    public void testSeedingIsDeterministicAndHitsTheDensity() {
+        Game a = Game.createExtended("SeedA", 150, 120);
+        Game b = Game.createExtended("SeedB", 150, 120);
+        Game c = Game.createExtended("SeedC", 150, 120);
+        Set<Coord> first = alive(Generation.createRandom(a, a.getBoard(), 0.3, 42L));
+        Set<Coord> second = alive(Generation.createRandom(b, b.getBoard(), 0.3, 42L));
+        Set<Coord> other = alive(Generation.createRandom(c, c.getBoard(), 0.3, 7L));
+
+        assertEquals(first, second);
+        assertNotEquals(first, other);
+        double density = first.size() / (150.0 * 120);
+        assertTrue("Density was " + density, Math.abs(density - 0.3) < 0.02);
+        assertEquals(1, a.getGenerations().size());
+    }
+
+    @Test
+    public void testTypeAndMoodDistributions() {
+        Game game = Game.createExtended("SeedTypes", 80, 80);
+        Generation start = Generation.createRandom(game, game.getBoard(), 0.5, 1L,
+            Map.of(CellType.LONER, 1.0, CellType.HIGHLANDER, 3.0), Map.of(CellMood.VAMPIRE, 1.0));
+
+        Map<Cell, CellType> types = start.getCellTypes();
+        Map<Cell, CellMood> moods = start.getMoodStates();
+        int loners = 0;
+        int highlanders = 0;
+        for (Map.Entry<Cell, Boolean> e : start.getCellAlivenessStates().entrySet()) {
+            Cell cell = e.getKey();
+            if (e.getValue()) {
+                assertEquals(CellMood.VAMPIRE, moods.get(cell));
+                if (types.get(cell) == CellType.LONER) loners++;
+                else if (types.get(cell) == CellType.HIGHLANDER) highlanders++;
+            } else {
+                assertEquals(CellType.BASIC, types.get(cell));
+                assertEquals(CellMood.NAIVE, moods.get(cell));
+            }
+        }
+        assertEquals(start.getAliveCells().size(), loners + highlanders);
+        double share = highlanders / (double) (loners + highlanders);
+        assertTrue("Highlander share was " + share, Math.abs(share - 0.75) < 0.05);
+    }
+
+    @Test
+    public void testOffHeapSeedingMatchesHeap() {
+        Game heap = Game.createExtended("SeedHeap", 70, 33);
+        Game off = Game.createExtended("SeedOff", 1, 1);
+        off.setBoard(Board.createOffHeap(70, 33, off));
+        Map<CellType, Double> types = Map.of(CellType.SOCIAL, 1.0, CellType.BASIC, 1.0);
+        Map<CellMood, Double> moods = Map.of(CellMood.HEALER, 1.0, CellMood.NAIVE, 2.0);
+        Generation h = Generation.createRandom(heap, heap.getBoard(), 0.4, 99L, types, moods);
+        Generation o = Generation.createRandom(off, off.getBoard(), 0.4, 99L, types, moods);
+
+        assertEquals(alive(h), alive(o));
+        for (int y = 0; y < 33; y++) {
+            for (int x = 0; x < 70; x++) {
+                Coord c = new Coord(x, y);
+                Cell hc = heap.getBoard().getTile(c).getCell();
+                Cell oc = off.getBoard().getTile(c).getCell();
+                assertEquals(hc.getType(), oc.getType());
+                assertEquals(hc.getMood(), oc.getMood());
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidDensityIsRejected() {
+        Game game = Game.createExtended("SeedBad", 4, 4);
+        Generation.createRandom(game, game.getBoard(), 1.5, 0L);
+    }
+}
@@ -0,0 +1,133 @@
+package it.polito.extgol.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import it.polito.extgol.Coord;
+import it.polito.extgol.DiffSubscription;
+import it.polito.extgol.Game;
+import it.polito.extgol.Generation;
+import it.polito.extgol.GenerationDiff;
+import it.polito.extgol.JPAUtil;
+import it.polito.extgol.SimulationHarness;
+import it.polito.extgol.SimulationService;
+
+public class ExtGOLServiceTests {
+
+    @AfterClass
+    public static void closeDB() {
+        JPAUtil.close();
+    }
+
+    private static Game blinker(String name) {
+        Game game = Game.create(name, 5, 5);
+        Generation.createInitial(game, game.getBoard(),
+            List.of(new Coord(1, 2), new Coord(2, 2), new Coord(3, 2)));
+        return game;
+    }
+
+    @Test
+    public void testStepsAreScheduledRoundRobin() {
+        try (SimulationHarness harness = new SimulationHarness()) {
+            SimulationService service = harness.getService();
+            service.register(blinker("A"));
+            service.register(blinker("B"));
+            service.request("A", 3);
+            service.request("B", 3);
+
+            List<String> progress = new ArrayList<>();
+            while (harness.runNext()) {
+                progress.add(service.getStep("A") + "/" + service.getStep("B"));
+            }
+            assertEquals(List.of("1/0", "1/1", "2/1", "2/2", "3/2", "3/3"), progress);
+            assertEquals(0, service.getPendingSteps("A"));
+            assertEquals(4, service.unregister("A").getGenerations().size());
+        }
+    }
+
+    @Test
+    public void testSubscribersReceiveBirthsAndDeaths() {
+        try (SimulationHarness harness = new SimulationHarness()) {
+            SimulationService service = harness.getService();
+            service.register(blinker("Diffs"));
+            DiffSubscription sub = service.subscribe("Diffs", 4);
+            service.request("Diffs", 2);
+            harness.runUntilIdle();
+
+            GenerationDiff first = sub.poll();
+            assertEquals(1, first.getStep());
+            assertEquals(List.of(new Coord(2, 1), new Coord(2, 3)), first.getBirths());
+            assertEquals(List.of(new Coord(1, 2), new Coord(3, 2)), first.getDeaths());
+            GenerationDiff second = sub.poll();
+            assertEquals(first.getBirths(), second.getDeaths());
+            assertNull(sub.poll());
+        }
+    }
+
+    @Test
+    public void testSlowSubscriberThrottlesOnlyItsGame() {
+        try (SimulationHarness harness = new SimulationHarness()) {
+            SimulationService service = harness.getService();
+            service.register(blinker("Slow"));
+            service.register(blinker("Free"));
+            DiffSubscription sub = service.subscribe("Slow", 2);
+            service.request("Slow", 5);
+            service.request("Free", 5);
+            harness.runUntilIdle();
+
+            assertEquals(2, service.getStep("Slow"));
+            assertTrue(service.isThrottled("Slow"));
+            assertEquals(5, service.getStep("Free"));
+
+            assertEquals(1, sub.poll().getStep());
+            harness.runUntilIdle();
+            assertEquals(3, service.getStep("Slow"));
+
+            sub.close();
+            harness.runUntilIdle();
+            assertEquals(5, service.getStep("Slow"));
+            assertFalse(service.isThrottled("Slow"));
+        }
+    }
+
+    @Test
+    public void testWorkerPoolStepsManyGames() throws InterruptedException {
+        try (SimulationService service = new SimulationService(2)) {
+            List<DiffSubscription> subs = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                service.register(blinker("Pool" + i));
+                subs.add(service.subscribe("Pool" + i, 3));
+                service.request("Pool" + i, 20);
+            }
+            for (DiffSubscription sub : subs) {
+                for (int step = 1; step <= 20; step++) {
+                    GenerationDiff diff = sub.poll(10, TimeUnit.SECONDS);
+                    assertNotNull(diff);
+                    assertEquals(step, diff.getStep());
+                    assertEquals(2, diff.getBirths().size());
+                }
+            }
+            for (int i = 0; i < 4; i++) {
+                assertEquals(20, service.getStep("Pool" + i));
+                assertNull(service.getFailure("Pool" + i));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateRegistrationIsRejected() {
+        try (SimulationHarness harness = new SimulationHarness()) {
+            harness.getService().register(blinker("Twice"));
+            harness.getService().register(blinker("Twice"));
+        }
+    }
+}
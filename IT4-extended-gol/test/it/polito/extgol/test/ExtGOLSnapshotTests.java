@@ -0,0 +1,84 @@
+package it.polito.extgol.test;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+import it.polito.extgol.Cell;
+import it.polito.extgol.Coord;
+import it.polito.extgol.ExtendedGameOfLife;
+import it.polito.extgol.Game;
+import it.polito.extgol.Generation;
+import it.polito.extgol.JPAUtil;
+import jakarta.persistence.EntityManager;
+
+public class ExtGOLSnapshotTests {
+    private ExtendedGameOfLife facade;
+    private Game game;
+
+    @AfterClass
+    public static void closeDB() {
+        JPAUtil.close();
+    }
+
+    @Before
+    public void setUp() {
+        TestDatabaseUtil.clearDatabase();
+        facade = new ExtendedGameOfLife();
+        game = Game.create("SnapshotGame", 64, 64);
+        // a blinker: only three rows ever change
+        Generation.createInitial(game, game.getBoard(),
+            List.of(new Coord(20, 20), new Coord(21, 20), new Coord(22, 20)));
+    }
+
+    @Test
+    public void testConsecutiveGenerationsShareUnchangedChunks() {
+        facade.run(game, 6);
+        List<Generation> history = game.getGenerations();
+        for (int i = 1; i < history.size(); i++) {
+            double shared = history.get(i).sharedFraction(history.get(i - 1));
+            assertTrue("Most chunks should be shared with the previous step, was " + shared, shared > 0.9);
+        }
+    }
+
+    @Test
+    public void testOlderGenerationsKeepTheirState() {
+        facade.run(game, 4);
+        List<Generation> history = game.getGenerations();
+        for (Generation g : history) {
+            Set<Cell> alive = g.getAliveCells();
+            assertEquals(3, alive.size());
+            boolean horizontal = g.getStep() % 2 == 0;
+            for (Cell c : alive) {
+                if (horizontal) {
+                    assertEquals("Step " + g.getStep(), 20, c.getY());
+                } else {
+                    assertEquals("Step " + g.getStep(), 21, c.getX());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSharedSnapshotsArePersistedPerGeneration() {
+        facade.run(game, 2);
+        facade.saveGame(game);
+
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            Game reloaded = em.find(Game.class, game.getId());
+            for (Generation g : reloaded.getGenerations()) {
+                assertEquals(64 * 64, g.getCellAlivenessStates().size());
+                assertEquals(3, g.getAliveCells().size());
+            }
+            assertEquals(3, reloaded.getGenerations().get(2).getRegionStats(19, 19, 23, 21).getCount());
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package it.polito.extgol.test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+import it.polito.extgol.Board;
+import it.polito.extgol.Cell;
+import it.polito.extgol.CellMood;
+import it.polito.extgol.CellType;
+import it.polito.extgol.Coord;
+import it.polito.extgol.EventType;
+import it.polito.extgol.Game;
+import it.polito.extgol.Generation;
+
+/**
+ * Fixtures shared by the tests comparing boards evolved in different ways
+ * (rule engines, off-heap planes, checkpoints).
+ */
+public class TestGameUtil {
+
+    /** One event of each type over the first ten steps. */
+    public static final Map<Integer, EventType> EVENTS = Map.of(1, EventType.BLOOM, 3, EventType.BLOOD_MOON,
+        5, EventType.FAMINE, 7, EventType.SANCTUARY, 9, EventType.CATACLYSM);
+
+    private TestGameUtil() {}
+
+    /**
+     * Seeds the board of the game with a random mix of every cell type and
+     * mood, and with positive and negative lifePoint modifiers every third
+     * column.
+     *
+     * @param game    the game whose board is seeded
+     * @param density the fraction of alive cells
+     * @param seed    the random seed
+     * @return the game
+     */
+    public static Game seeded(Game game, double density, long seed) {
+        Board board = game.getBoard();
+        Generation.createRandom(game, board, density, seed,
+            Map.of(CellType.BASIC, 2.0, CellType.HIGHLANDER, 1.0, CellType.LONER, 1.0, CellType.SOCIAL, 1.0),
+            Map.of(CellMood.NAIVE, 2.0, CellMood.HEALER, 1.0, CellMood.VAMPIRE, 1.0));
+        for (int x = 0; x < board.getWidth(); x += 3) {
+            Board.setInteractableTile(board, new Coord(x, x % board.getHeight()), x % 2 == 0 ? -2 : 1);
+        }
+        return game;
+    }
+
+    /**
+     * Asserts that two boards have the same shape and that every cell and
+     * tile holds the same state.
+     *
+     * @param context prefix of the failure messages, e.g. the step
+     * @param expected the reference board
+     * @param actual   the board under test
+     */
+    public static void assertSameCells(String context, Board expected, Board actual) {
+        assertEquals(context + " width", expected.getWidth(), actual.getWidth());
+        assertEquals(context + " height", expected.getHeight(), actual.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                Coord c = new Coord(x, y);
+                Cell e = expected.getTile(c).getCell();
+                Cell a = actual.getTile(c).getCell();
+                String at = context + " cell " + c;
+                assertEquals(at, e.isAlive(), a.isAlive());
+                assertEquals(at, e.getLifePoints(), a.getLifePoints());
+                assertEquals(at, e.getType(), a.getType());
+                assertEquals(at, e.getMood(), a.getMood());
+                assertEquals(at, e.getNextMood(), a.getNextMood());
+                assertEquals(at, e.getDeathCount(), a.getDeathCount());
+                assertEquals(at, e.canBiteHealers(), a.canBiteHealers());
+                assertEquals(at, expected.getTile(c).getLifePointModifier(), actual.getTile(c).getLifePointModifier());
+            }
+        }
+    }
+}
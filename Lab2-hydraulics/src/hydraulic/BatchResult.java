@@ -0,0 +1,260 @@
+package hydraulic;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Flows computed by a batch simulation of many scenarios over a
+ * {@link CompiledSystem}, see {@link CompiledSystem#simulate(double[][], boolean[][])}.
+ *
+ * Results are stored by column: the values of all the scenarios for one
+ * element (or output) are contiguous, which is also the order in which the
+ * simulation computes them, so that each element is evaluated with a tight
+ * loop over the scenarios. The scenarios are split in blocks simulated in
+ * parallel; a block covers whole words of the violation bit sets, so that
+ * blocks never write the same array element.
+ *
+ * A result with n elements and S scenarios takes about n × S × 16 bytes,
+ * one double for the input flow and one for the output flow of each element,
+ * plus n × S / 8 bytes of violation bits; each array is limited to
+ * {@code Integer.MAX_VALUE} values.
+ */
+public class BatchResult {
+
+	/** scenarios per parallel block, a multiple of 64 */
+	private static final int BLOCK = 256;
+
+	private final CompiledSystem system;
+	private final int scenarios;
+	private final int words;
+
+	/** input flow of each position, scenarios for the same position are contiguous */
+	private final double[] inFlow;
+	/** flow of each output slot, scenarios for the same slot are contiguous */
+	private final double[] outFlow;
+	/** for each position, the bit set of the scenarios exceeding its maximum flow */
+	private final long[] violations;
+	private final int[] violationCounts;
+
+	private BatchResult(CompiledSystem system, int scenarios) {
+		this.system = system;
+		this.scenarios = scenarios;
+		this.words = (scenarios + 63) >>> 6;
+		this.inFlow = new double[columns(system.size(), scenarios)];
+		this.outFlow = new double[columns(system.outputs.length, scenarios)];
+		this.violations = new long[columns(system.size(), words)];
+		this.violationCounts = new int[scenarios];
+	}
+
+	static BatchResult compute(CompiledSystem system, double[][] sourceFlows, boolean[][] tapStates) {
+		int scenarios = sourceFlows.length;
+		if (tapStates != null && tapStates.length != scenarios) {
+			throw new IllegalArgumentException("Source flows and tap states must define the same scenarios");
+		}
+		int[] sources = system.sources;
+		int[] taps = system.taps;
+
+		// scenario parameters by column, like the results
+		double[] flows = new double[columns(sources.length, scenarios)];
+		boolean[] open = tapStates == null ? null : new boolean[columns(taps.length, scenarios)];
+		for (int s = 0; s < scenarios; s++) {
+			if (sourceFlows[s].length != sources.length) {
+				throw new IllegalArgumentException("Scenario " + s + " must define " + sources.length + " source flows");
+			}
+			for (int k = 0; k < sources.length; k++) {
+				flows[k * scenarios + s] = sourceFlows[s][k];
+			}
+			if (open != null) {
+				if (tapStates[s].length != taps.length) {
+					throw new IllegalArgumentException("Scenario " + s + " must define " + taps.length + " tap states");
+				}
+				for (int k = 0; k < taps.length; k++) {
+					open[k * scenarios + s] = tapStates[s][k];
+				}
+			}
+		}
+		int[] column = new int[system.size()];
+		for (int k = 0; k < sources.length; k++) column[sources[k]] = k;
+		for (int k = 0; k < taps.length; k++) column[taps[k]] = k;
+
+		BatchResult result = new BatchResult(system, scenarios);
+		int blocks = (scenarios + BLOCK - 1) / BLOCK;
+		IntStream.range(0, blocks).parallel().forEach(b ->
+			result.simulate(flows, open, column, b * BLOCK, b * BLOCK + Math.min(BLOCK, scenarios - b * BLOCK)));
+		return result;
+	}
+
+	/**
+	 * Computes the length of an array holding one column of values per
+	 * element (or output) for each scenario
+	 *
+	 * @param columns the number of columns
+	 * @param scenarios the number of values per column
+	 * @return the array length
+	 * @throws IllegalArgumentException if the length exceeds the maximum array size
+	 */
+	private static int columns(int columns, int scenarios) {
+		try {
+			return Math.multiplyExact(columns, scenarios);
+		} catch (ArithmeticException e) {
+			throw new IllegalArgumentException(scenarios + " scenarios of " + columns
+					+ " columns exceed the maximum array size, simulate them in smaller batches", e);
+		}
+	}
+
+	/**
+	 * Simulates the scenarios from {@code from} (inclusive) to {@code to} (exclusive)
+	 */
+	private void simulate(double[] flows, boolean[] open, int[] column, int from, int to) {
+		CompiledSystem c = system;
+		int n = scenarios;
+		for (int i = 0; i < c.size(); i++) {
+			int in = i * n;
+			int up = c.parentSlot[i];
+			if (up < 0) {
+				Arrays.fill(inFlow, in + from, in + to, SimulationObserver.NO_FLOW);
+			} else {
+				System.arraycopy(outFlow, up * n + from, inFlow, in + from, to - from);
+			}
+
+			int first = c.firstOutput[i];
+			int out = first * n;
+			switch (c.kinds[i]) {
+			case SOURCE:
+				System.arraycopy(flows, column[i] * n + from, outFlow, out + from, to - from);
+				break;
+			case TAP:
+				if (open == null) {
+					if (c.open[i]) System.arraycopy(inFlow, in + from, outFlow, out + from, to - from);
+					else Arrays.fill(outFlow, out + from, out + to, 0.0);
+				} else {
+					int state = column[i] * n;
+					for (int s = from; s < to; s++) {
+						outFlow[out + s] = open[state + s] ? inFlow[in + s] : 0.0;
+					}
+				}
+				break;
+			case SPLIT:
+			case MULTISPLIT:
+				for (int slot = first; slot < c.firstOutput[i + 1]; slot++) {
+					double p = c.proportions[slot];
+					int o = slot * n;
+					for (int s = from; s < to; s++) {
+						outFlow[o + s] = inFlow[in + s] * p;
+					}
+				}
+				break;
+			default:
+				break;
+			}
+
+			double max = c.maxFlow[i];
+			if (max > 0) {
+				for (int s = from; s < to; s++) {
+					if (inFlow[in + s] > max) {
+						violations[i * words + (s >>> 6)] |= 1L << s;
+						violationCounts[s]++;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * retrieves the compiled system the scenarios were simulated on
+	 *
+	 * @return the compiled system
+	 */
+	public CompiledSystem getSystem() {
+		return system;
+	}
+
+	/**
+	 * retrieves the number of simulated scenarios
+	 *
+	 * @return the number of scenarios
+	 */
+	public int getScenarioCount() {
+		return scenarios;
+	}
+
+	/**
+	 * retrieves the input flow of an element in a scenario
+	 *
+	 * @param index the position of the element in the compiled system
+	 * @param scenario the scenario
+	 * @return the input flow, {@link SimulationObserver#NO_FLOW} for the sources
+	 */
+	public double getInFlow(int index, int scenario) {
+		return inFlow[index * scenarios + checkScenario(scenario)];
+	}
+
+	/**
+	 * retrieves the input flows of an element in all the scenarios
+	 *
+	 * @param index the position of the element in the compiled system
+	 * @return a new array with the input flow of each scenario
+	 */
+	public double[] getInFlows(int index) {
+		return Arrays.copyOfRange(inFlow, index * scenarios, (index + 1) * scenarios);
+	}
+
+	/**
+	 * retrieves an output flow of an element in a scenario
+	 *
+	 * @param index the position of the element in the compiled system
+	 * @param output the output index
+	 * @param scenario the scenario
+	 * @return the output flow
+	 */
+	public double getOutFlow(int index, int output, int scenario) {
+		if (output < 0 || output >= system.getOutputCount(index)) {
+			throw new IndexOutOfBoundsException("Invalid output index: " + output);
+		}
+		return outFlow[(system.firstOutput[index] + output) * scenarios + checkScenario(scenario)];
+	}
+
+	/**
+	 * tells whether the input flow of an element exceeds its maximum flow in a scenario
+	 *
+	 * @param index the position of the element in the compiled system
+	 * @param scenario the scenario
+	 * @return {@code true} if the maximum flow is exceeded
+	 */
+	public boolean isViolated(int index, int scenario) {
+		checkScenario(scenario);
+		return (violations[index * words + (scenario >>> 6)] >>> scenario & 1) != 0;
+	}
+
+	/**
+	 * retrieves the number of elements whose maximum flow is exceeded in a scenario
+	 *
+	 * @param scenario the scenario
+	 * @return the number of violations
+	 */
+	public int getViolationCount(int scenario) {
+		return violationCounts[checkScenario(scenario)];
+	}
+
+	/**
+	 * retrieves the positions of the elements whose maximum flow is exceeded in a scenario
+	 *
+	 * @param scenario the scenario
+	 * @return the positions of the violating elements, in increasing order
+	 */
+	public int[] getViolations(int scenario) {
+		int[] result = new int[getViolationCount(scenario)];
+		int n = 0;
+		for (int i = 0; n < result.length; i++) {
+			if (isViolated(i, scenario)) result[n++] = i;
+		}
+		return result;
+	}
+
+	private int checkScenario(int scenario) {
+		if (scenario < 0 || scenario >= scenarios) {
+			throw new IndexOutOfBoundsException("Invalid scenario: " + scenario);
+		}
+		return scenario;
+	}
+}
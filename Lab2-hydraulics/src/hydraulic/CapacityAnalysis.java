@@ -0,0 +1,109 @@
+package hydraulic;
+
+import java.util.Arrays;
+
+/**
+ * Capacity of the sources of a {@link CompiledSystem}, see
+ * {@link FlowCoefficients#computeCapacity()}.
+ *
+ * The input flow of an element is its coefficient times the flow of its
+ * source, so the element reaches its maximum flow when the source flow is
+ * the maximum flow divided by the coefficient. The maximum safe flow of a
+ * source is the smallest of these values among the elements it feeds, and
+ * the element giving it is the bottleneck. All the values are computed by
+ * a single pass over the positions.
+ */
+public class CapacityAnalysis {
+
+	private static final int NONE = -1;
+
+	private final FlowCoefficients coefficients;
+	/** maximum safe flow of each source, indexed by position */
+	private final double[] maxSafeFlow;
+	/** position of the bottleneck of each source, -1 if none */
+	private final int[] bottleneck;
+	/** difference between maximum and input flow of each position */
+	private final double[] headroom;
+
+	CapacityAnalysis(FlowCoefficients coefficients) {
+		CompiledSystem system = coefficients.getSystem();
+		int n = system.size();
+		this.coefficients = coefficients;
+		this.maxSafeFlow = new double[n];
+		this.bottleneck = new int[n];
+		this.headroom = new double[n];
+		Arrays.fill(bottleneck, NONE);
+		for (int i = 0; i < n; i++) {
+			int src = coefficients.getSource(i);
+			if (src == i) {
+				// the input of a source is never checked
+				maxSafeFlow[i] = Double.POSITIVE_INFINITY;
+				headroom[i] = Double.POSITIVE_INFINITY;
+				continue;
+			}
+			double max = system.maxFlow[i];
+			double c = coefficients.getCoefficient(i);
+			if (max <= 0) {
+				headroom[i] = Double.POSITIVE_INFINITY;
+				continue;
+			}
+			headroom[i] = max - c * system.sourceFlow[src];
+			if (c > 0 && max / c < maxSafeFlow[src]) {
+				maxSafeFlow[src] = max / c;
+				bottleneck[src] = i;
+			}
+		}
+	}
+
+	/**
+	 * retrieves the coefficients the capacity was computed from
+	 *
+	 * @return the coefficients
+	 */
+	public FlowCoefficients getCoefficients() {
+		return coefficients;
+	}
+
+	/**
+	 * retrieves the maximum flow a source can deliver before any element
+	 * below it exceeds its maximum flow
+	 *
+	 * @param sourceIndex the position of the source
+	 * @return the maximum safe flow, {@link Double#POSITIVE_INFINITY} if no element limits it
+	 * @throws IllegalArgumentException if the position is not a source
+	 */
+	public double getMaxSafeFlow(int sourceIndex) {
+		return maxSafeFlow[checkSource(sourceIndex)];
+	}
+
+	/**
+	 * retrieves the element that first exceeds its maximum flow when the
+	 * flow of a source increases
+	 *
+	 * @param sourceIndex the position of the source
+	 * @return the position of the bottleneck, or -1 if no element limits the source
+	 * @throws IllegalArgumentException if the position is not a source
+	 */
+	public int getBottleneck(int sourceIndex) {
+		return bottleneck[checkSource(sourceIndex)];
+	}
+
+	/**
+	 * retrieves the difference between the maximum flow of an element and
+	 * its input flow with the current flow of its source
+	 *
+	 * @param index the position of the element
+	 * @return the headroom, negative if the maximum flow is exceeded,
+	 * {@link Double#POSITIVE_INFINITY} if the element has no maximum flow
+	 */
+	public double getHeadroom(int index) {
+		return headroom[index];
+	}
+
+	private int checkSource(int index) {
+		if (coefficients.getSource(index) != index) {
+			throw new IllegalArgumentException("Not a source: " + coefficients.getSystem().getElement(index).getName());
+		}
+		return index;
+	}
+}
@@ -0,0 +1,703 @@
+package hydraulic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Flattened representation of an hydraulic system, for repeated simulations.
+ *
+ * The elements reachable from each {@link Source} are laid out in depth-first
+ * pre-order, sources in system order and outputs in index order, so that
+ * every element comes after its upstream element and the elements below it
+ * form a contiguous range. The topology and the simulation parameters are
+ * kept in parallel arrays indexed by position; the outputs of all elements
+ * are numbered consecutively, so that output {@code k} of the element at
+ * position {@code i} is slot {@code firstOutput[i] + k}.
+ *
+ * A simulation is then a single linear pass over the arrays, without
+ * recursion nor virtual calls, and the notifications are sent in the same
+ * order as the recursive simulation of the elements would send them. An
+ * element reached along several paths appears once per path.
+ *
+ * The parameters (flows, tap status, proportions, maximum flows) are copied
+ * from the elements when the system is compiled, and again by
+ * {@link #refresh()}; changes of the connections require a new compilation.
+ */
+public class CompiledSystem {
+
+	private static final int NO_OUTPUT = -1;
+
+	final Element[] elements;
+	final ElementKind[] kinds;
+	/** upstream position of each element, -1 for the sources */
+	final int[] parent;
+	/** output slot of the upstream element feeding each element, -1 for the sources */
+	final int[] parentSlot;
+	/** first output slot of each element; one more entry marks the end */
+	final int[] firstOutput;
+	/** end (exclusive) of the range of elements below each element */
+	final int[] subtreeEnd;
+	/** position of the element connected to each output slot, -1 if none */
+	final int[] outputs;
+
+	final double[] sourceFlow;
+	final boolean[] open;
+	final double[] maxFlow;
+	/** fraction of the input flow sent to each output slot */
+	final double[] proportions;
+
+	final double[] inFlow;
+	final double[] outFlow;
+
+	private final Map<Element, Integer> positions = new IdentityHashMap<>();
+	/** next position of the same element, -1 after the last one */
+	private final int[] nextSame;
+	/** whether flows have been computed by a simulation */
+	private boolean simulated;
+	/** whether the last single-position refresh changed the maximum flow */
+	private boolean maxFlowChanged;
+	/** positions of the sources, in order */
+	final int[] sources;
+	/** positions of the taps, in order */
+	final int[] taps;
+
+	CompiledSystem(List<Element> order, int[] parent, int[] parentSlot, int[] firstOutput, int[] outputs) {
+		int n = order.size();
+		this.elements = order.toArray(new Element[n]);
+		this.kinds = new ElementKind[n];
+		this.parent = parent;
+		this.parentSlot = parentSlot;
+		this.firstOutput = firstOutput;
+		this.outputs = outputs;
+		this.subtreeEnd = new int[n];
+		for (int i = n - 1; i >= 0; i--) {
+			kinds[i] = ElementKind.of(elements[i]);
+			subtreeEnd[i] = Math.max(subtreeEnd[i], i + 1);
+			if (parent[i] >= 0) {
+				subtreeEnd[parent[i]] = Math.max(subtreeEnd[parent[i]], subtreeEnd[i]);
+			}
+		}
+		this.nextSame = new int[n];
+		Map<Element, Integer> last = new IdentityHashMap<>();
+		int nSources = 0;
+		int nTaps = 0;
+		for (int i = 0; i < n; i++) {
+			positions.putIfAbsent(elements[i], i);
+			nextSame[i] = -1;
+			Integer previous = last.put(elements[i], i);
+			if (previous != null) nextSame[previous] = i;
+			if (kinds[i] == ElementKind.SOURCE) nSources++;
+			if (kinds[i] == ElementKind.TAP) nTaps++;
+		}
+		this.sources = new int[nSources];
+		this.taps = new int[nTaps];
+		nSources = 0;
+		nTaps = 0;
+		for (int i = 0; i < n; i++) {
+			if (kinds[i] == ElementKind.SOURCE) sources[nSources++] = i;
+			if (kinds[i] == ElementKind.TAP) taps[nTaps++] = i;
+		}
+		this.sourceFlow = new double[n];
+		this.open = new boolean[n];
+		this.maxFlow = new double[n];
+		this.proportions = new double[outputs.length];
+		this.inFlow = new double[n];
+		this.outFlow = new double[outputs.length];
+		refresh();
+	}
+
+	/**
+	 * Compiles the elements reachable from the sources among the given ones
+	 *
+	 * @param system the elements of the system, in system order
+	 * @return the compiled system
+	 * @throws IllegalStateException if the connections form a cycle
+	 * @throws IllegalArgumentException if an element is not of a known class
+	 */
+	static CompiledSystem compile(Element[] system) {
+		List<Element> order = new ArrayList<>();
+		int[] parent = new int[16];
+		int[] parentSlot = new int[16];
+		int[] firstOutput = new int[17];
+		int[] outputs = new int[16];
+		int slots = 0;
+
+		// elements still to visit, with their upstream position and slot
+		List<Element> pending = new ArrayList<>();
+		int[] pendingUp = new int[16];
+		int[] pendingSlot = new int[16];
+		// elements on the path from the current source, to detect cycles
+		List<Element> path = new ArrayList<>();
+		List<Integer> pathPositions = new ArrayList<>();
+		Map<Element, Boolean> onPath = new IdentityHashMap<>();
+
+		for (Element root : system) {
+			if (!(root instanceof Source)) continue;
+			pending.add(root);
+			pendingUp[0] = -1;
+			pendingSlot[0] = NO_OUTPUT;
+			while (!pending.isEmpty()) {
+				int top = pending.size() - 1;
+				Element e = pending.remove(top);
+				int slot = pendingSlot[top];
+				int up = pendingUp[top];
+
+				while (!path.isEmpty() && pathPositions.get(path.size() - 1) != up) {
+					onPath.remove(path.remove(path.size() - 1));
+					pathPositions.remove(pathPositions.size() - 1);
+				}
+				if (onPath.put(e, Boolean.TRUE) != null) {
+					throw new IllegalStateException("Connections form a cycle through " + e.getName());
+				}
+
+				int i = order.size();
+				order.add(e);
+				path.add(e);
+				pathPositions.add(i);
+				if (i == parent.length) {
+					parent = Arrays.copyOf(parent, i * 2);
+					parentSlot = Arrays.copyOf(parentSlot, i * 2);
+					firstOutput = Arrays.copyOf(firstOutput, i * 2 + 1);
+				}
+				parent[i] = up;
+				parentSlot[i] = slot;
+				if (slot != NO_OUTPUT) outputs[slot] = i;
+
+				Element[] outs = outputsOf(e);
+				firstOutput[i] = slots;
+				if (slots + outs.length > outputs.length) {
+					outputs = Arrays.copyOf(outputs, Math.max(outputs.length * 2, slots + outs.length));
+				}
+				Arrays.fill(outputs, slots, slots + outs.length, NO_OUTPUT);
+				slots += outs.length;
+				firstOutput[i + 1] = slots;
+
+				// pushed in reverse, so that the first output is visited first
+				for (int k = outs.length - 1; k >= 0; k--) {
+					if (outs[k] == null) continue;
+					if (pending.size() == pendingSlot.length) {
+						pendingUp = Arrays.copyOf(pendingUp, pendingUp.length * 2);
+						pendingSlot = Arrays.copyOf(pendingSlot, pendingSlot.length * 2);
+					}
+					pendingUp[pending.size()] = i;
+					pendingSlot[pending.size()] = firstOutput[i] + k;
+					pending.add(outs[k]);
+				}
+			}
+			path.clear();
+			pathPositions.clear();
+			onPath.clear();
+		}
+
+		int n = order.size();
+		return new CompiledSystem(order, Arrays.copyOf(parent, n), Arrays.copyOf(parentSlot, n),
+				Arrays.copyOf(firstOutput, n + 1), Arrays.copyOf(outputs, slots));
+	}
+
+	private static Element[] outputsOf(Element e) {
+		Element[] outs = e.getOutputs();
+		if (outs != null) return outs;
+		if (e instanceof Sink) return new Element[0];
+		return new Element[] { e.getOutput() };
+	}
+
+	/**
+	 * Copies again the simulation parameters from the elements: the flow of
+	 * the sources, the status of the taps, the proportions of the multisplits
+	 * and the maximum flows.
+	 *
+	 * @throws IllegalStateException if the proportions of a multisplit are not defined
+	 */
+	public void refresh() {
+		for (int i = 0; i < elements.length; i++) {
+			refresh(i);
+		}
+	}
+
+	/**
+	 * Copies again the simulation parameters of the element at a given position,
+	 * recording whether its maximum flow changed
+	 */
+	private void refresh(int i) {
+		Element e = elements[i];
+		maxFlowChanged = !same(maxFlow[i], e.getMaxFlow());
+		maxFlow[i] = e.getMaxFlow();
+		switch (kinds[i]) {
+		case SOURCE:
+			sourceFlow[i] = ((Source) e).getFlow();
+			break;
+		case TAP:
+			open[i] = ((Tap) e).isOpen();
+			break;
+		case SPLIT:
+			proportions[firstOutput[i]] = 0.5;
+			proportions[firstOutput[i] + 1] = 0.5;
+			break;
+		case MULTISPLIT:
+			for (int s = firstOutput[i]; s < firstOutput[i + 1]; s++) {
+				double p = ((Multisplit) e).getProportion(s - firstOutput[i]);
+				if (Double.isNaN(p)) {
+					throw new IllegalStateException("Proportions not defined for " + e.getName());
+				}
+				proportions[s] = p;
+			}
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * retrieves the number of elements of the compiled system
+	 *
+	 * @return the number of positions
+	 */
+	public int size() {
+		return elements.length;
+	}
+
+	/**
+	 * retrieves the element at a given position
+	 *
+	 * @param index the position
+	 * @return the element
+	 */
+	public Element getElement(int index) {
+		return elements[index];
+	}
+
+	/**
+	 * retrieves the kind of the element at a given position
+	 *
+	 * @param index the position
+	 * @return the element kind
+	 */
+	public ElementKind getKind(int index) {
+		return kinds[index];
+	}
+
+	/**
+	 * retrieves the first position of an element
+	 *
+	 * @param elem the element
+	 * @return the position, or -1 if the element is not reachable from a source
+	 */
+	public int indexOf(Element elem) {
+		Integer i = positions.get(elem);
+		return i == null ? -1 : i;
+	}
+
+	/**
+	 * retrieves the positions of the sources, in the order used
+	 * for the source flows of the batch simulations
+	 *
+	 * @return the positions of the sources
+	 */
+	public int[] getSources() {
+		return sources.clone();
+	}
+
+	/**
+	 * retrieves the positions of the taps, in the order used
+	 * for the tap states of the batch simulations
+	 *
+	 * @return the positions of the taps
+	 */
+	public int[] getTaps() {
+		return taps.clone();
+	}
+
+	/**
+	 * retrieves the number of outputs of the element at a given position
+	 *
+	 * @param index the position
+	 * @return the number of outputs
+	 */
+	public int getOutputCount(int index) {
+		return firstOutput[index + 1] - firstOutput[index];
+	}
+
+	/**
+	 * retrieves the input flow computed by the last simulation
+	 *
+	 * @param index the position of the element
+	 * @return the input flow, {@link SimulationObserver#NO_FLOW} for the sources
+	 */
+	public double getInFlow(int index) {
+		return inFlow[index];
+	}
+
+	/**
+	 * retrieves an output flow computed by the last simulation
+	 *
+	 * @param index the position of the element
+	 * @param output the output index
+	 * @return the output flow
+	 */
+	public double getOutFlow(int index, int output) {
+		if (output < 0 || output >= getOutputCount(index)) {
+			throw new IndexOutOfBoundsException("Invalid output index: " + output);
+		}
+		return outFlow[firstOutput[index] + output];
+	}
+
+	/**
+	 * computes the linear coefficients of the flow reaching every element
+	 * from its source, with the current tap states and proportions
+	 *
+	 * @return the coefficients
+	 */
+	public FlowCoefficients computeCoefficients() {
+		return new FlowCoefficients(this);
+	}
+
+	/**
+	 * computes the flows of every element, without notifications
+	 */
+	public void simulate() {
+		for (int i = 0; i < elements.length; i++) {
+			compute(i);
+		}
+		simulated = true;
+	}
+
+	/**
+	 * Computes the flows of the element at a given position from
+	 * the output of its upstream element
+	 * 
+	 * @return whether any of its flows changed
+	 */
+	private boolean compute(int i) {
+		int up = parentSlot[i];
+		double in = up < 0 ? SimulationObserver.NO_FLOW : outFlow[up];
+		boolean changed = !same(inFlow[i], in);
+		inFlow[i] = in;
+		int first = firstOutput[i];
+		switch (kinds[i]) {
+		case SOURCE:
+			changed |= set(first, sourceFlow[i]);
+			break;
+		case TAP:
+			changed |= set(first, open[i] ? in : 0.0);
+			break;
+		case SPLIT:
+		case MULTISPLIT:
+			for (int s = first; s < firstOutput[i + 1]; s++) {
+				changed |= set(s, in * proportions[s]);
+			}
+			break;
+		default:
+			break;
+		}
+		return changed;
+	}
+
+	private boolean set(int slot, double flow) {
+		boolean changed = !same(outFlow[slot], flow);
+		outFlow[slot] = flow;
+		return changed;
+	}
+
+	private static boolean same(double a, double b) {
+		return Double.doubleToLongBits(a) == Double.doubleToLongBits(b);
+	}
+
+	/**
+	 * re-simulates the system after the parameters of one element changed,
+	 * e.g. the status of a tap, the proportions of a multisplit or the flow of
+	 * a source, starting from the flows computed by the previous simulation.
+	 * 
+	 * The parameters of the element are copied again, then only the elements
+	 * below it are computed, skipping the branches whose input did not change;
+	 * notifications are sent only for the elements whose flows changed, in
+	 * simulation order. If the system was never simulated, a full simulation
+	 * is performed and every element is notified. Elements not reachable from
+	 * a source are ignored.
+	 * 
+	 * @param elem the element whose parameters changed
+	 * @param observer the observer receiving notifications
+	 * @param enableMaxFlowCheck whether maximum flows are checked for the notified elements
+	 * @throws IllegalStateException if the proportions of a multisplit are not defined
+	 */
+	public void update(Element elem, SimulationObserver observer, boolean enableMaxFlowCheck) {
+		update(elem, observer, null, enableMaxFlowCheck);
+	}
+
+	/**
+	 * re-simulates the system after the parameters of one element changed,
+	 * see {@link #update(Element, SimulationObserver, boolean)}, notifying
+	 * the changed elements to a primitive observer
+	 * 
+	 * @param elem the element whose parameters changed
+	 * @param observer the observer receiving notifications
+	 * @param enableMaxFlowCheck whether maximum flows are checked for the notified elements
+	 */
+	public void update(Element elem, FlowObserver observer, boolean enableMaxFlowCheck) {
+		update(elem, null, observer, enableMaxFlowCheck);
+	}
+
+	private void update(Element elem, SimulationObserver observer, FlowObserver fast, boolean enableMaxFlowCheck) {
+		if (!simulated) {
+			refresh();
+			simulate();
+			for (int i = 0; i < elements.length; i++) {
+				notify(observer, fast, i, enableMaxFlowCheck);
+			}
+			return;
+		}
+		for (int i = indexOf(elem); i >= 0; i = nextSame[i]) {
+			refresh(i);
+			int end = subtreeEnd[i];
+			int j = i;
+			while (j < end) {
+				if (compute(j) || j == i && maxFlowChanged) {
+					notify(observer, fast, j, enableMaxFlowCheck);
+					j++;
+				} else {
+					// same flows out of j, nothing changes below it
+					j = subtreeEnd[j];
+				}
+			}
+		}
+	}
+
+	/**
+	 * re-simulates the system after the parameters of one element changed,
+	 * see {@link #update(Element, SimulationObserver, boolean)}
+	 * 
+	 * @param elem the element whose parameters changed
+	 * @param observer the observer receiving notifications
+	 */
+	public void update(Element elem, SimulationObserver observer) {
+		update(elem, observer, false);
+	}
+
+	/**
+	 * computes the flows of every element and notifies them to an observer;
+	 * if {@code enableMaxFlowCheck} is {@code true}, checks also the elements
+	 * maximum flows against the input flow
+	 *
+	 * @param observer the observer receiving notifications
+	 * @param enableMaxFlowCheck whether maximum flows are checked
+	 */
+	public void simulate(SimulationObserver observer, boolean enableMaxFlowCheck) {
+		simulate();
+		for (int i = 0; i < elements.length; i++) {
+			notify(observer, i, enableMaxFlowCheck);
+		}
+	}
+
+	/**
+	 * computes the flows of every element and notifies them to a primitive
+	 * observer; if {@code enableMaxFlowCheck} is {@code true}, checks also the
+	 * elements maximum flows against the input flow
+	 * 
+	 * Neither the simulation nor the notifications allocate any object.
+	 *
+	 * @param observer the observer receiving notifications
+	 * @param enableMaxFlowCheck whether maximum flows are checked
+	 */
+	public void simulate(FlowObserver observer, boolean enableMaxFlowCheck) {
+		simulate();
+		for (int i = 0; i < elements.length; i++) {
+			notify(observer, i, enableMaxFlowCheck);
+		}
+	}
+
+	/**
+	 * computes the flows of every element in parallel and notifies them to
+	 * an observer; if {@code enableMaxFlowCheck} is {@code true}, checks also
+	 * the elements maximum flows against the input flow
+	 * 
+	 * Each source is simulated by a separate task; below a split or a
+	 * multisplit, every output whose subtree has at least {@code threshold}
+	 * elements is simulated by a task of its own, while smaller subtrees are
+	 * simulated by the task that reached them.
+	 *
+	 * @param observer the observer receiving notifications
+	 * @param enableMaxFlowCheck whether maximum flows are checked
+	 * @param threshold the minimum number of elements of a subtree simulated by its own task
+	 * @param order whether notifications follow the sequential order
+	 * @throws IllegalArgumentException if the threshold is not positive
+	 */
+	public void simulateParallel(SimulationObserver observer, boolean enableMaxFlowCheck, int threshold,
+			NotificationOrder order) {
+		simulateParallel(observer, null, enableMaxFlowCheck, threshold, order);
+	}
+
+	/**
+	 * computes the flows of every element in parallel and notifies them to a
+	 * primitive observer, see
+	 * {@link #simulateParallel(SimulationObserver, boolean, int, NotificationOrder)}
+	 *
+	 * @param observer the observer receiving notifications
+	 * @param enableMaxFlowCheck whether maximum flows are checked
+	 * @param threshold the minimum number of elements of a subtree simulated by its own task
+	 * @param order whether notifications follow the sequential order
+	 * @throws IllegalArgumentException if the threshold is not positive
+	 */
+	public void simulateParallel(FlowObserver observer, boolean enableMaxFlowCheck, int threshold,
+			NotificationOrder order) {
+		simulateParallel(null, observer, enableMaxFlowCheck, threshold, order);
+	}
+
+	private void simulateParallel(SimulationObserver observer, FlowObserver fast, boolean enableMaxFlowCheck,
+			int threshold, NotificationOrder order) {
+		if (threshold <= 0) {
+			throw new IllegalArgumentException("Threshold must be positive");
+		}
+		boolean ordered = order == NotificationOrder.ORDERED;
+		List<SubtreeTask> tasks = new ArrayList<>();
+		for (int i = 0; i < elements.length; i = subtreeEnd[i]) {
+			tasks.add(ordered ? new SubtreeTask(i, threshold, null, null, false)
+					: new SubtreeTask(i, threshold, observer, fast, enableMaxFlowCheck));
+		}
+		ForkJoinTask.invokeAll(tasks);
+		simulated = true;
+		if (ordered) {
+			for (int i = 0; i < elements.length; i++) {
+				notify(observer, fast, i, enableMaxFlowCheck);
+			}
+		}
+	}
+
+	/**
+	 * Simulates the subtree rooted at a position, forking the large subtrees
+	 * below it. Chains of elements are followed iteratively, so that the
+	 * depth of the system does not matter.
+	 */
+	private class SubtreeTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int root;
+		private final int threshold;
+		/** observers notified as elements are computed, both null if ordered */
+		private final SimulationObserver observer;
+		private final FlowObserver fast;
+		private final boolean enableMaxFlowCheck;
+
+		SubtreeTask(int root, int threshold, SimulationObserver observer, FlowObserver fast,
+				boolean enableMaxFlowCheck) {
+			this.root = root;
+			this.threshold = threshold;
+			this.observer = observer;
+			this.fast = fast;
+			this.enableMaxFlowCheck = enableMaxFlowCheck;
+		}
+
+		@Override
+		protected void compute() {
+			List<SubtreeTask> forked = new ArrayList<>();
+			int i = root;
+			while (i >= 0) {
+				visit(i);
+				int next = -1;
+				for (int s = firstOutput[i]; s < firstOutput[i + 1]; s++) {
+					int child = outputs[s];
+					if (child < 0) continue;
+					if (subtreeEnd[child] - child < threshold) {
+						for (int j = child; j < subtreeEnd[child]; j++) visit(j);
+					} else if (next < 0) {
+						next = child;
+					} else {
+						SubtreeTask task = new SubtreeTask(child, threshold, observer, fast, enableMaxFlowCheck);
+						task.fork();
+						forked.add(task);
+					}
+				}
+				i = next;
+			}
+			for (SubtreeTask task : forked) task.join();
+		}
+
+		private void visit(int i) {
+			CompiledSystem.this.compute(i);
+			if (observer != null || fast != null) {
+				CompiledSystem.this.notify(observer, fast, i, enableMaxFlowCheck);
+			}
+		}
+	}
+
+	/**
+	 * computes the flows of many scenarios at once; each scenario defines
+	 * the flow of every source and the status of every tap, while the other
+	 * parameters are the ones of the compiled system.
+	 *
+	 * The scenarios are evaluated together, element by element, and split
+	 * among the available processors. The result keeps every flow of every
+	 * scenario, about n × S × 16 bytes for n elements and S scenarios,
+	 * so very large batches should be simulated in slices.
+	 *
+	 * @param sourceFlows for each scenario, the flows of the sources in the
+	 * 					order of {@link #getSources()}
+	 * @param tapStates for each scenario, the status of the taps in the order
+	 * 					of {@link #getTaps()}; {@code null} to keep the compiled ones
+	 * @return the flows and maximum flow violations of every scenario
+	 * @throws IllegalArgumentException if the scenarios do not match the system,
+	 * 					or if there are too many of them for the result arrays
+	 */
+	public BatchResult simulate(double[][] sourceFlows, boolean[][] tapStates) {
+		return BatchResult.compute(this, sourceFlows, tapStates);
+	}
+
+	/**
+	 * Sends the notifications of the element at a given position
+	 * to whichever observer is not null
+	 */
+	private void notify(SimulationObserver observer, FlowObserver fast, int i, boolean enableMaxFlowCheck) {
+		if (fast != null) {
+			notify(fast, i, enableMaxFlowCheck);
+		} else {
+			notify(observer, i, enableMaxFlowCheck);
+		}
+	}
+
+	/**
+	 * Sends the notifications of the element at a given position
+	 */
+	private void notify(FlowObserver observer, int i, boolean enableMaxFlowCheck) {
+		double in = inFlow[i];
+		observer.notifyFlow(i, kinds[i], in);
+		for (int s = firstOutput[i]; s < firstOutput[i + 1]; s++) {
+			observer.notifyOutFlow(i, s - firstOutput[i], outFlow[s]);
+		}
+		if (enableMaxFlowCheck && maxFlow[i] > 0 && in > maxFlow[i]) {
+			observer.notifyFlowError(i, kinds[i], in, maxFlow[i]);
+		}
+	}
+
+	/**
+	 * Sends the notifications of the element at a given position
+	 */
+	private void notify(SimulationObserver observer, int i, boolean enableMaxFlowCheck) {
+		String type = kinds[i].getTypeName();
+		String name = elements[i].getName();
+		double in = inFlow[i];
+		if (enableMaxFlowCheck && maxFlow[i] > 0 && in > maxFlow[i]) {
+			observer.notifyFlowError(type, name, in, maxFlow[i]);
+		}
+		int first = firstOutput[i];
+		switch (kinds[i]) {
+		case SOURCE:
+			observer.notifyFlow(type, name, SimulationObserver.NO_FLOW, outFlow[first]);
+			break;
+		case TAP:
+			observer.notifyFlow(type, name, in, outFlow[first]);
+			break;
+		case SPLIT:
+			observer.notifyFlow(type, name, in, outFlow[first], outFlow[first + 1]);
+			break;
+		case MULTISPLIT:
+			observer.notifyFlow(type, name, in, Arrays.copyOfRange(outFlow, first, firstOutput[i + 1]));
+			break;
+		case SINK:
+			observer.notifyFlow(type, name, in, SimulationObserver.NO_FLOW);
+			break;
+		}
+	}
+}
@@ -15,6 +15,14 @@ public abstract class Element {
 	protected String name;
 	protected double maxFlow = 0.0;
 
+	/** the element whose output is connected to this element, if any */
+	Element upstream;
+	/** the output of the upstream element this element is connected to */
+	int upstreamIndex;
+
+	/** the system this element was last added to, told when its outputs change */
+	HSystem system;
+
 	
 	public Element(String name) {
 		this.name = name;
@@ -54,6 +62,37 @@ public abstract class Element {
 		// does nothing by default
 	}
 	
+	/**
+	 * Retrieves the element connected upstream of this element, i.e. the
+	 * element whose output was last connected to this one.
+	 * 
+	 * @return upstream element, or {@code null} if none is connected
+	 */
+	public Element getUpstream() {
+		return upstream;
+	}
+
+	/**
+	 * Keeps the upstream links of the elements consistent when one
+	 * output of this element changes, and tells the owning system that its
+	 * connections changed; to be called by the subclasses before replacing the output.
+	 * 
+	 * @param previous the element connected to the output so far
+	 * @param elem the element being connected
+	 * @param index the output index
+	 */
+	protected void linkOutput(Element previous, Element elem, int index) {
+		if (system != null) system.connectionsChanged();
+		if (previous != null && previous != elem && previous.upstream == this
+				&& previous.upstreamIndex == index) {
+			previous.upstream = null;
+		}
+		if (elem != null) {
+			elem.upstream = this;
+			elem.upstreamIndex = index;
+		}
+	}
+
 	/**
 	 * Retrieves the single element connected downstream of this element
 	 * 
@@ -72,6 +111,15 @@ public abstract class Element {
 		return null;
 	}
 	
+	/**
+	 * Retrieves the maximum input flow acceptable for this element
+	 * 
+	 * @return maximum allowed input flow, 0 if not defined
+	 */
+	public double getMaxFlow() {
+		return maxFlow;
+	}
+
 	/**
 	 * Defines the maximum input flow acceptable for this element
 	 * 
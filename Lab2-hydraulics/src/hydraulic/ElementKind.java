@@ -0,0 +1,65 @@
+package hydraulic;
+
+/**
+ * Kinds of the elements of an hydraulic system, as used by the
+ * compiled representation of a system.
+ */
+public enum ElementKind {
+	/** a {@link Source} */
+	SOURCE("Source"),
+	/** a {@link Tap} */
+	TAP("Tap"),
+	/** a {@link Split} */
+	SPLIT("Split"),
+	/** a {@link Multisplit} */
+	MULTISPLIT("Multisplit"),
+	/** a {@link Sink} */
+	SINK("Sink");
+
+	static final ElementKind[] VALUES = values();
+
+	private final String typeName;
+
+	ElementKind(String typeName) {
+		this.typeName = typeName;
+	}
+
+	/**
+	 * retrieves the type name used in the notifications
+	 * sent to a {@link SimulationObserver}
+	 * 
+	 * @return the class name of the elements of this kind
+	 */
+	public String getTypeName() {
+		return typeName;
+	}
+
+	/**
+	 * tells whether an element is an instance of one of the built-in classes
+	 * themselves, not of a subclass that could change their behaviour
+	 * 
+	 * @param elem the element
+	 * @return {@code true} for the instances of the built-in classes
+	 */
+	static boolean isBuiltIn(Element elem) {
+		Class<?> c = elem.getClass();
+		return c == Source.class || c == Tap.class || c == Split.class
+				|| c == Multisplit.class || c == Sink.class;
+	}
+
+	/**
+	 * retrieves the kind of an element
+	 * 
+	 * @param elem the element
+	 * @return the kind of the element
+	 * @throws IllegalArgumentException if the element is not of a known class
+	 */
+	public static ElementKind of(Element elem) {
+		if (elem instanceof Source) return SOURCE;
+		if (elem instanceof Tap) return TAP;
+		if (elem instanceof Multisplit) return MULTISPLIT;
+		if (elem instanceof Split) return SPLIT;
+		if (elem instanceof Sink) return SINK;
+		throw new IllegalArgumentException("Unsupported element: " + elem.getName());
+	}
+}
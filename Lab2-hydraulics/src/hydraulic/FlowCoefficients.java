@@ -0,0 +1,201 @@
+package hydraulic;
+
+import java.util.Arrays;
+
+/**
+ * Linear flow coefficients of a {@link CompiledSystem}.
+ *
+ * The flow reaching any element is the flow of the source it is connected
+ * to, multiplied by the proportions of the splits and multisplits along the
+ * path and by 0 or 1 for each tap. Each element is reached from a single
+ * source, so the coefficients of all the sources are kept in one array
+ * indexed by position: the coefficients of a source are those in the range
+ * of positions below it. Once computed, the flow of any element for any
+ * source flow is a single multiplication.
+ *
+ * The tap states are copied from the compiled system when the coefficients
+ * are computed and can then be changed with {@link #setOpen(int, boolean)},
+ * which updates only the coefficients below the tap; the proportions are
+ * those of the compiled system.
+ */
+public class FlowCoefficients {
+
+	private final CompiledSystem system;
+	/** position of the source feeding each position */
+	private final int[] source;
+	private final boolean[] open;
+	/** fraction of the source flow reaching the input of each position, NaN for the sources */
+	private final double[] in;
+	/** fraction of the source flow leaving each output slot */
+	private final double[] out;
+
+	FlowCoefficients(CompiledSystem system) {
+		int n = system.size();
+		this.system = system;
+		this.source = new int[n];
+		this.open = Arrays.copyOf(system.open, n);
+		this.in = new double[n];
+		this.out = new double[system.outputs.length];
+		for (int i = 0; i < n; i++) {
+			source[i] = system.parent[i] < 0 ? i : source[system.parent[i]];
+			compute(i);
+		}
+	}
+
+	/**
+	 * Computes the coefficients of the element at a given position from
+	 * the output coefficient of its upstream element
+	 */
+	private void compute(int i) {
+		int up = system.parentSlot[i];
+		double c = up < 0 ? SimulationObserver.NO_FLOW : out[up];
+		in[i] = c;
+		int first = system.firstOutput[i];
+		switch (system.kinds[i]) {
+		case SOURCE:
+			out[first] = 1.0;
+			break;
+		case TAP:
+			out[first] = open[i] ? c : 0.0;
+			break;
+		case SPLIT:
+		case MULTISPLIT:
+			for (int s = first; s < system.firstOutput[i + 1]; s++) {
+				out[s] = c * system.proportions[s];
+			}
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * retrieves the compiled system the coefficients refer to
+	 *
+	 * @return the compiled system
+	 */
+	public CompiledSystem getSystem() {
+		return system;
+	}
+
+	/**
+	 * retrieves the source feeding an element
+	 *
+	 * @param index the position of the element
+	 * @return the position of the source
+	 */
+	public int getSource(int index) {
+		return source[index];
+	}
+
+	/**
+	 * retrieves the fraction of the source flow reaching the input of an element
+	 *
+	 * @param index the position of the element
+	 * @return the coefficient, {@link SimulationObserver#NO_FLOW} for the sources
+	 */
+	public double getCoefficient(int index) {
+		return in[index];
+	}
+
+	/**
+	 * retrieves the fraction of the source flow leaving an output of an element
+	 *
+	 * @param index the position of the element
+	 * @param output the output index
+	 * @return the coefficient
+	 */
+	public double getOutCoefficient(int index, int output) {
+		if (output < 0 || output >= system.getOutputCount(index)) {
+			throw new IndexOutOfBoundsException("Invalid output index: " + output);
+		}
+		return out[system.firstOutput[index] + output];
+	}
+
+	/**
+	 * retrieves the coefficients of a source for every element of the system;
+	 * the source itself has coefficient 1 and the elements fed by other
+	 * sources have coefficient 0
+	 *
+	 * @param sourceIndex the position of the source
+	 * @return a new array with the coefficient of each position
+	 * @throws IllegalArgumentException if the position is not a source
+	 */
+	public double[] getCoefficients(int sourceIndex) {
+		checkSource(sourceIndex);
+		double[] result = new double[system.size()];
+		int end = system.subtreeEnd[sourceIndex];
+		System.arraycopy(in, sourceIndex + 1, result, sourceIndex + 1, end - sourceIndex - 1);
+		result[sourceIndex] = 1.0;
+		return result;
+	}
+
+	/**
+	 * computes the input flow of an element for a given flow of its source
+	 *
+	 * @param index the position of the element
+	 * @param sourceFlow the flow of the source feeding the element
+	 * @return the input flow, {@link SimulationObserver#NO_FLOW} for the sources
+	 */
+	public double getInFlow(int index, double sourceFlow) {
+		return in[index] * sourceFlow;
+	}
+
+	/**
+	 * computes an output flow of an element for a given flow of its source
+	 *
+	 * @param index the position of the element
+	 * @param output the output index
+	 * @param sourceFlow the flow of the source feeding the element
+	 * @return the output flow
+	 */
+	public double getOutFlow(int index, int output, double sourceFlow) {
+		return getOutCoefficient(index, output) * sourceFlow;
+	}
+
+	/**
+	 * tells whether a tap is considered open by the coefficients
+	 *
+	 * @param index the position of the tap
+	 * @return {@code true} if the tap is open
+	 */
+	public boolean isOpen(int index) {
+		return open[index];
+	}
+
+	/**
+	 * changes the state of a tap, updating the coefficients of
+	 * the elements below it
+	 *
+	 * @param index the position of the tap
+	 * @param open the new state
+	 * @throws IllegalArgumentException if the position is not a tap
+	 */
+	public void setOpen(int index, boolean open) {
+		if (system.kinds[index] != ElementKind.TAP) {
+			throw new IllegalArgumentException("Not a tap: " + system.elements[index].getName());
+		}
+		if (this.open[index] == open) return;
+		this.open[index] = open;
+		for (int j = index; j < system.subtreeEnd[index]; j++) {
+			compute(j);
+		}
+	}
+
+	/**
+	 * computes the maximum safe flow of each source, its bottleneck and the
+	 * headroom of each element, with the current coefficients, source flows
+	 * and maximum flows of the compiled system
+	 *
+	 * @return the capacity analysis
+	 */
+	public CapacityAnalysis computeCapacity() {
+		return new CapacityAnalysis(this);
+	}
+
+	private void checkSource(int index) {
+		if (system.kinds[index] != ElementKind.SOURCE) {
+			throw new IllegalArgumentException("Not a source: " + system.elements[index].getName());
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package hydraulic;
+
+/**
+ * A change of the parameters of an element at a given time,
+ * scheduled on a {@link TimeSeriesSimulation}.
+ */
+public class FlowEvent {
+
+	/**
+	 * The parameter changed by an event
+	 */
+	public enum Type {
+		/** opens or closes a tap */
+		TAP,
+		/** changes the flow of a source */
+		FLOW,
+		/** changes the proportions of a multisplit */
+		PROPORTIONS
+	}
+
+	private final long time;
+	private final Type type;
+	private final Element element;
+	private final boolean open;
+	private final double[] values;
+
+	private FlowEvent(long time, Type type, Element element, boolean open, double... values) {
+		this.time = time;
+		this.type = type;
+		this.element = element;
+		this.open = open;
+		this.values = values;
+	}
+
+	/**
+	 * creates an event opening or closing a tap
+	 *
+	 * @param time the time of the event
+	 * @param tap the tap
+	 * @param open the new state of the tap
+	 * @return the event
+	 */
+	public static FlowEvent setOpen(long time, Tap tap, boolean open) {
+		return new FlowEvent(time, Type.TAP, tap, open);
+	}
+
+	/**
+	 * creates an event changing the flow of a source
+	 *
+	 * @param time the time of the event
+	 * @param source the source
+	 * @param flow the new flow
+	 * @return the event
+	 */
+	public static FlowEvent setFlow(long time, Source source, double flow) {
+		return new FlowEvent(time, Type.FLOW, source, false, flow);
+	}
+
+	/**
+	 * creates an event changing the proportions of a multisplit; the
+	 * proportions are checked by {@link Multisplit#setProportions(double...)}
+	 * when the event is applied
+	 *
+	 * @param time the time of the event
+	 * @param multisplit the multisplit
+	 * @param proportions the new proportions
+	 * @return the event
+	 */
+	public static FlowEvent setProportions(long time, Multisplit multisplit, double... proportions) {
+		return new FlowEvent(time, Type.PROPORTIONS, multisplit, false, proportions.clone());
+	}
+
+	/**
+	 * retrieves the time of the event
+	 *
+	 * @return the time
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * retrieves the parameter changed by the event
+	 *
+	 * @return the type of the event
+	 */
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * retrieves the element changed by the event
+	 *
+	 * @return the element
+	 */
+	public Element getElement() {
+		return element;
+	}
+
+	/**
+	 * Changes the parameter of the element
+	 */
+	void apply() {
+		switch (type) {
+		case TAP:
+			((Tap) element).setOpen(open);
+			break;
+		case FLOW:
+			((Source) element).setFlow(values[0]);
+			break;
+		case PROPORTIONS:
+			((Multisplit) element).setProportions(values.clone());
+			break;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return time + " " + type + " " + element.getName();
+	}
+}
@@ -0,0 +1,49 @@
+package hydraulic;
+
+/**
+ * Primitive observer of the simulation of a {@link CompiledSystem}.
+ * 
+ * Unlike {@link SimulationObserver}, elements are identified by their
+ * position in the compiled system and by their {@link ElementKind}, and
+ * every flow is passed as a separate argument, so that notifications
+ * require no allocation at all.
+ * 
+ * For each simulated element, {@link #notifyFlow} is called first, followed
+ * by one call to {@link #notifyOutFlow} for each output and, if maximum flows
+ * are checked and exceeded, by {@link #notifyFlowError}.
+ */
+public interface FlowObserver {
+
+	/**
+	 * Simulation element info notification method.
+	 * 
+	 * @param index position of the element in the compiled system
+	 * @param kind kind of the element
+	 * @param inFlow input flow for the element, {@link SimulationObserver#NO_FLOW} for sources
+	 */
+	void notifyFlow(int index, ElementKind kind, double inFlow);
+
+	/**
+	 * Simulation output flow notification method.
+	 * 
+	 * @param index position of the element in the compiled system
+	 * @param output the output index
+	 * @param outFlow flow of the output
+	 */
+	default void notifyOutFlow(int index, int output, double outFlow) {
+		// does nothing by default
+	}
+
+	/**
+	 * Simulation error notification method, sent if the 
+	 * input flow of an element exceeds its maximum defined flow rate.
+	 * 
+	 * @param index position of the element in the compiled system
+	 * @param kind kind of the element
+	 * @param inFlow input flow for the element
+	 * @param maxFlow the maximum flow for the element
+	 */
+	default void notifyFlowError(int index, ElementKind kind, double inFlow, double maxFlow) {
+		// does nothing by default
+	}
+}
@@ -0,0 +1,114 @@
+package hydraulic;
+
+import java.util.Arrays;
+
+/**
+ * {@link FlowObserver} recording the flows notified for a {@link CompiledSystem}
+ * into arrays allocated once, one entry per position and per output.
+ * 
+ * The same buffer can receive any number of simulations of the system,
+ * full or incremental: each notification overwrites the values of the
+ * element, and the maximum flow error of an element is reset whenever the
+ * element is notified again.
+ * 
+ * Each notification writes only the entries of the notified element, so the
+ * buffer can also receive the unordered notifications of
+ * {@link CompiledSystem#simulateParallel(FlowObserver, boolean, int, NotificationOrder)},
+ * whose worker threads never notify the same element; the recorded values
+ * are then read once the simulation returns.
+ */
+public class FlowResultBuffer implements FlowObserver {
+
+	private final CompiledSystem system;
+	private final double[] inFlow;
+	private final double[] outFlow;
+	/** whether the last notification of each position reported an error */
+	private final boolean[] errors;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param system the compiled system whose flows will be recorded
+	 */
+	public FlowResultBuffer(CompiledSystem system) {
+		this.system = system;
+		this.inFlow = new double[system.size()];
+		this.outFlow = new double[system.outputs.length];
+		this.errors = new boolean[system.size()];
+		Arrays.fill(inFlow, SimulationObserver.NO_FLOW);
+		Arrays.fill(outFlow, SimulationObserver.NO_FLOW);
+	}
+
+	@Override
+	public void notifyFlow(int index, ElementKind kind, double inFlow) {
+		this.inFlow[index] = inFlow;
+		errors[index] = false;
+	}
+
+	@Override
+	public void notifyOutFlow(int index, int output, double outFlow) {
+		this.outFlow[system.firstOutput[index] + output] = outFlow;
+	}
+
+	@Override
+	public void notifyFlowError(int index, ElementKind kind, double inFlow, double maxFlow) {
+		errors[index] = true;
+	}
+
+	/**
+	 * retrieves the recorded input flow of an element
+	 * 
+	 * @param index the position of the element
+	 * @return the input flow, {@link SimulationObserver#NO_FLOW} if not notified
+	 */
+	public double getInFlow(int index) {
+		return inFlow[index];
+	}
+
+	/**
+	 * retrieves a recorded output flow of an element
+	 * 
+	 * @param index the position of the element
+	 * @param output the output index
+	 * @return the output flow, {@link SimulationObserver#NO_FLOW} if not notified
+	 */
+	public double getOutFlow(int index, int output) {
+		if (output < 0 || output >= system.getOutputCount(index)) {
+			throw new IndexOutOfBoundsException("Invalid output index: " + output);
+		}
+		return outFlow[system.firstOutput[index] + output];
+	}
+
+	/**
+	 * copies the recorded input flows of all the elements
+	 * 
+	 * @param target the array receiving the flows, by position
+	 */
+	public void copyInFlows(double[] target) {
+		System.arraycopy(inFlow, 0, target, 0, inFlow.length);
+	}
+
+	/**
+	 * tells whether the last notification of an element reported a maximum flow error
+	 * 
+	 * @param index the position of the element
+	 * @return {@code true} if the maximum flow was exceeded
+	 */
+	public boolean hasError(int index) {
+		return errors[index];
+	}
+
+	/**
+	 * retrieves the number of elements whose maximum flow is exceeded;
+	 * the errors are counted at each call
+	 * 
+	 * @return the number of errors
+	 */
+	public int getErrorCount() {
+		int count = 0;
+		for (boolean error : errors) {
+			if (error) count++;
+		}
+		return count;
+	}
+}
@@ -0,0 +1,117 @@
+package hydraulic;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads, one step at a time, the flows written by a {@link FlowSeriesWriter}.
+ * Only one block of steps is kept in memory.
+ */
+public class FlowSeriesReader implements Closeable {
+
+	private final DataInputStream in;
+	private final int positions;
+	/** values of the current block, steps of the same position are contiguous */
+	private double[] buffer = new double[0];
+	private int steps;
+	private int current = -1;
+	private long firstTime;
+	private long step;
+	private boolean ended;
+
+	/**
+	 * Constructor
+	 *
+	 * @param in the stream to read from
+	 * @throws IOException if the header cannot be read or is not valid
+	 */
+	public FlowSeriesReader(InputStream in) throws IOException {
+		this.in = new DataInputStream(new BufferedInputStream(in));
+		if (this.in.readInt() != FlowSeriesWriter.MAGIC) {
+			throw new IOException("Not a flow series");
+		}
+		this.positions = this.in.readInt();
+	}
+
+	/**
+	 * retrieves the number of positions of each step
+	 *
+	 * @return the number of positions
+	 */
+	public int getPositions() {
+		return positions;
+	}
+
+	/**
+	 * moves to the next step
+	 *
+	 * @return {@code false} if there are no more steps
+	 * @throws IOException if the next block cannot be read
+	 */
+	public boolean next() throws IOException {
+		if (ended) return false;
+		if (++current < steps) return true;
+		steps = in.readInt();
+		current = 0;
+		if (steps == 0) {
+			ended = true;
+			return false;
+		}
+		firstTime = in.readLong();
+		step = in.readLong();
+		if (buffer.length < positions * steps) {
+			buffer = new double[positions * steps];
+		}
+		for (int i = 0; i < positions; i++) {
+			int from = i * steps;
+			byte flag = in.readByte();
+			if (flag == FlowSeriesWriter.CONSTANT) {
+				double value = in.readDouble();
+				for (int k = 0; k < steps; k++) buffer[from + k] = value;
+			} else if (flag == FlowSeriesWriter.VARYING) {
+				for (int k = 0; k < steps; k++) buffer[from + k] = in.readDouble();
+			} else {
+				throw new IOException("Invalid column flag: " + flag);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * retrieves the time of the current step
+	 *
+	 * @return the time
+	 */
+	public long getTime() {
+		checkStep();
+		return firstTime + current * step;
+	}
+
+	/**
+	 * retrieves the flow of an element at the current step
+	 *
+	 * @param index the position of the element
+	 * @return the flow
+	 */
+	public double getFlow(int index) {
+		checkStep();
+		if (index < 0 || index >= positions) {
+			throw new IndexOutOfBoundsException("Invalid position: " + index);
+		}
+		return buffer[index * steps + current];
+	}
+
+	private void checkStep() {
+		if (ended || current < 0) {
+			throw new IllegalStateException("No current step");
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+}
@@ -0,0 +1,172 @@
+package hydraulic;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes the flows of the elements of a system over time in a compact
+ * binary columnar format, read back by {@link FlowSeriesReader}.
+ *
+ * Steps are buffered in blocks of a fixed number of steps at regular
+ * times; each block is written column by column, i.e. all the values of
+ * one position are contiguous. A column that does not change within the
+ * block, the common case between scheduled events, is written as a single
+ * value.
+ *
+ * The stream starts with a header (magic number, number of positions);
+ * each block holds the number of steps, the time of the first step, the
+ * time between steps and, for each position, a flag followed either by
+ * one value or by one value per step; a block with zero steps ends the
+ * stream.
+ */
+public class FlowSeriesWriter implements Closeable {
+
+	static final int MAGIC = 0x48465331;
+	static final byte CONSTANT = 0;
+	static final byte VARYING = 1;
+
+	/** default number of steps per block */
+	public static final int DEFAULT_BLOCK_STEPS = 64;
+
+	private final DataOutputStream out;
+	private final int positions;
+	private final int blockSteps;
+	/** values of the current block, steps of the same position are contiguous */
+	private final double[] buffer;
+	private int steps;
+	private long firstTime;
+	private long step;
+	private boolean closed;
+
+	/**
+	 * Constructor
+	 *
+	 * @param out the stream to write to
+	 * @param positions the number of positions of each step
+	 * @param blockSteps the number of steps per block
+	 * @throws IOException if the header cannot be written
+	 * @throws IllegalArgumentException if the number of steps per block is not positive
+	 */
+	public FlowSeriesWriter(OutputStream out, int positions, int blockSteps) throws IOException {
+		if (blockSteps <= 0) {
+			throw new IllegalArgumentException("Steps per block must be positive");
+		}
+		this.out = new DataOutputStream(new BufferedOutputStream(out));
+		this.positions = positions;
+		this.blockSteps = blockSteps;
+		this.buffer = new double[positions * blockSteps];
+		this.out.writeInt(MAGIC);
+		this.out.writeInt(positions);
+	}
+
+	/**
+	 * Constructor, with {@link #DEFAULT_BLOCK_STEPS} steps per block
+	 *
+	 * @param out the stream to write to
+	 * @param positions the number of positions of each step
+	 * @throws IOException if the header cannot be written
+	 */
+	public FlowSeriesWriter(OutputStream out, int positions) throws IOException {
+		this(out, positions, DEFAULT_BLOCK_STEPS);
+	}
+
+	/**
+	 * retrieves the number of positions of each step
+	 *
+	 * @return the number of positions
+	 */
+	public int getPositions() {
+		return positions;
+	}
+
+	/**
+	 * appends the flows of a step
+	 *
+	 * @param time the time of the step, greater than the previous one
+	 * @param flows the flow of each position
+	 * @throws IOException if a block cannot be written
+	 * @throws IllegalArgumentException if the time does not increase or the number of flows is wrong
+	 * @throws IllegalStateException if the writer is closed
+	 */
+	public void append(long time, double[] flows) throws IOException {
+		if (closed) {
+			throw new IllegalStateException("Writer closed");
+		}
+		if (flows.length != positions) {
+			throw new IllegalArgumentException("Flows must have " + positions + " positions");
+		}
+		if (steps > 0) {
+			long last = firstTime + (steps - 1) * step;
+			if (time <= last) {
+				throw new IllegalArgumentException("Time must increase: " + time);
+			}
+			if (steps == 1) {
+				step = time - firstTime;
+			} else if (time != last + step) {
+				writeBlock();
+			}
+		}
+		if (steps == 0) {
+			firstTime = time;
+			step = 0;
+		}
+		for (int i = 0; i < positions; i++) {
+			buffer[i * blockSteps + steps] = flows[i];
+		}
+		if (++steps == blockSteps) {
+			writeBlock();
+		}
+	}
+
+	private void writeBlock() throws IOException {
+		if (steps == 0) return;
+		out.writeInt(steps);
+		out.writeLong(firstTime);
+		out.writeLong(step);
+		for (int i = 0; i < positions; i++) {
+			int from = i * blockSteps;
+			long bits = Double.doubleToLongBits(buffer[from]);
+			boolean constant = true;
+			for (int k = 1; k < steps && constant; k++) {
+				constant = Double.doubleToLongBits(buffer[from + k]) == bits;
+			}
+			if (constant) {
+				out.writeByte(CONSTANT);
+				out.writeDouble(buffer[from]);
+			} else {
+				out.writeByte(VARYING);
+				for (int k = 0; k < steps; k++) {
+					out.writeDouble(buffer[from + k]);
+				}
+			}
+		}
+		steps = 0;
+	}
+
+	/**
+	 * writes the steps appended so far and flushes the stream
+	 *
+	 * @throws IOException if the steps cannot be written
+	 */
+	public void flush() throws IOException {
+		writeBlock();
+		out.flush();
+	}
+
+	/**
+	 * writes the steps appended so far, ends the series and closes the stream
+	 *
+	 * @throws IOException if the steps cannot be written
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) return;
+		writeBlock();
+		out.writeInt(0);
+		closed = true;
+		out.close();
+	}
+}
@@ -1,26 +1,82 @@
 package hydraulic;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
 /**
  * Main class that acts as a container of the elements for
  * the simulation of an hydraulics system 
  * 
+ * Elements are kept in insertion order in a growable array, together
+ * with an index of the elements by name and of their positions, so that
+ * lookups and deletions do not scan the system.
+ * 
+ * Simulations use the compiled form of the system (see {@link #compile()}),
+ * which is kept until elements are added, deleted or connected, and whose
+ * parameters are copied again from the elements at each simulation. Systems
+ * containing instances of other classes than the built-in elements, or of
+ * their subclasses, are simulated recursively by the elements themselves.
+ * A system must not be simulated by more threads at the same time.
  */
 public class HSystem {
 
-	private static final int MAX_ELEMENTS = 100;
-	private Element[] elements = new Element[MAX_ELEMENTS];
+	private static final int INITIAL_CAPACITY = 16;
+
+	private Element[] elements = new Element[INITIAL_CAPACITY];
+	/** number of used slots of {@code elements}, including the deleted ones */
+	private int end;
 	private int count;
 
+	/** first element added with each name */
+	private final Map<String, Element> names = new HashMap<>();
+	/** number of elements sharing their name with an indexed element */
+	private int shadowed;
+	/** position of each element in {@code elements} */
+	private final Map<Element, Integer> slots = new IdentityHashMap<>();
+
+	/** elements returned by {@link #getElements()}, until the system changes */
+	private Element[] snapshot;
+
+	/** compiled form used by the simulations, null if not compiled yet or if custom elements are present */
+	private CompiledSystem compiled;
+	/** whether {@code compiled} reflects the current elements and connections */
+	private boolean compiledValid;
+	/**
+	 * whether some element was also added to another system, which now receives
+	 * its connection changes, so that the compiled form cannot be kept
+	 */
+	private boolean shared;
+
 // R1
 	/**
 	 * Adds a new element to the system
 	 * 
+	 * Adding an element already in the system has no effect.
+	 * 
 	 * @param elem the new element to be added to the system
 	 */
 	public void addElement(Element elem){
-		if (count < MAX_ELEMENTS) {
-            elements[count++] = elem;
-        }
+		if (slots.containsKey(elem)) {
+			return;
+		}
+		if (end == elements.length) {
+			elements = Arrays.copyOf(elements, end * 2);
+		}
+		if (elem.system != null && elem.system != this) {
+			elem.system.shared = true;
+			elem.system.compiledValid = false;
+		}
+		elem.system = this;
+		slots.put(elem, end);
+		elements[end++] = elem;
+		count++;
+		if (names.putIfAbsent(elem.getName(), elem) != null) {
+			shadowed++;
+		}
+		snapshot = null;
+		compiledValid = false;
 	}
 
 	/**
@@ -35,13 +91,35 @@ public class HSystem {
 	/**
 	 * returns the element added so far to the system
 	 * 
+	 * The same array is returned until the system changes, 
+	 * therefore it must not be modified.
+	 * 
 	 * @return an array of elements whose length is equal to 
 	 * 							the number of added elements
 	 */
 	public Element[] getElements() {
-		Element[] result = new Element[count];
-       	System.arraycopy(elements, 0, result, 0, count);
-        return result;
+		Element[] result = snapshot;
+		if (result == null) {
+			result = new Element[count];
+			int n = 0;
+			for (int i = 0; i < end; i++) {
+				if (elements[i] != null) result[n++] = elements[i];
+			}
+			snapshot = result;
+		}
+		return result;
+	}
+
+	/**
+	 * returns the element of the system with the given name
+	 * 
+	 * If more elements share the name, the first one added is returned.
+	 * 
+	 * @param name name of the element
+	 * @return the element, or {@code null} if there is none with that name
+	 */
+	public Element getElement(String name) {
+		return names.get(name);
 	}
 
 // R4
@@ -57,9 +135,64 @@ public class HSystem {
 	 * @param observer the observer receiving notifications
 	 */
 	public void simulate(SimulationObserver observer){
-		for (int i = 0; i < count; i++) {
-			if (elements[i] instanceof Source) {
-				elements[i].simulate(observer,SimulationObserver.NO_FLOW,false);
+		simulate(observer, false);
+	}
+
+	/**
+	 * compiles the system into a flattened representation 
+	 * that can be simulated many times
+	 * 
+	 * The compiled system reflects the connections at the time of the call; 
+	 * it must be compiled again after they change.
+	 * 
+	 * @return the compiled system
+	 * @throws IllegalStateException if the connections form a cycle
+	 *              or the proportions of a multisplit are not defined
+	 */
+	public CompiledSystem compile() {
+		return CompiledSystem.compile(getElements());
+	}
+
+	/**
+	 * Returns the compiled form of the system with the current parameters,
+	 * compiling it again only if elements were added, deleted or connected
+	 * since the last compilation
+	 * 
+	 * @return the compiled system, or {@code null} if the system contains elements
+	 *         of classes other than the built-in ones
+	 */
+	private CompiledSystem compiled() {
+		if (compiledValid && !shared) {
+			if (compiled != null) compiled.refresh();
+			return compiled;
+		}
+		Element[] all = getElements();
+		boolean builtIn = true;
+		for (Element e : all) {
+			if (!ElementKind.isBuiltIn(e)) {
+				builtIn = false;
+				break;
+			}
+		}
+		compiled = builtIn ? CompiledSystem.compile(all) : null;
+		compiledValid = true;
+		return compiled;
+	}
+
+	/**
+	 * Invalidates the compiled form after an output of one of the elements changed
+	 */
+	void connectionsChanged() {
+		compiledValid = false;
+	}
+
+	/**
+	 * Simulates the system through the elements themselves, starting from each source
+	 */
+	private void simulateElements(SimulationObserver observer, boolean enableMaxFlowCheck) {
+		for (Element e : getElements()) {
+			if (e instanceof Source) {
+				e.simulate(observer, SimulationObserver.NO_FLOW, enableMaxFlowCheck);
 			}
 		}
 	}
@@ -71,24 +204,13 @@ public class HSystem {
 	 * with the given name from the system
 	 */
 	public boolean deleteElement(String name) {
-		Element toDelete = null;
-		int index = -1;
-
-		// Search for the element to delete
-		for (int i = 0; i < count; i++) {
-			if (elements[i].getName().equals(name)) {
-				toDelete = elements[i];
-				index = i;
-				break;
-			}
-		}
-
+		Element toDelete = names.get(name);
 		if (toDelete == null) {
 			return false; // Element not found
 		}
 
 		// Check if it's a Split or Multisplit with more than one connected output
-		if (toDelete instanceof Split || toDelete instanceof Multisplit) {
+		if (toDelete instanceof Split) {
 			Element[] outputs = toDelete.getOutputs();
 			int connected = 0;
 			for (Element out : outputs) {
@@ -99,27 +221,11 @@ public class HSystem {
 			}
 		}
 
-		// Identify the upstream element (the one that connects to this element)
-		Element upstream = null;
-		int upstreamIndex = -1;
-		for (Element e : elements) {
-			if (e == null || e == toDelete) continue;
-
-			Element[] outputs = e.getOutputs();
-			if (outputs != null) {
-				for (int i = 0; i < outputs.length; i++) {
-					if (outputs[i] == toDelete) {
-						upstream = e;
-						upstreamIndex = i;
-						break;
-					}
-				}
-			} else {
-				if (e.getOutput() == toDelete) {
-					upstream = e;
-					break;
-				}
-			}
+		// The upstream element (the one that connects to this element) is tracked by connect()
+		Element upstream = toDelete.upstream;
+		int upstreamIndex = toDelete.upstreamIndex;
+		if (upstream != null && !slots.containsKey(upstream)) {
+			upstream = null;
 		}
 
 		// Identify the downstream element (the one that this element connects to)
@@ -143,17 +249,53 @@ public class HSystem {
 			} else {
 				upstream.connect(downstream);
 			}
+		} else if (downstream != null && downstream.upstream == toDelete) {
+			downstream.upstream = null;
 		}
 
-		// Remove the element from the elements array
-		for (int i = index; i < count - 1; i++) {
-			elements[i] = elements[i + 1];
+		remove(toDelete);
+		return true;
+	}
+
+	/**
+	 * Removes an element from the storage and the indexes
+	 */
+	private void remove(Element elem) {
+		elements[slots.remove(elem)] = null;
+		if (elem.system == this) elem.system = null;
+		count--;
+		snapshot = null;
+		compiledValid = false;
+
+		String name = elem.getName();
+		if (names.get(name) != elem) {
+			shadowed--;
+		} else {
+			names.remove(name);
+			if (shadowed > 0) {
+				for (int i = 0; i < end; i++) {
+					if (elements[i] != null && elements[i].getName().equals(name)) {
+						names.put(name, elements[i]);
+						shadowed--;
+						break;
+					}
+				}
+			}
 		}
-		elements[--count] = null;
 
-		return true;
-		
-}
+		// compact once deleted slots outnumber the elements
+		if (end - count > Math.max(count, INITIAL_CAPACITY)) {
+			int n = 0;
+			for (int i = 0; i < end; i++) {
+				if (elements[i] != null) {
+					slots.put(elements[i], n);
+					elements[n++] = elements[i];
+				}
+			}
+			Arrays.fill(elements, n, end, null);
+			end = n;
+		}
+	}
 
 
 // R7
@@ -168,12 +310,47 @@ public class HSystem {
 	 * system must be defined.
 	 */
 	public void simulate(SimulationObserver observer, boolean enableMaxFlowCheck) {
-		for (int i = 0; i < count; i++) {
-			if (elements[i] instanceof Source) {
-				elements[i].simulate(observer, SimulationObserver.NO_FLOW, enableMaxFlowCheck);
-			}
-   		}
-	
+		CompiledSystem c = compiled();
+		if (c != null) {
+			c.simulate(observer, enableMaxFlowCheck);
+		} else {
+			simulateElements(observer, enableMaxFlowCheck);
+		}
+	}
+
+	/**
+	 * starts a parallel simulation of the system, where independent sources
+	 * and the large subtrees below splits are simulated concurrently;
+	 * see {@link CompiledSystem#simulateParallel(SimulationObserver, boolean, int, NotificationOrder)};
+	 * systems with custom elements are simulated sequentially by the elements
+	 * 
+	 * @param observer the observer receiving notifications
+	 * @param enableMaxFlowCheck whether maximum flows are checked
+	 * @param threshold the minimum number of elements of a subtree simulated by its own task
+	 * @param order whether notifications follow the sequential order
+	 * @throws IllegalArgumentException if the threshold is not positive
+	 */
+	public void simulateParallel(SimulationObserver observer, boolean enableMaxFlowCheck, int threshold,
+			NotificationOrder order) {
+		if (threshold <= 0) {
+			throw new IllegalArgumentException("Threshold must be positive");
+		}
+		CompiledSystem c = compiled();
+		if (c != null) {
+			c.simulateParallel(observer, enableMaxFlowCheck, threshold, order);
+		} else {
+			simulateElements(observer, enableMaxFlowCheck);
+		}
+	}
+
+	/**
+	 * computes the maximum flow each source can deliver before any element
+	 * exceeds its maximum flow, see {@link CapacityAnalysis}
+	 * 
+	 * @return the capacity analysis
+	 */
+	public CapacityAnalysis analyzeCapacity() {
+		return compile().computeCoefficients().computeCapacity();
 	}
 
 // R8
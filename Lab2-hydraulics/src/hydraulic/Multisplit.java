@@ -46,9 +46,20 @@ public class Multisplit extends Split {
 		this.proportions = proportions;
 	}
 
+	/**
+	 * Retrieves the proportion of the input flow sent to one output
+	 * 
+	 * @param index the output index
+	 * @return the proportion, or {@code NaN} if the proportions are not defined
+	 */
+	public double getProportion(int index) {
+		return proportions == null ? Double.NaN : proportions[index];
+	}
+
 	@Override
 	public void connect(Element elem, int index) {
 		if (index >= 0 && index < outputs.length) {
+			linkOutput(outputs[index], elem, index);
 			outputs[index] = elem;
 		} else {
 			throw new IndexOutOfBoundsException("Invalid output index: " + index);
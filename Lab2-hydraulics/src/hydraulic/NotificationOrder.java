@@ -0,0 +1,18 @@
+package hydraulic;
+
+/**
+ * Order of the notifications sent by a parallel simulation,
+ * see {@link CompiledSystem#simulateParallel(SimulationObserver, boolean, int, NotificationOrder)}.
+ */
+public enum NotificationOrder {
+	/**
+	 * notifications are sent by the calling thread once all the flows are
+	 * computed, in the same order as a sequential simulation
+	 */
+	ORDERED,
+	/**
+	 * notifications are sent by the worker threads as soon as each element
+	 * is computed, in no particular order; the observer must be thread-safe
+	 */
+	UNORDERED
+}
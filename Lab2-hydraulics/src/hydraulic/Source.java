@@ -28,9 +28,19 @@ public class Source extends Element {
 		this.flow = flow;
 	}
 
+	/**
+	 * Retrieves the flow of the source used during the simulation
+	 *
+	 * @return flow of the source (in cubic meters per hour)
+	 */
+	public double getFlow(){
+		return flow;
+	}
+
 
 	@Override
     public void connect(Element e) {
+        linkOutput(output, e, 0);
         this.output = e;
     }
 
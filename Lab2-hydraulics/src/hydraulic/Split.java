@@ -22,6 +22,7 @@ public class Split extends Element {
  	@Override
     public void connect(Element elem, int index) {
         if (index == 0 || index == 1) {
+            linkOutput(outputs[index], elem, index);
             outputs[index] = elem;
         }
     }
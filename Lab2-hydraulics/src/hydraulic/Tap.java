@@ -29,8 +29,18 @@ public class Tap extends Element {
 		this.open = open;
 	}
 
+	/**
+	 * Retrieves the opening status of the tap used during the simulation
+	 *
+	 * @return {@code true} if the tap is open
+	 */
+	public boolean isOpen(){
+		return open;
+	}
+
 	@Override
     public void connect(Element e) {
+        linkOutput(output, e, 0);
         this.output = e;
     }
 
@@ -0,0 +1,157 @@
+package hydraulic;
+
+import java.io.IOException;
+import java.util.PriorityQueue;
+
+/**
+ * Time-stepped simulation of a {@link CompiledSystem} driven by a schedule
+ * of {@link FlowEvent}s.
+ *
+ * Events are kept in a priority queue ordered by time, and events with the
+ * same time are applied in the order they were scheduled. At each step the
+ * events due are applied to their elements and the compiled system is
+ * updated incrementally, see {@link CompiledSystem#update(Element, FlowObserver, boolean)};
+ * the flow of every element is then appended to a {@link FlowSeriesWriter}.
+ * The flow of an element is its input flow, or the delivered flow for the
+ * sources.
+ */
+public class TimeSeriesSimulation {
+
+	private final CompiledSystem system;
+	private final PriorityQueue<Scheduled> events = new PriorityQueue<>();
+	private long sequence;
+	private long time;
+	/** current flow of each position */
+	private final double[] flows;
+	private final FlowObserver recorder = new FlowObserver() {
+		@Override
+		public void notifyFlow(int index, ElementKind kind, double inFlow) {
+			if (kind != ElementKind.SOURCE) flows[index] = inFlow;
+		}
+
+		@Override
+		public void notifyOutFlow(int index, int output, double outFlow) {
+			if (system.kinds[index] == ElementKind.SOURCE) flows[index] = outFlow;
+		}
+	};
+
+	/**
+	 * Constructor; the parameters of the elements are copied
+	 * and the system is simulated at the start time
+	 *
+	 * @param system the compiled system to simulate
+	 * @param startTime the time of the first step
+	 */
+	public TimeSeriesSimulation(CompiledSystem system, long startTime) {
+		this.system = system;
+		this.time = startTime;
+		this.flows = new double[system.size()];
+		system.refresh();
+		system.simulate(recorder, false);
+	}
+
+	/**
+	 * Constructor, see {@link #TimeSeriesSimulation(CompiledSystem, long)}
+	 *
+	 * @param system the system to simulate
+	 * @param startTime the time of the first step
+	 */
+	public TimeSeriesSimulation(HSystem system, long startTime) {
+		this(system.compile(), startTime);
+	}
+
+	private static class Scheduled implements Comparable<Scheduled> {
+		final FlowEvent event;
+		final long sequence;
+
+		Scheduled(FlowEvent event, long sequence) {
+			this.event = event;
+			this.sequence = sequence;
+		}
+
+		@Override
+		public int compareTo(Scheduled other) {
+			int c = Long.compare(event.getTime(), other.event.getTime());
+			return c != 0 ? c : Long.compare(sequence, other.sequence);
+		}
+	}
+
+	/**
+	 * adds an event to the schedule
+	 *
+	 * @param event the event
+	 * @throws IllegalArgumentException if the event is before the current time
+	 */
+	public void schedule(FlowEvent event) {
+		if (event.getTime() < time) {
+			throw new IllegalArgumentException("Event " + event + " is before the current time " + time);
+		}
+		events.add(new Scheduled(event, sequence++));
+	}
+
+	/**
+	 * retrieves the time of the next step
+	 *
+	 * @return the current time
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * retrieves the number of events not yet applied
+	 *
+	 * @return the number of pending events
+	 */
+	public int getPendingEvents() {
+		return events.size();
+	}
+
+	/**
+	 * retrieves the compiled system being simulated
+	 *
+	 * @return the compiled system
+	 */
+	public CompiledSystem getSystem() {
+		return system;
+	}
+
+	/**
+	 * retrieves the current flow of an element: its input flow,
+	 * or the delivered flow for the sources
+	 *
+	 * @param index the position of the element
+	 * @return the flow
+	 */
+	public double getFlow(int index) {
+		return flows[index];
+	}
+
+	/**
+	 * simulates the steps from the current time up to a given time
+	 * (exclusive), writing the flows of every step
+	 *
+	 * @param endTime the end time, exclusive
+	 * @param step the time between two steps
+	 * @param out the writer receiving the flows
+	 * @throws IOException if the flows cannot be written
+	 * @throws IllegalArgumentException if the step is not positive or
+	 * the writer has a different number of positions
+	 */
+	public void run(long endTime, long step, FlowSeriesWriter out) throws IOException {
+		if (step <= 0) {
+			throw new IllegalArgumentException("Step must be positive");
+		}
+		if (out.getPositions() != flows.length) {
+			throw new IllegalArgumentException("Writer must have " + flows.length + " positions");
+		}
+		for (; time < endTime; time += step) {
+			while (!events.isEmpty() && events.peek().event.getTime() <= time) {
+				FlowEvent event = events.poll().event;
+				event.apply();
+				system.update(event.getElement(), recorder, false);
+			}
+			out.append(time, flows);
+		}
+	}
+}
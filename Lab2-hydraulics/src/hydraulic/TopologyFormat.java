@@ -0,0 +1,505 @@
+package hydraulic;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streaming reader and writer of the topology of a {@link CompiledSystem},
+ * in a line-oriented text format and in a binary format.
+ *
+ * Both formats list the elements in the pre-order of the compiled system,
+ * each element followed by its outputs in index order, an unconnected
+ * output being listed as a placeholder. The shape of the tree is thus
+ * implied by the number of outputs of each element, and the readers build
+ * the elements and the compiled arrays in a single pass, checking the
+ * structure as they go, without the fluent builder nor the element array
+ * of {@link HSystem}.
+ *
+ * The text format uses the same notation as {@link Element#toString()}:
+ * one element per line, {@code [name]} followed by its kind and parameters,
+ * the elements below a source prefixed by {@code +-> } and indented by
+ * four columns per level, and {@code +-> *} for an unconnected output:
+ * <pre>
+ * [Src] Source 20.0
+ * +-> [Tap] Tap open max=40.0
+ *     +-> [T] Split
+ *         +-> [Sink A] Sink
+ *         +-> *
+ * </pre>
+ * The parameters are the flow for a source, {@code open} or {@code closed}
+ * for a tap, the number of outputs and the proportions for a multisplit,
+ * and an optional maximum flow for any element. Blank lines are ignored.
+ * The proportions are required, since a compiled system cannot hold a
+ * multisplit without them (see {@link CompiledSystem#refresh()}).
+ */
+public class TopologyFormat {
+
+	static final int MAGIC = 0x48545032;
+	/** binary marker of an unconnected output */
+	private static final byte NONE = -1;
+	/** binary marker of the end of the sources */
+	private static final byte END = -2;
+
+	private static final String ARROW = "+-> ";
+	private static final String INDENT = "    ";
+	private static final String UNCONNECTED = "*";
+	private static final String MAX = "max=";
+
+	private TopologyFormat() { // static methods only
+	}
+
+	/**
+	 * Assembles the compiled arrays and connects the elements
+	 * while they are read in pre-order
+	 */
+	private static class Assembler {
+		private final List<Element> order = new ArrayList<>();
+		private int[] parent = new int[16];
+		private int[] parentSlot = new int[16];
+		private int[] firstOutput = new int[17];
+		private int[] nextSlot = new int[16];
+		private int[] outputs = new int[16];
+		private int slots;
+		/** elements with outputs still to be read */
+		private int[] stack = new int[16];
+		private int depth;
+
+		int depth() {
+			return depth;
+		}
+
+		void add(Element e, int outs) throws IOException {
+			boolean source = e instanceof Source;
+			if (depth == 0 && !source) {
+				throw new IOException("Expected a source instead of " + e.getName());
+			}
+			if (depth > 0 && source) {
+				throw new IOException("Source " + e.getName() + " cannot be connected downstream");
+			}
+			int i = order.size();
+			order.add(e);
+			if (i == parent.length) {
+				parent = Arrays.copyOf(parent, i * 2);
+				parentSlot = Arrays.copyOf(parentSlot, i * 2);
+				nextSlot = Arrays.copyOf(nextSlot, i * 2);
+				firstOutput = Arrays.copyOf(firstOutput, i * 2 + 1);
+			}
+			if (depth == 0) {
+				parent[i] = -1;
+				parentSlot[i] = -1;
+			} else {
+				int up = stack[depth - 1];
+				int slot = nextSlot[up]++;
+				parent[i] = up;
+				parentSlot[i] = slot;
+				outputs[slot] = i;
+				Element upstream = order.get(up);
+				if (upstream.getOutputs() != null) {
+					upstream.connect(e, slot - firstOutput[up]);
+				} else {
+					upstream.connect(e);
+				}
+			}
+			if (slots + outs > outputs.length) {
+				outputs = Arrays.copyOf(outputs, Math.max(outputs.length * 2, slots + outs));
+			}
+			Arrays.fill(outputs, slots, slots + outs, -1);
+			firstOutput[i] = slots;
+			nextSlot[i] = slots;
+			slots += outs;
+			firstOutput[i + 1] = slots;
+			if (depth == stack.length) {
+				stack = Arrays.copyOf(stack, depth * 2);
+			}
+			stack[depth++] = i;
+			popCompleted();
+		}
+
+		void skip() throws IOException {
+			if (depth == 0) {
+				throw new IOException("Unconnected output outside of an element");
+			}
+			nextSlot[stack[depth - 1]]++;
+			popCompleted();
+		}
+
+		private void popCompleted() {
+			while (depth > 0 && nextSlot[stack[depth - 1]] == firstOutput[stack[depth - 1] + 1]) {
+				depth--;
+			}
+		}
+
+		CompiledSystem finish() throws IOException {
+			if (depth > 0) {
+				throw new IOException("Missing outputs of " + order.get(stack[depth - 1]).getName());
+			}
+			int n = order.size();
+			try {
+				return new CompiledSystem(order, Arrays.copyOf(parent, n), Arrays.copyOf(parentSlot, n),
+						Arrays.copyOf(firstOutput, n + 1), Arrays.copyOf(outputs, slots));
+			} catch (IllegalStateException e) {
+				throw new IOException(e.getMessage(), e);
+			}
+		}
+	}
+
+	private static Element create(ElementKind kind, String name, int outs) {
+		switch (kind) {
+		case SOURCE:
+			return new Source(name);
+		case TAP:
+			return new Tap(name);
+		case SPLIT:
+			return new Split(name);
+		case MULTISPLIT:
+			return new Multisplit(name, outs);
+		default:
+			return new Sink(name);
+		}
+	}
+
+	private static int outputCount(ElementKind kind, int multisplitOutputs) {
+		switch (kind) {
+		case SOURCE:
+		case TAP:
+			return 1;
+		case SPLIT:
+			return 2;
+		case MULTISPLIT:
+			return multisplitOutputs;
+		default:
+			return 0;
+		}
+	}
+
+	/**
+	 * reads a system in the text format
+	 *
+	 * @param in the reader
+	 * @return the compiled system
+	 * @throws IOException if the input cannot be read or is not valid
+	 */
+	public static CompiledSystem readText(Reader in) throws IOException {
+		BufferedReader lines = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+		Assembler assembler = new Assembler();
+		int number = 0;
+		for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+			number++;
+			if (line.isBlank()) continue;
+			try {
+				parseLine(line, assembler);
+			} catch (IOException | RuntimeException e) {
+				throw new IOException("Line " + number + ": " + e.getMessage(), e);
+			}
+		}
+		return assembler.finish();
+	}
+
+	private static void parseLine(String line, Assembler assembler) throws IOException {
+		int column = 0;
+		while (column < line.length() && line.charAt(column) == ' ') column++;
+		String rest = line.substring(column);
+		int depth = 0;
+		if (rest.startsWith(ARROW)) {
+			if (column % INDENT.length() != 0) {
+				throw new IOException("Invalid indentation");
+			}
+			depth = column / INDENT.length() + 1;
+			rest = rest.substring(ARROW.length());
+		} else if (column > 0) {
+			throw new IOException("Missing " + ARROW.trim());
+		}
+		if (depth != assembler.depth()) {
+			throw new IOException("Expected depth " + assembler.depth() + " instead of " + depth);
+		}
+		if (rest.trim().equals(UNCONNECTED)) {
+			assembler.skip();
+			return;
+		}
+		int close = rest.lastIndexOf("] ");
+		if (!rest.startsWith("[") || close < 0) {
+			throw new IOException("Expected [name] followed by the kind");
+		}
+		String name = rest.substring(1, close);
+		String[] fields = rest.substring(close + 2).trim().split(" +");
+		int count = fields.length;
+		double max = 0;
+		if (fields[count - 1].startsWith(MAX)) {
+			max = Double.parseDouble(fields[--count].substring(MAX.length()));
+		}
+		ElementKind kind = kindOf(fields[0]);
+		int outs = outputCount(kind, kind == ElementKind.MULTISPLIT ? Integer.parseInt(field(fields, 1, count)) : 0);
+		Element e = create(kind, name, outs);
+		e.setMaxFlow(max);
+		int expected = 1;
+		switch (kind) {
+		case SOURCE:
+			((Source) e).setFlow(Double.parseDouble(field(fields, 1, count)));
+			expected = 2;
+			break;
+		case TAP:
+			String state = field(fields, 1, count);
+			if (!state.equals("open") && !state.equals("closed")) {
+				throw new IOException("Expected open or closed instead of " + state);
+			}
+			((Tap) e).setOpen(state.equals("open"));
+			expected = 2;
+			break;
+		case MULTISPLIT:
+			double[] proportions = new double[outs];
+			for (int k = 0; k < outs; k++) {
+				proportions[k] = Double.parseDouble(field(fields, 2 + k, count));
+			}
+			((Multisplit) e).setProportions(proportions);
+			expected = 2 + outs;
+			break;
+		default:
+			break;
+		}
+		if (count != expected) {
+			throw new IOException("Unexpected parameters for " + kind.getTypeName());
+		}
+		assembler.add(e, outs);
+	}
+
+	private static String field(String[] fields, int index, int count) throws IOException {
+		if (index >= count) {
+			throw new IOException("Missing parameters for " + fields[0]);
+		}
+		return fields[index];
+	}
+
+	private static ElementKind kindOf(String typeName) throws IOException {
+		for (ElementKind kind : ElementKind.VALUES) {
+			if (kind.getTypeName().equals(typeName)) return kind;
+		}
+		throw new IOException("Unknown kind: " + typeName);
+	}
+
+	/**
+	 * writes a system in the text format
+	 *
+	 * @param system the compiled system
+	 * @param out the writer
+	 * @throws IOException if the output cannot be written
+	 * @throws IllegalArgumentException if an element is reached along several
+	 * paths, its name contains a line break or the proportions of a multisplit
+	 * are not defined
+	 */
+	public static void writeText(CompiledSystem system, Writer out) throws IOException {
+		StringBuilder line = new StringBuilder();
+		walk(system, (i, depth) -> {
+			line.setLength(0);
+			if (depth > 0) {
+				for (int d = 1; d < depth; d++) line.append(INDENT);
+				line.append(ARROW);
+			}
+			if (i < 0) {
+				line.append(UNCONNECTED);
+			} else {
+				appendElement(system, i, line);
+			}
+			line.append('\n');
+			out.write(line.toString());
+		});
+		out.flush();
+	}
+
+	private static void appendElement(CompiledSystem system, int i, StringBuilder line) {
+		Element e = system.elements[i];
+		if (e.getName().indexOf('\n') >= 0 || e.getName().indexOf('\r') >= 0) {
+			throw new IllegalArgumentException("Name with a line break: " + e.getName());
+		}
+		ElementKind kind = system.kinds[i];
+		line.append('[').append(e.getName()).append("] ").append(kind.getTypeName());
+		switch (kind) {
+		case SOURCE:
+			line.append(' ').append(((Source) e).getFlow());
+			break;
+		case TAP:
+			line.append(((Tap) e).isOpen() ? " open" : " closed");
+			break;
+		case MULTISPLIT:
+			int outs = system.getOutputCount(i);
+			line.append(' ').append(outs);
+			for (int k = 0; k < outs; k++) {
+				line.append(' ').append(proportion(system, i, k));
+			}
+			break;
+		default:
+			break;
+		}
+		if (e.getMaxFlow() != 0) {
+			line.append(' ').append(MAX).append(e.getMaxFlow());
+		}
+	}
+
+	/**
+	 * Retrieves a proportion of the multisplit at a given position
+	 *
+	 * @throws IllegalArgumentException if the proportions are not defined
+	 */
+	private static double proportion(CompiledSystem system, int i, int output) {
+		double p = ((Multisplit) system.elements[i]).getProportion(output);
+		if (Double.isNaN(p)) {
+			throw new IllegalArgumentException("Proportions not defined for " + system.elements[i].getName());
+		}
+		return p;
+	}
+
+	/**
+	 * reads a system in the binary format
+	 *
+	 * @param in the input stream
+	 * @return the compiled system
+	 * @throws IOException if the input cannot be read or is not valid
+	 */
+	public static CompiledSystem readBinary(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+		if (data.readInt() != MAGIC) {
+			throw new IOException("Not a binary topology");
+		}
+		Assembler assembler = new Assembler();
+		for (byte tag = data.readByte(); tag != END; tag = data.readByte()) {
+			if (tag == NONE) {
+				assembler.skip();
+				continue;
+			}
+			if (tag < 0 || tag >= ElementKind.VALUES.length) {
+				throw new IOException("Invalid element kind: " + tag);
+			}
+			ElementKind kind = ElementKind.VALUES[tag];
+			String name = data.readUTF();
+			double max = data.readDouble();
+			int outs = outputCount(kind, kind == ElementKind.MULTISPLIT ? data.readInt() : 0);
+			if (outs < 0) {
+				throw new IOException("Invalid number of outputs for " + name);
+			}
+			Element e = create(kind, name, outs);
+			e.setMaxFlow(max);
+			switch (kind) {
+			case SOURCE:
+				((Source) e).setFlow(data.readDouble());
+				break;
+			case TAP:
+				((Tap) e).setOpen(data.readBoolean());
+				break;
+			case MULTISPLIT:
+				double[] proportions = new double[outs];
+				for (int k = 0; k < outs; k++) proportions[k] = data.readDouble();
+				try {
+					((Multisplit) e).setProportions(proportions);
+				} catch (IllegalArgumentException ex) {
+					throw new IOException(name + ": " + ex.getMessage(), ex);
+				}
+				break;
+			default:
+				break;
+			}
+			assembler.add(e, outs);
+		}
+		return assembler.finish();
+	}
+
+	/**
+	 * writes a system in the binary format
+	 *
+	 * @param system the compiled system
+	 * @param out the output stream
+	 * @throws IOException if the output cannot be written
+	 * @throws IllegalArgumentException if an element is reached along several
+	 * paths or the proportions of a multisplit are not defined
+	 */
+	public static void writeBinary(CompiledSystem system, OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+		data.writeInt(MAGIC);
+		walk(system, (i, depth) -> {
+			if (i < 0) {
+				data.writeByte(NONE);
+				return;
+			}
+			Element e = system.elements[i];
+			ElementKind kind = system.kinds[i];
+			data.writeByte(kind.ordinal());
+			data.writeUTF(e.getName());
+			data.writeDouble(e.getMaxFlow());
+			switch (kind) {
+			case SOURCE:
+				data.writeDouble(((Source) e).getFlow());
+				break;
+			case TAP:
+				data.writeBoolean(((Tap) e).isOpen());
+				break;
+			case MULTISPLIT:
+				int outs = system.getOutputCount(i);
+				data.writeInt(outs);
+				for (int k = 0; k < outs; k++) {
+					data.writeDouble(proportion(system, i, k));
+				}
+				break;
+			default:
+				break;
+			}
+		});
+		data.writeByte(END);
+		data.flush();
+	}
+
+	/**
+	 * Receives the entries of a system in pre-order
+	 */
+	@FunctionalInterface
+	private interface EntryVisitor {
+		/**
+		 * @param index the position of the element, -1 for an unconnected output
+		 * @param depth the number of elements above the entry
+		 */
+		void visit(int index, int depth) throws IOException;
+	}
+
+	/**
+	 * Visits the elements in pre-order, each followed by its outputs,
+	 * including the unconnected ones
+	 */
+	private static void walk(CompiledSystem system, EntryVisitor visitor) throws IOException {
+		int n = system.size();
+		int[] next = Arrays.copyOf(system.firstOutput, n);
+		int[] stack = new int[16];
+		for (int root = 0; root < n; root = system.subtreeEnd[root]) {
+			int depth = 0;
+			stack[depth++] = root;
+			visit(system, visitor, root, 0);
+			while (depth > 0) {
+				int i = stack[depth - 1];
+				if (next[i] == system.firstOutput[i + 1]) {
+					depth--;
+					continue;
+				}
+				int child = system.outputs[next[i]++];
+				visit(system, visitor, child, depth);
+				if (child >= 0) {
+					if (depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+					stack[depth++] = child;
+				}
+			}
+		}
+	}
+
+	private static void visit(CompiledSystem system, EntryVisitor visitor, int i, int depth) throws IOException {
+		if (i >= 0 && system.indexOf(system.elements[i]) != i) {
+			throw new IllegalArgumentException("Element reached along several paths: " + system.elements[i].getName());
+		}
+		visitor.visit(i, depth);
+	}
+}
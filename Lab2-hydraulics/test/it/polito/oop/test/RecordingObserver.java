@@ -0,0 +1,21 @@
+package it.polito.oop.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import hydraulic.SimulationObserver;
+
+/**
+ * Records every notification as a string, in the order received,
+ * so that two simulations can be compared
+ */
+class RecordingObserver implements SimulationObserver {
+	final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+	@Override
+	public void notify(Level level, String type, String name, double inFlow, double... flows) {
+		events.add(level + " " + type + " " + name + " " + inFlow + " " + Arrays.toString(flows));
+	}
+}
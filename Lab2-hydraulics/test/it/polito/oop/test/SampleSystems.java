@@ -0,0 +1,62 @@
+package it.polito.oop.test;
+
+import hydraulic.HSystem;
+import hydraulic.Tap;
+
+/**
+ * Systems shared by the tests of the compiled and batch simulations.
+ */
+class SampleSystems {
+
+	private SampleSystems() {}
+
+	/**
+	 * builds the tree
+	 * Src → Tap → MS(0.5, 0.25, 0.25) → { T → { Sink A, Tap B → Sink B }, Sink C, Tap D → Sink D }
+	 * with Tap open, Tap B and Tap D closed, and no maximum flows
+	 * 
+	 * @param flow the flow of the source
+	 * @return the system
+	 */
+	static HSystem tree(double flow) {
+		return HSystem.build().
+			addSource("Src").withFlow(flow).
+			linkToTap("Tap").open().
+			linkToMultisplit("MS", 3).withPropotions(new double[] {0.5, 0.25, 0.25}).withOutputs().
+				linkToSplit("T").withOutputs().
+					linkToSink("Sink A").
+					then().linkToTap("Tap B").linkToSink("Sink B").
+				done().
+				then().linkToSink("Sink C").
+				then().linkToTap("Tap D").linkToSink("Sink D").
+			done().
+			complete();
+	}
+
+	/**
+	 * builds the tree of {@link #tree(double)} with Tap B open
+	 * 
+	 * @param flow the flow of the source
+	 * @return the system
+	 */
+	static HSystem openTree(double flow) {
+		HSystem s = tree(flow);
+		((Tap) s.getElement("Tap B")).setOpen(true);
+		return s;
+	}
+
+	/**
+	 * builds the tree of {@link #tree(double)} with the maximum flows
+	 * Tap 40, T 15 and Sink A 5
+	 * 
+	 * @param flow the flow of the source
+	 * @return the system
+	 */
+	static HSystem limitedTree(double flow) {
+		HSystem s = tree(flow);
+		s.getElement("Tap").setMaxFlow(40);
+		s.getElement("T").setMaxFlow(15);
+		s.getElement("Sink A").setMaxFlow(5);
+		return s;
+	}
+}
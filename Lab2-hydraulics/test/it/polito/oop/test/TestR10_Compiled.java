@@ -0,0 +1,233 @@
+package it.polito.oop.test;
+
+import hydraulic.*;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+
+public class TestR10_Compiled {
+
+	private static HSystem tree() {
+		HSystem s = SampleSystems.openTree(24);
+		s.getElement("MS").setMaxFlow(20);
+		s.getElement("Sink A").setMaxFlow(5);
+		return s;
+	}
+
+	@Test
+	public void testSameNotificationsAsElements(){
+		HSystem s = tree();
+		Element src = s.getElements()[0];
+
+		for (boolean check : new boolean[] {false, true}) {
+			RecordingObserver recursive = new RecordingObserver();
+			src.simulate(recursive, SimulationObserver.NO_FLOW, check);
+			RecordingObserver compiled = new RecordingObserver();
+			s.simulate(compiled, check);
+
+			assertEquals("Compiled simulation should notify like the elements", recursive.events, compiled.events);
+		}
+	}
+
+	@Test
+	public void testCompiledLayout(){
+		HSystem s = tree();
+		CompiledSystem c = s.compile();
+		c.simulate();
+
+		assertEquals("Wrong number of compiled elements", s.size(), c.size());
+		assertEquals(ElementKind.SOURCE, c.getKind(0));
+		assertEquals(ElementKind.MULTISPLIT, c.getKind(c.indexOf(s.getElement("MS"))));
+		int ms = c.indexOf(s.getElement("MS"));
+		assertEquals(3, c.getOutputCount(ms));
+		assertEquals(24.0, c.getInFlow(ms), 0.0);
+		assertEquals(6.0, c.getOutFlow(ms, 2), 0.0);
+		assertEquals(6.0, c.getInFlow(c.indexOf(s.getElement("Sink B"))), 0.0);
+		assertEquals(0.0, c.getInFlow(c.indexOf(s.getElement("Sink D"))), 0.0);
+		assertTrue(Double.isNaN(c.getInFlow(0)));
+		assertEquals(-1, c.indexOf(new Sink("Other")));
+	}
+
+	@Test
+	public void testReuseWithNewParameters(){
+		HSystem s = tree();
+		CompiledSystem c = s.compile();
+		Source src = (Source) s.getElement("Src");
+		Tap tapD = (Tap) s.getElement("Tap D");
+		int sinkD = c.indexOf(s.getElement("Sink D"));
+
+		c.simulate();
+		assertEquals(0.0, c.getInFlow(sinkD), 0.0);
+
+		src.setFlow(100);
+		tapD.setOpen(true);
+		c.simulate();
+		assertEquals("Parameters should be copied only on refresh", 0.0, c.getInFlow(sinkD), 0.0);
+
+		c.refresh();
+		c.simulate();
+		assertEquals(25.0, c.getInFlow(sinkD), 0.0);
+		assertEquals(25.0, c.getInFlow(c.indexOf(s.getElement("Sink A"))), 0.0);
+	}
+
+	@Test
+	public void testDeepChain(){
+		int taps = 100_000;
+		HSystem s = new HSystem();
+		Source src = new Source("Src");
+		src.setFlow(7);
+		s.addElement(src);
+		Element last = src;
+		for (int i = 0; i < taps; i++) {
+			Tap tap = new Tap("Tap " + i);
+			tap.setOpen(true);
+			s.addElement(tap);
+			last.connect(tap);
+			last = tap;
+		}
+		Sink sink = new Sink("Sink");
+		s.addElement(sink);
+		last.connect(sink);
+
+		StoreObserver obs = new StoreObserver();
+		s.simulate(obs);
+		assertEquals("Wrong sink input flow", 7.0, obs.inFlowOf("Sink"), 0.0);
+		assertEquals(7.0, obs.inFlowOf("Tap " + (taps - 1)), 0.0);
+	}
+
+	@Test
+	public void testCycle(){
+		HSystem s = new HSystem();
+		Source src = new Source("Src");
+		Tap a = new Tap("A");
+		Tap b = new Tap("B");
+		s.addElement(src);
+		s.addElement(a);
+		s.addElement(b);
+		src.connect(a);
+		a.connect(b);
+		b.connect(a);
+
+		assertThrows(IllegalStateException.class, s::compile);
+	}
+
+	@Test
+	public void testSharedElement(){
+		HSystem s = new HSystem();
+		Source src = new Source("Src");
+		src.setFlow(8);
+		Split t = new Split("T");
+		Sink sink = new Sink("Sink");
+		s.addElement(src);
+		s.addElement(t);
+		s.addElement(sink);
+		src.connect(t);
+		t.connect(sink, 0);
+		t.connect(sink, 1);
+
+		RecordingObserver recursive = new RecordingObserver();
+		src.simulate(recursive, SimulationObserver.NO_FLOW, false);
+		RecordingObserver compiled = new RecordingObserver();
+		s.simulate(compiled);
+		assertEquals(4, compiled.events.size());
+		assertEquals(recursive.events, compiled.events);
+	}
+
+	@Test
+	public void testChangesAfterSimulation(){
+		HSystem s = tree();
+		RecordingObserver first = new RecordingObserver();
+		s.simulate(first);
+		RecordingObserver again = new RecordingObserver();
+		s.simulate(again);
+		assertEquals("An unchanged system should simulate the same", first.events, again.events);
+
+		// parameters, connections and elements are picked up by the next simulation
+		((Source) s.getElement("Src")).setFlow(48);
+		StoreObserver obs = new StoreObserver();
+		s.simulate(obs);
+		assertEquals(12.0, obs.inFlowOf("Sink C"), 0.0);
+
+		Sink other = new Sink("Other");
+		s.addElement(other);
+		((Split) s.getElement("T")).connect(other, 0);
+		obs = new StoreObserver();
+		s.simulate(obs);
+		assertEquals(12.0, obs.inFlowOf("Other"), 0.0);
+		assertFalse(obs.contains("Sink A"));
+
+		assertTrue(s.deleteElement("Tap"));
+		obs = new StoreObserver();
+		s.simulate(obs);
+		assertFalse(obs.contains("Tap"));
+		assertEquals(12.0, obs.inFlowOf("Sink C"), 0.0);
+
+		Source second = new Source("Second");
+		second.setFlow(5);
+		Sink sink = new Sink("Second sink");
+		second.connect(sink);
+		s.addElement(second);
+		s.addElement(sink);
+		obs = new StoreObserver();
+		s.simulate(obs);
+		assertEquals(5.0, obs.inFlowOf("Second sink"), 0.0);
+	}
+
+	@Test
+	public void testSharedElementChangesAreSeen(){
+		HSystem s = tree();
+		s.simulate(new StoreObserver());
+
+		// the split is also added to another system, which becomes its owner
+		HSystem other = new HSystem();
+		Split t = (Split) s.getElement("T");
+		other.addElement(t);
+		Sink added = new Sink("Added");
+		s.addElement(added);
+		s.simulate(new StoreObserver());
+		t.connect(added, 1);
+
+		StoreObserver obs = new StoreObserver();
+		s.simulate(obs);
+		assertTrue("A connection made after sharing the element should be simulated", obs.contains("Added"));
+		assertFalse(obs.contains("Tap B"));
+	}
+
+	/**
+	 * a tap that lets only half of the flow through
+	 */
+	private static class LeakyTap extends Tap {
+		LeakyTap(String name) {
+			super(name);
+		}
+
+		@Override
+		public void simulate(SimulationObserver observer, double inFlow, boolean enableMaxFlowCheck) {
+			observer.notifyFlow("Tap", getName(), inFlow, inFlow / 2);
+			getOutput().simulate(observer, inFlow / 2, enableMaxFlowCheck);
+		}
+	}
+
+	@Test
+	public void testCustomElements(){
+		HSystem s = new HSystem();
+		Source src = new Source("Src");
+		src.setFlow(8);
+		LeakyTap tap = new LeakyTap("Leaky");
+		Sink sink = new Sink("Sink");
+		s.addElement(src);
+		s.addElement(tap);
+		s.addElement(sink);
+		src.connect(tap);
+		tap.connect(sink);
+
+		StoreObserver obs = new StoreObserver();
+		s.simulate(obs);
+		assertEquals("Custom elements should simulate themselves", 4.0, obs.inFlowOf("Sink"), 0.0);
+		obs = new StoreObserver();
+		s.simulateParallel(obs, false, 1, NotificationOrder.ORDERED);
+		assertEquals(4.0, obs.inFlowOf("Sink"), 0.0);
+	}
+}
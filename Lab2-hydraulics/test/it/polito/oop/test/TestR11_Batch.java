@@ -0,0 +1,109 @@
+package it.polito.oop.test;
+
+import hydraulic.*;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+
+public class TestR11_Batch {
+
+	@Test
+	public void testScenariosMatchSingleSimulations(){
+		HSystem s = SampleSystems.limitedTree(10);
+		CompiledSystem c = s.compile();
+		int[] sources = c.getSources();
+		int[] taps = c.getTaps();
+		assertEquals(1, sources.length);
+		assertEquals(3, taps.length);
+
+		int scenarios = 1000;
+		Random random = new Random(7);
+		double[][] flows = new double[scenarios][1];
+		boolean[][] states = new boolean[scenarios][3];
+		for (int k = 0; k < scenarios; k++) {
+			flows[k][0] = random.nextDouble() * 60;
+			for (int t = 0; t < 3; t++) states[k][t] = random.nextBoolean();
+		}
+		BatchResult result = c.simulate(flows, states);
+		assertEquals(scenarios, result.getScenarioCount());
+
+		CompiledSystem single = s.compile();
+		for (int k = 0; k < scenarios; k += 37) {
+			((Source) c.getElement(sources[0])).setFlow(flows[k][0]);
+			for (int t = 0; t < 3; t++) ((Tap) c.getElement(taps[t])).setOpen(states[k][t]);
+			single.refresh();
+			single.simulate();
+			int violations = 0;
+			for (int i = 0; i < c.size(); i++) {
+				double in = single.getInFlow(i);
+				assertEquals("Scenario " + k, in, result.getInFlow(i, k), 0.0);
+				for (int o = 0; o < c.getOutputCount(i); o++) {
+					assertEquals(single.getOutFlow(i, o), result.getOutFlow(i, o, k), 0.0);
+				}
+				double max = c.getElement(i).getMaxFlow();
+				boolean violated = max > 0 && in > max;
+				assertEquals(violated, result.isViolated(i, k));
+				if (violated) violations++;
+			}
+			assertEquals(violations, result.getViolationCount(k));
+			assertEquals(violations, result.getViolations(k).length);
+		}
+	}
+
+	@Test
+	public void testCompiledTapStates(){
+		HSystem s = SampleSystems.limitedTree(10);
+		CompiledSystem c = s.compile();
+		BatchResult result = c.simulate(new double[][] { {8}, {100} }, null);
+
+		int sinkA = c.indexOf(s.getElement("Sink A"));
+		int sinkB = c.indexOf(s.getElement("Sink B"));
+		assertEquals(2.0, result.getInFlow(sinkA, 0), 0.0);
+		assertEquals(0.0, result.getInFlow(sinkB, 0), 0.0);
+		assertArrayEquals(new double[] {2.0, 25.0}, result.getInFlows(sinkA), 0.0);
+
+		// with 100, the tap, the split and sink A exceed their maximum flow
+		assertEquals(0, result.getViolationCount(0));
+		assertEquals(3, result.getViolationCount(1));
+		assertArrayEquals(new int[] {1, 3, 4}, result.getViolations(1));
+	}
+
+	@Test
+	public void testInvalidScenarios(){
+		CompiledSystem c = SampleSystems.limitedTree(10).compile();
+		assertThrows(IllegalArgumentException.class, () -> c.simulate(new double[][] { {1, 2} }, null));
+		assertThrows(IllegalArgumentException.class,
+			() -> c.simulate(new double[][] { {1} }, new boolean[][] { {true} }));
+		assertThrows(IllegalArgumentException.class,
+			() -> c.simulate(new double[][] { {1} }, new boolean[2][3]));
+		BatchResult empty = c.simulate(new double[0][], null);
+		assertEquals(0, empty.getScenarioCount());
+		assertThrows(IndexOutOfBoundsException.class, () -> empty.getInFlow(0, 0));
+	}
+
+	@Test
+	public void testTooManyScenarios(){
+		// 2^16 taps in a chain: 2^15 scenarios would need more than 2^31 flows per array
+		HSystem s = new HSystem();
+		Source src = new Source("Src");
+		s.addElement(src);
+		Element last = src;
+		for (int i = 0; i < 1 << 16; i++) {
+			Tap tap = new Tap("T" + i);
+			s.addElement(tap);
+			last.connect(tap);
+			last = tap;
+		}
+		CompiledSystem c = s.compile();
+		double[][] flows = new double[1 << 15][];
+		Arrays.fill(flows, new double[] {1.0});
+
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> c.simulate(flows, null));
+		assertTrue(e.getMessage(), e.getMessage().contains("smaller batches"));
+	}
+}
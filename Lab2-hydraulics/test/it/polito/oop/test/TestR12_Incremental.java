@@ -0,0 +1,106 @@
+package it.polito.oop.test;
+
+import hydraulic.*;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class TestR12_Incremental {
+
+	private static class NameObserver implements SimulationObserver {
+		final List<String> names = new ArrayList<>();
+		final List<String> errors = new ArrayList<>();
+
+		@Override
+		public void notify(Level level, String type, String name, double inFlow, double... flows) {
+			(level == Level.STATUS ? names : errors).add(name);
+		}
+	}
+
+	private HSystem s;
+	private CompiledSystem c;
+
+	@Before
+	public void setUp(){
+		s = SampleSystems.openTree(24);
+		c = s.compile();
+	}
+
+	private void assertSameAsFullSimulation() {
+		CompiledSystem full = s.compile();
+		full.simulate();
+		for (int i = 0; i < c.size(); i++) {
+			assertEquals("Wrong flow of " + c.getElement(i).getName(), full.getInFlow(i), c.getInFlow(i), 0.0);
+			for (int o = 0; o < c.getOutputCount(i); o++) {
+				assertEquals(full.getOutFlow(i, o), c.getOutFlow(i, o), 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void testFirstUpdateSimulatesAll(){
+		NameObserver obs = new NameObserver();
+		c.update(s.getElement("Tap D"), obs);
+		assertEquals(s.size(), obs.names.size());
+		assertSameAsFullSimulation();
+	}
+
+	@Test
+	public void testTapToggle(){
+		c.simulate(new NameObserver(), false);
+
+		Tap tapD = (Tap) s.getElement("Tap D");
+		tapD.setOpen(true);
+		NameObserver obs = new NameObserver();
+		c.update(tapD, obs);
+		assertEquals(List.of("Tap D", "Sink D"), obs.names);
+		assertSameAsFullSimulation();
+
+		// closing the main tap changes everything below it
+		Tap tap = (Tap) s.getElement("Tap");
+		tap.setOpen(false);
+		obs = new NameObserver();
+		c.update(tap, obs);
+		assertEquals(List.of("Tap", "MS", "T", "Sink A", "Tap B", "Sink B", "Sink C", "Tap D", "Sink D"), obs.names);
+		assertSameAsFullSimulation();
+
+		// no flow reaches Tap B any more: toggling it changes nothing
+		((Tap) s.getElement("Tap B")).setOpen(false);
+		obs = new NameObserver();
+		c.update(s.getElement("Tap B"), obs);
+		assertTrue(obs.names.isEmpty());
+		assertSameAsFullSimulation();
+	}
+
+	@Test
+	public void testProportionsAndFlow(){
+		c.simulate();
+		Multisplit ms = (Multisplit) s.getElement("MS");
+		ms.setProportions(0.5, 0.5, 0.0);
+		NameObserver obs = new NameObserver();
+		c.update(ms, obs);
+		// the first output keeps its flow, so the split branch is not visited;
+		// the input of the closed Tap D changes, but not what it lets through
+		assertEquals(List.of("MS", "Sink C", "Tap D"), obs.names);
+		assertSameAsFullSimulation();
+
+		((Source) s.getElement("Src")).setFlow(48);
+		s.getElement("Sink A").setMaxFlow(10);
+		obs = new NameObserver();
+		c.update(s.getElement("Src"), obs, true);
+		assertEquals(List.of("Src", "Tap", "MS", "T", "Sink A", "Tap B", "Sink B", "Sink C"), obs.names);
+		assertTrue("Max flows are copied only for the updated element", obs.errors.isEmpty());
+
+		obs = new NameObserver();
+		c.update(s.getElement("Sink A"), obs, true);
+		assertEquals(List.of("Sink A"), obs.names);
+		assertEquals(List.of("Sink A"), obs.errors);
+		assertSameAsFullSimulation();
+	}
+}
@@ -0,0 +1,113 @@
+package it.polito.oop.test;
+
+import hydraulic.*;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+
+public class TestR13_FlowBuffer {
+
+	private static HSystem system() {
+		HSystem s = SampleSystems.openTree(40);
+		s.getElement("MS").setMaxFlow(30);
+		s.getElement("Sink A").setMaxFlow(5);
+		return s;
+	}
+
+	private static void assertBufferMatches(CompiledSystem c, FlowResultBuffer buffer) {
+		for (int i = 0; i < c.size(); i++) {
+			assertEquals(c.getInFlow(i), buffer.getInFlow(i), 0.0);
+			for (int o = 0; o < c.getOutputCount(i); o++) {
+				assertEquals(c.getOutFlow(i, o), buffer.getOutFlow(i, o), 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void testBufferRecordsFlows(){
+		HSystem s = system();
+		CompiledSystem c = s.compile();
+		FlowResultBuffer buffer = new FlowResultBuffer(c);
+		assertTrue(Double.isNaN(buffer.getInFlow(1)));
+
+		c.simulate(buffer, true);
+		assertBufferMatches(c, buffer);
+		assertEquals(40.0, buffer.getInFlow(c.indexOf(s.getElement("MS"))), 0.0);
+		assertEquals(10.0, buffer.getOutFlow(c.indexOf(s.getElement("MS")), 1), 0.0);
+		assertEquals(2, buffer.getErrorCount());
+		assertTrue(buffer.hasError(c.indexOf(s.getElement("MS"))));
+		assertTrue(buffer.hasError(c.indexOf(s.getElement("Sink A"))));
+
+		// an incremental update resets the errors of the notified elements
+		((Source) s.getElement("Src")).setFlow(20);
+		c.update(s.getElement("Src"), buffer, true);
+		assertBufferMatches(c, buffer);
+		assertEquals(0, buffer.getErrorCount());
+
+		double[] flows = new double[c.size()];
+		buffer.copyInFlows(flows);
+		assertEquals(5.0, flows[c.indexOf(s.getElement("Sink B"))], 0.0);
+	}
+
+	@Test
+	public void testNotificationOrder(){
+		CompiledSystem c = system().compile();
+		StringBuilder order = new StringBuilder();
+		c.simulate(new FlowObserver() {
+			@Override
+			public void notifyFlow(int index, ElementKind kind, double inFlow) {
+				order.append(" ").append(index).append(kind.name().charAt(0));
+			}
+
+			@Override
+			public void notifyOutFlow(int index, int output, double outFlow) {
+				order.append(".");
+			}
+
+			@Override
+			public void notifyFlowError(int index, ElementKind kind, double inFlow, double maxFlow) {
+				order.append("!");
+			}
+		}, true);
+		assertEquals(" 0S. 1T. 2M...! 3S.. 4S! 5T. 6S 7S 8T. 9S", order.toString());
+	}
+
+	@Test
+	public void testNoAllocation(){
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+		Assume.assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+		int taps = 1_000_000;
+		HSystem s = new HSystem();
+		Source src = new Source("Src");
+		src.setFlow(3);
+		s.addElement(src);
+		Element last = src;
+		for (int i = 0; i < taps; i++) {
+			Tap tap = new Tap("T" + i);
+			tap.setOpen(i % 2 == 0);
+			s.addElement(tap);
+			last.connect(tap);
+			last = tap;
+		}
+		CompiledSystem c = s.compile();
+		FlowResultBuffer buffer = new FlowResultBuffer(c);
+		for (int i = 0; i < 5; i++) c.simulate(buffer, true);
+
+		long thread = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes(thread);
+		c.simulate(buffer, true);
+		long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+		assertTrue("Simulation allocated " + allocated + " bytes", allocated < 1024);
+		assertEquals(3.0, buffer.getInFlow(1), 0.0);
+		assertEquals(0.0, buffer.getInFlow(taps), 0.0);
+	}
+}
@@ -0,0 +1,152 @@
+package it.polito.oop.test;
+
+import hydraulic.*;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+
+public class TestR14_Parallel {
+
+	/**
+	 * builds a system with some sources, each feeding a balanced tree of splits
+	 */
+	private static HSystem forest(int sources, int depth) {
+		HSystem s = new HSystem();
+		for (int k = 0; k < sources; k++) {
+			Source src = new Source("Src " + k);
+			src.setFlow(1 << depth);
+			s.addElement(src);
+			Tap tap = new Tap("Tap " + k);
+			tap.setOpen(k % 3 != 2);
+			tap.setMaxFlow(k + 1);
+			s.addElement(tap);
+			src.connect(tap);
+			tap.connect(tree(s, "T " + k, depth));
+		}
+		return s;
+	}
+
+	private static Element tree(HSystem s, String name, int depth) {
+		if (depth == 0) {
+			Sink sink = new Sink(name);
+			s.addElement(sink);
+			return sink;
+		}
+		Split t = new Split(name);
+		t.setMaxFlow(1 << depth);
+		s.addElement(t);
+		t.connect(tree(s, name + ".0", depth - 1), 0);
+		t.connect(tree(s, name + ".1", depth - 1), 1);
+		return t;
+	}
+
+	@Test
+	public void testOrderedNotifications(){
+		HSystem s = forest(4, 10);
+		for (boolean check : new boolean[] {false, true}) {
+			RecordingObserver sequential = new RecordingObserver();
+			s.simulate(sequential, check);
+			for (int threshold : new int[] {1, 7, 100, Integer.MAX_VALUE}) {
+				RecordingObserver parallel = new RecordingObserver();
+				s.simulateParallel(parallel, check, threshold, NotificationOrder.ORDERED);
+				assertEquals("Ordered notifications should match a sequential simulation",
+						sequential.events, parallel.events);
+			}
+		}
+	}
+
+	@Test
+	public void testUnorderedNotifications(){
+		HSystem s = forest(3, 12);
+		RecordingObserver sequential = new RecordingObserver();
+		s.simulate(sequential, true);
+		RecordingObserver parallel = new RecordingObserver();
+		s.simulateParallel(parallel, true, 64, NotificationOrder.UNORDERED);
+
+		List<String> expected = new ArrayList<>(sequential.events);
+		List<String> actual = new ArrayList<>(parallel.events);
+		Collections.sort(expected);
+		Collections.sort(actual);
+		assertEquals("Unordered notifications should be the same as a sequential simulation", expected, actual);
+	}
+
+	@Test
+	public void testUnorderedFlowObserver(){
+		HSystem s = forest(2, 12);
+		CompiledSystem c = s.compile();
+		Map<Integer, Double> flows = new ConcurrentHashMap<>();
+		c.simulateParallel((index, kind, inFlow) -> flows.put(index, inFlow), false, 32, NotificationOrder.UNORDERED);
+
+		assertEquals("Every element should be notified once", c.size(), flows.size());
+		for (int i = 0; i < c.size(); i++) {
+			assertEquals(c.getInFlow(i), flows.get(i), 0.0);
+		}
+		int leaf = c.indexOf(s.getElement("T 0.0.0.0.0.0.0.0.0.0.0.0.0"));
+		assertEquals(1.0, c.getInFlow(leaf), 0.0);
+	}
+
+	@Test
+	public void testUnorderedFlowBuffer() throws Exception {
+		CompiledSystem c = forest(4, 12).compile();
+		for (int i = 0; i < c.size(); i++) {
+			c.getElement(i).setMaxFlow(0.5);
+		}
+		c.refresh();
+		FlowResultBuffer sequential = new FlowResultBuffer(c);
+		c.simulate(sequential, true);
+		assertTrue(sequential.getErrorCount() > 10_000);
+
+		// the tasks forked from a pool thread run in that pool, whatever the number of processors
+		ForkJoinPool pool = new ForkJoinPool(8);
+		for (int run = 0; run < 10; run++) {
+			FlowResultBuffer parallel = new FlowResultBuffer(c);
+			pool.submit(() -> c.simulateParallel(parallel, true, 1, NotificationOrder.UNORDERED)).get();
+			assertEquals("Errors should not be lost", sequential.getErrorCount(), parallel.getErrorCount());
+			for (int i = 0; i < c.size(); i++) {
+				assertEquals(sequential.getInFlow(i), parallel.getInFlow(i), 0.0);
+				assertEquals(sequential.hasError(i), parallel.hasError(i));
+			}
+		}
+		pool.shutdown();
+	}
+
+	@Test
+	public void testDeepChain(){
+		int taps = 100_000;
+		HSystem s = new HSystem();
+		Source src = new Source("Src");
+		src.setFlow(7);
+		s.addElement(src);
+		Element last = src;
+		for (int i = 0; i < taps; i++) {
+			Tap tap = new Tap("Tap " + i);
+			tap.setOpen(true);
+			s.addElement(tap);
+			last.connect(tap);
+			last = tap;
+		}
+		Sink sink = new Sink("Sink");
+		s.addElement(sink);
+		last.connect(sink);
+
+		StoreObserver obs = new StoreObserver();
+		s.simulateParallel(obs, false, 1, NotificationOrder.ORDERED);
+		assertEquals("Wrong sink input flow", 7.0, obs.inFlowOf("Sink"), 0.0);
+	}
+
+	@Test
+	public void testInvalidThreshold(){
+		HSystem s = forest(1, 2);
+		assertThrows(IllegalArgumentException.class,
+				() -> s.simulateParallel(new RecordingObserver(), false, 0, NotificationOrder.ORDERED));
+	}
+}
@@ -0,0 +1,96 @@
+package it.polito.oop.test;
+
+import hydraulic.*;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+
+public class TestR15_Coefficients {
+
+	private static HSystem system() {
+		HSystem s = SampleSystems.openTree(10);
+		Source other = new Source("Other");
+		other.setFlow(3);
+		Sink sink = new Sink("Sink E");
+		s.addElement(other);
+		s.addElement(sink);
+		other.connect(sink);
+		return s;
+	}
+
+	@Test
+	public void testCoefficients(){
+		HSystem s = system();
+		CompiledSystem c = s.compile();
+		FlowCoefficients k = c.computeCoefficients();
+		int src = c.indexOf(s.getElement("Src"));
+		int other = c.indexOf(s.getElement("Other"));
+
+		assertEquals(0.25, k.getCoefficient(c.indexOf(s.getElement("Sink A"))), 0.0);
+		assertEquals(0.25, k.getCoefficient(c.indexOf(s.getElement("Sink C"))), 0.0);
+		assertEquals(0.0, k.getCoefficient(c.indexOf(s.getElement("Sink D"))), 0.0);
+		assertEquals(0.5, k.getOutCoefficient(c.indexOf(s.getElement("MS")), 0), 0.0);
+		assertEquals(1.0, k.getCoefficient(c.indexOf(s.getElement("Sink E"))), 0.0);
+		assertTrue(Double.isNaN(k.getCoefficient(src)));
+		assertEquals(src, k.getSource(c.indexOf(s.getElement("Sink B"))));
+		assertEquals(other, k.getSource(c.indexOf(s.getElement("Sink E"))));
+
+		double[] vector = k.getCoefficients(src);
+		assertEquals(c.size(), vector.length);
+		assertEquals(1.0, vector[src], 0.0);
+		assertEquals(0.0, vector[c.indexOf(s.getElement("Sink E"))], 0.0);
+		assertThrows(IllegalArgumentException.class, () -> k.getCoefficients(c.indexOf(s.getElement("Tap"))));
+	}
+
+	@Test
+	public void testFlowsMatchSimulation(){
+		HSystem s = system();
+		CompiledSystem c = s.compile();
+		FlowCoefficients k = c.computeCoefficients();
+		Source src = (Source) s.getElement("Src");
+
+		for (double flow : new double[] {0, 1, 7.3, 1000}) {
+			src.setFlow(flow);
+			c.refresh();
+			c.simulate();
+			for (int i = 0; i < c.size(); i++) {
+				double sourceFlow = ((Source) c.getElement(k.getSource(i))).getFlow();
+				if (c.getKind(i) != ElementKind.SOURCE) {
+					assertEquals(c.getInFlow(i), k.getInFlow(i, sourceFlow), 1e-9);
+				}
+				for (int o = 0; o < c.getOutputCount(i); o++) {
+					assertEquals(c.getOutFlow(i, o), k.getOutFlow(i, o, sourceFlow), 1e-9);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testTapChanges(){
+		HSystem s = system();
+		CompiledSystem c = s.compile();
+		FlowCoefficients k = c.computeCoefficients();
+		int tap = c.indexOf(s.getElement("Tap"));
+		int tapD = c.indexOf(s.getElement("Tap D"));
+		int sinkA = c.indexOf(s.getElement("Sink A"));
+		int sinkD = c.indexOf(s.getElement("Sink D"));
+
+		k.setOpen(tapD, true);
+		assertTrue(k.isOpen(tapD));
+		assertFalse("The compiled system should not change", ((Tap) c.getElement(tapD)).isOpen());
+		assertEquals(0.25, k.getCoefficient(sinkD), 0.0);
+		assertEquals(2.5, k.getInFlow(sinkD, 10), 0.0);
+
+		k.setOpen(tap, false);
+		assertEquals(0.0, k.getCoefficient(sinkA), 0.0);
+		assertEquals(0.0, k.getCoefficient(sinkD), 0.0);
+		assertEquals(1.0, k.getCoefficient(c.indexOf(s.getElement("Sink E"))), 0.0);
+
+		k.setOpen(tap, true);
+		assertEquals(0.25, k.getCoefficient(sinkA), 0.0);
+		assertEquals(0.25, k.getCoefficient(sinkD), 0.0);
+		assertThrows(IllegalArgumentException.class, () -> k.setOpen(sinkA, true));
+	}
+}
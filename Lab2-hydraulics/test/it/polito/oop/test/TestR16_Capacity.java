@@ -0,0 +1,84 @@
+package it.polito.oop.test;
+
+import hydraulic.*;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+
+public class TestR16_Capacity {
+
+	private static HSystem system() {
+		HSystem s = SampleSystems.limitedTree(10);
+		s.getElement("Sink D").setMaxFlow(1);
+		return s;
+	}
+
+	@Test
+	public void testMaxSafeFlow(){
+		HSystem s = system();
+		CapacityAnalysis capacity = s.analyzeCapacity();
+		CompiledSystem c = capacity.getCoefficients().getSystem();
+		int src = c.indexOf(s.getElement("Src"));
+
+		assertEquals("Sink A should limit the source", 20.0, capacity.getMaxSafeFlow(src), 0.0);
+		assertSame(s.getElement("Sink A"), c.getElement(capacity.getBottleneck(src)));
+		assertThrows(IllegalArgumentException.class, () -> capacity.getMaxSafeFlow(src + 1));
+
+		// no error at the maximum safe flow, an error just above it
+		Source source = (Source) s.getElement("Src");
+		source.setFlow(20);
+		StoreObserver obs = new StoreObserver();
+		s.simulate(obs, true);
+		assertEquals(0, obs.getErrorCount());
+		source.setFlow(20.5);
+		obs = new StoreObserver();
+		s.simulate(obs, true);
+		assertEquals(1, obs.getErrorCount());
+	}
+
+	@Test
+	public void testHeadroom(){
+		HSystem s = system();
+		CapacityAnalysis capacity = s.analyzeCapacity();
+		CompiledSystem c = capacity.getCoefficients().getSystem();
+
+		assertEquals(30.0, capacity.getHeadroom(c.indexOf(s.getElement("Tap"))), 0.0);
+		assertEquals(10.0, capacity.getHeadroom(c.indexOf(s.getElement("T"))), 0.0);
+		assertEquals(2.5, capacity.getHeadroom(c.indexOf(s.getElement("Sink A"))), 0.0);
+		assertEquals("Closed taps leave the whole maximum flow",
+				1.0, capacity.getHeadroom(c.indexOf(s.getElement("Sink D"))), 0.0);
+		assertEquals(Double.POSITIVE_INFINITY, capacity.getHeadroom(c.indexOf(s.getElement("Sink C"))), 0.0);
+
+		((Source) s.getElement("Src")).setFlow(50);
+		capacity = s.analyzeCapacity();
+		assertEquals(-10.0, capacity.getHeadroom(c.indexOf(s.getElement("Tap"))), 0.0);
+	}
+
+	@Test
+	public void testTapChanges(){
+		HSystem s = system();
+		CompiledSystem c = s.compile();
+		FlowCoefficients k = c.computeCoefficients();
+		int src = c.indexOf(s.getElement("Src"));
+
+		k.setOpen(c.indexOf(s.getElement("Tap D")), true);
+		CapacityAnalysis capacity = k.computeCapacity();
+		assertEquals("Sink D should limit the source", 4.0, capacity.getMaxSafeFlow(src), 0.0);
+		assertSame(s.getElement("Sink D"), c.getElement(capacity.getBottleneck(src)));
+
+		k.setOpen(c.indexOf(s.getElement("Tap")), false);
+		capacity = k.computeCapacity();
+		assertEquals(40.0, capacity.getMaxSafeFlow(src), 0.0);
+		assertSame(s.getElement("Tap"), c.getElement(capacity.getBottleneck(src)));
+	}
+
+	@Test
+	public void testUnlimited(){
+		HSystem s = HSystem.build().addSource("Src").withFlow(5).linkToSink("Sink").complete();
+		CapacityAnalysis capacity = s.analyzeCapacity();
+		assertEquals(Double.POSITIVE_INFINITY, capacity.getMaxSafeFlow(0), 0.0);
+		assertEquals(-1, capacity.getBottleneck(0));
+	}
+}
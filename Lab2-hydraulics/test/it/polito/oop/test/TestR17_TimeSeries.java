@@ -0,0 +1,107 @@
+package it.polito.oop.test;
+
+import hydraulic.*;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+
+public class TestR17_TimeSeries {
+
+	private static HSystem system() {
+		return HSystem.build().
+			addSource("Src").withFlow(8).
+			linkToTap("Tap").open().
+			linkToMultisplit("MS", 2).withPropotions(new double[] {0.5, 0.5}).withOutputs().
+				linkToSink("Sink A").
+				then().linkToTap("Tap B").linkToSink("Sink B").
+			done().
+			complete();
+	}
+
+	@Test
+	public void testScheduledEvents() throws IOException {
+		HSystem s = system();
+		CompiledSystem c = s.compile();
+		int src = c.indexOf(s.getElement("Src"));
+		int sinkA = c.indexOf(s.getElement("Sink A"));
+		int sinkB = c.indexOf(s.getElement("Sink B"));
+
+		TimeSeriesSimulation sim = new TimeSeriesSimulation(c, 0);
+		sim.schedule(FlowEvent.setProportions(30, (Multisplit) s.getElement("MS"), 0.75, 0.25));
+		sim.schedule(FlowEvent.setOpen(10, (Tap) s.getElement("Tap B"), true));
+		sim.schedule(FlowEvent.setFlow(20, (Source) s.getElement("Src"), 4));
+		sim.schedule(FlowEvent.setFlow(20, (Source) s.getElement("Src"), 16));
+		assertEquals(4, sim.getPendingEvents());
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (FlowSeriesWriter out = new FlowSeriesWriter(bytes, c.size(), 16)) {
+			sim.run(40, 1, out);
+		}
+		assertEquals(0, sim.getPendingEvents());
+		assertEquals(40, sim.getTime());
+		assertEquals(12.0, sim.getFlow(sinkA), 0.0);
+
+		try (FlowSeriesReader in = new FlowSeriesReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+			assertEquals(c.size(), in.getPositions());
+			for (int t = 0; t < 40; t++) {
+				assertTrue("Missing step " + t, in.next());
+				assertEquals(t, in.getTime());
+				double flow = t < 20 ? 8 : 16;
+				double a = t < 30 ? 0.5 : 0.75;
+				assertEquals(flow, in.getFlow(src), 0.0);
+				assertEquals(flow * a, in.getFlow(sinkA), 0.0);
+				assertEquals(t < 10 ? 0.0 : flow * (1 - a), in.getFlow(sinkB), 0.0);
+			}
+			assertFalse(in.next());
+		}
+
+		// constant columns are written once per block, instead of once per step
+		assertTrue("Series should be compact", bytes.size() < 40 * c.size() * Double.BYTES);
+	}
+
+	@Test
+	public void testIrregularSteps() throws IOException {
+		HSystem s = system();
+		TimeSeriesSimulation sim = new TimeSeriesSimulation(s, 100);
+		int sinkA = sim.getSystem().indexOf(s.getElement("Sink A"));
+		sim.schedule(FlowEvent.setOpen(105, (Tap) s.getElement("Tap"), false));
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (FlowSeriesWriter out = new FlowSeriesWriter(bytes, sim.getSystem().size())) {
+			sim.run(110, 2, out);
+			sim.run(113, 3, out);
+		}
+		assertThrows(IllegalArgumentException.class,
+				() -> sim.schedule(FlowEvent.setOpen(50, (Tap) s.getElement("Tap"), true)));
+
+		long[] times = {100, 102, 104, 106, 108, 110};
+		double[] flows = {4, 4, 4, 0, 0, 0};
+		try (FlowSeriesReader in = new FlowSeriesReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+			for (int k = 0; k < times.length; k++) {
+				assertTrue(in.next());
+				assertEquals(times[k], in.getTime());
+				assertEquals(flows[k], in.getFlow(sinkA), 0.0);
+			}
+			assertFalse(in.next());
+		}
+	}
+
+	@Test
+	public void testInvalidArguments() throws IOException {
+		HSystem s = system();
+		TimeSeriesSimulation sim = new TimeSeriesSimulation(s, 0);
+		FlowSeriesWriter out = new FlowSeriesWriter(new ByteArrayOutputStream(), sim.getSystem().size());
+		assertThrows(IllegalArgumentException.class, () -> sim.run(10, 0, out));
+		FlowSeriesWriter wrong = new FlowSeriesWriter(new ByteArrayOutputStream(), 2);
+		assertThrows(IllegalArgumentException.class, () -> sim.run(10, 1, wrong));
+		out.append(0, new double[sim.getSystem().size()]);
+		assertThrows(IllegalArgumentException.class, () -> out.append(0, new double[sim.getSystem().size()]));
+		assertThrows(IOException.class, () -> new FlowSeriesReader(new ByteArrayInputStream(new byte[8])));
+	}
+}
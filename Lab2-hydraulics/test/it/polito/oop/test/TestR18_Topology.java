@@ -0,0 +1,190 @@
+package it.polito.oop.test;
+
+import hydraulic.*;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+
+public class TestR18_Topology {
+
+	private static HSystem system() {
+		HSystem s = SampleSystems.limitedTree(20);
+		Source other = new Source("Other [2] source");
+		other.setFlow(3.3);
+		Split half = new Split("Half");
+		Sink sink = new Sink("Sink E");
+		s.addElement(other);
+		s.addElement(half);
+		s.addElement(sink);
+		other.connect(half);
+		half.connect(sink, 1);
+		return s;
+	}
+
+	private static String text(CompiledSystem c) throws IOException {
+		StringWriter out = new StringWriter();
+		TopologyFormat.writeText(c, out);
+		return out.toString();
+	}
+
+	private static void assertSameSystem(CompiledSystem expected, CompiledSystem actual) {
+		assertEquals("Wrong number of elements", expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.getKind(i), actual.getKind(i));
+			assertEquals("Layout should round-trip",
+					expected.getElement(i).toString(), actual.getElement(i).toString());
+			assertEquals(expected.getElement(i).getMaxFlow(), actual.getElement(i).getMaxFlow(), 0.0);
+		}
+		RecordingObserver before = new RecordingObserver();
+		expected.simulate(before, true);
+		RecordingObserver after = new RecordingObserver();
+		actual.simulate(after, true);
+		assertEquals("Loaded system should simulate the same", before.events, after.events);
+	}
+
+	@Test
+	public void testTextRoundTrip() throws IOException {
+		CompiledSystem c = system().compile();
+		String text = text(c);
+		assertTrue(text, text.startsWith("[Src] Source 20.0\n+-> [Tap] Tap open max=40.0\n    +-> [MS] Multisplit 3 0.5 0.25 0.25\n"));
+		assertTrue(text, text.contains("\n[Other [2] source] Source 3.3\n+-> [Half] Split\n    +-> *\n    +-> [Sink E] Sink\n"));
+
+		CompiledSystem loaded = TopologyFormat.readText(new StringReader(text));
+		assertSameSystem(c, loaded);
+		assertEquals(text, text(loaded));
+		assertSame("Elements should be connected",
+				loaded.getElement(loaded.indexOf(loaded.getElement(2))), loaded.getElement(1).getOutput());
+	}
+
+	@Test
+	public void testBinaryRoundTrip() throws IOException {
+		CompiledSystem c = system().compile();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		TopologyFormat.writeBinary(c, bytes);
+		CompiledSystem loaded = TopologyFormat.readBinary(new ByteArrayInputStream(bytes.toByteArray()));
+		assertSameSystem(c, loaded);
+		assertEquals(text(c), text(loaded));
+	}
+
+	@Test
+	public void testWideSystem() throws IOException {
+		int taps = 200_000;
+		StringBuilder text = new StringBuilder("[Src] Source 8.0\n");
+		text.append("+-> [MS] Multisplit ").append(taps);
+		text.append(" 0.5 0.5").append(" 0.0".repeat(taps - 2)).append('\n');
+		for (int i = 0; i < taps; i++) {
+			text.append("    +-> [Tap ").append(i).append("] Tap open\n");
+			text.append("        +-> [Sink ").append(i).append("] Sink\n");
+		}
+		CompiledSystem c = TopologyFormat.readText(new StringReader(text.toString()));
+		assertEquals(2 * taps + 2, c.size());
+		c.simulate();
+		assertEquals("Sink 1", c.getElement(5).getName());
+		assertEquals(4.0, c.getInFlow(5), 0.0);
+		assertEquals(text.toString(), text(c));
+	}
+
+	@Test
+	public void testDeepChain() throws IOException {
+		int taps = 200_000;
+		HSystem s = new HSystem();
+		Source src = new Source("Src");
+		src.setFlow(7);
+		s.addElement(src);
+		Element last = src;
+		for (int i = 0; i < taps; i++) {
+			Tap tap = new Tap("Tap " + i);
+			tap.setOpen(true);
+			s.addElement(tap);
+			last.connect(tap);
+			last = tap;
+		}
+		Sink sink = new Sink("Sink");
+		s.addElement(sink);
+		last.connect(sink);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		TopologyFormat.writeBinary(s.compile(), bytes);
+		CompiledSystem loaded = TopologyFormat.readBinary(new ByteArrayInputStream(bytes.toByteArray()));
+		assertEquals(taps + 2, loaded.size());
+		loaded.simulate();
+		assertEquals(7.0, loaded.getInFlow(taps + 1), 0.0);
+		assertEquals("Sink", loaded.getElement(taps + 1).getName());
+	}
+
+	@Test
+	public void testValidation() {
+		assertInvalid("[T] Split\n");
+		assertInvalid("[Src] Source 1.0\n");
+		assertInvalid("[Src] Source 1.0\n+-> [S] Sink\n+-> [S2] Sink\n");
+		assertInvalid("[Src] Source 1.0\n        +-> [S] Sink\n");
+		assertInvalid("[Src] Source 1.0\n+-> [X] Valve\n");
+		assertInvalid("[Src] Source 1.0\n+-> [Tap] Tap ajar\n    +-> *\n");
+		assertInvalid("[Src] Source 1.0\n+-> [Src 2] Source 2.0\n");
+		assertInvalid("[Src] Source 1.0\n+-> [MS] Multisplit 2 0.5 0.6\n    +-> *\n    +-> *\n");
+		assertInvalid("[Src] Source 1.0\n+-> [MS] Multisplit 2\n    +-> *\n    +-> *\n");
+		assertThrows(IOException.class, () -> TopologyFormat.readBinary(new ByteArrayInputStream(new byte[8])));
+	}
+
+	private static void assertInvalid(String text) {
+		assertThrows(text, IOException.class, () -> TopologyFormat.readText(new StringReader(text)));
+	}
+
+	@Test
+	public void testMultisplitProportions() throws IOException {
+		HSystem s = HSystem.build().
+			addSource("Src").withFlow(12).
+			linkToMultisplit("MS", 3).withPropotions(new double[] {0.5, 0.375, 0.125}).withOutputs().
+				linkToSink("A").
+				then().linkToSink("B").
+				then().linkToSink("C").
+			done().
+			complete();
+		CompiledSystem c = s.compile();
+		String text = text(c);
+		assertTrue(text, text.contains("[MS] Multisplit 3 0.5 0.375 0.125\n"));
+		CompiledSystem fromText = TopologyFormat.readText(new StringReader(text));
+		assertSameSystem(c, fromText);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		TopologyFormat.writeBinary(c, bytes);
+		CompiledSystem fromBinary = TopologyFormat.readBinary(new ByteArrayInputStream(bytes.toByteArray()));
+		assertSameSystem(c, fromBinary);
+		Multisplit ms = (Multisplit) fromBinary.getElement(1);
+		assertEquals(0.375, ms.getProportion(1), 0.0);
+
+		// without proportions a multisplit cannot be compiled, hence neither written nor read
+		HSystem undefined = new HSystem();
+		Source src = new Source("Src");
+		Multisplit split = new Multisplit("MS", 2);
+		undefined.addElement(src);
+		undefined.addElement(split);
+		src.connect(split);
+		assertThrows(IllegalStateException.class, undefined::compile);
+		assertInvalid("[Src] Source 1.0\n+-> [MS] Multisplit 2\n    +-> *\n    +-> *\n");
+		assertInvalid("[Src] Source 1.0\n+-> [MS] Multisplit 2 1.0\n    +-> *\n    +-> *\n");
+	}
+
+	@Test
+	public void testSharedElement() {
+		HSystem s = new HSystem();
+		Source src = new Source("Src");
+		Split t = new Split("T");
+		Sink sink = new Sink("Sink");
+		s.addElement(src);
+		s.addElement(t);
+		s.addElement(sink);
+		src.connect(t);
+		t.connect(sink, 0);
+		t.connect(sink, 1);
+		assertThrows(IllegalArgumentException.class, () -> text(s.compile()));
+	}
+}
@@ -0,0 +1,118 @@
+package it.polito.oop.test;
+
+import hydraulic.*;
+
+import static org.junit.Assert.*;
+import static it.polito.oop.test.OOPAssertions.*;
+
+import org.junit.Test;
+
+
+public class TestR9_LargeSystems {
+
+	private static final int TAPS = 200_000;
+
+	private static HSystem chain(Tap[] taps) {
+		HSystem s = new HSystem();
+		Source src = new Source("Src");
+		s.addElement(src);
+		Element last = src;
+		for (int i = 0; i < taps.length; i++) {
+			taps[i] = new Tap("Tap " + i);
+			s.addElement(taps[i]);
+			last.connect(taps[i]);
+			last = taps[i];
+		}
+		Sink sink = new Sink("Sink");
+		s.addElement(sink);
+		last.connect(sink);
+		return s;
+	}
+
+	@Test
+	public void testManyElements(){
+		Tap[] taps = new Tap[TAPS];
+		HSystem s = chain(taps);
+
+		assertEquals("Wrong number of elements", TAPS + 2, s.size());
+		Element[] elements = s.getElements();
+		assertEquals(TAPS + 2, elements.length);
+		assertSame("Elements should not be copied when the system is unchanged", elements, s.getElements());
+		assertEquals("Src", elements[0].getName());
+		assertEquals("Sink", elements[TAPS + 1].getName());
+		assertSameElement("Wrong element by name", taps[12345], s.getElement("Tap 12345"));
+		assertSameElement("Wrong upstream", taps[12344], taps[12345].getUpstream());
+		assertNull(s.getElement("Tap " + TAPS));
+	}
+
+	@Test
+	public void testManyDeletes(){
+		Tap[] taps = new Tap[TAPS];
+		HSystem s = chain(taps);
+		Element[] before = s.getElements();
+
+		for (int i = 0; i < TAPS; i += 2) {
+			assertTrue("Operation should be permitted!", s.deleteElement("Tap " + i));
+		}
+
+		assertEquals("Wrong number of elements after deletes", TAPS / 2 + 2, s.size());
+		assertEquals("Arrays already returned should not change", TAPS + 2, before.length);
+		Element[] elements = s.getElements();
+		assertEquals(TAPS / 2 + 2, elements.length);
+		assertSameElement("Output not fixed after delete", taps[1], elements[0].getOutput());
+		for (int i = 1; i + 2 < TAPS; i += 2) {
+			assertSameElement("Output not fixed after delete", taps[i + 2], taps[i].getOutput());
+			assertSameElement("Upstream not fixed after delete", taps[i], taps[i + 2].getUpstream());
+		}
+		assertSameElement("Upstream not fixed after delete", elements[0], taps[1].getUpstream());
+		assertNull(s.getElement("Tap 0"));
+		assertFalse(s.deleteElement("Tap 0"));
+
+		// delete the rest, down to source and sink
+		for (int i = 1; i < TAPS; i += 2) {
+			assertTrue(s.deleteElement("Tap " + i));
+		}
+		assertEquals(2, s.size());
+		assertEquals("Sink", s.getElements()[0].getOutput().getName());
+	}
+
+	@Test
+	public void testSharedNames(){
+		HSystem s = new HSystem();
+		Source src = new Source("Src");
+		Tap first = new Tap("Tap");
+		Tap second = new Tap("Tap");
+		Sink sink = new Sink("Sink");
+		s.addElement(src);
+		s.addElement(first);
+		s.addElement(second);
+		s.addElement(sink);
+		s.addElement(first);
+		src.connect(first);
+		first.connect(second);
+		second.connect(sink);
+
+		assertEquals("Adding an element twice should have no effect", 4, s.size());
+		assertSameElement("First element with the name expected", first, s.getElement("Tap"));
+		assertTrue(s.deleteElement("Tap"));
+		assertSameElement("Output not fixed after delete", second, src.getOutput());
+		assertSameElement("Next element with the name expected", second, s.getElement("Tap"));
+		assertTrue(s.deleteElement("Tap"));
+		assertSameElement("Output not fixed after delete", sink, src.getOutput());
+		assertNull(s.getElement("Tap"));
+	}
+
+	@Test
+	public void testDeleteSource(){
+		HSystem s = new HSystem();
+		Source src = new Source("Src");
+		Tap tap = new Tap("Tap");
+		s.addElement(src);
+		s.addElement(tap);
+		src.connect(tap);
+
+		assertSameElement("Wrong upstream", src, tap.getUpstream());
+		assertTrue(s.deleteElement("Src"));
+		assertNull("Upstream should be cleared", tap.getUpstream());
+	}
+}